@@ -117,6 +117,21 @@ public class AppOption {
   /** Menu Options: CacheOverride (Boolean, Default: true) */
   public static final AppOption CACHE_OVERRIDE = new AppOption(OptionsMenuItem.OPTION_CACHEOVERRIDE,
       "Autocheck for Overrides", true);
+  /** Menu Options: CacheBifArchives (Boolean, Default: false) */
+  public static final AppOption CACHE_BIF_ARCHIVES = new AppOption(OptionsMenuItem.OPTION_CACHE_BIF_ARCHIVES,
+      "Cache Decompressed BIF Archives", false);
+  /** Menu Options: BifCacheSize (Integer, Default: 2) */
+  public static final AppOption BIF_CACHE_SIZE = new AppOption(OptionsMenuItem.OPTION_BIF_CACHE_SIZE,
+      "Max. Size of BIF Archive Cache", 2);
+  /** Menu Options: ReferenceIndex (Boolean, Default: false) */
+  public static final AppOption REFERENCE_INDEX = new AppOption(OptionsMenuItem.OPTION_REFERENCE_INDEX,
+      "Index Resource References", false);
+  /** Menu Options: ScriptCache (Boolean, Default: false) */
+  public static final AppOption SCRIPT_CACHE = new AppOption(OptionsMenuItem.OPTION_SCRIPT_CACHE,
+      "Store Compiled Dialog Scripts", false);
+  /** Menu Options: GraphicsCacheSize (Integer, Default: 2) */
+  public static final AppOption GRAPHICS_CACHE_SIZE = new AppOption(OptionsMenuItem.OPTION_GRAPHICS_CACHE_SIZE,
+      "Max. Size of Graphics Cache", 2);
   /** Menu Options: UpdateTreeOnCopy (Boolean, Default: false) */
   public static final AppOption KEEP_VIEW_ON_COPY = new AppOption(OptionsMenuItem.OPTION_KEEPVIEWONCOPY,
       "Keep View after Copy Operations", false);
@@ -104,15 +104,18 @@
 import org.infinity.resource.Viewable;
 import org.infinity.resource.ViewableContainer;
 import org.infinity.resource.are.AreResource;
+import org.infinity.resource.bcs.CompiledScriptCache;
 import org.infinity.resource.bcs.Signatures;
 import org.infinity.resource.cre.decoder.util.ItemInfo;
 import org.infinity.resource.cre.decoder.util.SpriteUtils;
 import org.infinity.resource.effects.BaseOpcode;
 import org.infinity.resource.graphics.ColorConvert;
+import org.infinity.resource.graphics.GraphicsCache;
 import org.infinity.resource.key.FileResourceEntry;
 import org.infinity.resource.key.ResourceEntry;
 import org.infinity.resource.key.ResourceTreeModel;
 import org.infinity.resource.text.PlainTextResource;
+import org.infinity.search.ReferenceIndex;
 import org.infinity.updater.UpdateCheck;
 import org.infinity.updater.UpdateInfo;
 import org.infinity.updater.Updater;
@@ -130,6 +133,7 @@
 import org.infinity.util.Platform;
 import org.infinity.util.StringTable;
 import org.infinity.util.Table2daCache;
+import org.infinity.util.io.DirectoryCache;
 import org.infinity.util.io.DlcManager;
 import org.infinity.util.io.FileEx;
 import org.infinity.util.io.FileManager;
@@ -456,6 +460,7 @@ protected Void doInBackground() throws Exception {
         advanceProgress("Initializing GUI...");
         BrowserMenuBar.getInstance().gameLoaded(Profile.Game.Unknown, null);
         CreMapCache.reset();
+        ReferenceIndex.reset();
         BaseOpcode.initOpcodes();
 
         return null;
@@ -850,6 +855,7 @@ public void openGame(Path keyFile) {
       }
 
       CreMapCache.reset();
+      ReferenceIndex.reset();
       removeViewable();
       ResourceTreeModel treemodel = ResourceFactory.getResourceTreeModel();
       updateWindowTitle();
@@ -1162,6 +1168,7 @@ private static boolean reloadFactory(boolean refreshOnly) {
       retVal = Profile.openGame(keyFile, BrowserMenuBar.getInstance().getGameMenu().getBookmarkName(keyFile));
       if (retVal) {
         CreMapCache.reset();
+        ReferenceIndex.reset();
       }
     }
     return retVal;
@@ -1181,12 +1188,16 @@ private static void clearCache(boolean refreshOnly) {
     IniMapCache.clearCache();
     Table2daCache.clearCache();
     CreMapCache.clearCache();
+    ReferenceIndex.clearCache();
+    CompiledScriptCache.clearCache();
     BaseOpcode.reset();
 //    SearchFrame.clearCache();
     StringTable.resetAll();
     ProRef.clearCache();
     Signatures.clearCache();
     ColorConvert.clearCache();
+    Logger.debug("{}", GraphicsCache.getInstance());
+    GraphicsCache.getInstance().clear();
     SpriteUtils.clearCache();
     ItemInfo.clearCache();
     AreResource.clearCache();
@@ -1194,6 +1205,7 @@ private static void clearCache(boolean refreshOnly) {
     Song2daBitmap.resetSonglist();
     SpellProtType.resetTypeTable();
     Summon2daBitmap.resetSummonTable();
+    DirectoryCache.clearCache();
     DlcManager.close();
   }
 
@@ -35,6 +35,7 @@
 import org.infinity.icon.Icons;
 import org.infinity.resource.Resource;
 import org.infinity.resource.ResourceFactory;
+import org.infinity.resource.bcs.BcsReferenceReader;
 import org.infinity.resource.bcs.BcsResource;
 import org.infinity.resource.bcs.Decompiler;
 import org.infinity.resource.bcs.ScriptType;
@@ -182,7 +183,6 @@ protected Runnable newWorker(ResourceEntry entry) {
       } catch (Exception e) {
         Logger.error(e);
       }
-      advanceProgress();
     };
   }
 
@@ -194,6 +194,23 @@ protected Runnable newWorker(ResourceEntry entry) {
    * @throws Exception If {@code script} contains invalid code
    */
   private void checkScript(BcsResource script) throws Exception {
+    // only scripts with relevant errors have to be decompiled for the line numbers
+    final boolean[] found = { false };
+    final BcsReferenceReader reader = new BcsReferenceReader(new BcsReferenceReader.Listener() {
+      @Override
+      public void error(String message) {
+        found[0] |= isRelevantError(message);
+      }
+    });
+    try {
+      reader.read(script.getCode());
+    } catch (Exception e) {
+      found[0] = true;
+    }
+    if (!found[0]) {
+      return;
+    }
+
     final Decompiler decompiler = new Decompiler(script.getCode(), ScriptType.BCS, true);
     decompiler.setGenerateComments(false);
     decompiler.setGenerateResourcesUsed(true);
@@ -201,8 +218,7 @@ private void checkScript(BcsResource script) throws Exception {
     for (final Map.Entry<Integer, String> e : decompiler.getIdsErrors().entrySet()) {
       final Integer lineNr = e.getKey();
       final String error = e.getValue();
-      if (!error.contains("GTIMES.IDS") && !error.contains("SCROLL.IDS") && !error.contains("SHOUTIDS.IDS")
-          && !error.contains("SPECIFIC.IDS") && !error.contains("TIME.IDS")) {
+      if (isRelevantError(error)) {
         synchronized (this) {
           table.addTableItem(new BCSIDSErrorTableLine(script.getResourceEntry(), error, lineNr));
         }
@@ -210,6 +226,12 @@ private void checkScript(BcsResource script) throws Exception {
     }
   }
 
+  /** Returns whether the specified decompiler error should be listed. */
+  private static boolean isRelevantError(String error) {
+    return !error.contains("GTIMES.IDS") && !error.contains("SCROLL.IDS") && !error.contains("SHOUTIDS.IDS")
+        && !error.contains("SPECIFIC.IDS") && !error.contains("TIME.IDS");
+  }
+
   // -------------------------- INNER CLASSES --------------------------
 
   private static final class BCSIDSErrorTableLine implements TableItem {
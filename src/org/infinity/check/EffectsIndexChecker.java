@@ -44,7 +44,6 @@ protected Runnable newWorker(ResourceEntry entry) {
       if (resource instanceof AbstractStruct) {
         search(entry, (AbstractStruct) resource);
       }
-      advanceProgress();
     };
   }
 
@@ -38,23 +38,20 @@ public void run() {
   @Override
   protected Runnable newWorker(ResourceEntry entry) {
     return () -> {
-      final Resource resource = ResourceFactory.getResource(entry);
+      final Resource resource = ResourceFactory.getResourceReadOnly(entry);
       if (resource instanceof AbstractStruct) {
         search(entry, (AbstractStruct) resource);
       }
-      advanceProgress();
     };
   }
 
   private void search(ResourceEntry entry, AbstractStruct struct) {
-    for (final StructEntry e : struct.getFlatFields()) {
-      if (e instanceof IdsBitmap) {
-        final IdsBitmap ref = (IdsBitmap) e;
-        final long value = ref.getLongValue();
-        if (value != 0L && ref.getDataOf(value) == null) {
-          synchronized (hitFrame) {
-            hitFrame.addHit(entry, entry.getSearchString(), ref);
-          }
+    for (final StructEntry e : struct.getFlatFields(IdsBitmap.class)) {
+      final IdsBitmap ref = (IdsBitmap) e;
+      final long value = ref.getLongValue();
+      if (value != 0L && ref.getDataOf(value) == null) {
+        synchronized (hitFrame) {
+          hitFrame.addHit(entry, entry.getSearchString(), ref);
         }
       }
     }
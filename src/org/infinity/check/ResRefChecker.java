@@ -54,20 +54,15 @@ public void run() {
   @Override
   protected Runnable newWorker(ResourceEntry entry) {
     return () -> {
-      final Resource resource = ResourceFactory.getResource(entry);
+      final Resource resource = ResourceFactory.getResourceReadOnly(entry);
       if (resource instanceof AbstractStruct) {
         search(entry, (AbstractStruct) resource);
       }
-      advanceProgress();
     };
   }
 
   private void search(ResourceEntry entry, AbstractStruct struct) {
-    for (final StructEntry e : struct.getFlatFields()) {
-      if (!(e instanceof ResourceRef)) {
-        continue;
-      }
-
+    for (final StructEntry e : struct.getFlatFields(ResourceRef.class)) {
       final ResourceRef ref = (ResourceRef) e;
       final String resourceName = ref.getResourceName();
 
@@ -15,6 +15,7 @@
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -45,9 +46,9 @@
 import org.infinity.resource.Resource;
 import org.infinity.resource.ResourceFactory;
 import org.infinity.resource.StructEntry;
+import org.infinity.resource.bcs.BcsReferenceReader;
 import org.infinity.resource.bcs.BcsResource;
-import org.infinity.resource.bcs.Compiler;
-import org.infinity.resource.bcs.Decompiler;
+import org.infinity.resource.bcs.CompiledScriptCache;
 import org.infinity.resource.bcs.ScriptType;
 import org.infinity.resource.dlg.AbstractCode;
 import org.infinity.resource.dlg.Action;
@@ -220,7 +221,7 @@ public void mouseReleased(MouseEvent event) {
   @Override
   protected Runnable newWorker(ResourceEntry entry) {
     return () -> {
-      final Resource resource = ResourceFactory.getResource(entry);
+      final Resource resource = ResourceFactory.getResourceReadOnly(entry);
       if (resource instanceof DlgResource) {
         checkDialog((DlgResource) resource);
       } else if (resource instanceof BcsResource) {
@@ -230,7 +231,6 @@ protected Runnable newWorker(ResourceEntry entry) {
       } else if (resource instanceof AbstractStruct) {
         checkStruct((AbstractStruct) resource);
       }
-      advanceProgress();
     };
   }
 
@@ -242,9 +242,9 @@ private void checkDialog(DlgResource dialog) {
         try {
           final AbstractCode code = (AbstractCode) entry;
           final ScriptType type = code instanceof Action ? ScriptType.ACTION : ScriptType.TRIGGER;
-          final Compiler compiler = new Compiler(code.getText(), type);
+          final CompiledScriptCache.Result result = CompiledScriptCache.get(code.getText(), type);
 
-          checkCode(compiler.getCode(), type);
+          checkReferences(result.getResourcesUsed(), result.getStringRefsUsed());
         } catch (Exception e) {
           Logger.error(e);
         }
@@ -295,16 +295,35 @@ private void checkTextfile(PlainTextResource text) {
    * @throws Exception If {@code compiledCode} contains invalid code
    */
   private void checkCode(String compiledCode, ScriptType type) throws Exception {
-    final Decompiler decompiler = new Decompiler(compiledCode, type, true);
-    decompiler.setGenerateComments(false);
-    decompiler.setGenerateResourcesUsed(true);
-    decompiler.decompile();
+    final Set<ResourceEntry> resourcesUsed = new HashSet<>();
+    final Set<Integer> strrefsUsed = new HashSet<>();
+    final BcsReferenceReader reader = new BcsReferenceReader(new BcsReferenceReader.Listener() {
+      @Override
+      public void resource(ResourceEntry entry) {
+        resourcesUsed.add(entry);
+      }
+
+      @Override
+      public void stringRef(int strref) {
+        strrefsUsed.add(strref);
+      }
+    });
+    reader.read(compiledCode, type);
+
+    checkReferences(resourcesUsed, strrefsUsed);
+  }
 
+  /**
+   * Removes from {@link #unusedResources} all specified resources and all sounds of the specified strings.
+   * <p>
+   * This method can be called from several threads
+   */
+  private void checkReferences(Set<ResourceEntry> resourcesUsed, Set<Integer> strrefsUsed) {
     synchronized (unusedResources) {
-      for (final ResourceEntry entry : decompiler.getResourcesUsed()) {
+      for (final ResourceEntry entry : resourcesUsed) {
         unusedResources.remove(entry.getResourceName());
       }
-      for (final int strref : decompiler.getStringRefsUsed()) {
+      for (final int strref : strrefsUsed) {
         checkSound(strref);
       }
     }
@@ -11,6 +11,7 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -42,9 +43,9 @@
 import org.infinity.resource.Resource;
 import org.infinity.resource.ResourceFactory;
 import org.infinity.resource.StructEntry;
+import org.infinity.resource.bcs.BcsReferenceReader;
 import org.infinity.resource.bcs.BcsResource;
-import org.infinity.resource.bcs.Compiler;
-import org.infinity.resource.bcs.Decompiler;
+import org.infinity.resource.bcs.CompiledScriptCache;
 import org.infinity.resource.bcs.ScriptType;
 import org.infinity.resource.dlg.AbstractCode;
 import org.infinity.resource.dlg.Action;
@@ -314,7 +315,7 @@ public void run() {
   @Override
   protected Runnable newWorker(ResourceEntry entry) {
     return () -> {
-      final Resource resource = ResourceFactory.getResource(entry);
+      final Resource resource = ResourceFactory.getResourceReadOnly(entry);
       if (resource instanceof DlgResource) {
         checkDialog((DlgResource) resource);
       } else if (resource instanceof BcsResource) {
@@ -331,7 +332,6 @@ protected Runnable newWorker(ResourceEntry entry) {
       } else if (resource instanceof AbstractStruct) {
         checkStruct((AbstractStruct) resource);
       }
-      advanceProgress();
     };
   }
 
@@ -372,9 +372,11 @@ private void checkDialog(DlgResource dialog) {
         final AbstractCode code = (AbstractCode) entry;
         try {
           final ScriptType type = code instanceof Action ? ScriptType.ACTION : ScriptType.TRIGGER;
-          final Compiler compiler = new Compiler(code.getText(), type);
+          final CompiledScriptCache.Result result = CompiledScriptCache.get(code.getText(), type);
 
-          checkCode(compiler.getCode(), type);
+          for (final Integer stringRef : result.getStringRefsUsed()) {
+            updateStringUsed(stringRef);
+          }
         } catch (Exception e) {
           Logger.error(e);
         }
@@ -487,12 +489,16 @@ private void checkMenu(String text) {
    * @throws Exception If {@code compiledCode} contains invalid code
    */
   private void checkCode(String compiledCode, ScriptType type) throws Exception {
-    final Decompiler decompiler = new Decompiler(compiledCode, type, true);
-    decompiler.setGenerateComments(false);
-    decompiler.setGenerateResourcesUsed(true);
-    decompiler.decompile();
+    final Set<Integer> strrefsUsed = new HashSet<>();
+    final BcsReferenceReader reader = new BcsReferenceReader(new BcsReferenceReader.Listener() {
+      @Override
+      public void stringRef(int strref) {
+        strrefsUsed.add(strref);
+      }
+    });
+    reader.read(compiledCode, type);
 
-    for (final Integer stringRef : decompiler.getStringRefsUsed()) {
+    for (final Integer stringRef : strrefsUsed) {
       updateStringUsed(stringRef);
     }
   }
@@ -264,8 +264,6 @@ protected Runnable newWorker(ResourceEntry entry) {
       } catch (Exception e) {
         Logger.error(e);
       }
-
-      advanceProgress();
     };
   }
 
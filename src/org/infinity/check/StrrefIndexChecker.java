@@ -9,6 +9,8 @@
 import java.awt.event.ActionEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -37,8 +39,9 @@
 import org.infinity.resource.StructEntry;
 import org.infinity.resource.TextResource;
 import org.infinity.resource.are.AutomapNote;
+import org.infinity.resource.bcs.BcsReferenceReader;
 import org.infinity.resource.bcs.BcsResource;
-import org.infinity.resource.bcs.Compiler;
+import org.infinity.resource.bcs.CompiledScriptCache;
 import org.infinity.resource.bcs.Decompiler;
 import org.infinity.resource.bcs.ScriptType;
 import org.infinity.resource.dlg.AbstractCode;
@@ -176,7 +179,7 @@ public void mouseReleased(MouseEvent event) {
   @Override
   protected Runnable newWorker(ResourceEntry entry) {
     return () -> {
-      final Resource resource = ResourceFactory.getResource(entry);
+      final Resource resource = ResourceFactory.getResourceReadOnly(entry);
       if (resource instanceof DlgResource) {
         checkDialog((DlgResource) resource);
       } else if (resource instanceof BcsResource) {
@@ -186,7 +189,6 @@ protected Runnable newWorker(ResourceEntry entry) {
       } else if (resource instanceof AbstractStruct) {
         checkStruct((AbstractStruct) resource);
       }
-      advanceProgress();
     };
   }
 
@@ -203,13 +205,9 @@ private void checkDialog(DlgResource dialog) {
         final AbstractCode code = (AbstractCode) entry;
         try {
           final ScriptType type = code instanceof Action ? ScriptType.ACTION : ScriptType.TRIGGER;
-          final Compiler compiler = new Compiler(code.getText(), type);
+          final CompiledScriptCache.Result result = CompiledScriptCache.get(code.getText(), type);
 
-          final Decompiler decompiler = new Decompiler(compiler.getCode(), type, true);
-          decompiler.setGenerateComments(false);
-          decompiler.setGenerateResourcesUsed(true);
-          decompiler.decompile();
-          for (final Integer stringRef : decompiler.getStringRefsUsed()) {
+          for (final Integer stringRef : result.getStringRefsUsed()) {
             final int strref = stringRef;
             if (!isValidStringRef(strref)) {
               synchronized (table) {
@@ -225,18 +223,28 @@ private void checkDialog(DlgResource dialog) {
   }
 
   private void checkScript(BcsResource script) {
-    final Decompiler decompiler = new Decompiler(script.getCode(), true);
-    decompiler.setGenerateComments(false);
-    decompiler.setGenerateResourcesUsed(true);
+    final Set<Integer> strrefsUsed = new HashSet<>();
+    final BcsReferenceReader reader = new BcsReferenceReader(new BcsReferenceReader.Listener() {
+      @Override
+      public void stringRef(int strref) {
+        strrefsUsed.add(strref);
+      }
+    });
+    String[] lines = null;
     try {
-      decompiler.decompile();
-      for (final Integer stringRef : decompiler.getStringRefsUsed()) {
+      reader.read(script.getCode());
+      for (final Integer stringRef : strrefsUsed) {
         final int strref = stringRef;
         if (!isValidStringRef(strref)) {
+          // script is decompiled only if needed for the location of an invalid string reference
+          if (lines == null) {
+            final Decompiler decompiler = new Decompiler(script.getCode(), true);
+            decompiler.setGenerateComments(false);
+            decompiler.setGenerateResourcesUsed(false);
+            lines = decompiler.decompile().split("\r?\n");
+          }
           // XXX: search routine may produce false positives
           final String strrefString = stringRef.toString();
-          final String source = decompiler.getSource();
-          final String[] lines = source.split("\r?\n");
           int line = -1, pos = -1;
           final Pattern pattern = Pattern.compile("\\b" + strrefString + "\\b", Pattern.DOTALL);
           for (int i = 0; i < lines.length; i++) {
@@ -91,6 +91,7 @@ public Datatype clone() throws CloneNotSupportedException {
   public void copyNameAndOffset(StructEntry entry) {
     name = entry.getName();
     offset = entry.getOffset();
+    invalidateParentIndex();
   }
 
   @Override
@@ -107,6 +108,7 @@ public String getName() {
   public void setName(String newName) {
     if (newName != null) {
       name = newName;
+      invalidateParentIndex();
     } else {
       throw new NullPointerException("Name of struct field must not be null");
     }
@@ -140,6 +142,7 @@ public List<StructEntry> getStructChain() {
   @Override
   public void setOffset(int newoffset) {
     offset = newoffset;
+    invalidateParentIndex();
   }
 
   @Override
@@ -245,4 +248,11 @@ void writeInt(OutputStream os, int value) throws IOException {
   void writeLong(OutputStream os, long value) throws IOException {
     writeInt(os, (int) value);
   }
+
+  // Discards lookup indices of the parent structure which may depend on name or offset of this field
+  private void invalidateParentIndex() {
+    if (parent != null) {
+      parent.invalidateFieldIndex();
+    }
+  }
 }
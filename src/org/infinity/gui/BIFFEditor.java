@@ -43,6 +43,7 @@
 import org.infinity.resource.key.FileResourceEntry;
 import org.infinity.resource.key.ResourceEntry;
 import org.infinity.util.Logger;
+import org.infinity.util.io.DirectoryCache;
 import org.infinity.util.io.FileEx;
 import org.infinity.util.io.FileManager;
 import org.infinity.util.io.StreamUtils;
@@ -162,6 +163,7 @@ public void run() {
         } catch (IOException e) {
           Logger.error(e);
         }
+        DirectoryCache.invalidate(file.getParent());
       }
     }
     progress.setProgress(4, true);
@@ -244,6 +244,38 @@ public String toString() {
                       + "This information is only remembered across the current session and will be discarded whenever "
                       + "Near Infinity is closed.",
                   AppOption.REMEMBER_CHILD_FRAME_RECT)
+          ),
+          OptionGroup.create("Performance",
+              OptionCheckBox.create(AppOption.CACHE_BIF_ARCHIVES.getName(), AppOption.CACHE_BIF_ARCHIVES.getLabel(),
+                  "With this option enabled Near Infinity keeps the decompressed content of file-compressed BIF "
+                      + "archives (\"BIF V1.0\") in memory, so that subsequent access to resources of the same archive "
+                      + "does not require to decompress the archive again."
+                      + "<p><strong>Note:</strong> Cached data is stored outside of the regular Java heap. Least recently "
+                      + "used archives are discarded when the cache size limit is exceeded.</p>",
+                  AppOption.CACHE_BIF_ARCHIVES),
+              OptionGroupBox.create(AppOption.BIF_CACHE_SIZE.getName(), AppOption.BIF_CACHE_SIZE.getLabel(),
+                  "Choose the max. amount of memory occupied by decompressed BIF archives.<p>"
+                      + "This option has no effect if \"" + AppOption.CACHE_BIF_ARCHIVES.getLabel() + "\" is disabled.</p>",
+                  0, OptionsMenuItem.CacheSize.values(), AppOption.BIF_CACHE_SIZE),
+              OptionCheckBox.create(AppOption.REFERENCE_INDEX.getName(), AppOption.REFERENCE_INDEX.getLabel(),
+                  "With this option enabled Near Infinity keeps track of the resource names and string references "
+                      + "used by game resources. The index is updated in the background whenever a game is opened "
+                      + "and allows reference searches to skip resources which cannot contain the searched object."
+                      + "<p><strong>Note:</strong> The index is stored in the cache folder of the game. Only resources "
+                      + "which have been modified since the last update are indexed again.</p>",
+                  AppOption.REFERENCE_INDEX),
+              OptionCheckBox.create(AppOption.SCRIPT_CACHE.getName(), AppOption.SCRIPT_CACHE.getLabel(),
+                  "With this option enabled Near Infinity stores the compiled code and the references of dialog "
+                      + "triggers and actions in the cache folder of the game, so that searches and checks don't have "
+                      + "to compile them again in later sessions."
+                      + "<p><strong>Note:</strong> Stored data is discarded whenever IDS files are modified or "
+                      + "resources are added or removed.</p>",
+                  AppOption.SCRIPT_CACHE),
+              OptionGroupBox.create(AppOption.GRAPHICS_CACHE_SIZE.getName(), AppOption.GRAPHICS_CACHE_SIZE.getLabel(),
+                  "Choose the max. amount of memory occupied by cached graphics data, such as PVRZ textures and the "
+                      + "content of BAM, MOS and TIS resources.<p>"
+                      + "Least recently used data is discarded when the limit is exceeded.</p>",
+                  0, OptionsMenuItem.CacheSize.values(), AppOption.GRAPHICS_CACHE_SIZE)
           )
       ),
       OptionCategory.create(Category.SCRIPT_COMPILER,
@@ -70,6 +70,7 @@
 import org.infinity.util.IconCache;
 import org.infinity.util.Logger;
 import org.infinity.util.Operation;
+import org.infinity.util.io.DirectoryCache;
 import org.infinity.util.io.FileEx;
 import org.infinity.util.io.FileManager;
 import org.infinity.util.io.StreamUtils;
@@ -380,8 +381,10 @@ public static void restoreResource(ResourceEntry entry) {
           if (curFile != null && FileEx.create(curFile).isFile() && FileEx.create(bakFile).isFile()) {
             try {
               Files.move(curFile, tmpFile);
+              DirectoryCache.invalidate(curFile.getParent());
               try {
                 Files.move(bakFile, curFile);
+                DirectoryCache.invalidate(curFile.getParent());
                 try {
                   Files.delete(tmpFile);
                 } catch (IOException e) {
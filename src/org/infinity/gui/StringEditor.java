@@ -35,6 +35,7 @@
 import javax.swing.ListSelectionModel;
 import javax.swing.ProgressMonitor;
 import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
 import javax.swing.UIManager;
 import javax.swing.event.ChangeEvent;
@@ -652,15 +653,23 @@ private void updateUndoMenu() {
     }
   }
 
+  /**
+   * Discards all changes and reloads the string tables from disk. Must not be called on the event dispatch thread.
+   */
   private void revertAll() {
     StringTable.resetModified(StringTable.Type.MALE);
-    StringTable.ensureFullyLoaded(StringTable.Type.MALE);
+    StringTable.ensureFullyLoaded(StringTable.Type.MALE,
+        new ProgressTracker("Reloading " + StringTable.getPath(StringTable.Type.MALE).getFileName(), null, null));
 
     if (StringTable.hasFemaleTable()) {
       StringTable.resetModified(StringTable.Type.FEMALE);
-      StringTable.ensureFullyLoaded(StringTable.Type.FEMALE);
+      StringTable.ensureFullyLoaded(StringTable.Type.FEMALE,
+          new ProgressTracker("Reloading " + StringTable.getPath(StringTable.Type.FEMALE).getFileName(), null, null));
     }
+  }
 
+  /** Updates the editor after the string tables have been reloaded by {@link #revertAll()}. */
+  private void revertAllDone() {
     selectedIndex = -1;
     selectedEntry = null;
 
@@ -949,6 +958,11 @@ protected Void doInBackground() throws Exception {
               }
               return null;
             }
+
+            @Override
+            protected void done() {
+              revertAllDone();
+            }
           }.execute();
         }
       }
@@ -1053,7 +1067,7 @@ private final class ProgressTracker extends StringTable.ProgressCallback {
     private final String msgFailed;
 
     private ProgressMonitor pm;
-    private int count, step;
+    private int count, step, lastIndex;
 
     public ProgressTracker(String title, String successMessage, String failedMessage) {
       this.title = (title != null) ? title : "";
@@ -1064,6 +1078,7 @@ public ProgressTracker(String title, String successMessage, String failedMessage
     @Override
     public void init(int numEntries) {
       count = numEntries;
+      lastIndex = 0;
       if (count < 50000) {
         step = 500;
       } else if (count < 100000) {
@@ -1073,26 +1088,41 @@ public void init(int numEntries) {
       } else {
         step = 5000;
       }
-      pm = new ProgressMonitor(StringEditor.this, title, "Initializing...", 0, count);
-      pm.setMillisToDecideToPopup(0);
-      pm.setMillisToPopup(0);
+      final int max = count;
+      SwingUtilities.invokeLater(() -> {
+        pm = new ProgressMonitor(StringEditor.this, title, "Initializing...", 0, max);
+        pm.setMillisToDecideToPopup(0);
+        pm.setMillisToPopup(0);
+      });
     }
 
     @Override
     public void done(boolean success) {
-      pm.close();
-      if (success && msgSuccess != null) {
-        JOptionPane.showMessageDialog(StringEditor.this, msgSuccess, "Information", JOptionPane.INFORMATION_MESSAGE);
-      } else if (!success && msgFailed != null) {
-        JOptionPane.showMessageDialog(StringEditor.this, msgFailed, "Error", JOptionPane.ERROR_MESSAGE);
-      }
+      SwingUtilities.invokeLater(() -> {
+        if (pm != null) {
+          pm.close();
+        }
+        if (success && msgSuccess != null) {
+          JOptionPane.showMessageDialog(StringEditor.this, msgSuccess, "Information", JOptionPane.INFORMATION_MESSAGE);
+        } else if (!success && msgFailed != null) {
+          JOptionPane.showMessageDialog(StringEditor.this, msgFailed, "Error", JOptionPane.ERROR_MESSAGE);
+        }
+      });
     }
 
     @Override
     public boolean progress(int index) {
-      if ((index % step) == 0) {
-        pm.setNote(index + " of " + count);
-        pm.setProgress(index);
+      // index may advance by more than one step if entries are processed in blocks
+      if (index - lastIndex >= step || index >= count) {
+        lastIndex = index;
+        final int max = count;
+        // progress may be reported by worker threads
+        SwingUtilities.invokeLater(() -> {
+          if (pm != null) {
+            pm.setNote(index + " of " + max);
+            pm.setProgress(index);
+          }
+        });
       }
       return true;
     }
@@ -75,6 +75,7 @@
 import org.infinity.resource.key.ResourceEntry;
 import org.infinity.util.Logger;
 import org.infinity.util.Misc;
+import org.infinity.util.io.DirectoryCache;
 import org.infinity.util.io.FileEx;
 import org.infinity.util.io.FileManager;
 import org.infinity.util.io.StreamUtils;
@@ -530,6 +531,7 @@ private boolean saveResource(Path outFile) {
         StreamUtils.writeBytes(os, buffer);
       } finally {
         getHexView().setEnabled(true);
+        DirectoryCache.invalidate(outPath.getParent());
       }
       buffer = null;
       getStruct().setStructChanged(false);
@@ -46,6 +46,7 @@
 import org.infinity.icon.Icons;
 import org.infinity.resource.Profile;
 import org.infinity.resource.ResourceFactory;
+import org.infinity.resource.graphics.GraphicsCache;
 import org.infinity.util.CharsetDetector;
 import org.infinity.util.Logger;
 import org.infinity.util.Misc;
@@ -78,6 +79,39 @@ public String toString() {
     }
   }
 
+  /** Available size limits for memory caches, such as decompressed BIF archives or decoded graphics data. */
+  public enum CacheSize {
+    /** 64 MB */
+    SIZE_64("64 MB", 64),
+    /** 128 MB */
+    SIZE_128("128 MB", 128),
+    /** 256 MB */
+    SIZE_256("256 MB", 256),
+    /** 512 MB */
+    SIZE_512("512 MB", 512),
+    /** 1 GB */
+    SIZE_1024("1 GB", 1024),
+    ;
+
+    private final String label;
+    private final int megaBytes;
+
+    private CacheSize(String label, int megaBytes) {
+      this.label = label;
+      this.megaBytes = megaBytes;
+    }
+
+    /** Returns the cache size limit in bytes. */
+    public long getSize() {
+      return (long) megaBytes << 20;
+    }
+
+    @Override
+    public String toString() {
+      return label;
+    }
+  }
+
   // Symbolic name for the default character set
   private static final String DEFAULT_CHARSET = "Auto";
 
@@ -159,6 +193,11 @@ public String toString() {
   public static final String OPTION_SHOW_RESOURCE_TREE_ICONS  = "ShowResourceTreeIcons";
   public static final String OPTION_HIGHLIGHT_OVERRIDDEN      = "HighlightOverridden";
   public static final String OPTION_CACHEOVERRIDE             = "CacheOverride";
+  public static final String OPTION_CACHE_BIF_ARCHIVES        = "CacheBifArchives";
+  public static final String OPTION_BIF_CACHE_SIZE            = "BifCacheSize";
+  public static final String OPTION_REFERENCE_INDEX           = "ReferenceIndex";
+  public static final String OPTION_SCRIPT_CACHE              = "ScriptCache";
+  public static final String OPTION_GRAPHICS_CACHE_SIZE       = "GraphicsCacheSize";
   public static final String OPTION_KEEPVIEWONCOPY            = "UpdateTreeOnCopy";
   public static final String OPTION_SHOWSTRREFS               = "ShowStrrefs";
   public static final String OPTION_SHOWCOLOREDSTRUCTURES     = "ShowColoredStructures";
@@ -483,6 +522,39 @@ public boolean cacheOverride() {
     return AppOption.CACHE_OVERRIDE.getBoolValue();
   }
 
+  /** Returns whether decompressed data of compressed BIF archives is kept in memory for subsequent access. */
+  public boolean cacheBifArchives() {
+    return AppOption.CACHE_BIF_ARCHIVES.getBoolValue();
+  }
+
+  /** Returns the max. number of bytes occupied by decompressed BIF archives in the cache. */
+  public long getBifCacheSize() {
+    int idx = AppOption.BIF_CACHE_SIZE.getIntValue();
+    if (idx >= 0 && idx < CacheSize.values().length) {
+      return CacheSize.values()[idx].getSize();
+    }
+    return CacheSize.SIZE_256.getSize();
+  }
+
+  /** Returns the max. number of bytes occupied by decoded graphics data in the cache. */
+  public long getGraphicsCacheSize() {
+    int idx = AppOption.GRAPHICS_CACHE_SIZE.getIntValue();
+    if (idx >= 0 && idx < CacheSize.values().length) {
+      return CacheSize.values()[idx].getSize();
+    }
+    return CacheSize.SIZE_256.getSize();
+  }
+
+  /** Returns whether reference searches make use of a persistent index of resource references. */
+  public boolean useReferenceIndex() {
+    return AppOption.REFERENCE_INDEX.getBoolValue();
+  }
+
+  /** Returns whether compiled dialog triggers and actions are stored in the cache folder of the game. */
+  public boolean usePersistentScriptCache() {
+    return AppOption.SCRIPT_CACHE.getBoolValue();
+  }
+
   /** Returns whether the "Add copy of" operation keeps the original resource selected. */
   public boolean getKeepViewOnCopy() {
     return AppOption.KEEP_VIEW_ON_COPY.getBoolValue();
@@ -934,6 +1006,9 @@ private void applyChanges(Collection<AppOption> options) {
             option.equals(AppOption.GLOBAL_FONT_SIZE)) {
           restart = true;
           messages.add(String.format("%s: %s", option.getLabel(), option.getValue()));
+        } else if (option.equals(AppOption.GRAPHICS_CACHE_SIZE)) {
+          GraphicsCache.getInstance().setCapacity(getGraphicsCacheSize());
+          messages.add(String.format("%s: %s", option.getLabel(), option.getValue()));
         } else if (option.equals(AppOption.LAUNCH_GAME_ALLOWED)) {
           NearInfinity.getInstance().updateLauncher();
           messages.add(String.format("Allow launching games: %s", option.getValue()));
@@ -12,13 +12,20 @@
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -78,7 +85,16 @@ public abstract class AbstractStruct extends AbstractTableModel
   /** Identifies the intention to removal of rows or columns. */
   public static final int WILL_BE_DELETE = -2;
 
-  private List<StructEntry> fields;
+  /** Min. number of fields a structure must contain to make use of lookup indices. */
+  private static final int INDEX_MIN_FIELDS = 16;
+
+  /** Number of lookups in an unmodified structure tree before lookup indices are created. */
+  private static final int INDEX_MIN_LOOKUPS = 4;
+
+  /** Indicates whether structures are created in read-only mode by the current thread. */
+  private static final ThreadLocal<Boolean> READ_ONLY = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+  private FieldList fields;
   private AbstractStruct superStruct;
   private Map<Class<? extends StructEntry>, SectionCount> countmap;
   private Map<Class<? extends StructEntry>, SectionOffset> offsetmap;
@@ -99,6 +115,15 @@ public abstract class AbstractStruct extends AbstractTableModel
    */
   private final Object extraData;
 
+  /** Indicates whether this structure has been created in read-only mode. */
+  private final boolean readOnly = READ_ONLY.get();
+
+  /** Lookup indices of the fields, {@code null} if not yet created. */
+  private volatile FieldIndex fieldIndex;
+
+  /** Modification counter of the structure tree. Only maintained by the top-level structure. */
+  private int treeVersion;
+
   private StructViewer viewer;
   private boolean structChanged;
 
@@ -112,11 +137,12 @@ public abstract class AbstractStruct extends AbstractTableModel
 
   /**
    * If any {@link PropertyChangeListener}s have been registered, the {@code changeSupport} field describes them.
+   * Created on demand.
    *
    * @see #addPropertyChangeListener
    * @see #removePropertyChangeListener
    */
-  private final PropertyChangeSupport changeSupport = new PropertyChangeSupport(this);
+  private PropertyChangeSupport changeSupport;
 
   private static void adjustEntryOffsets(AbstractStruct superStruct, AbstractStruct modifiedStruct,
       AddRemovable datatype, int amount) {
@@ -153,6 +179,29 @@ private static void adjustSectionOffsets(AbstractStruct superStruct, AddRemovabl
     }
   }
 
+  /**
+   * Invokes the specified supplier with read-only mode enabled for all structures created by the current thread.
+   * <p>
+   * Read-only structures are intended for operations which only evaluate field values, such as searches and checks.
+   * Unused data regions are not turned into separate fields and structures don't propagate property changes to their
+   * parents, which makes parsing of large resources considerably faster. Read-only structures must not be modified or
+   * written back to disk.
+   * </p>
+   *
+   * @param supplier Creates one or more structures, e.g. {@code () -> ResourceFactory.getResource(entry)}.
+   * @param <T>      Type of the returned object.
+   * @return The result of the supplier.
+   */
+  public static <T> T createReadOnly(Supplier<T> supplier) {
+    final Boolean oldValue = READ_ONLY.get();
+    READ_ONLY.set(Boolean.TRUE);
+    try {
+      return supplier.get();
+    } finally {
+      READ_ONLY.set(oldValue);
+    }
+  }
+
   /**
    * Creates top-level struct, that represents specified resource. Reads specified resource and creates it structured
    * representation.
@@ -175,15 +224,18 @@ protected AbstractStruct(ResourceEntry entry) throws Exception {
   protected AbstractStruct(ResourceEntry entry, Object extraData) throws Exception {
     this.entry = entry;
     this.extraData = extraData;
-    fields = new ArrayList<>();
+    fields = new FieldList();
     name = entry.getResourceName();
     ByteBuffer bb = entry.getResourceBuffer();
     endoffset = read(bb, 0);
     if (this instanceof HasChildStructs && !fields.isEmpty()) {// Is this enough?
       Collections.sort(fields); // This way we can writeField out in the order in list - sorted by offset
-      fixHoles((ByteBuffer) bb.position(0));
+      if (!readOnly) {
+        fixHoles((ByteBuffer) bb.position(0));
+      }
       initAddStructMaps();
     }
+    invalidateFieldIndex();
   }
 
   protected AbstractStruct(AbstractStruct superStruct, String name, int startoffset, int listSize) {
@@ -192,7 +244,7 @@ protected AbstractStruct(AbstractStruct superStruct, String name, int startoffse
     this.superStruct = superStruct;
     this.name = name;
     this.startoffset = startoffset;
-    fields = new ArrayList<>(listSize);
+    fields = new FieldList(listSize);
   }
 
   protected AbstractStruct(AbstractStruct superStruct, String name, ByteBuffer buffer, int startoffset)
@@ -210,6 +262,7 @@ protected AbstractStruct(AbstractStruct superStruct, String name, ByteBuffer buf
       }
       initAddStructMaps();
     }
+    invalidateFieldIndex();
   }
 
   @Override
@@ -241,8 +294,9 @@ public int compareTo(StructEntry o) {
   public AbstractStruct clone() throws CloneNotSupportedException {
     final AbstractStruct newstruct = (AbstractStruct) super.clone();
     newstruct.superStruct = null;
-    newstruct.fields = new ArrayList<>(fields.size());
+    newstruct.fields = newstruct.new FieldList(fields.size());
     newstruct.viewer = null;
+    newstruct.fieldIndex = null;
     for (final StructEntry e : fields) {
       newstruct.fields.add(e.clone());
     }
@@ -271,6 +325,7 @@ public String getName() {
   public void setName(String newName) {
     if (newName != null) {
       name = newName;
+      invalidateFieldIndex();
     } else {
       throw new NullPointerException();
     }
@@ -326,6 +381,7 @@ public void setOffset(int newoffset) {
     int delta = getSize();
     startoffset = newoffset;
     endoffset = newoffset + delta;
+    invalidateFieldIndex();
   }
 
   @Override
@@ -334,7 +390,7 @@ public void setParent(AbstractStruct parent) {
       removePropertyChangeListener(superStruct);
     }
     superStruct = parent;
-    if (parent != null) {
+    if (parent != null && !readOnly) {
       addPropertyChangeListener(parent);
     }
   }
@@ -729,7 +785,7 @@ public StructEntry getAttribute(String ename, boolean recursive) {
 
   private static <T extends StructEntry> T getAttribute(AbstractStruct parent, int offset, Class<T> type,
       boolean recursive) {
-    for (final StructEntry field : parent.fields) {
+    for (final StructEntry field : parent.getFieldsAt(offset)) {
       final int off = field.getOffset();
       T result = null;
       if (offset >= off && offset < off + field.getSize() && type.isInstance(field)) {
@@ -752,6 +808,10 @@ private static <T extends StructEntry> T getAttribute(AbstractStruct parent, int
 
   private static StructEntry getAttribute(AbstractStruct parent, String name, boolean recursive) {
     if (name != null && !name.isEmpty()) {
+      final Map<String, StructEntry> names = parent.getNameIndex(recursive);
+      if (names != null) {
+        return names.get(name);
+      }
       for (StructEntry field : parent.fields) {
         StructEntry result = null;
         if (field.getName().equals(name)) {
@@ -776,6 +836,19 @@ public int getEndOffset() {
     return endoffset;
   }
 
+  /**
+   * Discards the lookup indices of all structures in the structure tree. Must be called whenever offset or name of a
+   * field have been changed. Adding or removing fields invalidates the indices automatically.
+   */
+  public void invalidateFieldIndex() {
+    getRoot().treeVersion++;
+  }
+
+  /** Returns whether this structure has been created in read-only mode. */
+  public boolean isReadOnly() {
+    return readOnly;
+  }
+
   public int getExtraOffset() {
     return extraoffset;
   }
@@ -835,6 +908,20 @@ public List<StructEntry> getFlatFields() {
     return flatList;
   }
 
+  /**
+   * Returns all fields of this structure and its substructures which are instances of the specified types, sorted by
+   * offset. Substructures themselves are not included.
+   *
+   * @param types One or more field types to include.
+   * @return List of matching fields.
+   */
+  public List<StructEntry> getFlatFields(Class<?>... types) {
+    final List<StructEntry> flatList = new ArrayList<>();
+    fillFlatFields(flatList, types);
+    Collections.sort(flatList);
+    return flatList;
+  }
+
   /**
    * Returns the {@link ResourceEntry} associated with this structure. May return {@code null} if the structure
    * is not directly associated with a resource.
@@ -1135,6 +1222,58 @@ public SectionCount updateSectionCount(Class<? extends StructEntry> cls) {
     return sc;
   }
 
+  // Returns the top-level structure of the structure tree
+  private AbstractStruct getRoot() {
+    AbstractStruct root = this;
+    while (root.superStruct != null && root.superStruct != this) {
+      root = root.superStruct;
+    }
+    return root;
+  }
+
+  // Returns the lookup indices of this structure, discards them if they are outdated
+  private FieldIndex getFieldIndex() {
+    final AbstractStruct root = getRoot();
+    FieldIndex index = fieldIndex;
+    if (index == null || index.root != root || index.version != root.treeVersion) {
+      index = new FieldIndex(this, root);
+      fieldIndex = index;
+    }
+    return index;
+  }
+
+  /**
+   * Returns all fields which contain the specified offset either directly or by one of their substructures, in list
+   * order. May return all fields if the structure is not indexed.
+   */
+  private List<StructEntry> getFieldsAt(int offset) {
+    if (fields.size() < INDEX_MIN_FIELDS) {
+      return fields;
+    }
+    final FieldIndex index = getFieldIndex();
+    if (index.offsetLookups.get() < INDEX_MIN_LOOKUPS) {
+      index.offsetLookups.incrementAndGet();
+      return fields;
+    }
+    return index.getFieldsAt(offset);
+  }
+
+  /**
+   * Returns a map of field names to the field returned by {@link #getAttribute(String, boolean)}. Returns {@code null}
+   * if the structure is not indexed.
+   */
+  private Map<String, StructEntry> getNameIndex(boolean recursive) {
+    if (fields.size() < INDEX_MIN_FIELDS) {
+      return null;
+    }
+    final FieldIndex index = getFieldIndex();
+    if (index.nameLookups.get() < INDEX_MIN_LOOKUPS) {
+      index.nameLookups.incrementAndGet();
+      return null;
+    }
+    return index.getNames(recursive);
+  }
+
   private void fillFlatFields(List<StructEntry> flatList) {
     for (final StructEntry e : fields) {
       if (e instanceof AbstractStruct) {
@@ -1147,6 +1286,33 @@ private void fillFlatFields(List<StructEntry> flatList) {
     }
   }
 
+  private void fillFlatFields(List<StructEntry> flatList, Class<?>[] types) {
+    for (final StructEntry e : fields) {
+      if (e instanceof AbstractStruct) {
+        ((AbstractStruct) e).fillFlatFields(flatList, types);
+      } else if (e instanceof AbstractCode) {
+        final List<StructEntry> codeList = new ArrayList<>();
+        ((AbstractCode) e).addFlatList(codeList);
+        for (final StructEntry ce : codeList) {
+          if (isInstance(ce, types)) {
+            flatList.add(ce);
+          }
+        }
+      } else if (isInstance(e, types)) {
+        flatList.add(e);
+      }
+    }
+  }
+
+  private static boolean isInstance(StructEntry e, Class<?>[] types) {
+    for (final Class<?> type : types) {
+      if (type.isInstance(e)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   public boolean hasViewTab() {
     return (viewer != null && viewer.hasViewTab());
   }
@@ -1264,6 +1430,7 @@ protected void setExtraOffset(int offset) {
 
   protected void setStartOffset(int offset) {
     startoffset = offset;
+    invalidateFieldIndex();
   }
 
   protected void writeFlatFields(OutputStream os) throws IOException {
@@ -1295,7 +1462,12 @@ public void fireTableRowsWillBeDeleted(int firstRow, int lastRow) {
    * @param listener The PropertyChangeListener to be added
    */
   public void addPropertyChangeListener(PropertyChangeListener listener) {
-    changeSupport.addPropertyChangeListener(listener);
+    if (listener != null) {
+      if (changeSupport == null) {
+        changeSupport = new PropertyChangeSupport(this);
+      }
+      changeSupport.addPropertyChangeListener(listener);
+    }
   }
 
   /**
@@ -1308,11 +1480,303 @@ public void addPropertyChangeListener(PropertyChangeListener listener) {
    * @param listener The PropertyChangeListener to be removed
    */
   public void removePropertyChangeListener(PropertyChangeListener listener) {
-    changeSupport.removePropertyChangeListener(listener);
+    if (changeSupport != null) {
+      changeSupport.removePropertyChangeListener(listener);
+    }
   }
 
   @Override
   public void propertyChange(PropertyChangeEvent evt) {
-    changeSupport.firePropertyChange(evt);
+    if (changeSupport != null) {
+      changeSupport.firePropertyChange(evt);
+    }
+  }
+
+  // -------------------------- INNER CLASSES --------------------------
+
+  /** List of fields which invalidates the lookup indices of the structure tree whenever it is modified. */
+  private class FieldList extends ArrayList<StructEntry> {
+    public FieldList() {
+      super();
+    }
+
+    public FieldList(int initialCapacity) {
+      super(initialCapacity);
+    }
+
+    @Override
+    public StructEntry set(int index, StructEntry element) {
+      invalidateFieldIndex();
+      return super.set(index, element);
+    }
+
+    @Override
+    public boolean add(StructEntry e) {
+      invalidateFieldIndex();
+      return super.add(e);
+    }
+
+    @Override
+    public void add(int index, StructEntry element) {
+      invalidateFieldIndex();
+      super.add(index, element);
+    }
+
+    @Override
+    public StructEntry remove(int index) {
+      invalidateFieldIndex();
+      return super.remove(index);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+      invalidateFieldIndex();
+      return super.remove(o);
+    }
+
+    @Override
+    public void clear() {
+      invalidateFieldIndex();
+      super.clear();
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends StructEntry> c) {
+      invalidateFieldIndex();
+      return super.addAll(c);
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends StructEntry> c) {
+      invalidateFieldIndex();
+      return super.addAll(index, c);
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+      invalidateFieldIndex();
+      super.removeRange(fromIndex, toIndex);
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+      invalidateFieldIndex();
+      return super.removeAll(c);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+      invalidateFieldIndex();
+      return super.retainAll(c);
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super StructEntry> filter) {
+      invalidateFieldIndex();
+      return super.removeIf(filter);
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<StructEntry> operator) {
+      invalidateFieldIndex();
+      super.replaceAll(operator);
+    }
+
+    @Override
+    public void sort(Comparator<? super StructEntry> c) {
+      invalidateFieldIndex();
+      super.sort(c);
+    }
+  }
+
+  /**
+   * Lookup indices of the fields of a structure. Indices are created on demand and remain valid as long as the
+   * structure tree is not modified. Each index is fully built before it is published, so that lookups may be performed
+   * concurrently.
+   */
+  private static class FieldIndex {
+    private final AbstractStruct struct;
+    private final AbstractStruct root;
+    private final int version;
+
+    private final AtomicInteger offsetLookups = new AtomicInteger();
+    private final AtomicInteger nameLookups = new AtomicInteger();
+
+    // Offset range covered by the structure and all of its fields and substructures: { start, end }
+    private volatile int[] span;
+
+    private volatile IntervalTree intervalTree;
+
+    private volatile Map<String, StructEntry> names;
+    private volatile Map<String, StructEntry> namesRecursive;
+
+    public FieldIndex(AbstractStruct struct, AbstractStruct root) {
+      this.struct = struct;
+      this.root = root;
+      this.version = root.treeVersion;
+    }
+
+    /** Returns all fields whose span contains the specified offset, in list order. */
+    public List<StructEntry> getFieldsAt(int offset) {
+      IntervalTree tree = intervalTree;
+      if (tree == null) {
+        tree = buildIntervalTree();
+        intervalTree = tree;
+      }
+      final int[] result = new int[8];
+      final int count = tree.query(0, tree.starts.length, offset, result, 0);
+      if (count > result.length) {
+        // too many overlapping fields
+        return struct.fields;
+      }
+      Arrays.sort(result, 0, count);
+      final List<StructEntry> list = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        list.add(struct.fields.get(result[i]));
+      }
+      return list;
+    }
+
+    /** Returns a map of field names to the first matching field in lookup order. */
+    public Map<String, StructEntry> getNames(boolean recursive) {
+      if (recursive) {
+        if (namesRecursive == null) {
+          final Map<String, StructEntry> map = new HashMap<>();
+          for (final StructEntry field : struct.fields) {
+            // fields of substructures take precedence
+            if (field instanceof AbstractStruct) {
+              for (final Map.Entry<String, StructEntry> e : ((AbstractStruct) field).getFieldIndex().getNames(true)
+                  .entrySet()) {
+                map.putIfAbsent(e.getKey(), e.getValue());
+              }
+            }
+            map.putIfAbsent(field.getName(), field);
+          }
+          namesRecursive = Collections.unmodifiableMap(map);
+        }
+        return namesRecursive;
+      } else {
+        if (names == null) {
+          final Map<String, StructEntry> map = new HashMap<>();
+          for (final StructEntry field : struct.fields) {
+            map.putIfAbsent(field.getName(), field);
+          }
+          names = Collections.unmodifiableMap(map);
+        }
+        return names;
+      }
+    }
+
+    // Returns the offset range covered by the structure and all of its fields and substructures
+    private int[] getSpan() {
+      int[] retVal = span;
+      if (retVal == null) {
+        int start = Integer.MAX_VALUE;
+        int end = Integer.MIN_VALUE;
+        if (struct.getSize() > 0) {
+          start = struct.getOffset();
+          end = struct.getOffset() + struct.getSize();
+        }
+        for (final StructEntry field : struct.fields) {
+          final int[] fieldSpan = getSpan(field);
+          if (fieldSpan[0] < fieldSpan[1]) {
+            start = Math.min(start, fieldSpan[0]);
+            end = Math.max(end, fieldSpan[1]);
+          }
+        }
+        retVal = new int[] { start, end };
+        span = retVal;
+      }
+      return retVal;
+    }
+
+    private IntervalTree buildIntervalTree() {
+      final int count = struct.fields.size();
+      final long[] sorted = new long[count];
+      final int[] fieldStarts = new int[count];
+      final int[] fieldEnds = new int[count];
+      int numSpans = 0;
+      for (int i = 0; i < count; i++) {
+        final int[] span = getSpan(struct.fields.get(i));
+        if (span[0] < span[1]) {
+          fieldStarts[i] = span[0];
+          fieldEnds[i] = span[1];
+          // sort key: span start (upper 32 bits), list position (lower 32 bits)
+          sorted[numSpans++] = ((long) span[0] << 32) | i;
+        }
+      }
+      Arrays.sort(sorted, 0, numSpans);
+
+      final int[] starts = new int[numSpans];
+      final int[] ends = new int[numSpans];
+      final int[] positions = new int[numSpans];
+      for (int i = 0; i < numSpans; i++) {
+        final int pos = (int) sorted[i];
+        positions[i] = pos;
+        starts[i] = fieldStarts[pos];
+        ends[i] = fieldEnds[pos];
+      }
+      return new IntervalTree(starts, ends, positions);
+    }
+
+    // Returns start and end offset of the range covered by the field and its substructures
+    private static int[] getSpan(StructEntry field) {
+      if (field instanceof AbstractStruct) {
+        return ((AbstractStruct) field).getFieldIndex().getSpan();
+      } else if (field.getSize() > 0) {
+        return new int[] { field.getOffset(), field.getOffset() + field.getSize() };
+      } else {
+        return new int[] { 0, 0 };
+      }
+    }
+  }
+
+  /** Immutable implicit interval tree of field spans, sorted by span start. */
+  private static class IntervalTree {
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] maxEnds;
+    private final int[] positions;
+
+    public IntervalTree(int[] starts, int[] ends, int[] positions) {
+      this.starts = starts;
+      this.ends = ends;
+      this.positions = positions;
+      this.maxEnds = new int[starts.length];
+      buildMaxEnds(0, starts.length);
+    }
+
+    // Stores the max. span end of the subtree rooted at the center of the specified range
+    private int buildMaxEnds(int lo, int hi) {
+      if (lo >= hi) {
+        return Integer.MIN_VALUE;
+      }
+      final int mid = (lo + hi) >>> 1;
+      final int max = Math.max(ends[mid], Math.max(buildMaxEnds(lo, mid), buildMaxEnds(mid + 1, hi)));
+      maxEnds[mid] = max;
+      return max;
+    }
+
+    // Collects list positions of all spans containing the offset; returns the updated number of results
+    private int query(int lo, int hi, int offset, int[] result, int count) {
+      if (lo >= hi) {
+        return count;
+      }
+      final int mid = (lo + hi) >>> 1;
+      if (maxEnds[mid] <= offset) {
+        return count;
+      }
+      count = query(lo, mid, offset, result, count);
+      if (starts[mid] <= offset) {
+        if (ends[mid] > offset) {
+          if (count < result.length) {
+            result[count] = positions[mid];
+          }
+          count++;
+        }
+        count = query(mid + 1, hi, offset, result, count);
+      }
+      return count;
+    }
   }
 }
@@ -29,6 +29,7 @@
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.UUID;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
@@ -939,6 +940,22 @@ public static Path getChitinKey() {
     return (ret instanceof Path) ? (Path) ret : null;
   }
 
+  /**
+   * Returns the folder for persistent cached data of the currently open game. The folder is located in the user's
+   * cache folder and is unique for each game installation. It is not created by this method.
+   *
+   * @return The game-specific cache folder as {@link Path} object. Returns {@code null} if no game is open.
+   */
+  public static Path getCacheFolder() {
+    final Path keyFile = getChitinKey();
+    if (keyFile == null) {
+      return null;
+    }
+    final String id = UUID.nameUUIDFromBytes(keyFile.toAbsolutePath().normalize().toString()
+        .getBytes(StandardCharsets.UTF_8)).toString();
+    return Platform.getUserCacheFolder().resolve(id);
+  }
+
   /**
    * Updates language-related Properties with the specified game language. (Enhanced Editions only)
    *
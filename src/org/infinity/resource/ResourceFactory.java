@@ -23,8 +23,10 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 import javax.swing.JComponent;
@@ -44,6 +46,7 @@
 import org.infinity.resource.are.AreResource;
 import org.infinity.resource.bcs.BafResource;
 import org.infinity.resource.bcs.BcsResource;
+import org.infinity.resource.bcs.CompiledScriptCache;
 import org.infinity.resource.chu.ChuResource;
 import org.infinity.resource.cre.CreResource;
 import org.infinity.resource.dlg.DlgResource;
@@ -61,6 +64,7 @@
 import org.infinity.resource.key.ResourceEntry;
 import org.infinity.resource.key.ResourceTreeFolder;
 import org.infinity.resource.key.ResourceTreeModel;
+import org.infinity.resource.key.ResourceTreeSnapshot;
 import org.infinity.resource.maze.MazeResource;
 import org.infinity.resource.mus.MusResource;
 import org.infinity.resource.other.EffResource;
@@ -85,7 +89,9 @@
 import org.infinity.resource.video.WbmResource;
 import org.infinity.resource.wed.WedResource;
 import org.infinity.resource.wmp.WmpResource;
+import org.infinity.search.ReferenceIndex;
 import org.infinity.util.*;
+import org.infinity.util.io.DirectoryCache;
 import org.infinity.util.io.FileEx;
 import org.infinity.util.io.FileManager;
 import org.infinity.util.io.StreamUtils;
@@ -258,6 +264,18 @@ public static Resource getResource(ResourceEntry entry, String forcedExtension)
     return res;
   }
 
+  /**
+   * Returns a read-only representation of the specified resource. Structured resources are created in read-only mode,
+   * which is faster than regular parsing but doesn't allow to modify the resource.
+   *
+   * @param entry The {@code ResourceEntry} of the resource.
+   * @return The resource instance. Returns {@code null} if the resource could not be read.
+   * @see AbstractStruct#createReadOnly(java.util.function.Supplier)
+   */
+  public static Resource getResourceReadOnly(ResourceEntry entry) {
+    return AbstractStruct.createReadOnly(() -> getResource(entry));
+  }
+
   /**
    * Returns the BAM {@link ResourceEntry} of the icon associated with the specified resource.
    * <p>
@@ -521,16 +539,16 @@ public static ResourceEntry getResourceEntry(String resourceName, boolean search
       // checking default override folder list
       if (entry == null) {
         List<Path> extraFolders = Profile.getOverrideFolders(searchExtraDirs);
-        Path file = FileManager.query(extraFolders, resourceName);
-        if (file != null && FileEx.create(file).isFile()) {
+        Path file = DirectoryCache.query(extraFolders, resourceName);
+        if (file != null) {
           entry = new FileResourceEntry(file);
         }
       }
 
       // checking custom folder list
       if (extraDirs != null && (entry == null)) {
-        Path file = FileManager.query(extraDirs, resourceName);
-        if (file != null && FileEx.create(file).isFile()) {
+        Path file = DirectoryCache.query(extraDirs, resourceName);
+        if (file != null) {
           entry = new FileResourceEntry(file);
         }
       }
@@ -1280,9 +1298,13 @@ private void registerResourceInternal(Path resource, boolean autoselect) {
   private void loadResourcesInternal() throws Exception {
     treeModel = new ResourceTreeModel();
 
+    // Snapshot of KEY entries and override folder content from a previous session, if still valid
+    List<Path> overridePaths = Profile.getOverrideFolders(false);
+    final ResourceTreeSnapshot snapshot = ResourceTreeSnapshot.load(keyfile, overridePaths);
+
     // Get resources from keyfile
     NearInfinity.advanceProgress("Loading BIFF resources...");
-    keyfile.populateResourceTree(treeModel);
+    keyfile.populateResourceTree(treeModel, snapshot);
 
     // Add resources from extra folders
     NearInfinity.advanceProgress("Loading extra resources...");
@@ -1297,29 +1319,51 @@ private void loadResourcesInternal() throws Exception {
     final boolean overrideInOverride = (BrowserMenuBar.isInstantiated()
         && BrowserMenuBar.getInstance().getOptions().getOverrideMode() == OverrideMode.InOverride);
     String overrideFolder = Profile.getOverrideFolderName();
-    List<Path> overridePaths = Profile.getOverrideFolders(false);
+    final Map<Path, List<String>> overrideFiles = new LinkedHashMap<>();
     for (final Path overridePath : overridePaths) {
-      if (FileEx.create(overridePath).isDirectory()) {
-        try (DirectoryStream<Path> dstream = Files.newDirectoryStream(overridePath)) {
-          dstream.forEach(path -> {
-            if (FileEx.create(path).isFile()) {
-              ResourceEntry entry = getResourceEntry(path.getFileName().toString());
-              if (entry instanceof FileResourceEntry) {
-                treeModel.addResourceEntry(entry, entry.getTreeFolderName(), true);
-              } else if (entry instanceof BIFFResourceEntry) {
-                ((BIFFResourceEntry) entry).setOverride(true);
-                if (overrideInOverride) {
-                  treeModel.removeResourceEntry(entry, entry.getExtension());
-                  treeModel.addResourceEntry(new FileResourceEntry(path, true), overrideFolder, true);
-                }
+      List<String> fileNames = (snapshot != null) ? snapshot.getOverrideFiles(overridePath) : null;
+      if (fileNames == null) {
+        fileNames = new ArrayList<>();
+        if (FileEx.create(overridePath).isDirectory()) {
+          try (DirectoryStream<Path> dstream = Files.newDirectoryStream(overridePath)) {
+            for (final Path path : dstream) {
+              if (FileEx.create(path).isFile()) {
+                fileNames.add(path.getFileName().toString());
               }
             }
-          });
+          }
+        }
+      }
+      overrideFiles.put(overridePath, fileNames);
+
+      for (final String fileName : fileNames) {
+        // folders are processed in order of priority: files not yet known belong to the current folder
+        ResourceEntry entry = treeModel.getResourceEntry(fileName);
+        if (entry == null) {
+          entry = new FileResourceEntry(overridePath.resolve(fileName));
+        }
+        if (entry instanceof FileResourceEntry) {
+          treeModel.addResourceEntry(entry, entry.getTreeFolderName(), true);
+        } else if (entry instanceof BIFFResourceEntry) {
+          ((BIFFResourceEntry) entry).setOverride(true);
+          if (overrideInOverride) {
+            treeModel.removeResourceEntry(entry, entry.getExtension());
+            treeModel.addResourceEntry(new FileResourceEntry(overridePath.resolve(fileName), true), overrideFolder,
+                true);
+          }
         }
       }
     }
     loadSpecialResources();
     treeModel.sort();
+
+    if (snapshot == null) {
+      try {
+        ResourceTreeSnapshot.create(keyfile, overrideFiles).save();
+      } catch (Exception e) {
+        Logger.warn(e, "Could not save resource index snapshot");
+      }
+    }
   }
 
   /**
@@ -1521,6 +1565,8 @@ private void saveCopyOfResourceInternal(ResourceEntry entry) {
       try (OutputStream os = StreamUtils.getOutputStream(outFile, true)) {
         WritableByteChannel wbc = Channels.newChannel(os);
         wbc.write(bb);
+      } finally {
+        DirectoryCache.invalidate(outFile.getParent());
       }
       JOptionPane.showMessageDialog(NearInfinity.getInstance(), entry + " copied to " + outFile, "Copy complete",
           JOptionPane.INFORMATION_MESSAGE);
@@ -1628,6 +1674,9 @@ private boolean saveResourceInternal(Resource resource, Component parent, Path o
       JOptionPane.showMessageDialog(parent, "Error while saving " + entry, "Error", JOptionPane.ERROR_MESSAGE);
       Logger.error(e);
       return false;
+    } finally {
+      // override files must be visible immediately, without waiting for the folder monitor
+      DirectoryCache.invalidate(outPath.getParent());
     }
 
     JOptionPane.showMessageDialog(parent, "File saved to \"" + outPath.toAbsolutePath() + '\"', "Save complete",
@@ -1639,7 +1688,9 @@ private boolean saveResourceInternal(Resource resource, Component parent, Path o
       if (idsbrowser != null) {
         idsbrowser.refreshList();
       }
+      CompiledScriptCache.clearCache();
       CreMapCache.reset();
+      ReferenceIndex.reset();
     } else if (entry.getResourceName().equalsIgnoreCase(Song2daBitmap.getTableName())) {
       Song2daBitmap.resetSonglist();
     } else if (entry.getResourceName().equalsIgnoreCase(Summon2daBitmap.getTableName())) {
@@ -1648,6 +1699,8 @@ private boolean saveResourceInternal(Resource resource, Component parent, Path o
       PriTypeBitmap.resetTypeTable();
     } else if (entry.getResourceName().equalsIgnoreCase(SecTypeBitmap.getTableName())) {
       SecTypeBitmap.resetTypeTable();
+    } else {
+      CreMapCache.creInvalid(entry);
     }
     return true;
   }
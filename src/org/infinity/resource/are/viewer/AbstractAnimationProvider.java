@@ -7,6 +7,7 @@
 import java.awt.Image;
 import java.awt.Point;
 import java.awt.image.BufferedImage;
+import java.util.function.Supplier;
 
 import org.infinity.gui.layeritem.BasicAnimationProvider;
 import org.infinity.resource.graphics.ColorConvert;
@@ -22,6 +23,9 @@ public abstract class AbstractAnimationProvider implements BasicAnimationProvide
   private BufferedImage working;
   private boolean isActive;
   private boolean isActiveIgnored;
+  private boolean isAtlasEnabled;
+  private Object atlasKey;
+  private FrameAtlas atlas;
 
   protected AbstractAnimationProvider() {
     this.image = null;
@@ -59,6 +63,29 @@ public void setActiveIgnored(boolean set) {
     }
   }
 
+  /** Returns whether frames are pre-rendered into a {@link FrameAtlas} when the animation is played back. */
+  public boolean isAtlasEnabled() {
+    return isAtlasEnabled;
+  }
+
+  /**
+   * Specify whether frames should be pre-rendered into a {@link FrameAtlas} when the animation is played back. Atlases
+   * are shared by animations with identical appearance.
+   */
+  public void setAtlasEnabled(boolean set) {
+    if (set != isAtlasEnabled) {
+      isAtlasEnabled = set;
+      if (!isAtlasEnabled) {
+        releaseFrameAtlas();
+      }
+    }
+  }
+
+  /** Releases resources which are shared with other animations. */
+  public void close() {
+    releaseFrameAtlas();
+  }
+
   @Override
   public Image getImage() {
     return image;
@@ -85,6 +112,45 @@ protected void setWorkingImage(BufferedImage img) {
 
   protected abstract void updateGraphics();
 
+  /**
+   * Returns the frame atlas associated with the specified key. A shared atlas is created by the given function if
+   * {@code create} is {@code true} and no matching atlas exists yet. The reference to a previously used atlas is
+   * released if the key has changed.
+   *
+   * @param key     Key of the atlas, as returned by {@link FrameAtlas#createKey(Object, Object...)}.
+   * @param create  Whether to create the atlas if it is not available.
+   * @param creator Creates the atlas. May return {@code null} if the animation is not suited for an atlas.
+   * @return The frame atlas, or {@code null} if not available.
+   */
+  protected FrameAtlas getFrameAtlas(Object key, boolean create, Supplier<FrameAtlas> creator) {
+    if (!isAtlasEnabled() || key == null) {
+      releaseFrameAtlas();
+      return null;
+    }
+
+    if (!key.equals(atlasKey)) {
+      releaseFrameAtlas();
+      if (SharedResourceCache.add(SharedResourceCache.Type.ATLAS, key)) {
+        atlas = (FrameAtlas) SharedResourceCache.get(SharedResourceCache.Type.ATLAS, key);
+        atlasKey = key;
+      } else if (create) {
+        atlas = creator.get();
+        SharedResourceCache.add(SharedResourceCache.Type.ATLAS, key, atlas);
+        atlasKey = key;
+      }
+    }
+    return atlas;
+  }
+
+  /** Releases the reference to the currently used frame atlas. */
+  protected void releaseFrameAtlas() {
+    if (atlasKey != null) {
+      SharedResourceCache.remove(SharedResourceCache.Type.ATLAS, atlasKey);
+      atlasKey = null;
+      atlas = null;
+    }
+  }
+
   // Applies lightning conditions to all pixels
   protected void applyLighting(int[] buffer, int cw, int ch, int fw, int fh, int lighting) {
     if (buffer != null && cw > 0 && ch > 0 && fw > 0 && fh > 0) {
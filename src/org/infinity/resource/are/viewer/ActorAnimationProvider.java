@@ -5,17 +5,21 @@
 package org.infinity.resource.are.viewer;
 
 import java.awt.AlphaComposite;
+import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferInt;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
 
 import org.infinity.resource.cre.decoder.SpriteDecoder;
 import org.infinity.resource.cre.decoder.SpriteDecoder.SpriteBamControl;
 import org.infinity.resource.cre.decoder.util.Direction;
+import org.infinity.resource.graphics.BamDecoder;
 import org.infinity.resource.graphics.ColorConvert;
 
 /**
@@ -202,6 +206,11 @@ public boolean advanceFrame() {
       control.cycleNextFrame();
     }
     // retVal = control.cycleNextFrame();
+    if (isAtlasEnabled() && isActive()) {
+      synchronized (this) {
+        getFrameAtlas(getAtlasKey(), true, this::createFrameAtlas);
+      }
+    }
     updateGraphics();
     return retVal;
   }
@@ -280,26 +289,14 @@ protected synchronized void updateGraphics() {
           control.getVisualMarkers(g, pos);
 
           // rendering frame
-          // fetching frame data
-          BufferedImage working = getWorkingImage();
-          int[] buffer = ((DataBufferInt) working.getRaster().getDataBuffer()).getData();
-          Arrays.fill(buffer, 0);
-          decoder.frameGet(control, frameIndex, working);
-
-          // post-processing frame
-          buffer = ((DataBufferInt) working.getRaster().getDataBuffer()).getData();
-          int canvasWidth = working.getWidth();
-          int canvasHeight = working.getHeight();
-          int frameWidth = decoder.getFrameInfo(frameIndex).getWidth();
-          int frameHeight = decoder.getFrameInfo(frameIndex).getHeight();
-
-          if (!decoder.isLightSource()) {
-            applyLighting(buffer, canvasWidth, canvasHeight, frameWidth, frameHeight, getLighting());
+          final FrameAtlas atlas = getFrameAtlas(getAtlasKey(), false, null);
+          if (atlas == null || !atlas.drawFrame(g, frameIndex, left, top)) {
+            BufferedImage working = getWorkingImage();
+            renderFrame(frameIndex, working);
+            int frameWidth = decoder.getFrameInfo(frameIndex).getWidth();
+            int frameHeight = decoder.getFrameInfo(frameIndex).getHeight();
+            g.drawImage(working, left, top, left + frameWidth, top + frameHeight, 0, 0, frameWidth, frameHeight, null);
           }
-          buffer = null;
-
-          // rendering frame
-          g.drawImage(working, left, top, left + frameWidth, top + frameHeight, 0, 0, frameWidth, frameHeight, null);
         } finally {
           g.dispose();
           g = null;
@@ -318,4 +315,44 @@ protected synchronized void updateGraphics() {
       }
     }
   }
+
+  // Decodes and post-processes the specified frame into the top-left corner of the canvas
+  private void renderFrame(int frameIndex, BufferedImage canvas) {
+    // fetching frame data
+    int[] buffer = ((DataBufferInt) canvas.getRaster().getDataBuffer()).getData();
+    Arrays.fill(buffer, 0);
+    decoder.frameGet(control, frameIndex, canvas);
+
+    // post-processing frame
+    int canvasWidth = canvas.getWidth();
+    int canvasHeight = canvas.getHeight();
+    int frameWidth = decoder.getFrameInfo(frameIndex).getWidth();
+    int frameHeight = decoder.getFrameInfo(frameIndex).getHeight();
+
+    if (!decoder.isLightSource()) {
+      applyLighting(buffer, canvasWidth, canvasHeight, frameWidth, frameHeight, getLighting());
+    }
+  }
+
+  // Returns a key which identifies frames of the current cycle with the current lighting condition
+  private Object getAtlasKey() {
+    if (!isAtlasEnabled()) {
+      return null;
+    }
+    return FrameAtlas.createKey(decoder, control.cycleGet(), getStartFrame(), getFrameCap(),
+        decoder.isLightSource() ? -1 : getLighting());
+  }
+
+  // Renders all frames of the current cycle which are part of the animation sequence into a new atlas
+  private FrameAtlas createFrameAtlas() {
+    final Map<Integer, Dimension> frameSizes = new LinkedHashMap<>();
+    for (int i = getStartFrame(), end = getFrameCap(); i <= end; i++) {
+      final int frameIndex = control.cycleGetFrameIndexAbsolute(i);
+      if (frameIndex >= 0) {
+        final BamDecoder.FrameEntry info = decoder.getFrameInfo(frameIndex);
+        frameSizes.put(frameIndex, new Dimension(info.getWidth(), info.getHeight()));
+      }
+    }
+    return FrameAtlas.create(frameSizes, getWorkingImage(), this::renderFrame);
+  }
 }
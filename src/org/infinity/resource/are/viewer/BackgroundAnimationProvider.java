@@ -5,12 +5,15 @@
 package org.infinity.resource.are.viewer;
 
 import java.awt.AlphaComposite;
+import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferInt;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.infinity.resource.graphics.BamDecoder;
 import org.infinity.resource.graphics.BamV1Decoder;
@@ -296,6 +299,11 @@ public boolean advanceFrame() {
     } else {
       retVal = control.cycleNextFrame();
     }
+    if (isAtlasEnabled() && (isActive() || isActiveIgnored())) {
+      synchronized (this) {
+        getFrameAtlas(getAtlasKey(), true, this::createFrameAtlas);
+      }
+    }
     updateGraphics();
     return retVal;
   }
@@ -374,39 +382,8 @@ protected synchronized void updateGraphics() {
           g.fillRect(0, 0, image.getWidth(), image.getHeight());
 
           // rendering frame
-          BufferedImage working = getWorkingImage();
+          final FrameAtlas atlas = getFrameAtlas(getAtlasKey(), false, null);
           for (int frameIndex : frameIndices) {
-            // fetching frame data
-            int[] buffer = ((DataBufferInt) working.getRaster().getDataBuffer()).getData();
-            Arrays.fill(buffer, 0);
-            if (bam instanceof BamV1Decoder) {
-              ((BamV1Decoder) bam).frameGet(control, frameIndex, working);
-            } else {
-              bam.frameGet(control, frameIndex, working);
-            }
-
-            // post-processing frame
-            buffer = ((DataBufferInt) working.getRaster().getDataBuffer()).getData();
-            int canvasWidth = working.getWidth();
-            int canvasHeight = working.getHeight();
-            int frameWidth = bam.getFrameInfo(frameIndex).getWidth();
-            int frameHeight = bam.getFrameInfo(frameIndex).getHeight();
-
-            if (isMirrored()) {
-              mirrorImage(buffer, canvasWidth, canvasHeight, frameWidth, frameHeight);
-            }
-            if (baseAlpha < 255) {
-              applyAlpha(buffer, canvasWidth, canvasHeight, frameWidth, frameHeight, getBaseAlpha());
-            }
-            if (isBlended()) {
-              applyBlending(buffer, canvasWidth, canvasHeight, frameWidth, frameHeight);
-            }
-            if (!isSelfIlluminated()) {
-              applyLighting(buffer, canvasWidth, canvasHeight, frameWidth, frameHeight, getLighting());
-            }
-            buffer = null;
-
-            // rendering frame
             int left, top;
             if (isMirrored()) {
               left = -imageRect.x
@@ -417,7 +394,14 @@ protected synchronized void updateGraphics() {
               top = -imageRect.y - bam.getFrameInfo(frameIndex).getCenterY();
             }
 
-            g.drawImage(working, left, top, left + frameWidth, top + frameHeight, 0, 0, frameWidth, frameHeight, null);
+            if (atlas == null || !atlas.drawFrame(g, frameIndex, left, top)) {
+              BufferedImage working = getWorkingImage();
+              renderFrame(frameIndex, working);
+              int frameWidth = bam.getFrameInfo(frameIndex).getWidth();
+              int frameHeight = bam.getFrameInfo(frameIndex).getHeight();
+              g.drawImage(working, left, top, left + frameWidth, top + frameHeight, 0, 0, frameWidth, frameHeight,
+                  null);
+            }
           }
         } finally {
           g.dispose();
@@ -437,6 +421,63 @@ protected synchronized void updateGraphics() {
     }
   }
 
+  // Decodes and post-processes the specified frame into the top-left corner of the canvas
+  private void renderFrame(int frameIndex, BufferedImage canvas) {
+    // fetching frame data
+    int[] buffer = ((DataBufferInt) canvas.getRaster().getDataBuffer()).getData();
+    Arrays.fill(buffer, 0);
+    if (bam instanceof BamV1Decoder) {
+      ((BamV1Decoder) bam).frameGet(control, frameIndex, canvas);
+    } else {
+      bam.frameGet(control, frameIndex, canvas);
+    }
+
+    // post-processing frame
+    int canvasWidth = canvas.getWidth();
+    int canvasHeight = canvas.getHeight();
+    int frameWidth = bam.getFrameInfo(frameIndex).getWidth();
+    int frameHeight = bam.getFrameInfo(frameIndex).getHeight();
+
+    if (isMirrored()) {
+      mirrorImage(buffer, canvasWidth, canvasHeight, frameWidth, frameHeight);
+    }
+    if (baseAlpha < 255) {
+      applyAlpha(buffer, canvasWidth, canvasHeight, frameWidth, frameHeight, getBaseAlpha());
+    }
+    if (isBlended()) {
+      applyBlending(buffer, canvasWidth, canvasHeight, frameWidth, frameHeight);
+    }
+    if (!isSelfIlluminated()) {
+      applyLighting(buffer, canvasWidth, canvasHeight, frameWidth, frameHeight, getLighting());
+    }
+  }
+
+  // Returns a key which identifies frames of the current animation with the current visual properties
+  private Object getAtlasKey() {
+    if (!isAtlasEnabled()) {
+      return null;
+    }
+    return FrameAtlas.createKey(bam, isMultiPart() ? -1 : control.cycleGet(), isPaletteEnabled() ? palette : null,
+        isMirrored(), getBaseAlpha(), isBlended(), isSelfIlluminated() ? -1 : getLighting());
+  }
+
+  // Renders all frames that can be displayed by the current animation settings into a new atlas
+  private FrameAtlas createFrameAtlas() {
+    final Map<Integer, Dimension> frameSizes = new LinkedHashMap<>();
+    final int cycleMin = isMultiPart() ? 0 : control.cycleGet();
+    final int cycleMax = isMultiPart() ? control.cycleCount() - 1 : control.cycleGet();
+    for (int cycle = cycleMin; cycle <= cycleMax; cycle++) {
+      for (int i = 0, count = control.cycleFrameCount(cycle); i < count; i++) {
+        final int frameIndex = control.cycleGetFrameIndexAbsolute(cycle, i);
+        if (frameIndex >= 0) {
+          final BamDecoder.FrameEntry info = bam.getFrameInfo(frameIndex);
+          frameSizes.put(frameIndex, new Dimension(info.getWidth(), info.getHeight()));
+        }
+      }
+    }
+    return FrameAtlas.create(frameSizes, getWorkingImage(), this::renderFrame);
+  }
+
   // Mirrors image along the x axis
   private void mirrorImage(int[] buffer, int cw, int ch, int fw, int fh) {
     if (buffer != null && cw > 0 && ch > 0 && fw > 0 && fh > 0) {
@@ -0,0 +1,209 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.resource.are.viewer;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.infinity.util.BinPack2D;
+
+/**
+ * Stores pre-rendered animation frames in a single image. Frames are arranged by {@link BinPack2D}, which allows
+ * animation providers to draw frames without decoding them again.
+ */
+public class FrameAtlas {
+  /** Max. width and height of an atlas image. */
+  public static final int MAX_SIZE = 4096;
+
+  /** Renders animation frames for an atlas. */
+  @FunctionalInterface
+  public interface FrameRenderer {
+    /**
+     * Renders the specified frame into the top-left corner of the canvas.
+     *
+     * @param frameIndex Absolute index of the frame.
+     * @param canvas     ARGB image that receives the frame.
+     */
+    void render(int frameIndex, BufferedImage canvas);
+  }
+
+  private final HashMap<Integer, Rectangle> frames;
+  private final BufferedImage image;
+
+  /**
+   * Creates an atlas from the specified frames.
+   *
+   * @param frameSizes Dimensions of the frames to store, mapped by absolute frame index.
+   * @param canvas     Intermediate ARGB image used by the renderer. Must be large enough to hold each frame.
+   * @param renderer   Renders the individual frames.
+   * @return A new {@code FrameAtlas} instance, or {@code null} if the frames don't fit into a single image of
+   *         {@link #MAX_SIZE}.
+   */
+  public static FrameAtlas create(Map<Integer, Dimension> frameSizes, BufferedImage canvas, FrameRenderer renderer) {
+    if (frameSizes == null || frameSizes.isEmpty() || canvas == null || renderer == null
+        || !(canvas.getRaster().getDataBuffer() instanceof DataBufferInt)) {
+      return null;
+    }
+
+    // determining initial bin size
+    long area = 0;
+    int minWidth = 1;
+    int minHeight = 1;
+    for (final Dimension d : frameSizes.values()) {
+      if (d.width > canvas.getWidth() || d.height > canvas.getHeight()) {
+        return null;
+      }
+      area += (long) d.width * d.height;
+      minWidth = Math.max(minWidth, d.width);
+      minHeight = Math.max(minHeight, d.height);
+    }
+    int width = Math.max(minWidth, nextPowerOfTwo((int) Math.ceil(Math.sqrt(area))));
+    int height = minHeight;
+
+    // packing frames; bin dimensions are increased until all frames fit
+    final HashMap<Integer, Rectangle> frames = new HashMap<>(frameSizes.size() * 2);
+    final BinPack2D packer = new BinPack2D();
+    while (true) {
+      if (width > MAX_SIZE || height > MAX_SIZE) {
+        return null;
+      }
+      packer.init(width, height);
+      frames.clear();
+      boolean success = true;
+      for (final Map.Entry<Integer, Dimension> entry : frameSizes.entrySet()) {
+        final Dimension d = entry.getValue();
+        Rectangle r = new Rectangle(0, 0, d.width, d.height);
+        if (d.width > 0 && d.height > 0) {
+          r = packer.insert(d.width, d.height, BinPack2D.HeuristicRules.BOTTOM_LEFT_RULE);
+          if (r.height == 0) {
+            success = false;
+            break;
+          }
+        }
+        frames.put(entry.getKey(), r);
+      }
+      if (success) {
+        break;
+      }
+      if (height < width) {
+        height = Math.min(height * 2, width);
+      } else {
+        width *= 2;
+      }
+    }
+    packer.shrinkBin(false);
+
+    // rendering frames
+    final BufferedImage image = new BufferedImage(Math.max(1, packer.getBinWidth()),
+        Math.max(1, packer.getBinHeight()), BufferedImage.TYPE_INT_ARGB);
+    final int[] src = ((DataBufferInt) canvas.getRaster().getDataBuffer()).getData();
+    final int[] dst = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    for (final Map.Entry<Integer, Rectangle> entry : frames.entrySet()) {
+      final Rectangle r = entry.getValue();
+      if (r.width > 0 && r.height > 0) {
+        renderer.render(entry.getKey(), canvas);
+        for (int y = 0; y < r.height; y++) {
+          System.arraycopy(src, y * canvas.getWidth(), dst, (r.y + y) * image.getWidth() + r.x, r.width);
+        }
+      }
+    }
+
+    return new FrameAtlas(frames, image);
+  }
+
+  /**
+   * Creates a key for an atlas of the specified animation source.
+   *
+   * @param source The animation source, e.g. a BAM decoder. Sources are compared by identity.
+   * @param params Any parameters which affect the appearance of the rendered frames. Arrays are compared by content.
+   * @return A key that can be used to share atlases in the {@link SharedResourceCache}.
+   */
+  public static Object createKey(Object source, Object... params) {
+    return new Key(source, params);
+  }
+
+  private FrameAtlas(HashMap<Integer, Rectangle> frames, BufferedImage image) {
+    this.frames = frames;
+    this.image = image;
+  }
+
+  /** Returns whether the atlas contains the specified frame. */
+  public boolean contains(int frameIndex) {
+    return frames.containsKey(frameIndex);
+  }
+
+  /** Returns the image containing all frames. */
+  public BufferedImage getImage() {
+    return image;
+  }
+
+  /**
+   * Draws the specified frame at the given position.
+   *
+   * @param g          The graphics context to draw on.
+   * @param frameIndex Absolute index of the frame.
+   * @param x          Left position of the frame.
+   * @param y          Top position of the frame.
+   * @return {@code true} if the frame is available in the atlas, {@code false} otherwise.
+   */
+  public boolean drawFrame(Graphics2D g, int frameIndex, int x, int y) {
+    final Rectangle r = frames.get(frameIndex);
+    if (r == null) {
+      return false;
+    }
+    if (r.width > 0 && r.height > 0) {
+      g.drawImage(image, x, y, x + r.width, y + r.height, r.x, r.y, r.x + r.width, r.y + r.height, null);
+    }
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return "FrameAtlas [frames=" + frames.size() + ", size=" + image.getWidth() + "x" + image.getHeight() + "]";
+  }
+
+  private static int nextPowerOfTwo(int value) {
+    int retVal = 1;
+    while (retVal < value && retVal < MAX_SIZE) {
+      retVal <<= 1;
+    }
+    return retVal;
+  }
+
+  // -------------------------- INNER CLASSES --------------------------
+
+  private static class Key {
+    private final Object source;
+    private final Object[] params;
+
+    public Key(Object source, Object[] params) {
+      this.source = source;
+      this.params = (params != null) ? params : new Object[0];
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(source) * 31 + Arrays.deepHashCode(params);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj == null || getClass() != obj.getClass()) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return source == other.source && Arrays.deepEquals(params, other.params);
+    }
+  }
+}
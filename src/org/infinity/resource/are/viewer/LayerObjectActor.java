@@ -103,6 +103,10 @@ public void close() {
             SharedResourceCache.remove(SharedResourceCache.Type.ICON, key);
             break;
           case ViewerConstants.ITEM_REAL:
+            if (items[i] instanceof AnimatedLayerItem
+                && ((AnimatedLayerItem) items[i]).getAnimation() instanceof AbstractAnimationProvider) {
+              ((AbstractAnimationProvider) ((AnimatedLayerItem) items[i]).getAnimation()).close();
+            }
             SharedResourceCache.remove(SharedResourceCache.Type.ACTOR, key);
             break;
         }
@@ -260,6 +264,7 @@ protected static ActorAnimationProvider createAnimationProvider(CreResource cre)
     // initial settings
     retVal = new ActorAnimationProvider(decoder);
     retVal.setActive(true);
+    retVal.setAtlasEnabled(Settings.UseAnimationAtlas);
 
     if (isStillFrame) {
       // using second last frame to avoid glitches for selected creature animations
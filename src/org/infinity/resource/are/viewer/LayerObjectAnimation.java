@@ -149,6 +149,7 @@ public LayerObjectAnimation(AreResource parent, Animation anim) {
           bam = ((ResourceAnimation) SharedResourceCache.get(SharedResourceCache.Type.ANIMATION, keyAnim)).getData();
         }
         animation = new BackgroundAnimationProvider(bam);
+        animation.setAtlasEnabled(Settings.UseAnimationAtlas);
         animation.setPalette(palette);
         animation.setPaletteEnabled(palette != null);
         animation.setActive(isActive);
@@ -215,6 +216,10 @@ public void close() {
             SharedResourceCache.remove(SharedResourceCache.Type.ICON, key);
             break;
           case ViewerConstants.ITEM_REAL:
+            if (items[i] instanceof AnimatedLayerItem
+                && ((AnimatedLayerItem) items[i]).getAnimation() instanceof AbstractAnimationProvider) {
+              ((AbstractAnimationProvider) ((AnimatedLayerItem) items[i]).getAnimation()).close();
+            }
             SharedResourceCache.remove(SharedResourceCache.Type.ANIMATION, key);
             break;
         }
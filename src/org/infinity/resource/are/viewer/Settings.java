@@ -85,6 +85,8 @@ public class Settings {
   public static boolean ShowActorPersonalSpace = getDefaultActorPersonalSpace();
   // Defines whether accurate sprite filtering is used for actors with advanced blending modes
   public static boolean UseActorAccurateBlending = getDefaultActorAccurateBlending();
+  // Defines whether frames of actor sprites and background animations are pre-rendered into frame atlases
+  public static boolean UseAnimationAtlas = getDefaultUseAnimationAtlas();
   // Bitmask that controls the collapsed/expanded state of the sidebar controls
   public static int SidebarControls = getDefaultSidebarControls();
   // Indicates whether to show frames around real actor sprites all the time
@@ -142,6 +144,7 @@ public class Settings {
   private static final String PREFS_SHOWACTORSELECTION      = "ShowActorSelectionCircle";
   private static final String PREFS_SHOWACTORSPACE          = "ShowActorPersonalSpace";
   private static final String PREFS_USEACTORBLENDING        = "UseActorAccurateBlending";
+  private static final String PREFS_USEANIMATIONATLAS       = "UseAnimationAtlas";
   private static final String PREFS_SHOWANIMFRAME           = "ShowFrame";
   private static final String PREFS_SHOWAMBIENT             = "ShowAmbientRanges";
   private static final String PREFS_ENABLESCHEDULES         = "EnableSchedules";
@@ -193,6 +196,7 @@ public static void loadSettings(boolean force) {
       ShowActorSelectionCircle = prefs.getBoolean(PREFS_SHOWACTORSELECTION, getDefaultActorSelectionCircle());
       ShowActorPersonalSpace = prefs.getBoolean(PREFS_SHOWACTORSPACE, getDefaultActorPersonalSpace());
       UseActorAccurateBlending = prefs.getBoolean(PREFS_USEACTORBLENDING, getDefaultActorAccurateBlending());
+      UseAnimationAtlas = prefs.getBoolean(PREFS_USEANIMATIONATLAS, getDefaultUseAnimationAtlas());
       ShowAnimationFrame = prefs.getInt(PREFS_SHOWANIMFRAME, getDefaultShowAnimationFrame());
       InterpolationMap = prefs.getInt(PREFS_INTERPOLATION_MAP, getDefaultInterpolationMap());
       InterpolationAnim = prefs.getInt(PREFS_INTERPOLATION_ANIMS, getDefaultInterpolationAnim());
@@ -264,6 +268,7 @@ public static void storeSettings(boolean force) {
     prefs.putBoolean(PREFS_SHOWACTORSELECTION, ShowActorSelectionCircle);
     prefs.putBoolean(PREFS_SHOWACTORSPACE, ShowActorPersonalSpace);
     prefs.putBoolean(PREFS_USEACTORBLENDING, UseActorAccurateBlending);
+    prefs.putBoolean(PREFS_USEANIMATIONATLAS, UseAnimationAtlas);
     prefs.putInt(PREFS_SHOWANIMFRAME, ShowAnimationFrame);
     prefs.putInt(PREFS_INTERPOLATION_MAP, InterpolationMap);
     prefs.putInt(PREFS_INTERPOLATION_ANIMS, InterpolationAnim);
@@ -431,6 +436,10 @@ public static boolean getDefaultActorAccurateBlending() {
     return true;
   }
 
+  public static boolean getDefaultUseAnimationAtlas() {
+    return false;
+  }
+
   public static int getDefaultSidebarControls() {
     return ViewerConstants.SIDEBAR_VISUALSTATE | ViewerConstants.SIDEBAR_LAYERS | ViewerConstants.SIDEBAR_MINIMAPS;
   }
@@ -82,6 +82,7 @@ private enum LabelIndex {
   private JComboBox<String> cbFrames;
   private JComboBox<String> cbQualityMap;
   private JComboBox<String> cbQualityAnim;
+  private JCheckBox cbUseAnimationAtlas;
   private JCheckBox cbShowActorSelectionCircle;
   private JCheckBox cbShowActorPersonalSpace;
   private JCheckBox cbActorAccurateBlending;
@@ -168,6 +169,7 @@ private void updateSettings() {
 
     Settings.InterpolationMap = cbQualityMap.getSelectedIndex();
     Settings.InterpolationAnim = cbQualityAnim.getSelectedIndex();
+    Settings.UseAnimationAtlas = cbUseAnimationAtlas.isSelected();
 
     Settings.FrameRateOverlays = (Double) sOverlaysFps.getValue();
     Settings.FrameRateAnimations = (Double) sAnimationsFps.getValue();
@@ -223,6 +225,7 @@ private void resetDialogSettings() {
 
     cbQualityMap.setSelectedIndex(Settings.getDefaultInterpolationMap());
     cbQualityAnim.setSelectedIndex(Settings.getDefaultInterpolationAnim());
+    cbUseAnimationAtlas.setSelected(Settings.getDefaultUseAnimationAtlas());
 
     sOverlaysFps.setValue(Settings.getDefaultFrameRateOverlays());
     sAnimationsFps.setValue(Settings.getDefaultFrameRateAnimations());
@@ -433,6 +436,11 @@ private void init() {
     JLabel lQualityAnim = new JLabel("Animations:");
     cbQualityAnim = new JComboBox<>(QualityItems);
     cbQualityAnim.setSelectedIndex(Settings.InterpolationAnim);
+    cbUseAnimationAtlas = new JCheckBox("Pre-render animation frames", Settings.UseAnimationAtlas);
+    cbUseAnimationAtlas
+        .setToolTipText("<html>Renders all frames of an animation sequence once and reuses them during playback.<br/>"
+            + "Reduces CPU load of areas with many animations at the cost of higher memory usage.<br/>"
+            + "Requires a restart of the area viewer or a map update via toolbar button.</html>");
     c = ViewerUtil.setGBC(c, 0, 0, 1, 1, 0.0, 0.0, GridBagConstraints.LINE_START, GridBagConstraints.NONE,
         new Insets(4, 4, 0, 0), 0, 0);
     pQuality.add(lQualityMap, c);
@@ -440,11 +448,14 @@ private void init() {
         new Insets(4, 4, 0, 4), 0, 0);
     pQuality.add(cbQualityMap, c);
     c = ViewerUtil.setGBC(c, 0, 1, 1, 1, 0.0, 0.0, GridBagConstraints.LINE_START, GridBagConstraints.NONE,
-        new Insets(4, 4, 4, 0), 0, 0);
+        new Insets(4, 4, 0, 0), 0, 0);
     pQuality.add(lQualityAnim, c);
     c = ViewerUtil.setGBC(c, 1, 1, 1, 1, 1.0, 0.0, GridBagConstraints.LINE_START, GridBagConstraints.HORIZONTAL,
-        new Insets(4, 4, 4, 4), 0, 0);
+        new Insets(4, 4, 0, 4), 0, 0);
     pQuality.add(cbQualityAnim, c);
+    c = ViewerUtil.setGBC(c, 0, 2, 2, 1, 1.0, 0.0, GridBagConstraints.LINE_START, GridBagConstraints.NONE,
+        new Insets(4, 4, 4, 4), 0, 0);
+    pQuality.add(cbUseAnimationAtlas, c);
 
     // Frame rates
     JPanel pFrameRates = new JPanel(new GridBagLayout());
@@ -13,7 +13,7 @@
 public class SharedResourceCache {
   // Identifies the type of cache object to retrieve
   public static enum Type {
-    ICON, ANIMATION, ACTOR
+    ICON, ANIMATION, ACTOR, ATLAS
   }
 
   private static final EnumMap<Type, HashMap<Object, DataWrapper>> TABLES = new EnumMap<>(Type.class);
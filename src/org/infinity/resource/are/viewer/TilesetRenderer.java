@@ -14,8 +14,11 @@
 import java.awt.image.DataBufferInt;
 import java.awt.image.VolatileImage;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.stream.IntStream;
 
 import org.infinity.datatype.IsNumeric;
 import org.infinity.datatype.IsTextual;
@@ -52,6 +55,7 @@ public enum RenderMode {
   private static final int MAX_OVERLAYS = 8; // max. supported overlay entries
   private static final double MIN_ZOOM_FACTOR = 1.0 / 64.0; // lower zoom factor limit
   private static final double MAX_ZOOM_FACTOR = 16.0; // upper zoom factor limit
+  private static final int MIN_PARALLEL_TILES = 32; // min. number of dirty tiles to render in parallel
 
   // Placeholder for missing tile data
   private static final int[] DEFAULT_TILE_DATA = createDefaultTile();
@@ -76,7 +80,7 @@ public enum RenderMode {
   private final List<DoorInfo> listDoorTileIndices = new ArrayList<>();
 
   // internally used for drawing tile graphics
-  private final BufferedImage workingTile = ColorConvert.createCompatibleImage(64, 64, true);
+  private BufferedImage[] rowBuffers; // intermediate buffers for rendering rows of tiles
 
   private WedResource wed; // current wed resource
   private int overlayTransparency; // overlay transparency strength from 0 (opaque) to 255 (transparent)
@@ -621,6 +625,7 @@ private void release(boolean forceUpdate) {
       wed = null;
       listTilesets.clear();
       listDoorTileIndices.clear();
+      rowBuffers = null;
 
       Image img = getImage();
       if (img != null) {
@@ -733,14 +738,8 @@ private void updateDisplay(boolean forced) {
         // redraw each tile
         drawAllTiles();
       } else {
-        if (hasChangedOverlays) {
-          // redraw overlayed tiles only
-          drawOverlayTiles();
-        }
-        if (hasChangedDoorState) {
-          // redraw door tiles only
-          drawDoorTiles();
-        }
+        // redraw changed overlayed and door tiles only
+        drawChangedTiles(hasChangedOverlays, hasChangedDoorState);
       }
       repaint();
       notifyChangeListeners();
@@ -787,31 +786,151 @@ private void drawGrid(Graphics g, double gridWidth, double gridHeight, Color col
   // draws all tiles of the map
   private void drawAllTiles() {
     final Tileset ts = listTilesets.get(0);
-    ts.listTiles.forEach(tile -> drawTile(tile, isDoorTile(tile)));
+    drawTiles(ts.listTiles, true);
   }
 
-  // draws overlayed and animated tiles only
-  private void drawOverlayTiles() {
+  // draws overlayed and animated tiles whose appearance has changed
+  private void drawChangedTiles(boolean overlays, boolean doors) {
     final Tileset ts = listTilesets.get(0);
+    final List<Tile> tiles = new ArrayList<>();
 
-    if (ts.hasAnimatedTiles) {
-      ts.listTiles.stream().filter(tile -> tile.tileCount > 1).forEach(tile -> drawTile(tile, isDoorTile(tile)));
+    if (overlays && ts.hasAnimatedTiles) {
+      ts.listTiles.stream().filter(tile -> tile.tileCount > 1).forEach(tiles::add);
     }
 
-    if (ts.hasOverlays) {
-      ts.listOverlayTiles.forEach(tile -> drawTile(tile, isDoorTile(tile)));
+    if (overlays && ts.hasOverlays) {
+      tiles.addAll(ts.listOverlayTiles);
     }
+
+    if (doors) {
+      for (DoorInfo di : listDoorTileIndices) {
+        for (int j = 0, iCount = di.getIndicesCount(); j < iCount; j++) {
+          final int idx = di.getIndex(j);
+          if (idx >= 0 && idx < ts.listTiles.size()) {
+            tiles.add(ts.listTiles.get(idx));
+          }
+        }
+      }
+    }
+
+    drawTiles(tiles, false);
   }
 
-  // draws door tiles only
-  private void drawDoorTiles() {
-    final List<Tile> tileList = listTilesets.get(0).listTiles;
-    for (DoorInfo di : listDoorTileIndices) {
-      for (int j = 0, iCount = di.getIndicesCount(); j < iCount; j++) {
-        final Tile tile = tileList.get(di.getIndex(j));
-        drawTile(tile, isDoorTile(tile));
+  /**
+   * Renders the specified tiles and draws them onto the map. Tiles are rendered row by row in parallel, each row into
+   * a separate buffer, which are then transferred to the map image in a single pass.
+   *
+   * @param tiles  List of tiles to draw. Duplicate entries are drawn only once.
+   * @param forced Whether to draw tiles even if their appearance has not changed since the last call.
+   */
+  private synchronized void drawTiles(List<Tile> tiles, boolean forced) {
+    if (tiles.isEmpty() || getImage() == null) {
+      return;
+    }
+
+    // collecting dirty tiles, grouped by tile row
+    final boolean isDoorClosed = (Profile.getEngine() == Profile.Engine.PST) != isClosed;
+    final HashSet<Integer> doorTiles = getDoorTileIndices();
+    final Tileset ts = listTilesets.get(0);
+    @SuppressWarnings("unchecked")
+    final List<Tile>[] rows = new List[ts.tilesY];
+    int numTiles = 0;
+    for (final Tile tile : tiles) {
+      final boolean isDoorTile = doorTiles.contains(tile.getPrimaryIndex());
+      final long state = getRenderState(tile, isDoorTile && isDoorClosed);
+      if (forced || state != tile.renderState) {
+        tile.renderState = state;
+        tile.isDoorTile = isDoorTile;
+        final int row = tile.getY() / 64;
+        if (rows[row] == null) {
+          rows[row] = new ArrayList<>();
+        }
+        rows[row].add(tile);
+        numTiles++;
       }
     }
+    if (numTiles == 0) {
+      return;
+    }
+
+    final List<List<Tile>> dirtyRows = new ArrayList<>();
+    for (final List<Tile> row : rows) {
+      if (row != null) {
+        row.sort(Comparator.comparingInt(Tile::getX));
+        dirtyRows.add(row);
+      }
+    }
+
+    // row buffers are reused for batches of rows
+    final int batchSize = Math.min(dirtyRows.size(), Math.max(1, Runtime.getRuntime().availableProcessors()));
+    final int width = ts.tilesX * 64;
+    if (rowBuffers == null || rowBuffers.length < batchSize || rowBuffers[0].getWidth() != width) {
+      rowBuffers = new BufferedImage[batchSize];
+      for (int i = 0; i < batchSize; i++) {
+        rowBuffers[i] = new BufferedImage(width, 64, BufferedImage.TYPE_INT_ARGB);
+      }
+    }
+    final BufferedImage[] buffers = rowBuffers;
+
+    final Graphics2D g = (Graphics2D) getImage().getGraphics();
+    try {
+      for (int start = 0; start < dirtyRows.size(); start += batchSize) {
+        final int base = start;
+        final int count = Math.min(batchSize, dirtyRows.size() - start);
+
+        // rendering rows in parallel; rows are written to separate buffers
+        IntStream stream = IntStream.range(0, count);
+        if (numTiles >= MIN_PARALLEL_TILES) {
+          stream = stream.parallel();
+        }
+        stream.forEach(i -> drawRow(dirtyRows.get(base + i), isDoorClosed, buffers[i]));
+
+        // transferring contiguous spans of rendered tiles to the map
+        for (int i = 0; i < count; i++) {
+          final List<Tile> row = dirtyRows.get(base + i);
+          final int y = row.get(0).getY();
+          int left = row.get(0).getX();
+          int right = left + 64;
+          for (int j = 1, size = row.size(); j <= size; j++) {
+            final int x = (j < size) ? row.get(j).getX() : -1;
+            if (x == right) {
+              right += 64;
+            } else {
+              g.drawImage(buffers[i], left, y, right, y + 64, left, 0, right, 64, null);
+              left = x;
+              right = x + 64;
+            }
+          }
+        }
+      }
+    } finally {
+      g.dispose();
+    }
+  }
+
+  // renders the specified tiles of a single tile row into the row buffer
+  private void drawRow(List<Tile> row, boolean isDoorClosed, BufferedImage buffer) {
+    final int[] target = new int[64 * 64];
+    final int[] dest = ((DataBufferInt) buffer.getRaster().getDataBuffer()).getData();
+    final int stride = buffer.getWidth();
+    for (final Tile tile : row) {
+      drawTile(tile, tile.isDoorTile, isDoorClosed, target);
+      for (int y = 0, srcOfs = 0, dstOfs = tile.getX(); y < 64; y++, srcOfs += 64, dstOfs += stride) {
+        System.arraycopy(target, srcOfs, dest, dstOfs, 64);
+      }
+    }
+  }
+
+  // Returns a value that identifies the graphics data the specified tile is composed of
+  private long getRenderState(Tile tile, boolean isDoorClosed) {
+    int ovlIdx = -1;
+    boolean blended = false;
+    if (overlaysEnabled && tile.hasOverlay() && hasOverlay(tile.getOverlayIndex())) {
+      ovlIdx = listTilesets.get(tile.getOverlayIndex()).listTiles.get(0).getPrimaryIndex();
+      blended = (renderingMode == RenderMode.AUTO && blendedOverlays) || (renderingMode == RenderMode.BLENDED);
+    }
+    return ((long) tile.getPrimaryIndex() << 32) | ((ovlIdx & 0x3fffffffL) << 2) | (blended ? 2L : 0L)
+        | (isDoorClosed ? 1L : 0L);
   }
 
   // render tile graphics without overlays
@@ -940,12 +1059,9 @@ private void drawTileBlended(int[] primaryTile, int[] secondaryTile, int[] overl
     }
   }
 
-  // draws the specified tile into the target graphics buffer
-  private synchronized void drawTile(Tile tile, boolean isDoorTile) {
+  // renders the specified tile into the target buffer of 64x64 pixels
+  private void drawTile(Tile tile, boolean isDoorTile, boolean isDoorClosed, int[] target) {
     if (tile != null) {
-      boolean isDoorClosed = (Profile.getEngine() == Profile.Engine.PST) != isClosed;
-      int[] target = ((DataBufferInt) workingTile.getRaster().getDataBuffer()).getData();
-
       if (overlaysEnabled && tile.hasOverlay() && hasOverlay(tile.getOverlayIndex())) { // overlayed tile
         // preparing graphics data
         int overlay = tile.getOverlayIndex();
@@ -1052,35 +1168,22 @@ private synchronized void drawTile(Tile tile, boolean isDoorTile) {
           }
         }
       }
-
-      // drawing tile on canvas
-      if (getImage() != null) {
-        Graphics2D g = (Graphics2D) getImage().getGraphics();
-        g.drawImage(workingTile, tile.getX(), tile.getY(), null);
-        g.dispose();
-      }
-      target = null;
     }
   }
 
-  // Returns whether the specified tile is used as a door tile
-  private boolean isDoorTile(Tile tile) {
-    if (tile != null) {
-      int tileIdx = tile.getPrimaryIndex();
-      for (DoorInfo di : listDoorTileIndices) {
-        for (int j = 0, iCount = di.getIndicesCount(); j < iCount; j++) {
-          try {
-            int idx = listTilesets.get(0).listTiles.get(di.getIndex(j)).getPrimaryIndex();
-            if (idx == tileIdx) {
-              return true;
-            }
-          } catch (Exception e) {
-            // ignore invalid tile indices
-          }
+  // Returns the primary tile indices of all tiles used as door tiles
+  private HashSet<Integer> getDoorTileIndices() {
+    final HashSet<Integer> retVal = new HashSet<>();
+    final List<Tile> tileList = listTilesets.get(0).listTiles;
+    for (DoorInfo di : listDoorTileIndices) {
+      for (int j = 0, iCount = di.getIndicesCount(); j < iCount; j++) {
+        final int idx = di.getIndex(j);
+        if (idx >= 0 && idx < tileList.size()) {
+          retVal.add(tileList.get(idx).getPrimaryIndex());
         }
       }
     }
-    return false;
+    return retVal;
   }
 
   // Notify all registered change listeners
@@ -1272,6 +1375,8 @@ private static class Tile {
     private final int y;  // (x, y) as pixel coordinates
     private final int flags; // flags defines overlay usage
     private final boolean isTisV1;
+    private long renderState = Long.MIN_VALUE; // identifies the graphics data of the last rendered state
+    private boolean isDoorTile; // whether the tile was rendered as door tile
 
     public Tile(int x, int y, int tileCount, int[] index, int index2, int flags, boolean isTisV1) {
       if (tileCount < 0) {
@@ -0,0 +1,518 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.resource.bcs;
+
+import java.util.Locale;
+
+import org.infinity.resource.Profile;
+import org.infinity.resource.ResourceFactory;
+import org.infinity.resource.key.ResourceEntry;
+import org.infinity.util.IdsMap;
+import org.infinity.util.IdsMapCache;
+import org.infinity.util.IdsMapEntry;
+import org.infinity.util.StringBufferStream;
+
+/**
+ * Reads the references of compiled script code without generating script source.
+ * <p>
+ * The reader walks the byte code structure in the same way as the {@link Decompiler} and reports the referenced
+ * resources, string references, IDS values and strings to a {@link Listener}. Resources and string references are
+ * resolved exactly as {@link Decompiler#getResourcesUsed()} and {@link Decompiler#getStringRefsUsed()} do, and errors
+ * are reported with the same messages as {@link Decompiler#getIdsErrors()}, but without line numbers.
+ * </p>
+ * <p>
+ * Searches and checks can use the reader to process scripts considerably faster, and decompile only those scripts
+ * which actually need human-readable source, e.g. for displaying the matching lines.
+ * </p>
+ */
+public class BcsReferenceReader {
+  /** Receives the references found by a {@link BcsReferenceReader}. All methods do nothing by default. */
+  public interface Listener {
+    /** Called for each trigger or action with the signature that matches its parameters. */
+    default void function(Signatures.Function function) {
+    }
+
+    /** Called for each resource referenced by a trigger or action parameter. */
+    default void resource(ResourceEntry entry) {
+    }
+
+    /** Called for each string reference used by a trigger or action parameter. */
+    default void stringRef(int strref) {
+    }
+
+    /**
+     * Called for each value that is looked up in an IDS resource.
+     *
+     * @param idsName Name of the IDS resource without extension.
+     * @param value   The IDS value. Bitwise values are reported individually for each set bit.
+     * @param symbol  The symbol of the value, or {@code null} if the value could not be resolved.
+     */
+    default void idsValue(String idsName, long value, String symbol) {
+    }
+
+    /**
+     * Called for each non-empty string parameter and object name.
+     *
+     * @param value        The string value.
+     * @param isScriptName Whether the string is the script name of a game object.
+     */
+    default void string(String value, boolean isScriptName) {
+    }
+
+    /** Called for each error that would be reported by the {@link Decompiler}. */
+    default void error(String message) {
+    }
+  }
+
+  private final Listener listener;
+
+  private ScriptType scriptType;
+  private Signatures triggers;
+  private Signatures actions;
+
+  /**
+   * Creates a reader that reports references to the specified listener.
+   *
+   * @param listener The {@link Listener} that receives the references.
+   */
+  public BcsReferenceReader(Listener listener) {
+    if (listener == null) {
+      throw new NullPointerException();
+    }
+    this.listener = listener;
+  }
+
+  /**
+   * Reads the specified BCS byte code.
+   *
+   * @param code BCS byte code.
+   * @throws Exception on unresolvable errors in the byte code.
+   */
+  public void read(String code) throws Exception {
+    read(code, ScriptType.BCS);
+  }
+
+  /**
+   * Reads the specified byte code.
+   *
+   * @param code Compiled script code.
+   * @param type Type of the script code.
+   * @throws Exception on unresolvable errors in the byte code.
+   */
+  public void read(String code, ScriptType type) throws Exception {
+    scriptType = type;
+    triggers = Signatures.getTriggers();
+    actions = Signatures.getActions();
+
+    final StringBufferStream sbs = new StringBufferStream((code != null) ? code : "");
+    sbs.setAutoSkipWhitespace(true);
+    switch (type) {
+      case BCS:
+        if (sbs.skip("SC")) {
+          while (!sbs.eos() && !sbs.skip("SC")) {
+            if (sbs.skip("CR")) {
+              readCR(sbs);
+            } else {
+              sbs.skip();
+            }
+          }
+        }
+        break;
+      case TRIGGER:
+        readTriggers(sbs, null);
+        break;
+      case ACTION:
+        readActions(sbs, null);
+        break;
+      default:
+        throw new IllegalArgumentException("Could not determine script type");
+    }
+  }
+
+  private void readCR(StringBufferStream sbs) throws Exception {
+    while (!sbs.eos() && !sbs.skip("CR")) {
+      if (sbs.skip("CO")) {
+        readTriggers(sbs, "CO");
+      } else if (sbs.skip("RS")) {
+        readRS(sbs);
+      } else {
+        sbs.skip();
+      }
+    }
+  }
+
+  private void readRS(StringBufferStream sbs) throws Exception {
+    while (!sbs.eos() && !sbs.skip("RS")) {
+      if (sbs.skip("RE")) {
+        final String weight = sbs.getMatch("[0-9]+");
+        if (weight == null) {
+          throw new Exception("Missing or invalid response weight");
+        }
+        try {
+          Integer.parseInt(weight);
+        } catch (NumberFormatException e) {
+          throw new Exception("Invalid response weight: " + weight);
+        }
+        readActions(sbs, "RE");
+      } else {
+        sbs.skip();
+      }
+    }
+  }
+
+  // Reads triggers until the specified closing token or the end of the code is reached
+  private void readTriggers(StringBufferStream sbs, String closingToken) throws Exception {
+    final boolean overrideEnabled = (scriptType != ScriptType.TRIGGER);
+    BcsTrigger override = null;
+    while (!sbs.eos() && (closingToken == null || !sbs.skip(closingToken))) {
+      if (sbs.skip("TR")) {
+        final BcsTrigger trigger = new BcsTrigger(sbs, triggers);
+        if (overrideEnabled && override == null && trigger.isOverride()) {
+          override = trigger; // combined with the next trigger
+        } else {
+          if (override != null) {
+            trigger.setOverride(override);
+            override = null;
+          }
+          readTrigger(trigger);
+        }
+      } else {
+        sbs.skip();
+      }
+    }
+
+    // recovering pending override trigger
+    if (override != null) {
+      readTrigger(override);
+    }
+  }
+
+  // Reads actions until the specified closing token or the end of the code is reached
+  private void readActions(StringBufferStream sbs, String closingToken) throws Exception {
+    while (!sbs.eos() && (closingToken == null || !sbs.skip(closingToken))) {
+      if (sbs.skip("AC")) {
+        readAction(new BcsAction(sbs, actions));
+      } else {
+        sbs.skip();
+      }
+    }
+  }
+
+  private void readTrigger(BcsTrigger trigger) {
+    Signatures.Function[] functions = trigger.signatures.getFunction(trigger.id);
+    if (functions == null) {
+      trigger.id ^= 0x4000;
+      functions = trigger.signatures.getFunction(trigger.id);
+      if (functions == null) {
+        trigger.id ^= 0x4000;
+      }
+    }
+    if (functions == null) {
+      listener.error(String.format("0x%04X not found in %s", trigger.id,
+          trigger.signatures.getResource().toUpperCase(Locale.ENGLISH)));
+      return;
+    }
+
+    final Signatures.Function function = trigger.getMatchingFunction();
+    if (function == null) {
+      listener.error(String.format("No matching signature found for 0x%04X in %s", trigger.id,
+          trigger.signatures.getResource().toUpperCase(Locale.ENGLISH)));
+      return;
+    }
+
+    // handling TriggerOverride()
+    final BcsTrigger override = trigger.getOverride();
+    if (override != null) {
+      readObject(override.t6);
+    }
+
+    listener.function(function);
+    int curNum = 0, curString = 0, curObj = 0, curPoint = 0;
+    for (int i = 0, cnt = function.getNumParameters(); i < cnt; i++) {
+      final Signatures.Function.Parameter p = function.getParameter(i);
+      final boolean allowed = ScriptInfo.getInfo().isCommentAllowed(function.getId(), i);
+      switch (p.getType()) {
+        case Signatures.Function.Parameter.TYPE_INTEGER: {
+          long value;
+          try {
+            value = trigger.getNumericParam(curNum);
+          } catch (IllegalArgumentException e) {
+            value = 0;
+            listener.error("No value defined for number at parameter " + i + ". Using defaults.");
+          }
+          readNumber(value, p, allowed);
+          curNum++;
+          break;
+        }
+        case Signatures.Function.Parameter.TYPE_STRING: {
+          String value;
+          try {
+            value = trigger.getStringParam(function, curString);
+          } catch (IllegalArgumentException e) {
+            value = "";
+            listener.error("No value defined for string at parameter " + i + ". Using defaults.");
+          }
+          readString(value, p, allowed);
+          curString++;
+          break;
+        }
+        case Signatures.Function.Parameter.TYPE_OBJECT: {
+          BcsObject value;
+          try {
+            value = trigger.getObjectParam(curObj);
+          } catch (IllegalArgumentException e) {
+            value = BcsObject.getEmptyObject();
+            listener.error("No value defined for object at parameter " + i + ". Using defaults.");
+          }
+          readObject(value);
+          curObj++;
+          break;
+        }
+        case Signatures.Function.Parameter.TYPE_POINT: {
+          try {
+            trigger.getPointParam(curPoint);
+          } catch (IllegalArgumentException e) {
+            listener.error("No value defined for point at parameter " + i + ". Using defaults.");
+          }
+          curPoint++;
+          break;
+        }
+        default:
+          listener.error("Unknown type for parameter " + i + ".");
+          return;
+      }
+    }
+  }
+
+  private void readAction(BcsAction action) {
+    final Signatures.Function[] functions = action.signatures.getFunction(action.id);
+    if (functions == null) {
+      listener.error(String.format("%d not found in %s", action.id,
+          action.signatures.getResource().toUpperCase(Locale.ENGLISH)));
+      return;
+    }
+
+    final Signatures.Function function = action.getMatchingFunction();
+    if (function == null) {
+      listener.error(String.format("No matching signature found for %d in %s", action.id,
+          action.signatures.getResource().toUpperCase(Locale.ENGLISH)));
+      return;
+    }
+
+    listener.function(function);
+    int curNum = 0, curObj = 1, curString = 0, curPoint = 0; // curObj: skipping ActionOverride
+    for (int i = 0, cnt = function.getNumParameters(); i < cnt; i++) {
+      final Signatures.Function.Parameter p = function.getParameter(i);
+      final boolean allowed = ScriptInfo.getInfo().isCommentAllowed(function.getId(), i);
+      switch (p.getType()) {
+        case Signatures.Function.Parameter.TYPE_INTEGER: {
+          long value;
+          try {
+            value = action.getNumericParam(curNum);
+          } catch (IllegalArgumentException e) {
+            value = 0;
+            listener.error("No value defined for number at parameter " + i + ". Using defaults.");
+          }
+          readNumber(value, p, allowed);
+          curNum++;
+          break;
+        }
+        case Signatures.Function.Parameter.TYPE_STRING: {
+          String value;
+          try {
+            value = action.getStringParam(function, curString);
+          } catch (IllegalArgumentException e) {
+            value = "";
+            listener.error("No value defined for string at parameter " + i + ". Using defaults.");
+          }
+          readString(value, p, allowed);
+          curString++;
+          break;
+        }
+        case Signatures.Function.Parameter.TYPE_POINT: {
+          try {
+            action.getPointParam(curPoint);
+          } catch (IllegalArgumentException e) {
+            listener.error("No value defined for point at parameter " + i + ". Using defaults.");
+          }
+          curPoint++;
+          break;
+        }
+        case Signatures.Function.Parameter.TYPE_OBJECT: {
+          BcsObject value;
+          try {
+            value = action.getObjectParam(curObj);
+          } catch (IllegalArgumentException e) {
+            value = BcsObject.getEmptyObject();
+            listener.error("No value defined for object at parameter " + i + ". Using defaults.");
+          }
+          readObject(value);
+          curObj++;
+          break;
+        }
+        case Signatures.Function.Parameter.TYPE_ACTION:
+          // ignore
+          break;
+      }
+    }
+
+    // handling ActionOverride()
+    final BcsObject override = action.getObjectParam(0);
+    if (!override.isEmpty()) {
+      readObject(override);
+    }
+  }
+
+  private void readObject(BcsObject object) {
+    if (object == null) {
+      return;
+    }
+
+    final boolean hasTarget = readObjectTarget(object);
+    if (!hasTarget && !object.isEmptyString()) {
+      listener.string(object.name, true);
+    }
+
+    // identifiers are ordered from most outer to most inner identifier
+    if (!object.isEmptyIdentifier()) {
+      final IdsMap map = IdsMapCache.get("OBJECT.IDS");
+      if (map == null) {
+        listener.error("Could not retrieve values from OBJECT.IDS");
+      }
+      boolean found = false;
+      for (int i = object.identifier.length - 1; i >= 0; i--) {
+        if (object.identifier[i] != 0) {
+          found = true;
+          final IdsMapEntry entry = (map != null) ? map.get(object.identifier[i]) : null;
+          listener.idsValue("OBJECT", object.identifier[i], (entry != null) ? entry.getSymbol() : null);
+        } else if (found) {
+          break;
+        }
+      }
+    }
+  }
+
+  // Reads the target values of the object. Returns whether the object defines a target.
+  private boolean readObjectTarget(BcsObject object) {
+    if (object.isEmptyTarget()) {
+      return false;
+    }
+
+    final long[] idsValues = object.target.clone();
+    int numTargetValues = 0;
+    for (int i = idsValues.length - 1; i >= 0; i--) {
+      if (idsValues[i] != 0) {
+        numTargetValues = i + 1;
+        break;
+      }
+    }
+
+    final ScriptInfo info = ScriptInfo.getInfo();
+    final String[] idsNames = BcsObject.getTargetList();
+    final boolean isIwd2 = (Profile.getEngine() == Profile.Engine.IWD2);
+    long race = 0; // store RACE value in IWD2
+    for (int i = 0; i < numTargetValues; i++) {
+      if (isIwd2) {
+        // IWD2 needs RACE value to correctly look up SUBRACE symbol
+        if (i == info.IDX_OBJECT_RACE) {
+          race = idsValues[i];
+        } else if (i == info.IDX_OBJECT_SUBRACE) {
+          idsValues[i] |= race << 16;
+        }
+      }
+      if (idsValues[i] != 0) {
+        // don't use symbols for 0
+        final IdsMap map = IdsMapCache.get(idsNames[i] + ".IDS");
+        final IdsMapEntry entry = (map != null) ? map.get(idsValues[i]) : null;
+        if (entry != null) {
+          listener.idsValue(idsNames[i], idsValues[i], entry.getSymbol());
+        } else {
+          listener.error(idsValues[i] + " not found in " + idsNames[i] + ".IDS");
+          if (isIwd2 && i == info.IDX_OBJECT_SUBRACE) {
+            // reverting RACE + SUBRACE combination
+            idsValues[i] &= ~(race << 16);
+          }
+          listener.idsValue(idsNames[i], idsValues[i], null);
+        }
+      }
+    }
+    return numTargetValues > 0;
+  }
+
+  private void readNumber(long value, Signatures.Function.Parameter param, boolean allowed) {
+    final String ids = param.getIdsRef();
+    if (!ids.isEmpty()) {
+      final IdsMap map = IdsMapCache.get(ids + ".ids");
+      if (map != null) {
+        IdsMapEntry entry = map.get(value);
+        if (entry == null) {
+          entry = map.get(value & 0xffffffffL);
+        }
+        if (entry != null) {
+          listener.idsValue(ids, value, entry.getSymbol());
+        } else if (Decompiler.isBitwiseIds(ids)) {
+          final long bits = value & 0xffffffffL; // converted into unsigned value
+          for (int bit = 0; bit < 32; bit++) {
+            final long mask = 1L << bit;
+            if ((bits & mask) == mask) {
+              entry = map.get(mask);
+              listener.idsValue(ids, mask, (entry != null) ? entry.getSymbol() : null);
+            }
+          }
+        } else {
+          listener.idsValue(ids, value, null);
+          listener.error(value + " not found in " + ids.toUpperCase(Locale.ENGLISH) + ".IDS");
+        }
+      } else {
+        listener.error("Could not find " + ids.toUpperCase(Locale.ENGLISH) + ".IDS");
+      }
+    }
+
+    if (allowed) {
+      for (final String type : param.getResourceType()) {
+        if (type.equals("TLK")) {
+          listener.stringRef((int) value);
+          break;
+        } else if (type.equals("SPL")) {
+          final String resRef = org.infinity.resource.spl.Viewer.getResourceName((int) value, true);
+          final ResourceEntry entry = ResourceFactory.getResourceEntry(resRef, true);
+          if (entry != null) {
+            listener.resource(entry);
+            break;
+          }
+        }
+      }
+    }
+  }
+
+  private void readString(String value, Signatures.Function.Parameter param, boolean allowed) {
+    if (value.isEmpty()) {
+      return;
+    }
+
+    final String[] types = param.getResourceType();
+    boolean isScriptName = false;
+    for (final String type : types) {
+      if (type.equals(Signatures.Function.Parameter.RESTYPE_SCRIPT)) {
+        isScriptName = true;
+        break;
+      }
+    }
+    listener.string(value, isScriptName);
+
+    if (allowed && value.length() <= 8) {
+      for (final String type : types) {
+        if ((Character.isUpperCase(type.charAt(0)) || Character.isDigit(type.charAt(0)))
+            && (!type.equals("ARE") || !ScriptInfo.getInfo().isGlobalScope(value))) {
+          // resolving resource name
+          final ResourceEntry entry = ResourceFactory.getResourceEntry(value + '.' + type, true);
+          if (entry != null) {
+            listener.resource(entry);
+          }
+        }
+      }
+    }
+  }
+}
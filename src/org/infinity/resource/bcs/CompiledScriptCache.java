@@ -0,0 +1,342 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.resource.bcs;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.infinity.gui.menu.BrowserMenuBar;
+import org.infinity.resource.Profile;
+import org.infinity.resource.ResourceFactory;
+import org.infinity.resource.key.ResourceEntry;
+import org.infinity.util.Logger;
+import org.infinity.util.io.FileEx;
+
+/**
+ * Caches the compiled byte code and the references of script sources, such as dialog triggers and actions.
+ * <p>
+ * Searches and checks which have to compile script sources only to decompile them again for the contained resource
+ * names and string references can request the result from this cache instead. Results are keyed by script type and
+ * source text, so that identical sources from different resources share the same result.
+ * </p>
+ * <p>
+ * The cache can optionally be stored in the game-specific cache folder. Stored results are discarded as a whole if the
+ * IDS resources or the set of available resources of the game have changed.
+ * </p>
+ */
+public final class CompiledScriptCache {
+  /** File name of the cache in the game-specific cache folder. */
+  public static final String FILE_NAME = "script_cache.bin";
+
+  private static final int SIGNATURE = 0x4e495343; // "NISC"
+  private static final int VERSION = 1;
+
+  // Max. number of cached results; results of further sources are created but not cached
+  private static final int MAX_ENTRIES = 100_000;
+  // Sources of this length or longer are not written to disk
+  private static final int MAX_STORED_LENGTH = 8192;
+
+  private static CompiledScriptCache instance;
+
+  private final ConcurrentHashMap<Key, Result> results = new ConcurrentHashMap<>();
+  // Path of the cache file, null if results are kept in memory only
+  private final Path file;
+  // Combined state of all resources the results depend on
+  private final long environment;
+
+  private volatile boolean modified;
+
+  /** Returns whether the cache should be stored in the game-specific cache folder. */
+  public static boolean isPersistent() {
+    return BrowserMenuBar.isInstantiated() && BrowserMenuBar.getInstance().getOptions().usePersistentScriptCache();
+  }
+
+  /**
+   * Returns the compiled code and the references of the specified script source. The source is compiled and
+   * decompiled only if no result is cached for it yet.
+   *
+   * @param source The script source.
+   * @param type   The script type of the source, e.g. {@link ScriptType#TRIGGER} or {@link ScriptType#ACTION}.
+   * @return A {@link Result} object with the compiled code and the references of the source.
+   */
+  public static Result get(String source, ScriptType type) {
+    if (source == null) {
+      source = "";
+    }
+    final CompiledScriptCache cache = getCache();
+    final Key key = new Key(type, source);
+    Result result = cache.results.get(key);
+    if (result == null) {
+      result = createResult(source, type);
+      if (cache.results.size() < MAX_ENTRIES) {
+        final Result prev = cache.results.putIfAbsent(key, result);
+        if (prev != null) {
+          result = prev;
+        } else if (cache.file != null && source.length() < MAX_STORED_LENGTH) {
+          cache.modified = true;
+        }
+      }
+    }
+    return result;
+  }
+
+  /** Writes the cache to the game-specific cache folder if it is persistent and has been modified. */
+  public static synchronized void saveIfModified() {
+    if (instance != null && instance.modified) {
+      try {
+        instance.save();
+      } catch (IOException e) {
+        Logger.warn(e, "Could not save script cache");
+      }
+    }
+  }
+
+  /** Writes pending changes to disk and discards all cached results. */
+  public static synchronized void clearCache() {
+    saveIfModified();
+    instance = null;
+  }
+
+  private static synchronized CompiledScriptCache getCache() {
+    if (instance == null) {
+      final Path folder = isPersistent() ? Profile.getCacheFolder() : null;
+      if (folder != null) {
+        instance = load(folder.resolve(FILE_NAME));
+      } else {
+        instance = new CompiledScriptCache(null, 0L);
+      }
+    }
+    return instance;
+  }
+
+  private static CompiledScriptCache load(Path file) {
+    final CompiledScriptCache cache = new CompiledScriptCache(file, getEnvironment());
+    if (!FileEx.create(file).isFile()) {
+      return cache;
+    }
+
+    final ScriptType[] types = ScriptType.values();
+    try (DataInputStream dis = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (dis.readInt() != SIGNATURE || dis.readInt() != VERSION || dis.readLong() != cache.environment) {
+        Logger.debug("Script cache is outdated: {}", file);
+        cache.modified = true;
+        return cache;
+      }
+
+      final int count = dis.readInt();
+      for (int i = 0; i < count; i++) {
+        final ScriptType type = types[dis.readUnsignedByte()];
+        final String source = dis.readUTF();
+        final String code = dis.readUTF();
+        final boolean hasErrors = dis.readBoolean();
+        final String decompiled = dis.readBoolean() ? dis.readUTF() : null;
+        final Set<ResourceEntry> resourcesUsed = new HashSet<>();
+        for (int j = dis.readInt(); j > 0; j--) {
+          final ResourceEntry entry = ResourceFactory.getResourceEntry(dis.readUTF(), true);
+          if (entry != null) {
+            resourcesUsed.add(entry);
+          }
+        }
+        final Set<Integer> strrefsUsed = new HashSet<>();
+        for (int j = dis.readInt(); j > 0; j--) {
+          strrefsUsed.add(dis.readInt());
+        }
+        cache.results.put(new Key(type, source), new Result(code, hasErrors, decompiled, resourcesUsed, strrefsUsed));
+      }
+    } catch (IOException | IndexOutOfBoundsException e) {
+      Logger.warn(e, "Could not load script cache");
+      cache.results.clear();
+      cache.modified = true;
+    }
+    return cache;
+  }
+
+  // Returns a hash value of the IDS resources and the names of all available resources, which affect the output of
+  // the script decompiler
+  private static long getEnvironment() {
+    long retVal = VERSION;
+    final List<ResourceEntry> idsList = ResourceFactory.getResources("IDS");
+    if (idsList != null) {
+      for (final ResourceEntry entry : idsList) {
+        retVal = retVal * 31L + entry.getResourceName().hashCode();
+        final Path path = entry.getActualPath();
+        if (path != null) {
+          try {
+            retVal = (retVal * 31L + Files.size(path)) * 31L + Files.getLastModifiedTime(path).toMillis();
+          } catch (IOException e) {
+            Logger.trace(e);
+          }
+        }
+      }
+    }
+    final List<ResourceEntry> resources = ResourceFactory.getResources();
+    if (resources != null) {
+      for (final ResourceEntry entry : resources) {
+        retVal = retVal * 31L + entry.getResourceName().hashCode();
+      }
+    }
+    return retVal;
+  }
+
+  // Compiles and decompiles the specified source
+  private static Result createResult(String source, ScriptType type) {
+    final Compiler compiler = new Compiler(source, type);
+    final String code = compiler.getCode();
+    final boolean hasErrors = !compiler.getErrors().isEmpty();
+
+    String decompiled = null;
+    Set<ResourceEntry> resourcesUsed = Collections.emptySet();
+    Set<Integer> strrefsUsed = Collections.emptySet();
+    try {
+      final Decompiler decompiler = new Decompiler(code, type, false);
+      decompiler.setGenerateComments(false);
+      decompiler.setGenerateResourcesUsed(true);
+      decompiled = decompiler.decompile();
+      resourcesUsed = new HashSet<>(decompiler.getResourcesUsed());
+      strrefsUsed = new HashSet<>(decompiler.getStringRefsUsed());
+    } catch (Exception e) {
+      Logger.trace(e);
+    }
+    return new Result(code, hasErrors, decompiled, resourcesUsed, strrefsUsed);
+  }
+
+  private CompiledScriptCache(Path file, long environment) {
+    this.file = file;
+    this.environment = environment;
+  }
+
+  // Writes the cache to disk
+  private synchronized void save() throws IOException {
+    modified = false;
+    Files.createDirectories(file.getParent());
+    final Path tmpFile = file.resolveSibling(FILE_NAME + ".tmp");
+    try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+      dos.writeInt(SIGNATURE);
+      dos.writeInt(VERSION);
+      dos.writeLong(environment);
+
+      final List<Map.Entry<Key, Result>> list = new ArrayList<>(results.size());
+      for (final Map.Entry<Key, Result> e : results.entrySet()) {
+        if (e.getKey().source.length() < MAX_STORED_LENGTH && e.getValue().code.length() < MAX_STORED_LENGTH
+            && (e.getValue().source == null || e.getValue().source.length() < MAX_STORED_LENGTH)) {
+          list.add(e);
+        }
+      }
+      dos.writeInt(list.size());
+      for (final Map.Entry<Key, Result> e : list) {
+        final Result result = e.getValue();
+        dos.writeByte(e.getKey().type.ordinal());
+        dos.writeUTF(e.getKey().source);
+        dos.writeUTF(result.code);
+        dos.writeBoolean(result.hasErrors);
+        dos.writeBoolean(result.source != null);
+        if (result.source != null) {
+          dos.writeUTF(result.source);
+        }
+        dos.writeInt(result.resourcesUsed.size());
+        for (final ResourceEntry entry : result.resourcesUsed) {
+          dos.writeUTF(entry.getResourceName());
+        }
+        dos.writeInt(result.strrefsUsed.size());
+        for (final Integer strref : result.strrefsUsed) {
+          dos.writeInt(strref);
+        }
+      }
+    } catch (IOException e) {
+      modified = true;
+      throw e;
+    }
+    Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  // -------------------------- INNER CLASSES --------------------------
+
+  /** Compiled code and references of a script source. Instances are shared and must not be modified. */
+  public static final class Result {
+    private final String code;
+    private final boolean hasErrors;
+    private final String source;
+    private final Set<ResourceEntry> resourcesUsed;
+    private final Set<Integer> strrefsUsed;
+
+    private Result(String code, boolean hasErrors, String source, Set<ResourceEntry> resourcesUsed,
+        Set<Integer> strrefsUsed) {
+      this.code = code;
+      this.hasErrors = hasErrors;
+      this.source = source;
+      this.resourcesUsed = Collections.unmodifiableSet(resourcesUsed);
+      this.strrefsUsed = Collections.unmodifiableSet(strrefsUsed);
+    }
+
+    /** Returns the compiled byte code. */
+    public String getCode() {
+      return code;
+    }
+
+    /** Returns whether errors occurred when compiling the source. */
+    public boolean hasErrors() {
+      return hasErrors;
+    }
+
+    /**
+     * Returns the decompiled source without comments. Returns {@code null} if the byte code could not be decompiled.
+     */
+    public String getSource() {
+      return source;
+    }
+
+    /** Returns the resources referenced by the script. */
+    public Set<ResourceEntry> getResourcesUsed() {
+      return resourcesUsed;
+    }
+
+    /** Returns the string references used by the script. */
+    public Set<Integer> getStringRefsUsed() {
+      return strrefsUsed;
+    }
+  }
+
+  private static final class Key {
+    private final ScriptType type;
+    private final String source;
+    private final int hash;
+
+    public Key(ScriptType type, String source) {
+      this.type = type;
+      this.source = source;
+      this.hash = type.hashCode() * 31 + source.hashCode();
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj == null || getClass() != obj.getClass()) {
+        return false;
+      }
+      final Key other = (Key) obj;
+      return type == other.type && source.equals(other.source);
+    }
+  }
+}
@@ -1138,6 +1138,11 @@ private String getNormalizedString(String string) {
     return retVal;
   }
 
+  /** Returns {@code true} if the specified IDS resource (without extension) contains only bitwise entries. */
+  static boolean isBitwiseIds(String ids) {
+    return ids != null && BITWISE_IDS.contains(ids.toLowerCase());
+  }
+
   /** Searches for IDS resources with only binary entries and adds them to the global list. */
   private static void updateBitwiseIds() {
     final List<ResourceEntry> idsList = ResourceFactory.getResources("ids");
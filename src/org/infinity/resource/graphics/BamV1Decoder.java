@@ -4,12 +4,18 @@
 
 package org.infinity.resource.graphics;
 
+import java.awt.AlphaComposite;
 import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.awt.Image;
 import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
 import java.awt.image.DataBufferByte;
 import java.awt.image.DataBufferInt;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -33,6 +39,9 @@ public class BamV1Decoder extends BamDecoder {
   private ByteBuffer bamBuffer; // contains the raw (uncompressed) data of the BAM resource
   private int[] bamPalette; // BAM palette
   private int rleIndex; // color index for RLE compressed pixels
+  private byte[] bamData; // backing array of bamBuffer
+  private int bamDataOffset; // offset of the BAM data in bamData
+  private BufferedImage scratchImage; // reused for decoding frames onto unsupported canvas types
 
   /**
    * Loads and decodes a BAM v1 resource. This includes both compressed (BAMC) and uncompressed BAM resource.
@@ -61,7 +70,10 @@ public BamV1FrameEntry getFrameInfo(int frameIdx) {
   @Override
   public void close() {
     bamBuffer = null;
+    bamData = null;
+    bamDataOffset = 0;
     bamPalette = null;
+    scratchImage = null;
     listFrames.clear();
     listCycles.clear();
     rleIndex = 0;
@@ -144,14 +156,21 @@ private void init() {
 
     if (getResourceEntry() != null) {
       try {
-        bamBuffer = getResourceEntry().getResourceBuffer();
+        final GraphicsCache.ResourceBuffer data = GraphicsCache.getInstance()
+            .getResourceBuffer(GraphicsCache.Type.BAM, getResourceEntry(), "BAMC");
+        bamBuffer = data.getBuffer();
+        if (bamBuffer.hasArray()) {
+          bamData = bamBuffer.array();
+          bamDataOffset = bamBuffer.arrayOffset();
+        } else {
+          bamData = new byte[bamBuffer.limit()];
+          ((ByteBuffer) bamBuffer.duplicate().position(0)).get(bamData);
+          bamDataOffset = 0;
+        }
         String signature = StreamUtils.readString(bamBuffer, 0, 4);
         String version = StreamUtils.readString(bamBuffer, 4, 4);
-        if ("BAMC".equals(signature)) {
+        if (data.isCompressed()) {
           setType(Type.BAMC);
-          bamBuffer = Compressor.decompress(bamBuffer);
-          signature = StreamUtils.readString(bamBuffer, 0, 4);
-          version = StreamUtils.readString(bamBuffer, 4, 4);
         } else if ("BAM ".equals(signature) && "V1  ".equals(version)) {
           setType(Type.BAMV1);
         } else {
@@ -243,79 +262,26 @@ private void decodeFrame(BamControl control, int frameIdx, Image canvas) {
         palette = bamPalette;
       }
 
-      // decoding frame data
-      BufferedImage image = ColorConvert.toBufferedImage(canvas, true, false);
-      byte[] bufferB = null;
-      int[] bufferI = null;
-      if (image.getType() == BufferedImage.TYPE_BYTE_INDEXED) {
-        bufferB = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
-      } else {
-        bufferI = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
-      }
-      int dstWidth = image.getWidth();
-      int dstHeight = image.getHeight();
-      int srcWidth = listFrames.get(frameIdx).width;
-      int srcHeight = listFrames.get(frameIdx).height;
-      boolean isCompressed = listFrames.get(frameIdx).compressed;
-      int ofsData = listFrames.get(frameIdx).ofsData;
-
-      int left, top, maxWidth, maxHeight, srcOfs, dstOfs;
-      int count = 0, color = 0;
-      byte pixel = 0;
-      if (control.getMode() == BamControl.Mode.SHARED) {
-        left = -control.getSharedRectangle().x - listFrames.get(frameIdx).centerX;
-        top = -control.getSharedRectangle().y - listFrames.get(frameIdx).centerY;
-        maxWidth = (dstWidth < srcWidth + left) ? dstWidth : srcWidth;
-        maxHeight = (dstHeight < srcHeight + top) ? dstHeight : srcHeight;
-        srcOfs = ofsData;
-        dstOfs = top * dstWidth + left;
+      // decoding directly into the canvas if supported
+      if (canvas instanceof BufferedImage && isDirectTarget((BufferedImage) canvas)) {
+        decodeFrame(frameIdx, control, palette, (BufferedImage) canvas);
+        return;
+      }
+
+      // decoding into intermediate image
+      BufferedImage image;
+      if (canvas instanceof BufferedImage
+          && ((BufferedImage) canvas).getRaster().getDataBuffer().getDataType() == DataBuffer.TYPE_BYTE) {
+        image = ColorConvert.toBufferedImage(canvas, true, false);
       } else {
-        left = top = 0;
-        maxWidth = Math.min(dstWidth, srcWidth);
-        maxHeight = Math.min(dstHeight, srcHeight);
-        srcOfs = ofsData;
-        dstOfs = 0;
+        image = getScratchImage(canvas);
       }
-      try {
-        for (int y = 0; y < maxHeight; y++) {
-          for (int x = 0; x < srcWidth; x++, dstOfs++) {
-            if (count > 0) {
-              // writing remaining RLE compressed pixels
-              count--;
-              if (x < maxWidth) {
-                if (bufferB != null) {
-                  bufferB[dstOfs] = pixel;
-                }
-                if (bufferI != null) {
-                  bufferI[dstOfs] = color;
-                }
-              }
-            } else {
-              pixel = bamBuffer.get(srcOfs++);
-              color = palette[pixel & 0xff];
-              if (isCompressed && (pixel & 0xff) == rleIndex) {
-                count = bamBuffer.get(srcOfs++) & 0xff;
-              }
-              if (x < maxWidth) {
-                if (bufferB != null) {
-                  bufferB[dstOfs] = pixel;
-                }
-                if (bufferI != null) {
-                  bufferI[dstOfs] = color;
-                }
-              }
-            }
-          }
-          dstOfs += dstWidth - srcWidth;
-        }
-      } catch (Exception e) {
-        Logger.error("Error [{}]: input (offset={}, size={}), output (offset={}, size={})",
-            e.getClass().getName(), srcOfs, bamBuffer.limit(), dstOfs, bufferB != null ? bufferB.length : bufferI.length);
+      if (image == null || !isDirectTarget(image)) {
+        return;
       }
-      bufferB = null;
-      bufferI = null;
+      decodeFrame(frameIdx, control, palette, image);
 
-      // rendering resulting image onto the canvas if needed
+      // rendering resulting image onto the canvas
       if (image != canvas) {
         Graphics2D g = (Graphics2D) canvas.getGraphics();
         try {
@@ -327,12 +293,214 @@ private void decodeFrame(BamControl control, int frameIdx, Image canvas) {
           g.dispose();
           g = null;
         }
-        image.flush();
+        if (image != scratchImage) {
+          image.flush();
+        }
         image = null;
       }
     }
   }
 
+  // Decodes the specified frame into the given image, which must be supported by isDirectTarget().
+  private void decodeFrame(int frameIdx, BamControl control, int[] palette, BufferedImage image) {
+    final BamV1FrameEntry frame = listFrames.get(frameIdx);
+    final WritableRaster raster = image.getRaster();
+    final int dstWidth = image.getWidth();
+    final int dstHeight = image.getHeight();
+    final int dstStride = getScanlineStride(raster);
+    final int srcWidth = frame.width;
+    final int srcHeight = frame.height;
+
+    int left, top;
+    if (control.getMode() == BamControl.Mode.SHARED) {
+      left = -control.getSharedRectangle().x - frame.centerX;
+      top = -control.getSharedRectangle().y - frame.centerY;
+    } else {
+      left = top = 0;
+    }
+
+    // visible frame area
+    final int x0 = Math.max(0, -left);
+    final int x1 = Math.min(srcWidth, dstWidth - left);
+    final int y1 = Math.min(srcHeight, dstHeight - top);
+    final int dstOfs = raster.getDataBuffer().getOffset() + top * dstStride + left;
+
+    final byte[] src = bamData;
+    final int srcOfs = bamDataOffset + frame.ofsData;
+    final int rle = frame.compressed ? rleIndex : -1;
+    try {
+      if (raster.getDataBuffer() instanceof DataBufferInt) {
+        final int[] dst = ((DataBufferInt) raster.getDataBuffer()).getData();
+        decodeFrameARGB(src, srcOfs, srcWidth, y1, rle, palette, dst, dstOfs, dstStride, x0, x1, top);
+      } else {
+        final byte[] dst = ((DataBufferByte) raster.getDataBuffer()).getData();
+        decodeFrameIndexed(src, srcOfs, srcWidth, y1, rle, dst, dstOfs, dstStride, x0, x1, top);
+      }
+    } catch (Exception e) {
+      Logger.error("Error [{}]: frame {} (offset={}, size={}), output (size={}x{})", e.getClass().getName(), frameIdx,
+          frame.ofsData, bamBuffer.limit(), dstWidth, dstHeight);
+    }
+  }
+
+  /**
+   * Decodes frame pixels into an ARGB pixel buffer.
+   *
+   * @param src       BAM data.
+   * @param srcOfs    Start offset of the frame data.
+   * @param srcWidth  Width of the frame.
+   * @param numRows   Number of frame rows to decode.
+   * @param rle       Compressed color index, or -1 if the frame is not compressed.
+   * @param palette   ARGB palette.
+   * @param dst       Destination pixel buffer.
+   * @param dstOfs    Destination offset of the top-left frame pixel.
+   * @param dstStride Number of pixels per destination row.
+   * @param x0        First visible frame column.
+   * @param x1        End (exclusive) of visible frame columns.
+   * @param top       Vertical position of the frame in the destination. Rows above the destination are skipped.
+   */
+  private static void decodeFrameARGB(byte[] src, int srcOfs, int srcWidth, int numRows, int rle, int[] palette,
+      int[] dst, int dstOfs, int dstStride, int x0, int x1, int top) {
+    int count = 0; // remaining pixels of an RLE run
+    int color = 0;
+    for (int y = 0; y < numRows; y++, dstOfs += dstStride) {
+      // rows outside of the destination are decoded without writing pixels
+      final int end = (y + top >= 0) ? x1 : x0;
+      int x = 0;
+      if (rle < 0) {
+        for (int i = x0; i < end; i++) {
+          dst[dstOfs + i] = palette[src[srcOfs + i] & 0xff];
+        }
+        srcOfs += srcWidth;
+        continue;
+      }
+
+      while (x < srcWidth) {
+        int run;
+        if (count > 0) {
+          // continuing run from previous row
+          run = Math.min(count, srcWidth - x);
+          count -= run;
+        } else {
+          final int pixel = src[srcOfs++] & 0xff;
+          color = palette[pixel];
+          if (pixel == rle) {
+            count = (src[srcOfs++] & 0xff) + 1;
+            run = Math.min(count, srcWidth - x);
+            count -= run;
+          } else {
+            if (x >= x0 && x < end) {
+              dst[dstOfs + x] = color;
+            }
+            x++;
+            continue;
+          }
+        }
+        final int from = Math.max(x, x0);
+        final int to = Math.min(x + run, end);
+        if (from < to) {
+          Arrays.fill(dst, dstOfs + from, dstOfs + to, color);
+        }
+        x += run;
+      }
+    }
+  }
+
+  /**
+   * Decodes frame pixels into an indexed pixel buffer. See {@link #decodeFrameARGB} for a description of the
+   * parameters.
+   */
+  private static void decodeFrameIndexed(byte[] src, int srcOfs, int srcWidth, int numRows, int rle, byte[] dst,
+      int dstOfs, int dstStride, int x0, int x1, int top) {
+    int count = 0; // remaining pixels of an RLE run
+    byte pixel = 0;
+    for (int y = 0; y < numRows; y++, dstOfs += dstStride) {
+      // rows outside of the destination are decoded without writing pixels
+      final int end = (y + top >= 0) ? x1 : x0;
+      int x = 0;
+      if (rle < 0) {
+        if (x0 < end) {
+          System.arraycopy(src, srcOfs + x0, dst, dstOfs + x0, end - x0);
+        }
+        srcOfs += srcWidth;
+        continue;
+      }
+
+      while (x < srcWidth) {
+        int run;
+        if (count > 0) {
+          // continuing run from previous row
+          run = Math.min(count, srcWidth - x);
+          count -= run;
+        } else {
+          pixel = src[srcOfs++];
+          if ((pixel & 0xff) == rle) {
+            count = (src[srcOfs++] & 0xff) + 1;
+            run = Math.min(count, srcWidth - x);
+            count -= run;
+          } else {
+            if (x >= x0 && x < end) {
+              dst[dstOfs + x] = pixel;
+            }
+            x++;
+            continue;
+          }
+        }
+        final int from = Math.max(x, x0);
+        final int to = Math.min(x + run, end);
+        if (from < to) {
+          Arrays.fill(dst, dstOfs + from, dstOfs + to, pixel);
+        }
+        x += run;
+      }
+    }
+  }
+
+  // Returns whether frames can be decoded directly into the pixel buffer of the specified image.
+  private static boolean isDirectTarget(BufferedImage image) {
+    final WritableRaster raster = image.getRaster();
+    if (raster.getParent() != null || raster.getSampleModelTranslateX() != 0
+        || raster.getSampleModelTranslateY() != 0) {
+      return false;
+    }
+    if (raster.getDataBuffer() instanceof DataBufferInt) {
+      return raster.getSampleModel() instanceof SinglePixelPackedSampleModel;
+    } else {
+      return image.getType() == BufferedImage.TYPE_BYTE_INDEXED;
+    }
+  }
+
+  // Returns the number of data elements per row of the specified raster.
+  private static int getScanlineStride(WritableRaster raster) {
+    final SampleModel sm = raster.getSampleModel();
+    if (sm instanceof SinglePixelPackedSampleModel) {
+      return ((SinglePixelPackedSampleModel) sm).getScanlineStride();
+    } else if (sm instanceof ComponentSampleModel) {
+      return ((ComponentSampleModel) sm).getScanlineStride();
+    }
+    return raster.getWidth();
+  }
+
+  // Returns a reusable true color image which is initialized with the content of the specified canvas.
+  private BufferedImage getScratchImage(Image canvas) {
+    final int width = canvas.getWidth(null);
+    final int height = canvas.getHeight(null);
+    if (width <= 0 || height <= 0) {
+      return null;
+    }
+    if (scratchImage == null || scratchImage.getWidth() != width || scratchImage.getHeight() != height) {
+      scratchImage = ColorConvert.createCompatibleImage(width, height, true);
+    }
+    Graphics2D g = scratchImage.createGraphics();
+    try {
+      g.setComposite(AlphaComposite.Src);
+      g.drawImage(canvas, 0, 0, null);
+    } finally {
+      g.dispose();
+      g = null;
+    }
+    return scratchImage;
+  }
+
   @Override
   public int hashCode() {
     final int prime = 31;
@@ -63,7 +63,6 @@ public BamV2FrameEntry getFrameInfo(int frameIdx) {
 
   @Override
   public void close() {
-    PvrDecoder.flushCache();
     bamBuffer = null;
     listFrames.clear();
     listCycles.clear();
@@ -0,0 +1,444 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.resource.graphics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.infinity.gui.menu.BrowserMenuBar;
+import org.infinity.resource.key.ResourceEntry;
+import org.infinity.util.Logger;
+import org.infinity.util.io.StreamUtils;
+
+/**
+ * A global cache for decoded graphics data, such as PVR textures and the raw content of BAM, MOS and TIS resources.
+ * <p>
+ * Entries of all types share a single memory budget. Each entry is accounted by its weight, which is the approximate
+ * number of bytes occupied by pixel arrays or resource buffers. Least recently used entries are discarded first,
+ * regardless of their type, when the configurable capacity is exceeded. Optionally the number of entries can be
+ * limited for individual types.
+ * </p>
+ */
+public final class GraphicsCache {
+  /** Categories of cached graphics data. */
+  public enum Type {
+    /** Encoded PVR texture data ({@link PvrDecoder} instances). */
+    PVR,
+    /** Decoded PVRTC textures ({@code BufferedImage} instances). */
+    PVR_TEXTURE,
+    /** Decoded tiles of DXT-compressed PVR textures ({@code int[]} ARGB pixel data). */
+    PVR_TILE,
+    /** Uncompressed BAM resource data. */
+    BAM,
+    /** Uncompressed MOS resource data. */
+    MOS,
+    /** TIS resource data. */
+    TIS,
+  }
+
+  /** Functional interface for creating cache entries on demand. */
+  @FunctionalInterface
+  public interface Loader<T> {
+    T load() throws Exception;
+  }
+
+  /** Functional interface for determining the weight of a cache entry. */
+  @FunctionalInterface
+  public interface Weigher<T> {
+    long weigh(T value);
+  }
+
+  /** Size limit that is used if the preferences are not available. */
+  public static final long DEFAULT_CAPACITY = 256L << 20;
+
+  private static final GraphicsCache INSTANCE = new GraphicsCache();
+
+  // Cached entries of all types in access order
+  private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+  private final EnumMap<Type, Statistics> statistics = new EnumMap<>(Type.class);
+
+  private long capacity;
+  private long size;
+
+  /** Returns the global {@code GraphicsCache} instance. */
+  public static GraphicsCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Returns a key for data associated with the specified resource. Keys include path, size and modification time of the
+   * file providing the resource data, so that data of modified files or of biffed resources which have been overridden
+   * in the meantime is not returned.
+   */
+  public static Object createKey(ResourceEntry entry) {
+    Objects.requireNonNull(entry);
+    final Path path = entry.getActualPath();
+    long fileSize = 0L;
+    long lastModified = 0L;
+    if (path != null) {
+      try {
+        fileSize = Files.size(path);
+        lastModified = Files.getLastModifiedTime(path).toMillis();
+      } catch (IOException e) {
+        Logger.trace(e);
+      }
+    }
+    return new ResourceKey(entry, path, fileSize, lastModified);
+  }
+
+  private GraphicsCache() {
+    if (BrowserMenuBar.isInstantiated()) {
+      this.capacity = Math.max(0L, BrowserMenuBar.getInstance().getOptions().getGraphicsCacheSize());
+    } else {
+      this.capacity = DEFAULT_CAPACITY;
+    }
+    for (final Type type : Type.values()) {
+      statistics.put(type, new Statistics());
+    }
+  }
+
+  /** Returns the max. number of bytes that can be occupied by cached data. */
+  public synchronized long getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Sets the max. number of bytes that can be occupied by cached data. Least recently used entries are removed if the
+   * new limit is exceeded.
+   */
+  public synchronized void setCapacity(long capacity) {
+    this.capacity = Math.max(0L, capacity);
+    evict(null, 0L);
+  }
+
+  /** Returns the number of bytes currently occupied by cached data. */
+  public synchronized long getSize() {
+    return size;
+  }
+
+  /** Returns the number of bytes currently occupied by cached data of the specified type. */
+  public synchronized long getSize(Type type) {
+    return statistics.get(type).weight;
+  }
+
+  /** Returns the number of cached entries of the specified type. */
+  public synchronized int getCount(Type type) {
+    return statistics.get(type).count;
+  }
+
+  /** Returns the max. number of cached entries of the specified type. */
+  public synchronized int getMaxEntries(Type type) {
+    return statistics.get(type).maxEntries;
+  }
+
+  /**
+   * Limits the number of cached entries of the specified type. Least recently used entries of the type are removed if
+   * the new limit is exceeded. Specify 0 to disable caching of the type, or {@link Integer#MAX_VALUE} to remove the
+   * limit.
+   */
+  public synchronized void setMaxEntries(Type type, int maxEntries) {
+    statistics.get(type).maxEntries = Math.max(0, maxEntries);
+    evict(type, 0L);
+  }
+
+  /**
+   * Returns the cached data of the specified type and key.
+   *
+   * @param type      Type of the data.
+   * @param key       Key of the data.
+   * @param valueType Class of the data.
+   * @return The cached data. Returns {@code null} if the data is not cached.
+   */
+  public synchronized <T> T get(Type type, Object key, Class<T> valueType) {
+    final Entry entry = entries.get(new Key(type, key));
+    final Statistics stats = statistics.get(type);
+    if (entry != null && valueType.isInstance(entry.value)) {
+      stats.hits++;
+      return valueType.cast(entry.value);
+    }
+    stats.misses++;
+    return null;
+  }
+
+  /**
+   * Returns the cached data of the specified type and key. The data is created by the given loader and added to the
+   * cache if it is not yet cached.
+   *
+   * @param type      Type of the data.
+   * @param key       Key of the data.
+   * @param valueType Class of the data.
+   * @param loader    Creates the data if it is not cached.
+   * @param weigher   Determines the number of bytes occupied by the data.
+   * @return The cached or newly created data. Returns {@code null} if the loader returned {@code null}.
+   * @throws Exception if the data could not be created.
+   */
+  public <T> T get(Type type, Object key, Class<T> valueType, Loader<? extends T> loader,
+      Weigher<? super T> weigher) throws Exception {
+    T value = get(type, key, valueType);
+    if (value == null) {
+      value = loader.load();
+      if (value != null) {
+        put(type, key, value, weigher.weigh(value));
+      }
+    }
+    return value;
+  }
+
+  /**
+   * Adds data to the cache. Data is rejected if it exceeds the cache capacity.
+   *
+   * @param type   Type of the data.
+   * @param key    Key of the data.
+   * @param value  The data to cache.
+   * @param weight Number of bytes occupied by the data.
+   * @return {@code true} if the data has been added to the cache, {@code false} otherwise.
+   */
+  public synchronized boolean put(Type type, Object key, Object value, long weight) {
+    Objects.requireNonNull(type);
+    Objects.requireNonNull(key);
+    weight = Math.max(0L, weight);
+    final Statistics stats = statistics.get(type);
+    if (value == null || weight > capacity || stats.maxEntries == 0) {
+      return false;
+    }
+
+    final Key k = new Key(type, key);
+    removeEntry(k);
+    evict(null, weight);
+    entries.put(k, new Entry(value, weight));
+    size += weight;
+    stats.weight += weight;
+    stats.count++;
+    evict(type, 0L);
+    return true;
+  }
+
+  /** Removes the data of the specified type and key from the cache. */
+  public synchronized void remove(Type type, Object key) {
+    removeEntry(new Key(type, key));
+  }
+
+  /** Removes all cached data of the specified type. Statistics are not affected. */
+  public synchronized void clear(Type type) {
+    for (final Iterator<Map.Entry<Key, Entry>> iter = entries.entrySet().iterator(); iter.hasNext();) {
+      final Map.Entry<Key, Entry> e = iter.next();
+      if (e.getKey().type == type) {
+        iter.remove();
+        release(type, e.getValue());
+      }
+    }
+  }
+
+  /** Removes all cached data. Statistics are not affected. */
+  public synchronized void clear() {
+    entries.clear();
+    size = 0L;
+    for (final Statistics stats : statistics.values()) {
+      stats.count = 0;
+      stats.weight = 0L;
+    }
+  }
+
+  /** Returns the number of requests for data of the specified type that could be served by the cache. */
+  public synchronized long getHitCount(Type type) {
+    return statistics.get(type).hits;
+  }
+
+  /** Returns the number of requests for data of the specified type that could not be served by the cache. */
+  public synchronized long getMissCount(Type type) {
+    return statistics.get(type).misses;
+  }
+
+  /** Returns the number of entries of the specified type that were removed to satisfy the cache limits. */
+  public synchronized long getEvictionCount(Type type) {
+    return statistics.get(type).evictions;
+  }
+
+  /** Returns the ratio of requests for data of the specified type that could be served by the cache. */
+  public synchronized double getHitRate(Type type) {
+    final Statistics stats = statistics.get(type);
+    final long total = stats.hits + stats.misses;
+    return (total > 0L) ? (double) stats.hits / total : 0.0;
+  }
+
+  @Override
+  public synchronized String toString() {
+    final StringBuilder sb = new StringBuilder("GraphicsCache [size=").append(size).append(", capacity=")
+        .append(capacity);
+    statistics.forEach((type, stats) -> {
+      sb.append(", ").append(type).append("={count=").append(stats.count).append(", size=").append(stats.weight)
+          .append(", hits=").append(stats.hits).append(", misses=").append(stats.misses).append(", evictions=")
+          .append(stats.evictions).append('}');
+    });
+    return sb.append(']').toString();
+  }
+
+  /**
+   * Returns the content of the specified resource. Resource data is read and decompressed only if it is not yet
+   * cached. The returned buffer shares its content with the cached data and must not be modified.
+   *
+   * @param type                Type of the data.
+   * @param entry               The resource entry.
+   * @param compressedSignature Signature of the compressed variant of the resource (e.g. "BAMC"). Data with this
+   *                            signature is decompressed before it is cached. Specify {@code null} if not needed.
+   * @return {@link ResourceBuffer} with the uncompressed resource data.
+   * @throws Exception if the resource could not be read.
+   */
+  ResourceBuffer getResourceBuffer(Type type, ResourceEntry entry, String compressedSignature) throws Exception {
+    return get(type, createKey(entry), ResourceBuffer.class, () -> {
+      ByteBuffer buffer = entry.getResourceBuffer();
+      boolean compressed = false;
+      if (compressedSignature != null && compressedSignature.equals(StreamUtils.readString(buffer, 0, 4))) {
+        buffer = Compressor.decompress(buffer);
+        compressed = true;
+      }
+      return new ResourceBuffer(buffer, compressed);
+    }, rb -> rb.buffer.limit());
+  }
+
+  // Removes the entry of the specified key and updates statistics
+  private void removeEntry(Key key) {
+    final Entry entry = entries.remove(key);
+    if (entry != null) {
+      release(key.type, entry);
+    }
+  }
+
+  private void release(Type type, Entry entry) {
+    final Statistics stats = statistics.get(type);
+    size -= entry.weight;
+    stats.weight -= entry.weight;
+    stats.count--;
+  }
+
+  /**
+   * Removes least recently used entries until the specified amount of bytes can be added without exceeding capacity.
+   * If a type is specified, entries of this type are removed until its entry limit is satisfied.
+   */
+  private void evict(Type type, long required) {
+    final Statistics typeStats = (type != null) ? statistics.get(type) : null;
+    for (final Iterator<Map.Entry<Key, Entry>> iter = entries.entrySet().iterator(); iter.hasNext();) {
+      final boolean overCapacity = size + required > capacity;
+      final boolean overCount = typeStats != null && typeStats.count > typeStats.maxEntries;
+      if (!overCapacity && !overCount) {
+        break;
+      }
+      final Map.Entry<Key, Entry> e = iter.next();
+      if (overCapacity || e.getKey().type == type) {
+        iter.remove();
+        release(e.getKey().type, e.getValue());
+        statistics.get(e.getKey().type).evictions++;
+      }
+    }
+  }
+
+  // -------------------------- INNER CLASSES --------------------------
+
+  /** Uncompressed resource data. */
+  static final class ResourceBuffer {
+    private final ByteBuffer buffer;
+    private final boolean compressed;
+
+    private ResourceBuffer(ByteBuffer buffer, boolean compressed) {
+      this.buffer = buffer;
+      this.compressed = compressed;
+    }
+
+    /** Returns a new buffer which shares the resource data. Position and limit of the buffer are independent. */
+    public ByteBuffer getBuffer() {
+      return buffer.duplicate().order(buffer.order());
+    }
+
+    /** Returns whether the resource data was stored in compressed form. */
+    public boolean isCompressed() {
+      return compressed;
+    }
+  }
+
+  private static class Key {
+    private final Type type;
+    private final Object key;
+
+    public Key(Type type, Object key) {
+      this.type = Objects.requireNonNull(type);
+      this.key = Objects.requireNonNull(key);
+    }
+
+    @Override
+    public int hashCode() {
+      return type.hashCode() * 31 + key.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj == null || getClass() != obj.getClass()) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return type == other.type && key.equals(other.key);
+    }
+  }
+
+  private static class ResourceKey {
+    private final ResourceEntry entry;
+    private final Path path;
+    private final long fileSize;
+    private final long lastModified;
+
+    public ResourceKey(ResourceEntry entry, Path path, long fileSize, long lastModified) {
+      this.entry = entry;
+      this.path = path;
+      this.fileSize = fileSize;
+      this.lastModified = lastModified;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(entry, path, fileSize, lastModified);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj == null || getClass() != obj.getClass()) {
+        return false;
+      }
+      ResourceKey other = (ResourceKey) obj;
+      return Objects.equals(entry, other.entry) && Objects.equals(path, other.path) && fileSize == other.fileSize
+          && lastModified == other.lastModified;
+    }
+  }
+
+  private static class Entry {
+    private final Object value;
+    private final long weight;
+
+    public Entry(Object value, long weight) {
+      this.value = value;
+      this.weight = weight;
+    }
+  }
+
+  private static class Statistics {
+    private int count;
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private int maxEntries = Integer.MAX_VALUE;
+  }
+}
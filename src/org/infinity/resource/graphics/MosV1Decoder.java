@@ -373,14 +373,13 @@ private void init() {
 
     if (getResourceEntry() != null) {
       try {
-        mosBuffer = getResourceEntry().getResourceBuffer();
+        final GraphicsCache.ResourceBuffer data = GraphicsCache.getInstance()
+            .getResourceBuffer(GraphicsCache.Type.MOS, getResourceEntry(), "MOSC");
+        mosBuffer = data.getBuffer();
         String signature = StreamUtils.readString(mosBuffer, 0, 4);
         String version = StreamUtils.readString(mosBuffer, 4, 4);
-        if ("MOSC".equals(signature)) {
+        if (data.isCompressed()) {
           setType(Type.MOSC);
-          mosBuffer = Compressor.decompress(mosBuffer);
-          signature = StreamUtils.readString(mosBuffer, 0, 4);
-          version = StreamUtils.readString(mosBuffer, 4, 4);
         } else if ("MOS ".equals(signature) && "V1  ".equals(version)) {
           setType(Type.MOSV1);
         } else {
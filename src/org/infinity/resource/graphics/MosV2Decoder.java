@@ -81,7 +81,6 @@ public void preloadPvrz() {
 
   @Override
   public void close() {
-    PvrDecoder.flushCache();
     dataBlocks.clear();
     mosBuffer = null;
     width = height = blockCount = 0;
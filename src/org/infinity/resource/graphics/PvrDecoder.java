@@ -8,9 +8,7 @@
 import java.awt.image.BufferedImage;
 import java.io.InputStream;
 import java.nio.file.Path;
-import java.util.LinkedHashMap;
 import java.util.Locale;
-import java.util.Map;
 import java.util.zip.InflaterInputStream;
 
 import org.infinity.resource.graphics.decoder.PvrInfo;
@@ -26,11 +24,12 @@
  * PVRZ resources (this includes only a selected number of supported pixel formats).
  */
 public class PvrDecoder {
-  // The global cache list for PVR objects. The "key" has to be a unique String (e.g. filename or integer as string)
-  private static final Map<String, PvrDecoder> PVR_CACHE = new LinkedHashMap<>();
+  // The default max. number of cache entries to hold
+  private static final int DEFAULT_MAX_CACHE_ENTRIES = 32;
 
-  // The max. number of cache entries to hold
-  private static int MaxCacheEntries = 32;
+  static {
+    GraphicsCache.getInstance().setMaxEntries(GraphicsCache.Type.PVR, DEFAULT_MAX_CACHE_ENTRIES);
+  }
 
   private PvrInfo info;
 
@@ -126,77 +125,65 @@ public static PvrDecoder loadPvr(InputStream input) {
 
   /** Returns the max. number of PvrDecoder objects to cache. */
   public static int getMaxCacheEntries() {
-    return MaxCacheEntries;
+    return GraphicsCache.getInstance().getMaxEntries(GraphicsCache.Type.PVR);
   }
 
-  /** Specify the new max. number of PvrDecoder objects to cache. Specifying 0 disables the cache. */
-  public static synchronized void setMaxCacheEntries(int maxValue) {
-    if (maxValue < 0)
-      maxValue = 0;
-    else if (maxValue > 65535)
-      maxValue = 65535;
-    if (maxValue != MaxCacheEntries) {
-      MaxCacheEntries = maxValue;
-      while (PVR_CACHE.size() > MaxCacheEntries) {
-        PVR_CACHE.remove(PVR_CACHE.keySet().iterator().next());
-      }
-    }
+  /**
+   * Specify the new max. number of PvrDecoder objects to cache. Specifying 0 disables the cache. Cached objects are
+   * also limited by the capacity of the {@link GraphicsCache}.
+   */
+  public static void setMaxCacheEntries(int maxValue) {
+    maxValue = Math.max(0, Math.min(65535, maxValue));
+    GraphicsCache.getInstance().setMaxEntries(GraphicsCache.Type.PVR, maxValue);
   }
 
   /** Clears all available caches. */
-  public static synchronized void flushCache() {
-    PVR_CACHE.clear();
+  public static void flushCache() {
+    GraphicsCache.getInstance().clear(GraphicsCache.Type.PVR);
     PvrInfo.flushCache();
   }
 
   /** Returns the current cache load as percentage value. */
   public static int getCacheLoad() {
-    if (MaxCacheEntries > 0) {
-      return (PVR_CACHE.size() * 100) / MaxCacheEntries;
+    final int maxEntries = getMaxCacheEntries();
+    if (maxEntries > 0) {
+      return (GraphicsCache.getInstance().getCount(GraphicsCache.Type.PVR) * 100) / maxEntries;
     } else {
       return 0;
     }
   }
 
   // Returns a cached PvrDecoder object if available, null otherwise.
-  private static synchronized PvrDecoder getCachedPvrDecoder(String key) {
-    final PvrDecoder retVal = PVR_CACHE.get(key);
-    if (retVal != null) {
-      // re-inserting entry to prevent premature removal from cache
-      PVR_CACHE.remove(key);
-      PVR_CACHE.put(key, retVal);
+  private static PvrDecoder getCachedPvrDecoder(String key) {
+    if (key != null && !key.isEmpty()) {
+      key = key.toUpperCase(Locale.ENGLISH);
+      return GraphicsCache.getInstance().get(GraphicsCache.Type.PVR, key, PvrDecoder.class);
     }
-    return retVal;
+    return null;
   }
 
-  // Returns a PvrDecoder object of the specified key if available, or creates and returns a new one otherwise.
-  private static synchronized PvrDecoder createPvrDecoder(String key, InputStream input) {
+  // Creates a PvrDecoder object of the specified key and adds it to the cache.
+  private static PvrDecoder createPvrDecoder(String key, InputStream input) {
     PvrDecoder retVal = null;
     if (key != null && !key.isEmpty()) {
       key = key.toUpperCase(Locale.ENGLISH);
-      if (PVR_CACHE.containsKey(key)) {
-        retVal = PVR_CACHE.get(key);
-        // re-inserting entry to prevent premature removal from cache
-        PVR_CACHE.remove(key);
-        PVR_CACHE.put(key, retVal);
-      } else {
-        try {
-          retVal = new PvrDecoder(input);
-          if (retVal != null) {
-            PVR_CACHE.put(key, retVal);
-            // removing excess cache entries
-            while (PVR_CACHE.size() > MaxCacheEntries) {
-              PVR_CACHE.remove(PVR_CACHE.keySet().iterator().next());
-            }
-          }
-        } catch (Exception e) {
-          Logger.error(e);
-        }
+      try {
+        retVal = new PvrDecoder(key, input);
+        GraphicsCache.getInstance().put(GraphicsCache.Type.PVR, key, retVal, retVal.getWeight());
+      } catch (Exception e) {
+        Logger.error(e);
       }
     }
     return retVal;
   }
 
+  /** Returns the approximate number of bytes occupied by the PVR data. */
+  public long getWeight() {
+    final byte[] data = info.getData();
+    final byte[] metaData = info.getMetaData();
+    return 128L + ((data != null) ? data.length : 0) + ((metaData != null) ? metaData.length : 0);
+  }
+
   /** Provides access to the PVR information data structure. */
   public PvrInfo getInfo() {
     return info;
@@ -277,7 +264,7 @@ public boolean decode(BufferedImage image, int x, int y, int width, int height)
     return info.decode(image, region);
   }
 
-  private PvrDecoder(InputStream input) throws Exception {
+  private PvrDecoder(String key, InputStream input) throws Exception {
     if (input == null) {
       throw new NullPointerException();
     }
@@ -328,7 +315,7 @@ private PvrDecoder(InputStream input) throws Exception {
         buffer = tmp;
         ofs += len;
       }
-      info = new PvrInfo(buffer, ofs);
+      info = new PvrInfo(buffer, ofs, key);
       buffer = null;
     } finally {
       input.close();
@@ -192,7 +192,8 @@ private void init() {
         if (tileSize != 1024 + TILE_DIMENSION * TILE_DIMENSION) {
           throw new Exception("Invalid tile size: " + tileSize);
         }
-        tisBuffer = getResourceEntry().getResourceBuffer();
+        tisBuffer = GraphicsCache.getInstance().getResourceBuffer(GraphicsCache.Type.TIS, getResourceEntry(), null)
+            .getBuffer();
 
         setType(Type.PALETTE);
 
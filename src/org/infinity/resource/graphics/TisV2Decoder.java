@@ -76,7 +76,6 @@ public String getPvrzFileName(int tileIdx) {
 
   @Override
   public void close() {
-    PvrDecoder.flushCache();
     tisBuffer = null;
     tileCount = 0;
     tileSize = 0;
@@ -4,19 +4,27 @@
 
 package org.infinity.resource.graphics.decoder;
 
-import java.awt.AlphaComposite;
-import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
 import java.util.Objects;
 
+import org.infinity.resource.graphics.GraphicsCache;
 import org.infinity.util.DynamicArray;
 
 /**
  * Texture decoder for DXT1, DXT3 and DXT5 pixel formats.
+ * <p>
+ * Textures are decoded in tiles of {@value #TILE_SIZE}x{@value #TILE_SIZE} pixels. Only tiles overlapping the
+ * requested region are decoded, and decoded tiles are kept in the {@link GraphicsCache} for subsequent requests.
+ * </p>
  */
 public class DxtDecoder implements Decodable {
+  /** Width and height of decoded tiles, in pixels. */
+  public static final int TILE_SIZE = 64;
+
   private final PvrInfo info;
 
   /** Initializes a new {@code DXT} decoder from with the specified {@link PvrInfo}. */
@@ -24,6 +32,11 @@ public DxtDecoder(PvrInfo pvr) {
     this.info = Objects.requireNonNull(pvr);
   }
 
+  /** Removes all decoded tiles from the cache. */
+  public static void flushCache() {
+    GraphicsCache.getInstance().clear(GraphicsCache.Type.PVR_TILE);
+  }
+
   // --------------------- Begin Interface Decodable ---------------------
 
   @Override
@@ -42,12 +55,12 @@ private boolean decodeDXT(BufferedImage image, Rectangle region) throws Exceptio
     if (image == null || region == null) {
       return false;
     }
+    if (info.pixelFormat != PvrInfo.PixelFormat.DXT1 && info.pixelFormat != PvrInfo.PixelFormat.DXT3
+        && info.pixelFormat != PvrInfo.PixelFormat.DXT5) {
+      return false;
+    }
 
-    int imgWidth = image.getWidth();
-    int imgHeight = image.getHeight();
-    int[] imgData = null;
-
-    // checking region bounds and alignment
+    // checking region bounds
     if (region.x < 0) {
       region.width += -region.x;
       region.x = 0;
@@ -60,60 +73,79 @@ private boolean decodeDXT(BufferedImage image, Rectangle region) throws Exceptio
       region.width = info.width - region.x;
     if (region.y + region.height > info.height)
       region.height = info.height - region.y;
-    Rectangle rect = alignRectangle(region, 4, 4);
-
-    // preparing aligned image buffer for faster rendering
-    BufferedImage alignedImage = null;
-    int imgWidthAligned;
-    if (!region.equals(rect)) {
-      alignedImage = new BufferedImage(rect.width, rect.height, BufferedImage.TYPE_INT_ARGB);
-      imgWidthAligned = alignedImage.getWidth();
-      imgData = ((DataBufferInt) alignedImage.getRaster().getDataBuffer()).getData();
-      // translating "region" to be relative to "rect"
-      region.x -= rect.x;
-      region.y -= rect.y;
-      if (imgWidth < region.width) {
-        region.width = imgWidth;
-      }
-      if (imgHeight < region.height) {
-        region.height = imgHeight;
-      }
-    } else {
-      imgWidthAligned = imgWidth;
-      imgData = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    region.width = Math.min(region.width, image.getWidth());
+    region.height = Math.min(region.height, image.getHeight());
+    if (region.width <= 0 || region.height <= 0) {
+      return true;
     }
 
-    switch (info.pixelFormat) {
-      case DXT1:
-        decodeDXT1(imgData, rect, imgWidthAligned);
-        break;
-      case DXT3:
-        decodeDXT3(imgData, rect, imgWidthAligned);
-        break;
-      case DXT5:
-        decodeDXT5(imgData, rect, imgWidthAligned);
-        break;
-      default:
-        return false;
+    // target image data can be written directly for the common case of packed int pixels
+    final WritableRaster raster = image.getRaster();
+    int[] imgData = null;
+    int imgStride = 0;
+    int imgOffset = 0;
+    if (raster.getDataBuffer() instanceof DataBufferInt && raster.getSampleModel() instanceof SinglePixelPackedSampleModel
+        && raster.getParent() == null) {
+      imgData = ((DataBufferInt) raster.getDataBuffer()).getData();
+      imgStride = ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+      imgOffset = raster.getDataBuffer().getOffset();
     }
-    imgData = null;
-
-    // copying aligned image back to target image
-    if (alignedImage != null) {
-      Graphics2D g = image.createGraphics();
-      try {
-        g.setComposite(AlphaComposite.Src);
-        g.drawImage(alignedImage, 0, 0, region.width, region.height, region.x, region.y, region.x + region.width,
-            region.y + region.height, null);
-      } finally {
-        g.dispose();
-        g = null;
+
+    // assembling region from decoded tiles
+    final int tx0 = region.x / TILE_SIZE;
+    final int ty0 = region.y / TILE_SIZE;
+    final int tx1 = (region.x + region.width - 1) / TILE_SIZE;
+    final int ty1 = (region.y + region.height - 1) / TILE_SIZE;
+    for (int ty = ty0; ty <= ty1; ty++) {
+      for (int tx = tx0; tx <= tx1; tx++) {
+        final Rectangle tileRect = getTileRect(tx, ty);
+        final int[] tile = getTile(tx, ty, tileRect);
+        final Rectangle r = tileRect.intersection(region);
+        final int srcOfs = (r.y - tileRect.y) * tileRect.width + (r.x - tileRect.x);
+        final int dstX = r.x - region.x;
+        final int dstY = r.y - region.y;
+        if (imgData != null) {
+          for (int y = 0; y < r.height; y++) {
+            System.arraycopy(tile, srcOfs + y * tileRect.width, imgData, imgOffset + (dstY + y) * imgStride + dstX,
+                r.width);
+          }
+        } else {
+          image.setRGB(dstX, dstY, r.width, r.height, tile, srcOfs, tileRect.width);
+        }
       }
-      alignedImage = null;
     }
     return true;
   }
 
+  // Returns the bounds of the specified tile in texture coordinates
+  private Rectangle getTileRect(int tileX, int tileY) {
+    final int x = tileX * TILE_SIZE;
+    final int y = tileY * TILE_SIZE;
+    return new Rectangle(x, y, Math.min(TILE_SIZE, info.width - x), Math.min(TILE_SIZE, info.height - y));
+  }
+
+  // Returns the decoded pixels of the specified tile. Tiles are decoded only if they are not yet cached.
+  private int[] getTile(int tileX, int tileY, Rectangle tileRect) {
+    final TileKey key = new TileKey(info.getCacheKey(), tileX, tileY);
+    int[] tile = GraphicsCache.getInstance().get(GraphicsCache.Type.PVR_TILE, key, int[].class);
+    if (tile == null) {
+      tile = new int[tileRect.width * tileRect.height];
+      switch (info.pixelFormat) {
+        case DXT1:
+          decodeDXT1(tile, tileRect, tileRect.width);
+          break;
+        case DXT3:
+          decodeDXT3(tile, tileRect, tileRect.width);
+          break;
+        default:
+          decodeDXT5(tile, tileRect, tileRect.width);
+          break;
+      }
+      GraphicsCache.getInstance().put(GraphicsCache.Type.PVR_TILE, key, tile, tile.length * 4L);
+    }
+    return tile;
+  }
+
   // Performs DXT1-specific decoding on {@code imgData}, within the aligned bounds
   // specified by {@code rect} and {@code imgWidth}.
   private void decodeDXT1(int[] imgData, Rectangle rect, int imgWidth) {
@@ -321,45 +353,6 @@ private void decodeDXT5(int[] imgData, Rectangle rect, int imgWidth) {
     }
   }
 
-  // Returns a rectangle that is aligned to the values specified as arguments 2 and 3.
-  private static Rectangle alignRectangle(Rectangle rect, int alignX, int alignY) {
-    if (rect == null)
-      return null;
-
-    Rectangle retVal = new Rectangle(rect);
-    if (alignX < 1)
-      alignX = 1;
-    if (alignY < 1)
-      alignY = 1;
-    if (rect.x < 0) {
-      rect.width -= -rect.x;
-      rect.x = 0;
-    }
-    if (rect.y < 0) {
-      rect.height -= -rect.y;
-      rect.y = 0;
-    }
-
-    int diffX = retVal.x % alignX;
-    if (diffX != 0) {
-      retVal.x -= diffX;
-      retVal.width += diffX;
-    }
-    int diffY = retVal.y % alignY;
-    if (diffY != 0) {
-      retVal.y -= diffY;
-      retVal.height += diffY;
-    }
-
-    diffX = (alignX - (retVal.width % alignX)) % alignX;
-    retVal.width += diffX;
-
-    diffY = (alignY - (retVal.height % alignY)) % alignY;
-    retVal.height += diffY;
-
-    return retVal;
-  }
-
   // Converts two RGB565 words into separate components, ordered { B, G, R, A, B, G, R, A }
   private static void unpackColors565(int inData, int[] outData) {
     outData[0] = ((inData << 3) & 0xf8) | (inData >>> 2) & 0x07; // b1
@@ -371,4 +364,36 @@ private static void unpackColors565(int inData, int[] outData) {
     outData[6] = ((inData >>> 24) & 0xf8) | (inData >>> 29) & 0x07; // r2
     outData[7] = 255; // a2
   }
+
+  // -------------------------- INNER CLASSES --------------------------
+
+  /** Identifies a tile of a specific PVR texture by the texture's cache key and tile coordinates. */
+  private static class TileKey {
+    private final String pvrKey;
+    private final int tileX;
+    private final int tileY;
+
+    public TileKey(String pvrKey, int tileX, int tileY) {
+      this.pvrKey = Objects.requireNonNull(pvrKey);
+      this.tileX = tileX;
+      this.tileY = tileY;
+    }
+
+    @Override
+    public int hashCode() {
+      return (pvrKey.hashCode() * 31 + tileX) * 31 + tileY;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj == null || getClass() != obj.getClass()) {
+        return false;
+      }
+      TileKey other = (TileKey) obj;
+      return pvrKey.equals(other.pvrKey) && tileX == other.tileX && tileY == other.tileY;
+    }
+  }
 }
@@ -12,6 +12,7 @@
 import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.infinity.util.DynamicArray;
 
@@ -65,6 +66,10 @@ public enum ChannelType {
       PixelFormat.ETC2_RGBA
   );
 
+  // Provides unique cache keys for PVR data without an associated resource name
+  private static final AtomicLong ANONYMOUS_KEY = new AtomicLong();
+
+  private final String cacheKey;
   private final Decodable decoder;
 
   /** PVR signature ("<code>PVR&#92;u0003</code>"). */
@@ -116,6 +121,7 @@ public static boolean isSupported(PixelFormat pixelFormat) {
   /** Removes all PvrDecoder objects from the cache. */
   public static void flushCache() {
     PvrtcDecoder.flushCache();
+    DxtDecoder.flushCache();
   }
 
   /**
@@ -126,9 +132,23 @@ public static void flushCache() {
    * @throws Exception Thrown if the buffer doesn't contain valid PVR data.
    */
   public PvrInfo(byte[] buffer, int size) throws Exception {
+    this(buffer, size, null);
+  }
+
+  /**
+   * Initializes PVR data from the specified buffer. {@code cacheKey} identifies the PVR data in the
+   * {@code GraphicsCache}, usually by resource name. A unique key is generated if {@code cacheKey} is {@code null}.
+   */
+  public PvrInfo(byte[] buffer, int size, String cacheKey) throws Exception {
+    this.cacheKey = (cacheKey != null) ? cacheKey : "#" + ANONYMOUS_KEY.incrementAndGet();
     this.decoder = init(buffer, size);
   }
 
+  /** Returns the key that identifies this PVR data in the {@code GraphicsCache}. */
+  public String getCacheKey() {
+    return cacheKey;
+  }
+
   /** Returns flags that indicate special properties of the color data. */
   public Flags getFlags() {
     return flags;
@@ -10,24 +10,22 @@
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferInt;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.LinkedHashMap;
-import java.util.Map;
 import java.util.Objects;
 
+import org.infinity.resource.graphics.GraphicsCache;
 import org.infinity.util.DynamicArray;
 
 /**
  * Texture decoder for PVRTC pixel formats.
  */
 public class PvrtcDecoder implements Decodable {
-  // The local cache list for decoded PVR textures. The "key" has to be a unique PvrInfo structure.
-  private static final Map<PvrInfo, BufferedImage> TEXTURE_CACHE = Collections
-      .synchronizedMap(new LinkedHashMap<PvrInfo, BufferedImage>());
-
-  // The max. number of cache entries to hold
+  // The max. number of decoded PVR textures to cache. The "key" has to be a unique PvrInfo structure.
   private static final int MAX_CACHE_ENTRIES = 8;
 
+  static {
+    GraphicsCache.getInstance().setMaxEntries(GraphicsCache.Type.PVR_TEXTURE, MAX_CACHE_ENTRIES);
+  }
+
   // Datatypes as used in the reference implementation:
   // Pixel32/128S: int[]{red, green, blue, alpha}
   // PVRTCWord: int[]{modulation, color}
@@ -594,31 +592,23 @@ private static void mapDecompressedData(int[] outBuffer, int width, int[][] inDa
 
   /** Removes all PvrDecoder objects from the cache. */
   public static void flushCache() {
-    TEXTURE_CACHE.clear();
+    GraphicsCache.getInstance().clear(GraphicsCache.Type.PVR_TEXTURE);
   }
 
   // Returns a PvrDecoder object only if it already exists in the cache.
   private static BufferedImage getCachedImage(PvrInfo pvr) {
     BufferedImage retVal = null;
     if (pvr != null) {
-      if (TEXTURE_CACHE.containsKey(pvr)) {
-        retVal = TEXTURE_CACHE.get(pvr);
-        // re-inserting entry to prevent premature removal from cache
-        TEXTURE_CACHE.remove(pvr);
-        TEXTURE_CACHE.put(pvr, retVal);
-      }
+      retVal = GraphicsCache.getInstance().get(GraphicsCache.Type.PVR_TEXTURE, pvr, BufferedImage.class);
     }
     return retVal;
   }
 
-  // Returns a PvrDecoder object of the specified key if available, or creates and returns a new one otherwise.
+  // Adds the decoded PVR texture to the cache.
   private static void registerCachedImage(PvrInfo pvr, BufferedImage image) {
-    if (pvr != null && getCachedImage(pvr) == null && image != null) {
-      TEXTURE_CACHE.put(pvr, image);
-      // removing excess cache entries
-      while (TEXTURE_CACHE.size() > MAX_CACHE_ENTRIES) {
-        TEXTURE_CACHE.remove(TEXTURE_CACHE.keySet().iterator().next());
-      }
+    if (pvr != null && image != null) {
+      GraphicsCache.getInstance().put(GraphicsCache.Type.PVR_TEXTURE, pvr, image,
+          (long) image.getWidth() * image.getHeight() * 4L);
     }
   }
 }
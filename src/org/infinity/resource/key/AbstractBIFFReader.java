@@ -9,7 +9,6 @@
 import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 
 import org.infinity.util.io.StreamUtils;
 
@@ -28,7 +27,8 @@ public enum Type {
   }
 
   // A cache for AbstractBIFFReader instances
-  private static final LinkedHashMap<Path, AbstractBIFFReader> BIFF_CACHE = new LinkedHashMap<>();
+  private static final BIFFReaderCache BIFF_CACHE = new BIFFReaderCache(AbstractBIFFReader::createBIFFReader,
+      BIFFReaderCache.DEFAULT_MAX_READERS, BIFFReaderCache.DEFAULT_MAX_WEIGHT);
 
   // Maps resource locators to BIFF entry structures
   private final HashMap<Integer, Entry> mapEntries = new HashMap<>();
@@ -43,8 +43,8 @@ public enum Type {
    * @return A BIFFReader object for accessing the BIFF archive.
    * @throws IOException On error.
    */
-  public static synchronized AbstractBIFFReader open(Path file) throws Exception {
-    return queryBIFFReader(file);
+  public static AbstractBIFFReader open(Path file) throws Exception {
+    return (file != null) ? BIFF_CACHE.get(file) : null;
   }
 
   /** Returns a fully initialized TIS header as {@link ByteBuffer} object. */
@@ -59,36 +59,50 @@ public static ByteBuffer getTisHeader(int tileCount, int tileSize) {
     return bb;
   }
 
-  /** Removes all {@code AbstractBIFFReader} entries from the cache. */
+  /**
+   * Removes all {@code AbstractBIFFReader} entries from the cache, releases all mapped BIFF archives and discards
+   * cached decompressed archive data.
+   */
   public static void resetCache() {
     BIFF_CACHE.clear();
+    BIFFChannelPool.getInstance().releaseAll();
+    BIFCache.getInstance().clear();
   }
 
-  // Fetches a cached AbstractBIFFReader associated of the specified path or creates a new one
-  private static AbstractBIFFReader queryBIFFReader(Path file) throws Exception {
-    AbstractBIFFReader retVal = null;
-    if (file != null) {
-      // get and remove an available cached entry
-      retVal = BIFF_CACHE.get(file);
-      if (retVal == null) {
-        Type type = detectBiffType(file);
-        switch (type) {
-          case BIFF:
-            retVal = new BIFFReader(file);
-            break;
-          case BIF:
-            retVal = new BIFReader(file);
-            break;
-          case BIFC:
-            retVal = new BIFCReader(file);
-            break;
-          default:
-            throw new IOException("Unsupported BIFF type");
-        }
-        BIFF_CACHE.put(file, retVal);
-      }
+  /** Returns the number of {@code AbstractBIFFReader} requests that were served by a cached instance. */
+  public static long getCacheHitCount() {
+    return BIFF_CACHE.getHitCount();
+  }
+
+  /** Returns the number of {@code AbstractBIFFReader} requests that required to open the BIFF file. */
+  public static long getCacheMissCount() {
+    return BIFF_CACHE.getMissCount();
+  }
+
+  /** Returns the number of {@code AbstractBIFFReader} instances that were closed to satisfy the cache limits. */
+  public static long getCacheEvictionCount() {
+    return BIFF_CACHE.getEvictionCount();
+  }
+
+  /** Returns a short summary of the current state of the {@code AbstractBIFFReader} cache for diagnostic purposes. */
+  public static String getCacheStatistics() {
+    return BIFF_CACHE.toString() + ", mapped archives: " + BIFFChannelPool.getInstance().getMappedCount()
+        + ", cached BIF data: " + BIFCache.getInstance().getSize() + " bytes";
+  }
+
+  // Creates a new AbstractBIFFReader instance for the specified path
+  private static AbstractBIFFReader createBIFFReader(Path file) throws Exception {
+    Type type = detectBiffType(file);
+    switch (type) {
+      case BIFF:
+        return new BIFFReader(file);
+      case BIF:
+        return new BIFReader(file);
+      case BIFC:
+        return new BIFCReader(file);
+      default:
+        throw new IOException("Unsupported BIFF type");
     }
-    return retVal;
   }
 
   /** Returns whether the BIFF file uses any kind of compression. */
@@ -127,6 +141,18 @@ public int[] getResourceInfo(int locator) throws IOException {
   /** Re-opens the BIFF file if it had been {@code close}d before. Does nothing if the BIFF file is open. */
   public abstract void open() throws Exception;
 
+  /**
+   * Releases the memory-mapped BIFF file and cached archive data associated with this reader. The reader remains
+   * functional and reacquires resources on demand.
+   * <p>
+   * This method is called when the reader is removed from the reader cache.
+   * </p>
+   */
+  public void close() {
+    BIFFChannelPool.getInstance().release(file);
+    BIFCache.getInstance().remove(file);
+  }
+
   /** Returns the BIFF resource type. */
   public abstract Type getType();
 
@@ -161,6 +187,17 @@ protected AbstractBIFFReader(Path file) throws Exception {
     this.file = file;
   }
 
+  /**
+   * Grants access to the memory-mapped BIFF archive. Mappings are shared by all readers of the same archive. The lease
+   * must be closed when the mapped data is no longer needed.
+   *
+   * @return {@link BIFFChannelPool.Lease} of the mapped archive, or {@code null} if the archive cannot be mapped into
+   *         memory.
+   */
+  BIFFChannelPool.Lease acquireMapping() throws IOException {
+    return BIFFChannelPool.getInstance().acquire(file);
+  }
+
   // Internally used to store BIFF entry information
   protected void addEntry(Entry entry) {
     if (entry != null) {
@@ -13,6 +13,7 @@
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.zip.Inflater;
 
 import org.infinity.NearInfinity;
@@ -26,6 +27,7 @@
 public class BIFCReader extends AbstractBIFFReader {
   private final WindowBlocker blocker;
 
+  private BlockIndex blockIndex;
   private int uncSize;
   private int numFiles;
   private int numTilesets;
@@ -95,8 +97,7 @@ public ByteBuffer getResourceBuffer(int locator) throws IOException {
       blocker.setBlocked(true);
     }
 
-    try (InputStream is = new BifcInputStream(
-        new BufferedInputStream(Files.newInputStream(getFile(), StandardOpenOption.READ)), entry.offset, size)) {
+    try (InputStream is = new BifcInputStream(getArchiveStream(), blockIndex, entry.offset, size)) {
       StreamUtils.readBytes(is, buffer);
     } finally {
       blocker.setBlocked(false);
@@ -117,19 +118,16 @@ public InputStream getResourceAsStream(int locator) throws IOException {
       ByteBuffer header = getTisHeader(entry.count, entry.size);
       InputStream is1 = new ByteBufferInputStream(header);
       @SuppressWarnings("resource")
-      InputStream is2 = new BifcInputStream(
-          new BufferedInputStream(Files.newInputStream(getFile(), StandardOpenOption.READ)), entry.offset,
-          entry.count * entry.size);
+      InputStream is2 = new BifcInputStream(getArchiveStream(), blockIndex, entry.offset, entry.count * entry.size);
       return new SequenceInputStream(is1, is2);
     } else {
-      return new BifcInputStream(new BufferedInputStream(Files.newInputStream(getFile(), StandardOpenOption.READ)),
-          entry.offset, entry.size);
+      return new BifcInputStream(getArchiveStream(), blockIndex, entry.offset, entry.size);
     }
   }
 
   private void init() throws Exception {
-    try (InputStream is = new BifcInputStream(
-        new BufferedInputStream(Files.newInputStream(getFile(), StandardOpenOption.READ)), 0, -1)) {
+    blockIndex = createBlockIndex();
+    try (InputStream is = new BifcInputStream(getArchiveStream(), null, 0, -1)) {
       int curOfs = 0;
       String sigver = StreamUtils.readString(is, 8);
       if (!"BIFFV1  ".equals(sigver)) {
@@ -171,6 +169,46 @@ private void init() throws Exception {
     }
   }
 
+  // Scans the compressed block headers of the archive and maps them to offsets in decompressed data
+  private BlockIndex createBlockIndex() throws Exception {
+    try (InputStream is = getArchiveStream()) {
+      StreamUtils.readBytes(is, 12); // signature and uncompressed size
+      BlockIndex index = new BlockIndex();
+      int uncOffset = 0;
+      int compOffset = 12;
+      while (uncOffset < uncSize) {
+        int blockUncSize = StreamUtils.readInt(is);
+        int blockCompSize = StreamUtils.readInt(is);
+        if (blockUncSize <= 0 || blockCompSize < 0) {
+          throw new Exception("Invalid BIFC block header at offset " + compOffset);
+        }
+        index.add(uncOffset, compOffset);
+        int remaining = blockCompSize;
+        while (remaining > 0) {
+          long n = is.skip(remaining);
+          if (n <= 0) {
+            throw new Exception("Unexpected end of BIFC archive");
+          }
+          remaining -= (int) n;
+        }
+        uncOffset += blockUncSize;
+        compOffset += 8 + blockCompSize;
+      }
+      return index;
+    }
+  }
+
+  // Returns the BIFC archive as input stream, preferably backed by the shared memory mapping of the archive.
+  // The mapping is kept alive until the stream is closed.
+  private InputStream getArchiveStream() throws IOException {
+    final BIFFChannelPool.Lease lease = acquireMapping();
+    if (lease != null) {
+      return lease.wrap(new ByteBufferInputStream(lease.getData()));
+    } else {
+      return new BufferedInputStream(Files.newInputStream(getFile(), StandardOpenOption.READ));
+    }
+  }
+
   // -------------------------- INNER CLASSES --------------------------
 
   private static class BifcInputStream extends InputStream {
@@ -188,10 +226,12 @@ private static class BifcInputStream extends InputStream {
      * Constructs an InputStream over a specific section of a BIFC archive.
      *
      * @param is     The BIFC archive as input stream.
+     * @param index  Optional {@link BlockIndex} of the archive. If available, compressed blocks preceding the block
+     *                 containing {@code offset} are skipped without evaluating their headers.
      * @param offset Start offset in decompressed BIFF data.
      * @param size   Size of decompressed BIFF data to map. Specify -1 to map until the end of decompressed data.
      */
-    public BifcInputStream(InputStream is, int offset, int size) throws IOException {
+    public BifcInputStream(InputStream is, BlockIndex index, int offset, int size) throws IOException {
       if (is == null) {
         throw new NullPointerException();
       }
@@ -215,7 +255,22 @@ public BifcInputStream(InputStream is, int offset, int size) throws IOException
       this.inflater = new Inflater();
       this.bufOfs = 0;
       this.bufLen = 0;
-      skip(offset);
+      if (index != null) {
+        // seeking directly to the compressed block containing the start offset
+        int block = index.find(offset);
+        if (block >= 0) {
+          long remaining = index.getCompressedOffset(block) - 12L;
+          while (remaining > 0) {
+            long n = this.input.skip(remaining);
+            if (n <= 0) {
+              throw new IOException("Unexpected end of BIFC archive");
+            }
+            remaining -= n;
+          }
+          this.position = index.getOffset(block);
+        }
+      }
+      skip(offset - this.position);
     }
 
     @Override
@@ -337,7 +392,7 @@ private boolean updateBuffer(boolean skipOnly, int condition) throws Exception {
           if (outBuffer == null || outBuffer.length < uncSize) {
             outBuffer = new byte[uncSize];
           }
-          input.read(inBuffer, 0, compSize);
+          StreamUtils.readBytes(input, inBuffer, 0, compSize);
           inflater.reset();
           inflater.setInput(inBuffer, 0, compSize);
           if (inflater.inflate(outBuffer, 0, uncSize) != uncSize) {
@@ -351,4 +406,41 @@ private boolean updateBuffer(boolean skipOnly, int condition) throws Exception {
       return false;
     }
   }
+
+  /** Maps offsets in decompressed data to the start of the associated compressed blocks of a BIFC archive. */
+  private static class BlockIndex {
+    private int[] offsets = new int[64]; // start offsets of blocks in decompressed data
+    private int[] compOffsets = new int[64]; // file offsets of the compressed block headers
+    private int count;
+
+    /** Adds a new block definition. Blocks must be added in ascending order. */
+    public void add(int offset, int compOffset) {
+      if (count == offsets.length) {
+        offsets = Arrays.copyOf(offsets, count * 2);
+        compOffsets = Arrays.copyOf(compOffsets, count * 2);
+      }
+      offsets[count] = offset;
+      compOffsets[count] = compOffset;
+      count++;
+    }
+
+    /** Returns the index of the block containing the specified offset in decompressed data. Returns -1 if not found. */
+    public int find(int offset) {
+      int idx = Arrays.binarySearch(offsets, 0, count, offset);
+      if (idx < 0) {
+        idx = -idx - 2;
+      }
+      return idx;
+    }
+
+    /** Returns the start offset of the specified block in decompressed data. */
+    public int getOffset(int block) {
+      return offsets[block];
+    }
+
+    /** Returns the file offset of the header of the specified compressed block. */
+    public int getCompressedOffset(int block) {
+      return compOffsets[block];
+    }
+  }
 }
@@ -0,0 +1,129 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.resource.key;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.infinity.gui.menu.BrowserMenuBar;
+
+/**
+ * Keeps the decompressed content of file-compressed BIF V1.0 archives outside of the Java heap.
+ * <p>
+ * Archives are stored as a whole in direct byte buffers. The total size of all cached archives is limited by a
+ * configurable ceiling. Least recently used archives are discarded first when the ceiling is exceeded. The cache is
+ * only active if enabled in the preferences.
+ * </p>
+ * <p>
+ * Both resource buffers and resource streams of cached archives are served from the cache. Streams read directly from
+ * the cached data. Evicted archive data remains valid as long as it is referenced by open streams.
+ * </p>
+ */
+final class BIFCache {
+  /** Size limit that is used if the preferences are not available. */
+  public static final long DEFAULT_CAPACITY = 256L << 20;
+
+  private static final BIFCache INSTANCE = new BIFCache();
+
+  // Decompressed archives in access order
+  private final LinkedHashMap<Path, ByteBuffer> archives = new LinkedHashMap<>(16, 0.75f, true);
+
+  private long capacity;
+  private long size;
+
+  /** Returns the global {@code BIFCache} instance. */
+  public static BIFCache getInstance() {
+    return INSTANCE;
+  }
+
+  private BIFCache() {
+    this.capacity = DEFAULT_CAPACITY;
+  }
+
+  /** Returns whether the cache is enabled. */
+  public boolean isEnabled() {
+    return BrowserMenuBar.isInstantiated() && BrowserMenuBar.getInstance().getOptions().cacheBifArchives();
+  }
+
+  /** Returns the max. number of bytes that can be occupied by cached archives. */
+  public synchronized long getCapacity() {
+    if (BrowserMenuBar.isInstantiated()) {
+      setCapacity(BrowserMenuBar.getInstance().getOptions().getBifCacheSize());
+    }
+    return capacity;
+  }
+
+  /**
+   * Sets the max. number of bytes that can be occupied by cached archives. Least recently used archives are removed if
+   * the new limit is exceeded.
+   */
+  public synchronized void setCapacity(long capacity) {
+    this.capacity = Math.max(0L, capacity);
+    evict(0L);
+  }
+
+  /** Returns the number of bytes currently occupied by cached archives. */
+  public synchronized long getSize() {
+    return size;
+  }
+
+  /**
+   * Returns a read-only view of the decompressed archive in little endian byte order.
+   *
+   * @param file Path of the BIF archive.
+   * @return {@link ByteBuffer} with the decompressed archive data. Returns {@code null} if the archive is not cached.
+   */
+  public synchronized ByteBuffer get(Path file) {
+    ByteBuffer buffer = archives.get(file);
+    return (buffer != null) ? buffer.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN) : null;
+  }
+
+  /**
+   * Adds the decompressed data of the specified archive to the cache. Data is rejected if it exceeds the cache
+   * capacity.
+   *
+   * @param file   Path of the BIF archive.
+   * @param buffer Decompressed archive data. Content is expected to range from position 0 up to the buffer limit.
+   * @return {@code true} if the data has been added to the cache, {@code false} otherwise.
+   */
+  public synchronized boolean put(Path file, ByteBuffer buffer) {
+    if (file == null || buffer == null || buffer.limit() > getCapacity()) {
+      return false;
+    }
+
+    remove(file);
+    evict(buffer.limit());
+    archives.put(file, buffer);
+    size += buffer.limit();
+    return true;
+  }
+
+  /** Removes the specified archive from the cache. */
+  public synchronized void remove(Path file) {
+    ByteBuffer buffer = archives.remove(file);
+    if (buffer != null) {
+      size -= buffer.limit();
+    }
+  }
+
+  /** Removes all archives from the cache. */
+  public synchronized void clear() {
+    archives.clear();
+    size = 0L;
+  }
+
+  // Removes least recently used archives until the specified amount of bytes can be added without exceeding capacity
+  private void evict(long required) {
+    for (Iterator<Map.Entry<Path, ByteBuffer>> iter = archives.entrySet().iterator(); iter.hasNext()
+        && size + required > capacity;) {
+      size -= iter.next().getValue().limit();
+      iter.remove();
+    }
+  }
+}
@@ -0,0 +1,288 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.resource.key;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import org.infinity.util.Logger;
+
+/**
+ * Manages memory-mapped views of BIFF archives which are shared by all {@link AbstractBIFFReader} instances.
+ * <p>
+ * Each archive is mapped only once and remains available for subsequent read operations. Access to the mapped data is
+ * granted by a {@link Lease}, which avoids opening a new file channel for every single resource. The number of
+ * simultaneously mapped archives is limited by a handle budget. The least recently used mapping is released whenever
+ * the budget is exceeded.
+ * </p>
+ * <p>
+ * Released mappings are unmapped explicitly as soon as all leases of them have been closed, so that the archive files
+ * can be overwritten or deleted afterwards. Archives are not mapped at all if the Java runtime does not support
+ * explicit unmapping. Readers fall back to regular file access in this case.
+ * </p>
+ */
+final class BIFFChannelPool {
+  /** Default number of BIFF archives that can be mapped at the same time. */
+  public static final int DEFAULT_HANDLE_BUDGET = 64;
+
+  // Placeholder for archives which cannot be mapped into memory
+  private static final Mapping UNMAPPABLE = new Mapping(null);
+
+  // Explicitly unmaps a MappedByteBuffer, null if not supported by the Java runtime
+  private static final Consumer<ByteBuffer> UNMAPPER = createUnmapper();
+
+  private static final BIFFChannelPool INSTANCE = new BIFFChannelPool(DEFAULT_HANDLE_BUDGET);
+
+  // Mapped archives in access order
+  private final LinkedHashMap<Path, Mapping> mappings;
+  private final int handleBudget;
+
+  /** Returns the global {@code BIFFChannelPool} instance. */
+  public static BIFFChannelPool getInstance() {
+    return INSTANCE;
+  }
+
+  private BIFFChannelPool(int handleBudget) {
+    this.handleBudget = Math.max(1, handleBudget);
+    this.mappings = new LinkedHashMap<Path, Mapping>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Path, Mapping> eldest) {
+        if (size() > BIFFChannelPool.this.handleBudget) {
+          eldest.getValue().retire();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /** Returns the max. number of BIFF archives that can be mapped at the same time. */
+  public int getHandleBudget() {
+    return handleBudget;
+  }
+
+  /** Returns the number of currently mapped BIFF archives. */
+  public int getMappedCount() {
+    synchronized (mappings) {
+      return (int) mappings.values().stream().filter(mapping -> mapping != UNMAPPABLE).count();
+    }
+  }
+
+  /**
+   * Grants access to the memory-mapped BIFF archive. The mapping remains valid until the returned lease is closed.
+   *
+   * @param file Path to the BIFF archive.
+   * @return {@link Lease} of the mapped archive. Returns {@code null} if the archive cannot be mapped into memory.
+   * @throws IOException if the archive could not be accessed.
+   */
+  public Lease acquire(Path file) throws IOException {
+    Objects.requireNonNull(file);
+    synchronized (mappings) {
+      Mapping mapping = mappings.get(file);
+      if (mapping == null) {
+        mapping = map(file);
+        mappings.put(file, mapping);
+      }
+      if (mapping == UNMAPPABLE) {
+        return null;
+      }
+      mapping.leases++;
+      return new Lease(mapping);
+    }
+  }
+
+  /**
+   * Releases the mapping of the specified BIFF archive if available. The archive is unmapped as soon as all leases of
+   * the mapping have been closed.
+   */
+  public void release(Path file) {
+    if (file != null) {
+      synchronized (mappings) {
+        final Mapping mapping = mappings.remove(file);
+        if (mapping != null) {
+          mapping.retire();
+        }
+      }
+    }
+  }
+
+  /**
+   * Releases all mapped BIFF archives. Archives are unmapped as soon as all leases of the mappings have been closed.
+   */
+  public void releaseAll() {
+    synchronized (mappings) {
+      mappings.values().forEach(Mapping::retire);
+      mappings.clear();
+    }
+  }
+
+  // Maps the whole archive into memory. Returns UNMAPPABLE if the archive can't be mapped or unmapped.
+  private static Mapping map(Path file) throws IOException {
+    if (UNMAPPER == null) {
+      return UNMAPPABLE;
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        return UNMAPPABLE;
+      }
+      return new Mapping(channel.map(MapMode.READ_ONLY, 0L, size));
+    } catch (UnsupportedOperationException e) {
+      Logger.trace(e);
+      return UNMAPPABLE;
+    }
+  }
+
+  // Returns a function that unmaps a MappedByteBuffer, or null if explicit unmapping is not supported
+  private static Consumer<ByteBuffer> createUnmapper() {
+    // Java 9 and later
+    try {
+      final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+      final Field field = unsafeClass.getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      final Object unsafe = field.get(null);
+      return buffer -> {
+        try {
+          invokeCleaner.invoke(unsafe, buffer);
+        } catch (Exception e) {
+          Logger.warn(e, "Could not unmap BIFF archive");
+        }
+      };
+    } catch (Exception e) {
+      Logger.trace(e);
+    }
+
+    // Java 8
+    try {
+      final Method cleaner = Class.forName("java.nio.DirectByteBuffer").getMethod("cleaner");
+      cleaner.setAccessible(true);
+      final Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+      clean.setAccessible(true);
+      return buffer -> {
+        try {
+          final Object obj = cleaner.invoke(buffer);
+          if (obj != null) {
+            clean.invoke(obj);
+          }
+        } catch (Exception e) {
+          Logger.warn(e, "Could not unmap BIFF archive");
+        }
+      };
+    } catch (Exception e) {
+      Logger.trace(e);
+    }
+
+    Logger.info("Memory-mapped BIFF access is not available: explicit unmapping not supported");
+    return null;
+  }
+
+  // -------------------------- INNER CLASSES --------------------------
+
+  /**
+   * Grants read access to a memory-mapped BIFF archive. Data obtained from the lease must not be accessed after the
+   * lease has been closed.
+   */
+  public final class Lease implements AutoCloseable {
+    private Mapping mapping;
+
+    private Lease(Mapping mapping) {
+      this.mapping = mapping;
+    }
+
+    /** Returns a read-only view of the whole BIFF archive in little endian byte order. */
+    public ByteBuffer getData() {
+      if (mapping == null) {
+        throw new IllegalStateException("Lease is closed");
+      }
+      return mapping.buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Returns a read-only slice of the BIFF archive in little endian byte order. No data is copied.
+     *
+     * @param offset Start offset of the data in the archive.
+     * @param size   Size of the data, in bytes.
+     * @return {@link ByteBuffer} covering exactly the requested region.
+     * @throws IOException if the requested region is out of bounds.
+     */
+    public ByteBuffer getSlice(int offset, int size) throws IOException {
+      ByteBuffer buffer = getData();
+      if (offset < 0 || size < 0 || (long) offset + size > buffer.capacity()) {
+        throw new IOException("Data out of bounds");
+      }
+      buffer.limit(offset + size);
+      buffer.position(offset);
+      return buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Returns an {@link InputStream} which closes this lease when the specified stream is closed. Should be used for
+     * streams that read data from the mapping.
+     */
+    public InputStream wrap(InputStream is) {
+      return new FilterInputStream(is) {
+        @Override
+        public void close() throws IOException {
+          try {
+            super.close();
+          } finally {
+            Lease.this.close();
+          }
+        }
+      };
+    }
+
+    @Override
+    public void close() {
+      synchronized (mappings) {
+        if (mapping != null) {
+          mapping.leases--;
+          mapping.unmapIfIdle();
+          mapping = null;
+        }
+      }
+    }
+  }
+
+  /** A mapped BIFF archive. Fields are guarded by the monitor of the {@code mappings} map. */
+  private static class Mapping {
+    private final MappedByteBuffer buffer;
+    private int leases;
+    private boolean retired;
+    private boolean unmapped;
+
+    public Mapping(MappedByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    /** Marks the mapping as no longer available for new leases and unmaps it if it is not in use. */
+    public void retire() {
+      retired = true;
+      unmapIfIdle();
+    }
+
+    private void unmapIfIdle() {
+      if (retired && leases == 0 && buffer != null && !unmapped) {
+        unmapped = true;
+        UNMAPPER.accept(buffer);
+      }
+    }
+  }
+}
@@ -73,6 +73,32 @@ public BIFFEntry(Path keyFile, int index, ByteBuffer buffer, int offset, boolean
     updateBIFF(keyFile, index, buffer, offset, isDemo);
   }
 
+  /**
+   * Constructs a BIFF entry from previously parsed KEY file information.
+   *
+   * @param keyFile       Path to the KEY file.
+   * @param index         The BIFF entry index.
+   * @param fileName      Normalized relative path to the BIFF file, using {@code '/'} as path separator.
+   * @param separatorChar Path separator used by the KEY file.
+   * @param fileSize      Size of the BIFF file, in bytes.
+   * @param stringOffset  Offset to the BIFF filename in the KEY file.
+   * @param location      Location flags of the BIFF file.
+   */
+  BIFFEntry(Path keyFile, int index, String fileName, char separatorChar, int fileSize, int stringOffset,
+      int location) {
+    if (keyFile == null || fileName == null) {
+      throw new NullPointerException();
+    }
+    this.keyFile = keyFile.toAbsolutePath();
+    this.index = index;
+    this.fileName = fileName;
+    this.separatorChar = separatorChar;
+    this.fileSize = fileSize;
+    this.stringOffset = stringOffset;
+    this.location = location;
+    this.biffFile = findBiffFile(this.keyFile.getParent(), this.location, this.fileName);
+  }
+
   // --------------------- Begin Interface Comparable ---------------------
 
   @Override
@@ -167,6 +193,21 @@ public short getFileNameLength() {
     return (short) (fileName.length() + 1);
   }
 
+  /** Returns the location flags of the BIFF file. */
+  int getLocation() {
+    return location;
+  }
+
+  /** Returns the offset to the BIFF filename in the KEY file. */
+  int getStringOffset() {
+    return stringOffset;
+  }
+
+  /** Returns the path separator used by the KEY file. */
+  char getSeparatorChar() {
+    return separatorChar;
+  }
+
   public int getFileSize() {
     return fileSize;
   }
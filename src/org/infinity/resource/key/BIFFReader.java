@@ -7,9 +7,7 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
-import java.nio.channels.FileChannel.MapMode;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
@@ -85,6 +83,67 @@ public ByteBuffer getResourceBuffer(int locator) throws IOException {
       throw new IOException("Resource not found");
     }
 
+    try (BIFFChannelPool.Lease lease = acquireMapping()) {
+      if (lease == null) {
+        // archive cannot be mapped into memory
+        return readResourceBuffer(entry);
+      }
+
+      ByteBuffer data = lease.getSlice(entry.offset, entry.isTile ? entry.count * entry.size : entry.size);
+      ByteBuffer buffer;
+      if (entry.isTile) {
+        ByteBuffer header = getTisHeader(entry.count, entry.size);
+        buffer = StreamUtils.getByteBuffer(header.limit() + data.limit());
+        buffer.put(header);
+      } else {
+        buffer = StreamUtils.getByteBuffer(data.limit());
+      }
+
+      if (buffer.limit() > 1000000) {
+        blocker.setBlocked(true);
+      }
+      try {
+        buffer.put(data);
+      } finally {
+        blocker.setBlocked(false);
+      }
+
+      buffer.position(0);
+      return buffer;
+    }
+  }
+
+  @Override
+  public InputStream getResourceAsStream(int locator) throws IOException {
+    Entry entry = getEntry(locator);
+    if (entry == null) {
+      throw new IOException("Resource not found");
+    }
+
+    final BIFFChannelPool.Lease lease = acquireMapping();
+    if (lease == null) {
+      // archive cannot be mapped into memory
+      return new ByteBufferInputStream(readResourceBuffer(entry));
+    }
+
+    // mapping is kept alive until the stream is closed
+    try {
+      int size = entry.isTile ? entry.count * entry.size : entry.size;
+      ByteBuffer buffer = lease.getSlice(entry.offset, size);
+      if (entry.isTile) {
+        ByteBuffer header = getTisHeader(entry.count, entry.size);
+        return lease.wrap(new ByteBufferInputStream(header, buffer));
+      } else {
+        return lease.wrap(new ByteBufferInputStream(buffer));
+      }
+    } catch (IOException e) {
+      lease.close();
+      throw e;
+    }
+  }
+
+  // Reads resource data directly from the BIFF file
+  private ByteBuffer readResourceBuffer(Entry entry) throws IOException {
     ByteBuffer buffer;
     try (FileChannel channel = FileChannel.open(getFile(), StandardOpenOption.READ)) {
       channel.position(entry.offset);
@@ -114,27 +173,6 @@ public ByteBuffer getResourceBuffer(int locator) throws IOException {
     }
   }
 
-  @Override
-  public InputStream getResourceAsStream(int locator) throws IOException {
-    Entry entry = getEntry(locator);
-    if (entry == null) {
-      throw new IOException("Resource not found");
-    }
-
-    try (FileChannel channel = FileChannel.open(getFile(), StandardOpenOption.READ)) {
-      int size = entry.isTile ? entry.count * entry.size : entry.size;
-      ByteBuffer buffer = channel.map(MapMode.READ_ONLY, entry.offset, size).order(ByteOrder.LITTLE_ENDIAN);
-      InputStream is;
-      if (entry.isTile) {
-        ByteBuffer header = getTisHeader(entry.count, entry.size);
-        is = new ByteBufferInputStream(header, buffer);
-      } else {
-        is = new ByteBufferInputStream(buffer);
-      }
-      return is;
-    }
-  }
-
   private void init(ByteBuffer buffer, int numFiles, int numTilesets) {
     // reading file entries
     for (int i = 0; i < numFiles; i++) {
@@ -0,0 +1,210 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.resource.key;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.infinity.util.Logger;
+
+/**
+ * A thread-safe cache for {@link AbstractBIFFReader} instances.
+ * <p>
+ * Lookups of different archives don't block each other. Concurrent requests for the same archive are initialized only
+ * once. The cache is bounded by the number of readers and by their total weight, which is the number of resource
+ * entries managed by the readers. Least recently used readers are evicted first and closed, which releases the
+ * memory-mapped archive and cached archive data associated with them.
+ * </p>
+ */
+final class BIFFReaderCache {
+  /** Functional interface for creating new reader instances. */
+  @FunctionalInterface
+  public interface ReaderFactory {
+    AbstractBIFFReader create(Path file) throws Exception;
+  }
+
+  /** Default max. number of cached readers. */
+  public static final int DEFAULT_MAX_READERS = 512;
+
+  /** Default max. number of resource entries of all cached readers combined. */
+  public static final long DEFAULT_MAX_WEIGHT = 500_000L;
+
+  private final ConcurrentHashMap<Path, CacheEntry> cache = new ConcurrentHashMap<>();
+  private final AtomicLong clock = new AtomicLong();
+  private final AtomicLong weight = new AtomicLong();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final ReaderFactory factory;
+  private final int maxReaders;
+  private final long maxWeight;
+
+  /**
+   * Creates a new cache instance.
+   *
+   * @param factory    Creates fully initialized reader instances for archives which are not yet cached.
+   * @param maxReaders Max. number of cached readers.
+   * @param maxWeight  Max. number of resource entries of all cached readers combined.
+   */
+  public BIFFReaderCache(ReaderFactory factory, int maxReaders, long maxWeight) {
+    this.factory = Objects.requireNonNull(factory);
+    this.maxReaders = Math.max(1, maxReaders);
+    this.maxWeight = Math.max(1L, maxWeight);
+  }
+
+  /**
+   * Returns the reader for the specified archive. A new reader is created if the archive is not yet cached.
+   *
+   * @param file Path to the BIFF archive.
+   * @return Fully initialized {@link AbstractBIFFReader} instance.
+   * @throws Exception if the reader could not be created.
+   */
+  public AbstractBIFFReader get(Path file) throws Exception {
+    Objects.requireNonNull(file);
+    while (true) {
+      CacheEntry entry = cache.get(file);
+      if (entry == null) {
+        CacheEntry newEntry = new CacheEntry(file);
+        entry = cache.putIfAbsent(file, newEntry);
+        if (entry == null) {
+          entry = newEntry;
+        }
+      }
+
+      boolean created;
+      AbstractBIFFReader reader;
+      synchronized (entry) {
+        if (entry.removed) {
+          // entry has been evicted concurrently
+          continue;
+        }
+        created = (entry.reader == null);
+        if (created) {
+          try {
+            entry.reader = factory.create(file);
+          } catch (Exception e) {
+            entry.removed = true;
+            cache.remove(file, entry);
+            throw e;
+          }
+          entry.weight = getWeight(entry.reader);
+          weight.addAndGet(entry.weight);
+        }
+        entry.lastAccess = clock.incrementAndGet();
+        reader = entry.reader;
+      }
+
+      if (created) {
+        misses.increment();
+        evict(entry);
+      } else {
+        hits.increment();
+      }
+      return reader;
+    }
+  }
+
+  /** Removes all readers from the cache and closes them. Statistics are not affected. */
+  public void clear() {
+    for (final Path file : cache.keySet()) {
+      CacheEntry entry = cache.remove(file);
+      if (entry != null) {
+        release(entry);
+      }
+    }
+  }
+
+  /** Returns the number of cached readers. */
+  public int size() {
+    return cache.size();
+  }
+
+  /** Returns the total weight of all cached readers. */
+  public long getWeight() {
+    return weight.get();
+  }
+
+  /** Returns the number of requests that could be served by an already cached reader. */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /** Returns the number of requests that required to create a new reader. */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /** Returns the number of readers that were removed from the cache to satisfy the cache limits. */
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  @Override
+  public String toString() {
+    return "BIFFReaderCache [size=" + size() + ", weight=" + getWeight() + ", hits=" + getHitCount() + ", misses="
+        + getMissCount() + ", evictions=" + getEvictionCount() + "]";
+  }
+
+  // Removes least recently used readers until the cache limits are satisfied. "keep" is never removed.
+  private void evict(CacheEntry keep) {
+    while (cache.size() > maxReaders || weight.get() > maxWeight) {
+      CacheEntry oldest = null;
+      for (final Map.Entry<Path, CacheEntry> e : cache.entrySet()) {
+        CacheEntry entry = e.getValue();
+        if (entry != keep && entry.reader != null && (oldest == null || entry.lastAccess < oldest.lastAccess)) {
+          oldest = entry;
+        }
+      }
+      if (oldest == null) {
+        break;
+      }
+      if (cache.remove(oldest.file, oldest)) {
+        evictions.increment();
+        release(oldest);
+      }
+    }
+  }
+
+  // Closes the reader of a removed cache entry
+  private void release(CacheEntry entry) {
+    AbstractBIFFReader reader;
+    synchronized (entry) {
+      reader = entry.reader;
+      entry.reader = null;
+      entry.removed = true;
+    }
+    if (reader != null) {
+      weight.addAndGet(-entry.weight);
+      try {
+        reader.close();
+      } catch (Exception e) {
+        Logger.warn(e);
+      }
+    }
+  }
+
+  private static long getWeight(AbstractBIFFReader reader) {
+    return 1L + Math.max(0, reader.getFileCount()) + Math.max(0, reader.getTilesetCount());
+  }
+
+  // -------------------------- INNER CLASSES --------------------------
+
+  private static class CacheEntry {
+    private final Path file;
+
+    private volatile AbstractBIFFReader reader;
+    private long weight;
+    private volatile long lastAccess;
+    private boolean removed;
+
+    public CacheEntry(Path file) {
+      this.file = file;
+    }
+  }
+}
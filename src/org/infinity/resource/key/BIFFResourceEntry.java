@@ -21,8 +21,7 @@
 import org.infinity.resource.ResourceFactory;
 import org.infinity.resource.Writeable;
 import org.infinity.util.Logger;
-import org.infinity.util.io.FileEx;
-import org.infinity.util.io.FileManager;
+import org.infinity.util.io.DirectoryCache;
 import org.infinity.util.io.StreamUtils;
 
 public final class BIFFResourceEntry extends ResourceEntry implements Writeable {
@@ -87,6 +86,23 @@ public BIFFResourceEntry(BIFFResourceEntry entry, boolean hasOverride) {
     this.locator = buffer.getInt();
   }
 
+  BIFFResourceEntry(Path keyFile, String resourceName, int type, int locator) {
+    if (keyFile == null || resourceName == null) {
+      throw new NullPointerException("Path to KEY file and resource name must not be null");
+    }
+    this.keyFile = keyFile;
+    this.resourceName = resourceName;
+    this.type = type;
+
+    String ext = ResourceFactory.getKeyfile().getExtension(type);
+    if (ext == null) {
+      ext = "Unknown (" + Integer.toHexString(type) + "h)";
+    }
+    this.extension = ext;
+
+    this.locator = locator;
+  }
+
   // --------------------- Begin Interface Writeable ---------------------
 
   @Override
@@ -133,13 +149,14 @@ public Path getKeyfile() {
 
   public void deleteOverride() throws IOException {
     List<Path> overrides = Profile.getOverrideFolders(false);
-    Path file = FileManager.query(overrides, getResourceName());
-    if (file != null && FileEx.create(file).isFile()) {
+    Path file = DirectoryCache.query(overrides, getResourceName());
+    if (file != null) {
       Files.deleteIfExists(file);
+      DirectoryCache.invalidate(file.getParent());
     }
-    file = FileManager.query(overrides, getResourceName());
+    file = DirectoryCache.query(overrides, getResourceName());
     synchronized (this) {
-      hasOverride = (file != null && FileEx.create(file).isFile());
+      hasOverride = (file != null);
     }
   }
 
@@ -147,8 +164,8 @@ public void deleteOverride() throws IOException {
   public Path getActualPath(boolean ignoreOverride) {
     if (!ignoreOverride) {
       List<Path> overrides = Profile.getOverrideFolders(false);
-      Path file = FileManager.query(overrides, getResourceName());
-      if (file != null && FileEx.create(file).isFile()) {
+      Path file = DirectoryCache.query(overrides, getResourceName());
+      if (file != null) {
         return file;
       }
     }
@@ -166,8 +183,8 @@ public long getResourceSize(boolean ignoreOverride) {
     try {
       if (!ignoreOverride) {
         List<Path> overrides = Profile.getOverrideFolders(false);
-        Path file = FileManager.query(overrides, getResourceName());
-        if (file != null && FileEx.create(file).isFile()) {
+        Path file = DirectoryCache.query(overrides, getResourceName());
+        if (file != null) {
           retVal = Files.size(file);
           return retVal;
         }
@@ -205,8 +222,8 @@ public int getLocator() {
   public ByteBuffer getResourceBuffer(boolean ignoreOverride) throws Exception {
     if (!ignoreOverride && hasOverride) {
       List<Path> overrides = Profile.getOverrideFolders(false);
-      Path file = FileManager.query(overrides, getResourceName());
-      if (file != null && FileEx.create(file).isFile()) {
+      Path file = DirectoryCache.query(overrides, getResourceName());
+      if (file != null) {
         try (SeekableByteChannel ch = Files.newByteChannel(file, StandardOpenOption.READ)) {
           ByteBuffer bb = StreamUtils.getByteBuffer((int) ch.size());
           if (ch.read(bb) < ch.size()) {
@@ -225,8 +242,8 @@ public ByteBuffer getResourceBuffer(boolean ignoreOverride) throws Exception {
   public InputStream getResourceDataAsStream(boolean ignoreOverride) throws Exception {
     if (!ignoreOverride) {
       List<Path> overrides = Profile.getOverrideFolders(false);
-      Path file = FileManager.query(overrides, getResourceName());
-      if (file != null && FileEx.create(file).isFile()) {
+      Path file = DirectoryCache.query(overrides, getResourceName());
+      if (file != null) {
         return StreamUtils.getInputStream(file);
       }
     }
@@ -238,8 +255,8 @@ public InputStream getResourceDataAsStream(boolean ignoreOverride) throws Except
   public int[] getResourceInfo(boolean ignoreOverride) throws Exception {
     if (!ignoreOverride) {
       List<Path> overrides = Profile.getOverrideFolders(false);
-      Path file = FileManager.query(overrides, getResourceName());
-      if (file != null && FileEx.create(file).isFile()) {
+      Path file = DirectoryCache.query(overrides, getResourceName());
+      if (file != null) {
         return getLocalFileInfo(file);
       }
     }
@@ -277,12 +294,11 @@ public int getType() {
 
   @Override
   public boolean hasOverride() {
-    // TODO: update dynamically via WatchService class?
     if (!BrowserMenuBar.getInstance().getOptions().cacheOverride()) {
       List<Path> overrides = Profile.getOverrideFolders(false);
-      Path file = FileManager.query(overrides, getResourceName());
+      Path file = DirectoryCache.query(overrides, getResourceName());
       synchronized (this) {
-        hasOverride = (file != null && FileEx.create(file).isFile());
+        hasOverride = (file != null);
       }
     }
     return hasOverride;
@@ -8,15 +8,14 @@
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
-import java.nio.channels.FileChannel.MapMode;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.zip.InflaterInputStream;
 
 import org.infinity.NearInfinity;
 import org.infinity.gui.WindowBlocker;
+import org.infinity.util.Logger;
 import org.infinity.util.io.ByteBufferInputStream;
 import org.infinity.util.io.StreamUtils;
 
@@ -26,7 +25,6 @@
 public class BIFReader extends AbstractBIFFReader {
   private final WindowBlocker blocker;
 
-  private MappedByteBuffer mappedBuffer;
   private int uncSize;
   private int compSize;
   private int compOffset;
@@ -56,9 +54,9 @@ public synchronized void open() throws Exception {
         throw new Exception("Invalid BIFF archive");
       }
       this.compOffset = (int) channel.position();
-
-      mappedBuffer = channel.map(MapMode.READ_ONLY, compOffset, compSize);
-      mappedBuffer.order(ByteOrder.LITTLE_ENDIAN);
+      if ((long) this.compOffset + this.compSize > channel.size()) {
+        throw new Exception("Invalid BIFF archive");
+      }
     }
     init();
   }
@@ -99,6 +97,18 @@ public ByteBuffer getResourceBuffer(int locator) throws IOException {
       buffer = StreamUtils.getByteBuffer(entry.size);
     }
 
+    ByteBuffer cachedData = getCachedData();
+    if (cachedData != null) {
+      if ((long) entry.offset + buffer.remaining() > cachedData.limit()) {
+        throw new IOException("Resource data out of bounds");
+      }
+      cachedData.limit(entry.offset + buffer.remaining());
+      cachedData.position(entry.offset);
+      buffer.put(cachedData);
+      buffer.position(0);
+      return buffer;
+    }
+
     if (buffer.limit() > 1000000) {
       blocker.setBlocked(true);
     }
@@ -120,11 +130,33 @@ public ByteBuffer getResourceBuffer(int locator) throws IOException {
 
   @Override
   public InputStream getResourceAsStream(int locator) throws IOException {
+    Entry entry = getEntry(locator);
+    if (entry == null) {
+      throw new IOException("Resource not found");
+    }
+
+    // resource data of cached archives is streamed directly from the cache without copying
+    ByteBuffer cachedData = getCachedData();
+    if (cachedData != null) {
+      int size = entry.isTile ? entry.count * entry.size : entry.size;
+      if ((long) entry.offset + size > cachedData.limit()) {
+        throw new IOException("Resource data out of bounds");
+      }
+      cachedData.limit(entry.offset + size);
+      cachedData.position(entry.offset);
+      ByteBuffer data = cachedData.slice().order(ByteOrder.LITTLE_ENDIAN);
+      if (entry.isTile) {
+        return new ByteBufferInputStream(getTisHeader(entry.count, entry.size), data);
+      } else {
+        return new ByteBufferInputStream(data);
+      }
+    }
+
     return new ByteBufferInputStream(getResourceBuffer(locator));
   }
 
   private void init() throws Exception {
-    try (InflaterInputStream iis = new InflaterInputStream(new ByteBufferInputStream(mappedBuffer.duplicate()))) {
+    try (InflaterInputStream iis = getInflaterInputStream()) {
       int curOfs = 0;
       String sigver = StreamUtils.readString(iis, 8);
       if (!"BIFFV1  ".equals(sigver)) {
@@ -166,8 +198,68 @@ private void init() throws Exception {
     }
   }
 
-  // Returns an inflater input stream
-  private InflaterInputStream getInflaterInputStream() {
-    return new InflaterInputStream(new ByteBufferInputStream(mappedBuffer.duplicate()));
+  /**
+   * Returns the decompressed BIFF data from the {@link BIFCache}. Archive data is decompressed and added to the cache
+   * on first access. Returns {@code null} if the cache is disabled or the archive cannot be cached.
+   */
+  private synchronized ByteBuffer getCachedData() throws IOException {
+    final BIFCache cache = BIFCache.getInstance();
+    if (!cache.isEnabled() || uncSize > cache.getCapacity()) {
+      return null;
+    }
+
+    ByteBuffer buffer = cache.get(getFile());
+    if (buffer == null) {
+      ByteBuffer data;
+      try {
+        data = ByteBuffer.allocateDirect(uncSize);
+      } catch (OutOfMemoryError e) {
+        Logger.warn("Not enough memory to cache BIFF archive: {}", getFile());
+        return null;
+      }
+
+      blocker.setBlocked(true);
+      try (InflaterInputStream iis = getInflaterInputStream()) {
+        StreamUtils.readBytes(iis, data);
+      } finally {
+        blocker.setBlocked(false);
+      }
+      if (data.hasRemaining()) {
+        throw new IOException("Unexpected end of decompressed BIFF data");
+      }
+      data.position(0);
+
+      if (cache.put(getFile(), data)) {
+        buffer = cache.get(getFile());
+      }
+    }
+    return buffer;
+  }
+
+  // Returns an inflater input stream of the compressed BIFF data. Data is preferably read from the shared memory mapping,
+  // which is kept alive until the stream is closed.
+  private InflaterInputStream getInflaterInputStream() throws IOException {
+    final BIFFChannelPool.Lease lease = acquireMapping();
+    if (lease != null) {
+      try {
+        return new InflaterInputStream(lease.wrap(new ByteBufferInputStream(lease.getSlice(compOffset, compSize))));
+      } catch (IOException e) {
+        lease.close();
+        throw e;
+      }
+    }
+    return new InflaterInputStream(new ByteBufferInputStream(readCompressedData()));
+  }
+
+  // Loads the compressed BIFF data from file if mapping is not available
+  private ByteBuffer readCompressedData() throws IOException {
+    try (FileChannel channel = FileChannel.open(getFile(), StandardOpenOption.READ)) {
+      ByteBuffer buffer = StreamUtils.getByteBuffer(compSize);
+      channel.position(compOffset);
+      while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+      }
+      buffer.position(0);
+      return buffer;
+    }
   }
 }
@@ -23,6 +23,7 @@
 import org.infinity.resource.ResourceFactory;
 import org.infinity.util.Logger;
 import org.infinity.util.io.ByteBufferInputStream;
+import org.infinity.util.io.DirectoryCache;
 import org.infinity.util.io.StreamUtils;
 
 public final class FileResourceEntry extends ResourceEntry {
@@ -44,7 +45,11 @@ public String toString() {
   }
 
   public void deleteFile() throws IOException {
-    Files.delete(file);
+    try {
+      Files.delete(file);
+    } finally {
+      DirectoryCache.invalidate(file.getParent());
+    }
   }
 
   @Override
@@ -181,7 +186,11 @@ public void renameFile(String newName, boolean overwrite) throws IOException {
     if (overwrite) {
       options[1] = StandardCopyOption.REPLACE_EXISTING;
     }
-    file = Files.move(file, basePath.resolve(newName), options);
+    try {
+      file = Files.move(file, basePath.resolve(newName), options);
+    } finally {
+      DirectoryCache.invalidate(basePath);
+    }
   }
 
   @Override
@@ -13,13 +13,12 @@
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
-import java.util.TreeMap;
 
 import javax.swing.ImageIcon;
 import javax.swing.SwingUtilities;
@@ -28,7 +27,6 @@
 import org.infinity.resource.ResourceFactory;
 import org.infinity.util.IntegerHashMap;
 import org.infinity.util.Logger;
-import org.infinity.util.Misc;
 import org.infinity.util.io.FileEx;
 import org.infinity.util.io.StreamUtils;
 
@@ -107,7 +105,7 @@ public class Keyfile {
   private final Map<Path, List<BIFFEntry>> biffEntries = new HashMap<>();
 
   /** Sorted map of effective BIFFResourceEntry objects. */
-  private final TreeMap<String, BIFFResourceEntry> resourceEntries = new TreeMap<>(Misc.getIgnoreCaseComparator());
+  private final ResourceNameIndex<BIFFResourceEntry> resourceEntries = new ResourceNameIndex<>(65536);
 
   public Keyfile(Path keyFile) throws FileNotFoundException {
     if (keyFile == null) {
@@ -274,10 +272,24 @@ public void addKeyfile(Path keyFile) {
   }
 
   public void populateResourceTree(ResourceTreeModel treeModel) throws Exception {
+    populateResourceTree(treeModel, null);
+  }
+
+  /**
+   * Adds all resource entries of the KEY files to the specified resource tree.
+   *
+   * @param treeModel The {@link ResourceTreeModel} to populate.
+   * @param snapshot  Optional validated {@link ResourceTreeSnapshot} providing the BIFF and resource entries. Entries
+   *                    are read from the KEY files if {@code null} is specified.
+   */
+  public void populateResourceTree(ResourceTreeModel treeModel, ResourceTreeSnapshot snapshot) throws Exception {
     if (treeModel != null) {
-      init();
+      init(snapshot);
 
-      resourceEntries.values().forEach(entry -> treeModel.addResourceEntry(entry, entry.getExtension(), true));
+      // sorted insertion order avoids costly reordering of resource folder content
+      final List<BIFFResourceEntry> entries = new ArrayList<>(resourceEntries.values());
+      Collections.sort(entries);
+      entries.forEach(entry -> treeModel.addResourceEntry(entry, entry.getExtension(), true));
 
       cacheBIFFs();
     }
@@ -318,6 +330,7 @@ public ImageIcon getIcon(String extension) {
   }
 
   public void closeBIFFFiles() {
+    Logger.debug("Closing BIFF files: {}", AbstractBIFFReader.getCacheStatistics());
     AbstractBIFFReader.resetCache();
   }
 
@@ -405,7 +418,7 @@ public AbstractBIFFReader getBIFFFile(BIFFEntry entry) throws Exception {
   public BIFFResourceEntry getResourceEntry(String resourceName) {
     BIFFResourceEntry retVal = null;
     if (resourceName != null) {
-      retVal = resourceEntries.get(resourceName.toUpperCase(Locale.ENGLISH));
+      retVal = resourceEntries.get(resourceName);
     }
     return retVal;
   }
@@ -497,8 +510,16 @@ private void cacheBIFFs() {
   // }
   // }
 
-  /** Creates or updates cached biff maps and entry tables. */
-  private void init() throws IOException {
+  /** Returns all effective BIFF resource entries in no particular order. */
+  Collection<BIFFResourceEntry> getResourceEntries() {
+    return Collections.unmodifiableCollection(resourceEntries.values());
+  }
+
+  /**
+   * Creates or updates cached biff maps and entry tables. BIFF and resource entries are taken from the specified snapshot
+   * if available, without parsing the KEY files.
+   */
+  private void init(ResourceTreeSnapshot snapshot) throws IOException {
     if (getKeyfile() == null) {
       throw new NullPointerException();
     }
@@ -520,6 +541,12 @@ private void init() throws IOException {
     keyFiles.addAll(keyList);
 
     for (final Path file : keyFiles) {
+      if (snapshot != null) {
+        // BIFF and resource entries are fully provided by the snapshot
+        biffEntries.put(file, snapshot.createBiffEntries(file));
+        continue;
+      }
+
       try (SeekableByteChannel ch = Files.newByteChannel(file, StandardOpenOption.READ)) {
         ByteBuffer buffer = StreamUtils.getByteBuffer((int) ch.size());
         if (ch.read(buffer) < ch.size()) {
@@ -562,6 +589,16 @@ private void init() throws IOException {
         }
       }
     }
+
+    if (snapshot != null) {
+      snapshot.createResourceEntries().forEach(this::addResourceEntry);
+    }
+  }
+
+  /** Returns the BIFFEntry objects of the specified key file as unmodifiable list. */
+  List<BIFFEntry> getBIFFEntries(Path keyFile) {
+    final List<BIFFEntry> list = getBIFFList(keyFile, false);
+    return (list != null) ? Collections.unmodifiableList(list) : Collections.emptyList();
   }
 
   /** Returns the list of BIFFEntry objects for the specified key file, optionally removes it. */
@@ -580,8 +617,7 @@ private List<BIFFEntry> getBIFFList(Path keyFile, boolean remove) {
   private BIFFResourceEntry addResourceEntry(BIFFResourceEntry entry) {
     BIFFResourceEntry retVal = null;
     if (entry != null) {
-      final String key = entry.getResourceName().toUpperCase(Locale.ENGLISH);
-      retVal = resourceEntries.put(key, entry);
+      retVal = resourceEntries.put(entry.getResourceName(), entry);
     }
     return retVal;
   }
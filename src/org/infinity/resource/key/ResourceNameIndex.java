@@ -0,0 +1,400 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.resource.key;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * A compact case-insensitive index of resource names.
+ * <p>
+ * Resource names which conform to the resref format (up to 8 characters, followed by an extension of up to 4
+ * characters, printable ASCII only) are packed into primitive keys and stored in open addressing tables. Lookups of
+ * these names don't allocate any objects. Names which don't fit into packed keys (e.g. long file names in override
+ * folders) are stored in a regular map instead.
+ * </p>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ *
+ * @param <T> Type of the indexed values.
+ */
+final class ResourceNameIndex<T> {
+  private static final int MIN_CAPACITY = 16;
+
+  // Packed resource name without extension; 0 indicates an empty slot
+  private long[] names;
+  // Packed resource extension
+  private int[] types;
+  private Object[] values;
+  private int mask;
+  private int count;
+
+  // Resource names which cannot be packed, stored in upper case
+  private final HashMap<String, T> overflow = new HashMap<>();
+
+  private int modCount;
+
+  public ResourceNameIndex() {
+    this(MIN_CAPACITY);
+  }
+
+  /**
+   * Creates a new index which can hold the specified number of resource names without resizing.
+   *
+   * @param expectedSize Expected number of resource names.
+   */
+  public ResourceNameIndex(int expectedSize) {
+    allocate(tableSizeFor(expectedSize));
+  }
+
+  /** Returns the number of indexed resource names. */
+  public int size() {
+    return count + overflow.size();
+  }
+
+  /** Returns {@code true} if the index doesn't contain any resource names. */
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /** Removes all resource names from the index. */
+  public void clear() {
+    Arrays.fill(names, 0L);
+    Arrays.fill(types, 0);
+    Arrays.fill(values, null);
+    count = 0;
+    overflow.clear();
+    modCount++;
+  }
+
+  /** Returns {@code true} if the specified resource name is indexed. */
+  public boolean containsKey(String resourceName) {
+    return get(resourceName) != null;
+  }
+
+  /**
+   * Returns the value associated with the specified resource name. Case is ignored.
+   *
+   * @param resourceName Resource name including extension.
+   * @return The associated value, {@code null} if the resource name is not indexed.
+   */
+  @SuppressWarnings("unchecked")
+  public T get(String resourceName) {
+    if (resourceName == null) {
+      return null;
+    }
+
+    final int dot = resourceName.lastIndexOf('.');
+    final long name = packName(resourceName, dot);
+    final int type = packType(resourceName, dot);
+    if (name == 0L || type == -1) {
+      return overflow.isEmpty() ? null : overflow.get(resourceName.toUpperCase(Locale.ENGLISH));
+    }
+
+    final int slot = findSlot(name, type);
+    return (slot >= 0) ? (T) values[slot] : null;
+  }
+
+  /**
+   * Associates the specified value with the resource name. Case is ignored.
+   *
+   * @param resourceName Resource name including extension.
+   * @param value        Value to associate with the resource name. Must not be {@code null}.
+   * @return The value previously associated with the resource name, {@code null} otherwise.
+   */
+  @SuppressWarnings("unchecked")
+  public T put(String resourceName, T value) {
+    Objects.requireNonNull(resourceName);
+    Objects.requireNonNull(value);
+
+    final int dot = resourceName.lastIndexOf('.');
+    final long name = packName(resourceName, dot);
+    final int type = packType(resourceName, dot);
+    if (name == 0L || type == -1) {
+      modCount++;
+      return overflow.put(resourceName.toUpperCase(Locale.ENGLISH), value);
+    }
+
+    int slot = indexFor(name, type);
+    while (names[slot] != 0L) {
+      if (names[slot] == name && types[slot] == type) {
+        final T oldValue = (T) values[slot];
+        values[slot] = value;
+        return oldValue;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    names[slot] = name;
+    types[slot] = type;
+    values[slot] = value;
+    count++;
+    modCount++;
+    if (count > (names.length >>> 1) + (names.length >>> 2)) {
+      resize(names.length << 1);
+    }
+    return null;
+  }
+
+  /**
+   * Removes the specified resource name from the index. Case is ignored.
+   *
+   * @param resourceName Resource name including extension.
+   * @return The value previously associated with the resource name, {@code null} otherwise.
+   */
+  @SuppressWarnings("unchecked")
+  public T remove(String resourceName) {
+    if (resourceName == null) {
+      return null;
+    }
+
+    final int dot = resourceName.lastIndexOf('.');
+    final long name = packName(resourceName, dot);
+    final int type = packType(resourceName, dot);
+    if (name == 0L || type == -1) {
+      final T oldValue = overflow.remove(resourceName.toUpperCase(Locale.ENGLISH));
+      if (oldValue != null) {
+        modCount++;
+      }
+      return oldValue;
+    }
+
+    int slot = findSlot(name, type);
+    if (slot < 0) {
+      return null;
+    }
+
+    final T oldValue = (T) values[slot];
+    count--;
+    modCount++;
+
+    // backward shift deletion keeps probe sequences intact without tombstones
+    int next = (slot + 1) & mask;
+    while (names[next] != 0L) {
+      final int home = indexFor(names[next], types[next]);
+      if (((next - home) & mask) >= ((next - slot) & mask)) {
+        names[slot] = names[next];
+        types[slot] = types[next];
+        values[slot] = values[next];
+        slot = next;
+      }
+      next = (next + 1) & mask;
+    }
+    names[slot] = 0L;
+    types[slot] = 0;
+    values[slot] = null;
+
+    return oldValue;
+  }
+
+  /**
+   * Returns a view of all indexed values. The view reflects changes to the index. Values are returned in no particular
+   * order.
+   */
+  public Collection<T> values() {
+    return new AbstractCollection<T>() {
+      @Override
+      public Iterator<T> iterator() {
+        return new ValueIterator();
+      }
+
+      @Override
+      public int size() {
+        return ResourceNameIndex.this.size();
+      }
+    };
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = overflow.hashCode();
+    for (int i = 0; i < names.length; i++) {
+      if (names[i] != 0L) {
+        hash += Long.hashCode(names[i]) ^ types[i] ^ values[i].hashCode();
+      }
+    }
+    return hash;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    ResourceNameIndex<?> other = (ResourceNameIndex<?>) obj;
+    if (count != other.count || !overflow.equals(other.overflow)) {
+      return false;
+    }
+    for (int i = 0; i < names.length; i++) {
+      if (names[i] != 0L) {
+        final int slot = other.findSlot(names[i], types[i]);
+        if (slot < 0 || !values[i].equals(other.values[slot])) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return "ResourceNameIndex [size=" + size() + ", packed=" + count + ", capacity=" + names.length + "]";
+  }
+
+  // Returns the slot of the specified key, -1 if not available
+  private int findSlot(long name, int type) {
+    int slot = indexFor(name, type);
+    while (names[slot] != 0L) {
+      if (names[slot] == name && types[slot] == type) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  private int indexFor(long name, int type) {
+    long h = (name ^ ((long) type << 29)) * 0x9e3779b97f4a7c15L;
+    return (int) (h ^ (h >>> 32)) & mask;
+  }
+
+  private void allocate(int capacity) {
+    names = new long[capacity];
+    types = new int[capacity];
+    values = new Object[capacity];
+    mask = capacity - 1;
+  }
+
+  private void resize(int capacity) {
+    final long[] oldNames = names;
+    final int[] oldTypes = types;
+    final Object[] oldValues = values;
+    allocate(capacity);
+    for (int i = 0; i < oldNames.length; i++) {
+      if (oldNames[i] != 0L) {
+        int slot = indexFor(oldNames[i], oldTypes[i]);
+        while (names[slot] != 0L) {
+          slot = (slot + 1) & mask;
+        }
+        names[slot] = oldNames[i];
+        types[slot] = oldTypes[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  // Returns a power of two table size which holds the specified number of entries below the max. load factor
+  private static int tableSizeFor(int expectedSize) {
+    final long required = Math.max(MIN_CAPACITY, (long) expectedSize * 4L / 3L + 1L);
+    if (required >= (1 << 30)) {
+      return 1 << 30;
+    }
+    return Integer.highestOneBit((int) required - 1) << 1;
+  }
+
+  /**
+   * Packs the resource name part (without extension) into a long value, with characters converted to upper case.
+   * Returns 0 if the name cannot be packed.
+   */
+  private static long packName(String resourceName, int dot) {
+    final int len = (dot >= 0) ? dot : resourceName.length();
+    if (len == 0 || len > 8) {
+      return 0L;
+    }
+    long retVal = 0L;
+    for (int i = 0; i < len; i++) {
+      final int ch = packChar(resourceName.charAt(i));
+      if (ch < 0) {
+        return 0L;
+      }
+      retVal = (retVal << 8) | ch;
+    }
+    return retVal;
+  }
+
+  /**
+   * Packs the resource extension into an int value, with characters converted to upper case. A missing extension is
+   * represented by 0. Returns -1 if the extension is empty or cannot be packed.
+   */
+  private static int packType(String resourceName, int dot) {
+    if (dot < 0) {
+      return 0;
+    }
+    final int len = resourceName.length() - dot - 1;
+    if (len == 0 || len > 4) {
+      return -1;
+    }
+    int retVal = 0;
+    for (int i = dot + 1, end = resourceName.length(); i < end; i++) {
+      final int ch = packChar(resourceName.charAt(i));
+      if (ch < 0) {
+        return -1;
+      }
+      retVal = (retVal << 8) | ch;
+    }
+    return retVal;
+  }
+
+  // Returns the upper-cased representation of a printable ASCII character, -1 otherwise
+  private static int packChar(char ch) {
+    if (ch >= 'a' && ch <= 'z') {
+      return ch - ('a' - 'A');
+    } else if (ch >= 0x20 && ch < 0x7f) {
+      return ch;
+    }
+    return -1;
+  }
+
+  // -------------------------- INNER CLASSES --------------------------
+
+  private class ValueIterator implements Iterator<T> {
+    private final Iterator<T> overflowIter = overflow.values().iterator();
+    private final int expectedModCount = modCount;
+    private int slot = -1;
+
+    public ValueIterator() {
+      advance();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return slot < names.length || overflowIter.hasNext();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+      if (modCount != expectedModCount) {
+        throw new ConcurrentModificationException();
+      }
+      if (slot < names.length) {
+        final T value = (T) values[slot];
+        advance();
+        return value;
+      }
+      if (overflowIter.hasNext()) {
+        return overflowIter.next();
+      }
+      throw new NoSuchElementException();
+    }
+
+    private void advance() {
+      do {
+        slot++;
+      } while (slot < names.length && names[slot] == 0L);
+    }
+  }
+}
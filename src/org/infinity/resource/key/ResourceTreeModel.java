@@ -11,10 +11,8 @@
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -29,7 +27,7 @@
 
 public final class ResourceTreeModel implements TreeModel {
   private final List<TreeModelListener> treeModelListeners = new ArrayList<>();
-  private final Map<String, ResourceEntry> entries = new HashMap<>(25000);
+  private final ResourceNameIndex<ResourceEntry> entries = new ResourceNameIndex<>(25000);
   private final Map<String, ResourceTreeFolder> folders = new TreeMap<>(Misc.getIgnoreCaseComparator());
   private final ResourceTreeFolder root = new ResourceTreeFolder(null, "");
 
@@ -121,7 +119,7 @@ public ResourceTreeFolder addResourceEntry(ResourceEntry entry, String folderNam
     if (entry.isVisible()) {
       ResourceTreeFolder folder = addFolder(folderName);
       folder.addResourceEntry(entry, overwrite);
-      entries.put(entry.getResourceName().toUpperCase(Locale.ENGLISH), entry);
+      entries.put(entry.getResourceName(), entry);
       folder.sortChildren(false);
       return folder;
     }
@@ -233,7 +231,6 @@ public ResourceEntry getResourceEntry(String entryname, boolean includeExtraFold
     ResourceEntry retVal = null;
 
     if (entryname != null) {
-      entryname = entryname.toUpperCase(Locale.ENGLISH);
       ResourceEntry entry = entries.get(entryname);
       if (entry != null) {
         retVal = entry;
@@ -286,7 +283,7 @@ public void removeResourceEntry(ResourceEntry entry, String folder) {
     TreeModelEvent event = new TreeModelEvent(this, path, new int[] { getIndexOfChild(parent, entry) },
         new Object[] { entry });
     parent.removeResourceEntry(entry);
-    entries.remove(entry.getResourceName().toUpperCase(Locale.ENGLISH));
+    entries.remove(entry.getResourceName());
     if (parent.getChildCount() == 0) {
       root.removeFolder(parent);
       folders.remove(parent.folderName());
@@ -0,0 +1,384 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.resource.key;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.infinity.resource.Profile;
+import org.infinity.util.Logger;
+import org.infinity.util.io.FileEx;
+
+/**
+ * Persistent snapshot of the resource index of a game, consisting of the BIFF tables and effective resource entries of
+ * the KEY files and the file listings of the override folders.
+ * <p>
+ * A snapshot is only valid as long as size and modification time of all KEY files as well as the modification times
+ * of all override folders match the values recorded when the snapshot was created. Invalid snapshots are discarded
+ * and the resource index must be rebuilt from the game files.
+ * </p>
+ */
+public class ResourceTreeSnapshot {
+  /** File name of the snapshot in the game-specific cache folder. */
+  public static final String FILE_NAME = "resource_index.bin";
+
+  private static final int SIGNATURE = 0x4e495249; // "NIRI"
+  private static final int VERSION = 2;
+
+  // Sequence of file and folder states the snapshot depends on
+  private final List<FileStamp> stamps = new ArrayList<>();
+
+  // Primary and DLC KEY file paths, referenced by index
+  private final List<Path> keyFiles = new ArrayList<>();
+
+  // BIFF entries of all KEY files, in KEY file order
+  private final List<BiffData> biffEntries = new ArrayList<>();
+
+  // Effective KEY file entries
+  private final List<KeyEntry> keyEntries = new ArrayList<>();
+
+  // Override folder => list of regular files
+  private final Map<Path, List<String>> overrideFiles = new LinkedHashMap<>();
+
+  /**
+   * Loads the snapshot for the currently open game from the game-specific cache folder.
+   *
+   * @param keyfile         The {@link Keyfile} instance of the game.
+   * @param overrideFolders List of override folders which are scanned for resources.
+   * @return A validated {@code ResourceTreeSnapshot} instance. Returns {@code null} if the snapshot is not available
+   *         or outdated.
+   */
+  public static ResourceTreeSnapshot load(Keyfile keyfile, List<Path> overrideFolders) {
+    final Path file = getSnapshotFile();
+    if (file == null || !FileEx.create(file).isFile()) {
+      return null;
+    }
+
+    try (DataInputStream dis = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (dis.readInt() != SIGNATURE || dis.readInt() != VERSION) {
+        return null;
+      }
+
+      final ResourceTreeSnapshot snapshot = new ResourceTreeSnapshot();
+
+      // validating game state
+      final List<FileStamp> current = createStamps(keyfile, overrideFolders);
+      int count = dis.readInt();
+      if (count != current.size()) {
+        return null;
+      }
+      for (int i = 0; i < count; i++) {
+        final FileStamp stamp = new FileStamp(dis.readUTF(), dis.readLong(), dis.readLong());
+        if (!stamp.equals(current.get(i))) {
+          Logger.debug("Resource index snapshot is outdated: {}", stamp.path);
+          return null;
+        }
+        snapshot.stamps.add(stamp);
+      }
+
+      // BIFF entries
+      snapshot.keyFiles.addAll(getKeyFiles(keyfile));
+      count = dis.readInt();
+      for (int i = 0; i < count; i++) {
+        final int keyIndex = dis.readUnsignedByte();
+        final String fileName = dis.readUTF();
+        final char separatorChar = dis.readChar();
+        final int fileSize = dis.readInt();
+        final int stringOffset = dis.readInt();
+        final int location = dis.readUnsignedShort();
+        if (keyIndex >= snapshot.keyFiles.size()) {
+          throw new IOException("Invalid KEY file reference");
+        }
+        snapshot.biffEntries.add(new BiffData(keyIndex, fileName, separatorChar, fileSize, stringOffset, location));
+      }
+
+      // KEY entries
+      count = dis.readInt();
+      for (int i = 0; i < count; i++) {
+        final int keyIndex = dis.readUnsignedByte();
+        final String name = dis.readUTF();
+        final int type = dis.readUnsignedShort();
+        final int locator = dis.readInt();
+        if (keyIndex >= snapshot.keyFiles.size()) {
+          throw new IOException("Invalid KEY file reference");
+        }
+        snapshot.keyEntries.add(new KeyEntry(keyIndex, name, type, locator));
+      }
+
+      // override folders
+      count = dis.readInt();
+      if (count != overrideFolders.size()) {
+        return null;
+      }
+      for (int i = 0; i < count; i++) {
+        final Path folder = overrideFolders.get(i);
+        final int numFiles = dis.readInt();
+        final List<String> files = new ArrayList<>(numFiles);
+        for (int j = 0; j < numFiles; j++) {
+          files.add(dis.readUTF());
+        }
+        snapshot.overrideFiles.put(folder, files);
+      }
+
+      return snapshot;
+    } catch (IOException e) {
+      Logger.warn(e, "Could not load resource index snapshot");
+    }
+    return null;
+  }
+
+  /**
+   * Creates a new snapshot from the current state of the specified {@link Keyfile} and the given override folder
+   * listings.
+   *
+   * @param keyfile       The fully initialized {@link Keyfile} instance of the game.
+   * @param overrideFiles Map of override folders and the names of regular files they contain.
+   * @return A new {@code ResourceTreeSnapshot} instance.
+   */
+  public static ResourceTreeSnapshot create(Keyfile keyfile, Map<Path, List<String>> overrideFiles) {
+    Objects.requireNonNull(keyfile);
+    Objects.requireNonNull(overrideFiles);
+
+    final ResourceTreeSnapshot snapshot = new ResourceTreeSnapshot();
+    snapshot.stamps.addAll(createStamps(keyfile, new ArrayList<>(overrideFiles.keySet())));
+
+    snapshot.keyFiles.addAll(getKeyFiles(keyfile));
+    final HashMap<Path, Integer> keyIndices = new HashMap<>();
+    for (int i = 0; i < snapshot.keyFiles.size(); i++) {
+      keyIndices.put(snapshot.keyFiles.get(i), i);
+      for (final BIFFEntry entry : keyfile.getBIFFEntries(snapshot.keyFiles.get(i))) {
+        snapshot.biffEntries.add(new BiffData(i, entry.getFileName(), entry.getSeparatorChar(), entry.getFileSize(),
+            entry.getStringOffset(), entry.getLocation()));
+      }
+    }
+    for (final BIFFResourceEntry entry : keyfile.getResourceEntries()) {
+      final Integer keyIndex = keyIndices.get(entry.getKeyfile());
+      if (keyIndex == null) {
+        throw new IllegalArgumentException("Unknown KEY file: " + entry.getKeyfile());
+      }
+      snapshot.keyEntries.add(new KeyEntry(keyIndex, entry.getResourceRef(), entry.getType(), entry.getLocator()));
+    }
+
+    overrideFiles.forEach((folder, files) -> snapshot.overrideFiles.put(folder, new ArrayList<>(files)));
+    return snapshot;
+  }
+
+  /** Removes the snapshot file of the currently open game from the cache folder. */
+  public static void delete() {
+    final Path file = getSnapshotFile();
+    if (file != null) {
+      try {
+        Files.deleteIfExists(file);
+      } catch (IOException e) {
+        Logger.warn(e);
+      }
+    }
+  }
+
+  /** Returns the path of the snapshot file for the currently open game. Returns {@code null} if no game is open. */
+  public static Path getSnapshotFile() {
+    final Path folder = Profile.getCacheFolder();
+    return (folder != null) ? folder.resolve(FILE_NAME) : null;
+  }
+
+  private ResourceTreeSnapshot() {
+  }
+
+  /** Writes the snapshot to the game-specific cache folder. */
+  public void save() throws IOException {
+    final Path file = getSnapshotFile();
+    if (file == null) {
+      throw new IOException("No game available");
+    }
+
+    Files.createDirectories(file.getParent());
+    final Path tmpFile = file.resolveSibling(FILE_NAME + ".tmp");
+    try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+      dos.writeInt(SIGNATURE);
+      dos.writeInt(VERSION);
+
+      dos.writeInt(stamps.size());
+      for (final FileStamp stamp : stamps) {
+        dos.writeUTF(stamp.path);
+        dos.writeLong(stamp.size);
+        dos.writeLong(stamp.modified);
+      }
+
+      dos.writeInt(biffEntries.size());
+      for (final BiffData entry : biffEntries) {
+        dos.writeByte(entry.keyIndex);
+        dos.writeUTF(entry.fileName);
+        dos.writeChar(entry.separatorChar);
+        dos.writeInt(entry.fileSize);
+        dos.writeInt(entry.stringOffset);
+        dos.writeShort(entry.location);
+      }
+
+      dos.writeInt(keyEntries.size());
+      for (final KeyEntry entry : keyEntries) {
+        dos.writeByte(entry.keyIndex);
+        dos.writeUTF(entry.name);
+        dos.writeShort(entry.type);
+        dos.writeInt(entry.locator);
+      }
+
+      dos.writeInt(overrideFiles.size());
+      for (final List<String> files : overrideFiles.values()) {
+        dos.writeInt(files.size());
+        for (final String name : files) {
+          dos.writeUTF(name);
+        }
+      }
+    }
+    Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  /**
+   * Returns the names of all regular files in the specified override folder at the time the snapshot was created.
+   * Returns {@code null} if the folder is not part of the snapshot.
+   */
+  public List<String> getOverrideFiles(Path folder) {
+    final List<String> files = overrideFiles.get(folder);
+    return (files != null) ? Collections.unmodifiableList(files) : null;
+  }
+
+  /** Creates {@link BIFFEntry} instances of all BIFF files listed in the specified KEY file, in KEY file order. */
+  List<BIFFEntry> createBiffEntries(Path keyFile) {
+    final int keyIndex = keyFiles.indexOf(keyFile);
+    final List<BIFFEntry> list = new ArrayList<>();
+    for (final BiffData entry : biffEntries) {
+      if (entry.keyIndex == keyIndex) {
+        list.add(new BIFFEntry(keyFile, list.size(), entry.fileName, entry.separatorChar, entry.fileSize,
+            entry.stringOffset, entry.location));
+      }
+    }
+    return list;
+  }
+
+  /** Creates {@link BIFFResourceEntry} instances of all effective KEY file entries. */
+  List<BIFFResourceEntry> createResourceEntries() {
+    final List<BIFFResourceEntry> list = new ArrayList<>(keyEntries.size());
+    for (final KeyEntry entry : keyEntries) {
+      list.add(new BIFFResourceEntry(keyFiles.get(entry.keyIndex), entry.name, entry.type, entry.locator));
+    }
+    return list;
+  }
+
+  // Returns the primary KEY file, followed by all DLC KEY files
+  private static List<Path> getKeyFiles(Keyfile keyfile) {
+    final List<Path> list = new ArrayList<>();
+    list.add(keyfile.getKeyfile());
+    list.addAll(keyfile.getDlcKeyfiles());
+    return list;
+  }
+
+  // Collects the current states of all KEY files and override folders
+  private static List<FileStamp> createStamps(Keyfile keyfile, List<Path> overrideFolders) {
+    final List<FileStamp> list = new ArrayList<>();
+    for (final Path keyFile : getKeyFiles(keyfile)) {
+      list.add(FileStamp.of(keyFile));
+    }
+    for (final Path folder : overrideFolders) {
+      list.add(FileStamp.of(folder));
+    }
+    return list;
+  }
+
+  // -------------------------- INNER CLASSES --------------------------
+
+  /** Recorded size and modification time of a file or folder. */
+  private static class FileStamp {
+    private final String path;
+    private final long size;
+    private final long modified;
+
+    /** Returns the current state of the specified file or folder. */
+    public static FileStamp of(Path file) {
+      long size = -1L;
+      long modified = -1L;
+      try {
+        if (Files.isDirectory(file)) {
+          size = 0L;
+        } else {
+          size = Files.size(file);
+        }
+        modified = Files.getLastModifiedTime(file).toMillis();
+      } catch (IOException e) {
+        Logger.trace(e);
+      }
+      return new FileStamp(file.toString(), size, modified);
+    }
+
+    public FileStamp(String path, long size, long modified) {
+      this.path = path;
+      this.size = size;
+      this.modified = modified;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(path, size, modified);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj == null || getClass() != obj.getClass()) {
+        return false;
+      }
+      FileStamp other = (FileStamp) obj;
+      return Objects.equals(path, other.path) && size == other.size && modified == other.modified;
+    }
+  }
+
+  /** Raw data of a single KEY file BIFF entry. */
+  private static class BiffData {
+    private final int keyIndex;
+    private final String fileName;
+    private final char separatorChar;
+    private final int fileSize;
+    private final int stringOffset;
+    private final int location;
+
+    public BiffData(int keyIndex, String fileName, char separatorChar, int fileSize, int stringOffset, int location) {
+      this.keyIndex = keyIndex;
+      this.fileName = fileName;
+      this.separatorChar = separatorChar;
+      this.fileSize = fileSize;
+      this.stringOffset = stringOffset;
+      this.location = location;
+    }
+  }
+
+  /** Raw data of a single KEY file resource entry. */
+  private static class KeyEntry {
+    private final int keyIndex;
+    private final String name;
+    private final int type;
+    private final int locator;
+
+    public KeyEntry(int keyIndex, String name, int type, int locator) {
+      this.keyIndex = keyIndex;
+      this.name = name;
+      this.type = type;
+      this.locator = locator;
+    }
+  }
+}
@@ -49,16 +49,16 @@ public static void clearCache() {
   // adds an AudioBuffer object to the cache
   private static void addCacheEntry(Path path, String name, AudioBuffer buffer) {
     if (name != null && buffer != null) {
-      while (currentCacheSize + buffer.getAudioData().length > MAX_CACHE_SIZE && !BufferCache.isEmpty()) {
+      while (currentCacheSize + buffer.getBufferSize() > MAX_CACHE_SIZE && !BufferCache.isEmpty()) {
         Iterator<Path> iter = BufferCache.keySet().iterator();
         if (iter.hasNext()) {
           AudioBuffer ab = BufferCache.get(iter.next());
           iter.remove();
-          currentCacheSize -= ab.getAudioData().length;
+          currentCacheSize -= ab.getBufferSize();
         }
       }
       BufferCache.put(getCacheKey(path, name), buffer);
-      currentCacheSize += buffer.getAudioData().length;
+      currentCacheSize += buffer.getBufferSize();
     }
   }
 
@@ -199,8 +199,8 @@ private AudioBuffer getAudioBuffer(String fileName) throws IOException {
       byte[] buffer = new byte[(int) Files.size(acmFile)];
       int bytesRead = is.read(buffer);
       if (bytesRead > 0) {
-        // ignore # channels in header (only ACM will be affected)
-        audio = AudioFactory.getAudioBuffer(buffer, 0, AudioBuffer.AudioOverride.overrideChannels(2));
+        // ignore # channels in header (only ACM will be affected); audio data is decoded during playback
+        audio = AudioFactory.getAudioBuffer(buffer, 0, AudioBuffer.AudioOverride.overrideChannels(2), true);
         if (audio != null) {
           addCacheEntry(acmFile.getParent(), fileName, audio);
         }
@@ -4,6 +4,11 @@
 
 package org.infinity.resource.sound;
 
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.sound.sampled.AudioInputStream;
+
 import org.infinity.resource.key.ResourceEntry;
 import org.infinity.util.DynamicArray;
 
@@ -21,6 +26,10 @@ public AcmBuffer(ResourceEntry entry, AudioOverride override) throws Exception {
     super(entry, override);
   }
 
+  public AcmBuffer(ResourceEntry entry, AudioOverride override, boolean streamed) throws Exception {
+    super(entry, override, streamed);
+  }
+
   public AcmBuffer(byte[] buffer, int offset) throws Exception {
     super(buffer, offset);
   }
@@ -29,6 +38,10 @@ public AcmBuffer(byte[] buffer, int offset, AudioOverride override) throws Excep
     super(buffer, offset, override);
   }
 
+  public AcmBuffer(byte[] buffer, int offset, AudioOverride override, boolean streamed) throws Exception {
+    super(buffer, offset, override, streamed);
+  }
+
   /** Returns the number of audio channels. */
   @Override
   public int getChannels() {
@@ -62,6 +75,24 @@ protected void convert(byte[] buffer, int offset, AudioOverride override) throws
     acm.readSamples(data, header.length, numSamples);
   }
 
+  @Override
+  protected byte[] initStream(byte[] buffer, int offset, AudioOverride override) throws Exception {
+    acm = new AcmReader(buffer, offset, override);
+    if (acm.getBitsPerSample() != 16) {
+      // decoder output is limited to 16-bit samples
+      return null;
+    }
+    return createWAVHeader(acm.getSampleCount() / acm.getChannels(), acm.getChannels(), acm.getSampleRate(),
+        acm.getBitsPerSample());
+  }
+
+  @Override
+  protected AudioInputStream createAudioStream(byte[] buffer, int offset, AudioOverride override) throws Exception {
+    final AcmReader reader = new AcmReader(buffer, offset, override);
+    return new AudioInputStream(new AcmInputStream(reader), getAudioFormat(),
+        reader.getSampleCount() / reader.getChannels());
+  }
+
   // --------------------- End Class AudioBuffer ---------------------
 
   // -------------------------- INNER CLASSES --------------------------
@@ -70,7 +101,8 @@ protected void convert(byte[] buffer, int offset, AudioOverride override) throws
   private static class AcmReader {
     private static final int ID_ACM = 0x01032897;
 
-    private final DynamicArray bufferB; // ACM input buffer and offset
+    private final byte[] buffer; // ACM input buffer
+    private final int offset; // start offset of ACM data
     private final AudioOverride override;
 
     private int signature = 0;
@@ -82,8 +114,8 @@ private static class AcmReader {
     private int sampleRate = 0;
     private int numSamples = 0; // total count of sound samples
     private int samplesLeft = 0; // count of unprocessed samples
-    private DynamicArray blockI;
-    private DynamicArray valuesI;
+    private int[] block; // decoded samples of the current block
+    private int blockPos; // index of the next unprocessed sample in the current block
     private ValueUnpacker unpacker; // ACM-stream unpacker
     private SubbandDecoder decoder; // Interplay's subband decoder
 
@@ -99,7 +131,8 @@ private AcmReader(byte[] buffer, int offset, AudioOverride override) throws Exce
         throw new Exception("Input buffer too small");
       }
 
-      bufferB = DynamicArray.wrap(buffer, offset, DynamicArray.ElementType.BYTE);
+      this.buffer = buffer;
+      this.offset = offset;
       if (override == null) {
         override = AudioOverride.override(0, 0, 0);
       }
@@ -109,20 +142,19 @@ private AcmReader(byte[] buffer, int offset, AudioOverride override) throws Exce
     }
 
     private void init() throws Exception {
-      signature = bufferB.getInt(0);
-      numSamples = bufferB.getInt(4);
-      numChannels = bufferB.getUnsignedShort(8);
+      signature = DynamicArray.getInt(buffer, offset);
+      numSamples = DynamicArray.getInt(buffer, offset + 4);
+      numChannels = DynamicArray.getUnsignedShort(buffer, offset + 8);
       if (override.numChannels > 0) {
         numChannels = override.numChannels;
       }
-      sampleRate = bufferB.getUnsignedShort(10);
+      sampleRate = DynamicArray.getUnsignedShort(buffer, offset + 10);
       if (override.sampleRate > 0) {
         sampleRate = override.sampleRate;
       }
-      short val = bufferB.getShort(12);
+      short val = DynamicArray.getShort(buffer, offset + 12);
       levels = val & 0x0f;
       subBlocks = (val >>> 4) & 0x0fff;
-      bufferB.addToBaseOffset(14);
 
       if (signature != ID_ACM) {
         throw new Exception("Invalid ACM header signature");
@@ -136,25 +168,29 @@ private void init() throws Exception {
       if (sampleRate < 4096 || sampleRate > 192000) {
         throw new Exception("Unsupported sample rate: " + sampleRate);
       }
+      if (subBlocks == 0 && numSamples > 0) {
+        throw new Exception("Invalid number of sub-blocks: " + subBlocks);
+      }
 
       samplesLeft = numSamples;
       blockSize = (1 << levels) * subBlocks;
-      blockI = DynamicArray.allocate(blockSize, DynamicArray.ElementType.INTEGER);
-      unpacker = new ValueUnpacker(levels, subBlocks, bufferB);
+      block = new int[blockSize];
+      unpacker = new ValueUnpacker(levels, subBlocks, buffer, offset + 14);
       decoder = new SubbandDecoder(levels);
     }
 
     private void makeNewSamples() {
-      unpacker.getOneBlock(blockI);
-      decoder.decode(blockI, subBlocks);
-      valuesI = blockI.clone();
+      unpacker.getOneBlock(block);
+      decoder.decode(block, subBlocks);
+      blockPos = 0;
       samplesReady = Math.min(blockSize, samplesLeft);
       samplesLeft -= samplesReady;
     }
 
+    // Writes up to sampleCount 16-bit samples to the output buffer and returns the number of processed samples
     private int readSamples(byte[] outBuffer, int offset, int sampleCount) {
-      DynamicArray bufS = DynamicArray.wrap(outBuffer, offset, DynamicArray.ElementType.SHORT);
-
+      final int end = outBuffer.length;
+      int pos = offset;
       int res = 0;
       while (res < sampleCount) {
         if (samplesReady == 0) {
@@ -163,16 +199,19 @@ private int readSamples(byte[] outBuffer, int offset, int sampleCount) {
           }
           makeNewSamples();
         }
-        bufS.putShort(0, (short) (valuesI.getInt(0) >> levels));
-        valuesI.addToBaseOffset(1);
-        bufS.addToBaseOffset(1);
-        res++;
-        samplesReady--;
-      }
 
-      // fill remaining buffer space with silence
-      for (int i = res; i < sampleCount; i++) {
-        bufS.putShort(0, (short) 0).addToBaseOffset(1);
+        final int count = Math.min(samplesReady, sampleCount - res);
+        for (int i = 0; i < count; i++, pos += 2) {
+          final int v = block[blockPos++] >> levels;
+          if (pos + 1 < end) {
+            outBuffer[pos] = (byte) v;
+            outBuffer[pos + 1] = (byte) (v >> 8);
+          } else if (pos < end) {
+            outBuffer[pos] = (byte) v;
+          }
+        }
+        res += count;
+        samplesReady -= count;
       }
 
       return res;
@@ -199,6 +238,48 @@ private int getBitsPerSample() {
     }
   }
 
+  // Provides decoded 16-bit PCM samples of an ACM stream, one block at a time
+  private static class AcmInputStream extends InputStream {
+    private final AcmReader reader;
+    private final byte[] block = new byte[8192];
+
+    private int blockPos;
+    private int blockSize;
+
+    private AcmInputStream(AcmReader reader) {
+      this.reader = reader;
+    }
+
+    @Override
+    public int read() throws IOException {
+      final byte[] b = new byte[1];
+      return (read(b, 0, 1) > 0) ? b[0] & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (blockPos >= blockSize) {
+        blockPos = 0;
+        blockSize = reader.readSamples(block, 0, block.length / 2) * 2;
+        if (blockSize == 0) {
+          return -1;
+        }
+      }
+      final int count = Math.min(len, blockSize - blockPos);
+      System.arraycopy(block, blockPos, b, off, count);
+      blockPos += count;
+      return count;
+    }
+
+    @Override
+    public int available() throws IOException {
+      return blockSize - blockPos;
+    }
+  }
+
   private static class ValueUnpacker {
     private static final byte[] TABLE1 = new byte[] { 0, 1, 2, 4, 5, 6, 8, 9, 10, 16, 17, 18, 20, 21, 22, 24, 25, 26,
         32, 33, 34, 36, 37, 38, 40, 41, 42, 0, 1, 2, 4, 5 // added for type-safety reasons
@@ -220,49 +301,45 @@ private static class ValueUnpacker {
         0xA8, 0xA9, 0xAA, 0x00, 0x01, 0x02, 0x03, 0x04, 0x05, 0x06 // added for type-safety reasons
     };
 
-    private int levels;
-    private int subBlocks;
-    private DynamicArray bufferB;
-    private int nextBits;
-    private int availBits;
-    private int sbSize;
-    private DynamicArray ampBufS;
-    private DynamicArray bufMiddleS;
-    private DynamicArray blockI;
-
-    private ValueUnpacker(int levels, int sbCount, DynamicArray bufB) {
-      if (bufB == null) {
+    private static final int AMP_MIDDLE = 0x8000; // index of amplitude value 0
+
+    private final int levels;
+    private final int subBlocks;
+    private final int sbSize;
+    private final byte[] buffer; // ACM input buffer
+    private final short[] ampBuf = new short[0x10000]; // amplitude values, centered at AMP_MIDDLE
+    private int bufferPos; // position of the next unread byte in the input buffer
+    private int nextBits; // bit reservoir, unread bits start at bit 0
+    private int availBits; // number of bits available in the bit reservoir
+    private int[] block; // current block of decoded values
+
+    private ValueUnpacker(int levels, int sbCount, byte[] buffer, int offset) {
+      if (buffer == null) {
         throw new NullPointerException();
       }
 
       this.levels = levels;
       this.subBlocks = sbCount;
-      this.bufferB = bufB.clone();
+      this.buffer = buffer;
+      this.bufferPos = offset;
       this.nextBits = this.availBits = 0;
       this.sbSize = 1 << this.levels;
-      this.ampBufS = bufMiddleS = this.blockI = null;
-      init();
-    }
-
-    private void init() {
-      ampBufS = DynamicArray.allocate(0x10000, DynamicArray.ElementType.SHORT);
-      bufMiddleS = ampBufS.clone().addToBaseOffset(0x8000);
     }
 
-    private void getOneBlock(DynamicArray blockI) {
-      this.blockI = blockI.clone();
+    private void getOneBlock(int[] block) {
+      this.block = block;
       int pwr = getBits(4) & 0x0f;
       int val = getBits(16) & 0xffff;
       int count = 1 << pwr;
       int v = 0;
 
       for (int i = 0; i < count; i++) {
-        bufMiddleS.putShort(i, (short) v);
+        ampBuf[AMP_MIDDLE + i] = (short) v;
         v += val;
       }
       v = -val;
       for (int i = 0; i < count; i++) {
-        bufMiddleS.putShort(-i - 1, (short) v);
+        ampBuf[AMP_MIDDLE - i - 1] = (short) v;
         v -= val;
       }
 
@@ -328,20 +405,17 @@ private int return0(int pass, int idx) {
 
     // used when the whole column pass is zero-filled
     private int zeroFill(int pass, int idx) {
-      DynamicArray sbI = blockI.clone().addToBaseOffset(pass);
-      int step = sbSize;
-      int i = subBlocks;
-      do {
-        sbI.putInt(0, 0).addToBaseOffset(step);
-      } while ((--i) != 0);
+      for (int i = 0, ofs = pass; i < subBlocks; i++, ofs += sbSize) {
+        block[ofs] = 0;
+      }
       return 1;
     }
 
     private int linearFill(int pass, int idx) {
       int mask = (1 << idx) - 1;
-      DynamicArray lbS = bufMiddleS.clone().addToBaseOffset(-1 << (idx - 1));
+      int base = AMP_MIDDLE + (-1 << (idx - 1));
       for (int i = 0; i < subBlocks; i++) {
-        blockI.putInt(i * sbSize + pass, lbS.getShort((getBits(idx) & mask)));
+        block[i * sbSize + pass] = ampBuf[base + (getBits(idx) & mask)];
       }
       return 1;
     }
@@ -354,20 +428,20 @@ private int k1Bits3(int pass, int idx) {
         prepareBits(3);
         if ((nextBits & 1) == 0) {
           availBits--;
-          nextBits >>= 1;
-          blockI.putInt(i * sbSize + pass, 0);
+          nextBits >>>= 1;
+          block[i * sbSize + pass] = 0;
           if ((++i) == subBlocks) {
             break;
           }
-          blockI.putInt(i * sbSize + pass, 0);
+          block[i * sbSize + pass] = 0;
         } else if ((nextBits & 2) == 0) {
           availBits -= 2;
-          nextBits >>= 2;
-          blockI.putInt(i * sbSize + pass, 0);
+          nextBits >>>= 2;
+          block[i * sbSize + pass] = 0;
         } else {
-          blockI.putInt(i * sbSize + pass, bufMiddleS.getShort(((nextBits & 4) != 0) ? 1 : -1));
+          block[i * sbSize + pass] = ampBuf[AMP_MIDDLE + (((nextBits & 4) != 0) ? 1 : -1)];
           availBits -= 3;
-          nextBits >>= 3;
+          nextBits >>>= 3;
         }
       }
       return 1;
@@ -381,12 +455,12 @@ private int k1Bits2(int pass, int idx) {
         prepareBits(2);
         if ((nextBits & 1) == 0) {
           availBits--;
-          nextBits >>= 1;
-          blockI.putInt(i * sbSize + pass, 0);
+          nextBits >>>= 1;
+          block[i * sbSize + pass] = 0;
         } else {
-          blockI.putInt(i * sbSize + pass, bufMiddleS.getShort(((nextBits & 2) != 0) ? 1 : -1));
+          block[i * sbSize + pass] = ampBuf[AMP_MIDDLE + (((nextBits & 2) != 0) ? 1 : -1)];
           availBits -= 2;
-          nextBits >>= 2;
+          nextBits >>>= 2;
         }
       }
       return 1;
@@ -400,17 +474,17 @@ private int t1Bits5(int pass, int idx) {
         byte val = (byte) (getBits(5) & 0x1f);
         val = TABLE1[val];
 
-        blockI.putInt(i * sbSize + pass, bufMiddleS.getShort((val & 3) - 1));
+        block[i * sbSize + pass] = ampBuf[AMP_MIDDLE + (val & 3) - 1];
         if ((++i) == subBlocks) {
           break;
         }
         val >>= 2;
-        blockI.putInt(i * sbSize + pass, bufMiddleS.getShort((val & 3) - 1));
+        block[i * sbSize + pass] = ampBuf[AMP_MIDDLE + (val & 3) - 1];
         if ((++i) == subBlocks) {
           break;
         }
         val >>= 2;
-        blockI.putInt(i * sbSize + pass, bufMiddleS.getShort(val - 1));
+        block[i * sbSize + pass] = ampBuf[AMP_MIDDLE + val - 1];
       }
       return 1;
     }
@@ -423,21 +497,21 @@ private int k2Bits4(int pass, int idx) {
         prepareBits(4);
         if ((nextBits & 1) == 0) {
           availBits--;
-          nextBits >>= 1;
-          blockI.putInt(i * sbSize + pass, 0);
+          nextBits >>>= 1;
+          block[i * sbSize + pass] = 0;
           if ((++i) == subBlocks) {
             break;
           }
-          blockI.putInt(i * sbSize + pass, 0);
+          block[i * sbSize + pass] = 0;
         } else if ((nextBits & 2) == 0) {
           availBits -= 2;
-          nextBits >>= 2;
-          blockI.putInt(i * sbSize + pass, 0);
+          nextBits >>>= 2;
+          block[i * sbSize + pass] = 0;
         } else {
-          blockI.putInt(i * sbSize + pass, ((nextBits & 8) != 0) ? bufMiddleS.getShort(((nextBits & 4) != 0) ? 2 : 1)
-              : bufMiddleS.getShort(((nextBits & 4) != 0) ? -1 : -2));
+          block[i * sbSize + pass] = ((nextBits & 8) != 0) ? ampBuf[AMP_MIDDLE + (((nextBits & 4) != 0) ? 2 : 1)]
+              : ampBuf[AMP_MIDDLE + (((nextBits & 4) != 0) ? -1 : -2)];
           availBits -= 4;
-          nextBits >>= 4;
+          nextBits >>>= 4;
         }
       }
       return 1;
@@ -451,13 +525,13 @@ private int k2Bits3(int pass, int idx) {
         prepareBits(3);
         if ((nextBits & 1) == 0) {
           availBits--;
-          nextBits >>= 1;
-          blockI.putInt(i * sbSize + pass, 0);
+          nextBits >>>= 1;
+          block[i * sbSize + pass] = 0;
         } else {
-          blockI.putInt(i * sbSize + pass, ((nextBits & 4) != 0) ? bufMiddleS.getShort(((nextBits & 2) != 0) ? 2 : 1)
-              : bufMiddleS.getShort(((nextBits & 2) != 0) ? -1 : -2));
+          block[i * sbSize + pass] = ((nextBits & 4) != 0) ? ampBuf[AMP_MIDDLE + (((nextBits & 2) != 0) ? 2 : 1)]
+              : ampBuf[AMP_MIDDLE + (((nextBits & 2) != 0) ? -1 : -2)];
           availBits -= 3;
-          nextBits >>= 3;
+          nextBits >>>= 3;
         }
       }
       return 1;
@@ -471,17 +545,17 @@ private int t2Bits7(int pass, int idx) {
         short val = (short) (getBits(7) & 0x7f);
         val = TABLE2[val];
 
-        blockI.putInt(i * sbSize + pass, bufMiddleS.getShort((val & 7) - 2));
+        block[i * sbSize + pass] = ampBuf[AMP_MIDDLE + (val & 7) - 2];
         if ((++i) == subBlocks) {
           break;
         }
         val >>= 3;
-        blockI.putInt(i * sbSize + pass, bufMiddleS.getShort((val & 7) - 2));
+        block[i * sbSize + pass] = ampBuf[AMP_MIDDLE + (val & 7) - 2];
         if ((++i) == subBlocks) {
           break;
         }
         val >>= 3;
-        blockI.putInt(i * sbSize + pass, bufMiddleS.getShort(val - 2));
+        block[i * sbSize + pass] = ampBuf[AMP_MIDDLE + val - 2];
       }
       return 1;
     }
@@ -494,28 +568,28 @@ private int k3Bits5(int pass, int idx) {
         prepareBits(5);
         if ((nextBits & 1) == 0) {
           availBits--;
-          nextBits >>= 1;
-          blockI.putInt(i * sbSize + pass, 0);
+          nextBits >>>= 1;
+          block[i * sbSize + pass] = 0;
           if ((++i) == subBlocks) {
             break;
           }
-          blockI.putInt(i * sbSize + pass, 0);
+          block[i * sbSize + pass] = 0;
         } else if ((nextBits & 2) == 0) {
           availBits -= 2;
-          nextBits >>= 2;
-          blockI.putInt(i * sbSize + pass, 0);
+          nextBits >>>= 2;
+          block[i * sbSize + pass] = 0;
         } else if ((nextBits & 4) == 0) {
-          blockI.putInt(i * sbSize + pass, bufMiddleS.getShort(((nextBits & 8) != 0) ? 1 : -1));
+          block[i * sbSize + pass] = ampBuf[AMP_MIDDLE + (((nextBits & 8) != 0) ? 1 : -1)];
           availBits -= 4;
-          nextBits >>= 4;
+          nextBits >>>= 4;
         } else {
           availBits -= 5;
           int val = (nextBits & 0x18) >> 3;
-          nextBits >>= 5;
+          nextBits >>>= 5;
           if (val >= 2) {
             val += 3;
           }
-          blockI.putInt(i * sbSize + pass, bufMiddleS.getShort(val - 3));
+          block[i * sbSize + pass] = ampBuf[AMP_MIDDLE + val - 3];
         }
       }
       return 1;
@@ -528,20 +602,20 @@ private int k3Bits4(int pass, int idx) {
         prepareBits(4);
         if ((nextBits & 1) == 0) {
           availBits--;
-          nextBits >>= 1;
-          blockI.putInt(i * sbSize + pass, 0);
+          nextBits >>>= 1;
+          block[i * sbSize + pass] = 0;
         } else if ((nextBits & 2) == 0) {
           availBits -= 3;
-          blockI.putInt(i * sbSize + pass, bufMiddleS.getShort(((nextBits & 4) != 0) ? 1 : -1));
-          nextBits >>= 3;
+          block[i * sbSize + pass] = ampBuf[AMP_MIDDLE + (((nextBits & 4) != 0) ? 1 : -1)];
+          nextBits >>>= 3;
         } else {
           int val = (nextBits & 0x0c) >> 2;
           availBits -= 4;
-          nextBits >>= 4;
+          nextBits >>>= 4;
           if (val >= 2) {
             val += 3;
           }
-          blockI.putInt(i * sbSize + pass, bufMiddleS.getShort(val - 3));
+          block[i * sbSize + pass] = ampBuf[AMP_MIDDLE + val - 3];
         }
       }
       return 1;
@@ -555,24 +629,24 @@ private int k4Bits5(int pass, int idx) {
         prepareBits(5);
         if ((nextBits & 1) == 0) {
           availBits--;
-          nextBits >>= 1;
-          blockI.putInt(i * sbSize + pass, 0);
+          nextBits >>>= 1;
+          block[i * sbSize + pass] = 0;
           if ((++i) == subBlocks) {
             break;
           }
-          blockI.putInt(i * sbSize + pass, 0);
+          block[i * sbSize + pass] = 0;
         } else if ((nextBits & 2) == 0) {
           availBits -= 2;
-          nextBits >>= 2;
-          blockI.putInt(i * sbSize + pass, 0);
+          nextBits >>>= 2;
+          block[i * sbSize + pass] = 0;
         } else {
           int val = (nextBits & 0x1c) >> 2;
           if (val >= 4) {
             val++;
           }
-          blockI.putInt(i * sbSize + pass, bufMiddleS.getShort(val - 4));
+          block[i * sbSize + pass] = ampBuf[AMP_MIDDLE + val - 4];
           availBits -= 5;
-          nextBits >>= 5;
+          nextBits >>>= 5;
         }
       }
       return 1;
@@ -585,16 +659,16 @@ private int k4Bits4(int pass, int idx) {
         prepareBits(4);
         if ((nextBits & 1) == 0) {
           availBits--;
-          nextBits >>= 1;
-          blockI.putInt(i * sbSize + pass, 0);
+          nextBits >>>= 1;
+          block[i * sbSize + pass] = 0;
         } else {
           int val = (nextBits & 0x0e) >> 1;
           availBits -= 4;
-          nextBits >>= 4;
+          nextBits >>>= 4;
           if (val >= 4) {
             val++;
           }
-          blockI.putInt(i * sbSize + pass, bufMiddleS.getShort(val - 4));
+          block[i * sbSize + pass] = ampBuf[AMP_MIDDLE + val - 4];
         }
       }
       return 1;
@@ -607,28 +681,24 @@ private int t3Bits7(int pass, int idx) {
         short val = (short) (getBits(7) & 0x7f);
         val = TABLE3[val];
 
-        blockI.putInt(i * sbSize + pass, bufMiddleS.getShort((val & 0x0f) - 5));
+        block[i * sbSize + pass] = ampBuf[AMP_MIDDLE + (val & 0x0f) - 5];
         if ((++i) == subBlocks) {
           break;
         }
         val >>= 4;
-        blockI.putInt(i * sbSize + pass, bufMiddleS.getShort(val - 5));
+        block[i * sbSize + pass] = ampBuf[AMP_MIDDLE + val - 5];
       }
       return 1;
     }
 
-    // request bits
+    // request bits; the bit reservoir is refilled with as many bytes as possible
     private void prepareBits(int bits) {
-      while (bits > availBits) {
-        int oneByte;
-        if (bufferB.getBaseOffset() < bufferB.arraySize()) {
-          oneByte = bufferB.getByte(0) & 0xff;
-          bufferB.addToBaseOffset(1);
-        } else {
-          oneByte = 0;
+      if (bits > availBits) {
+        while (availBits <= 24) {
+          int oneByte = (bufferPos < buffer.length) ? buffer[bufferPos++] & 0xff : 0;
+          nextBits |= oneByte << availBits;
+          availBits += 8;
         }
-        nextBits |= oneByte << availBits;
-        availBits += 8;
       }
     }
 
@@ -637,7 +707,7 @@ private int getBits(int bits) {
       prepareBits(bits);
       int res = nextBits;
       availBits -= bits;
-      nextBits >>= bits;
+      nextBits >>>= bits;
       return res;
     }
   }
@@ -645,7 +715,8 @@ private int getBits(int bits) {
   private static class SubbandDecoder {
     private final int levels;
     private final int blockSize;
-    private DynamicArray memBufI;
+    private short[] memBufS; // memory of the first subband level
+    private int[] memBufI; // memory of the remaining subband levels
 
     private SubbandDecoder(int levels) {
       this.levels = levels;
@@ -653,179 +724,157 @@ private SubbandDecoder(int levels) {
       init();
     }
 
-    private void decode(DynamicArray bufferI, int blocks) {
+    private void decode(int[] buffer, int blocks) {
       if (levels == 0) {
         return;
       }
 
-      DynamicArray bufI = bufferI.clone();
-      DynamicArray memI = memBufI.clone();
       int sbSize = blockSize >> 1; // current subband size
 
       blocks <<= 1;
-      sub_4d3fcc(memI.asShortArray(), bufI, sbSize, blocks);
-      memI.addToBaseOffset(sbSize);
+      sub_4d3fcc(memBufS, buffer, sbSize, blocks);
 
       for (int i = 0; i < blocks; i++) {
-        bufI.putInt(i * sbSize, bufI.getInt(i * sbSize) + 1);
+        buffer[i * sbSize]++;
       }
 
       sbSize >>= 1;
       blocks <<= 1;
 
+      int memOfs = 0;
       while (sbSize != 0) {
-        sub_4d420c(memI, bufI, sbSize, blocks);
-        memI.addToBaseOffset(sbSize << 1);
+        sub_4d420c(memBufI, memOfs, buffer, sbSize, blocks);
+        memOfs += sbSize << 1;
         sbSize >>= 1;
         blocks <<= 1;
       }
     }
 
     private void init() {
-      int memSize = (levels == 0) ? 0 : (3 * (blockSize >> 1) - 2);
-      if (memSize > 0) {
-        memBufI = DynamicArray.allocate(memSize, DynamicArray.ElementType.INTEGER);
+      if (levels > 0) {
+        memBufS = new short[blockSize];
+        memBufI = new int[blockSize - 2];
       }
     }
 
-    private void sub_4d3fcc(DynamicArray memoryS, DynamicArray bufferI, int sbSize, int blocks) {
-      DynamicArray memS = memoryS.clone();
-      DynamicArray bufI = bufferI.clone();
+    private static void sub_4d3fcc(short[] memS, int[] buf, int sbSize, int blocks) {
       int row0 = 0, row1 = 0, row2 = 0, row3 = 0, db0 = 0, db1 = 0;
       int sbSize2 = sbSize * 2;
       int sbSize3 = sbSize * 3;
       if (blocks == 2) {
-        for (int i = 0; i < sbSize; i++) {
-          row0 = bufI.getInt(0);
-          row1 = bufI.getInt(sbSize);
-          bufI.putInt(0, bufI.getInt(0) + memS.getShort(0) + (memS.getShort(1) << 1));
-          bufI.putInt(sbSize, (row0 << 1) - memS.getShort(1) - bufI.getInt(sbSize));
-          memS.putShort(0, (short) row0);
-          memS.putShort(1, (short) row1);
-
-          memS.addToBaseOffset(2);
-          bufI.addToBaseOffset(1);
+        for (int i = 0, m = 0; i < sbSize; i++, m += 2) {
+          row0 = buf[i];
+          row1 = buf[i + sbSize];
+          buf[i] = row0 + memS[m] + (memS[m + 1] << 1);
+          buf[i + sbSize] = (row0 << 1) - memS[m + 1] - row1;
+          memS[m] = (short) row0;
+          memS[m + 1] = (short) row1;
         }
       } else if (blocks == 4) {
-        for (int i = 0; i < sbSize; i++) {
-          row0 = bufI.getInt(0);
-          row1 = bufI.getInt(sbSize);
-          row2 = bufI.getInt(sbSize2);
-          row3 = bufI.getInt(sbSize3);
-
-          bufI.putInt(0, memS.getShort(0) + (memS.getShort(1) << 1) + row0);
-          bufI.putInt(sbSize, -memS.getShort(1) + (row0 << 1) - row1);
-          bufI.putInt(sbSize2, row0 + (row1 << 1) + row2);
-          bufI.putInt(sbSize3, -row1 + (row2 << 1) - row3);
-
-          memS.putShort(0, (short) row2);
-          memS.putShort(1, (short) row3);
-
-          memS.addToBaseOffset(2);
-          bufI.addToBaseOffset(1);
+        for (int i = 0, m = 0; i < sbSize; i++, m += 2) {
+          row0 = buf[i];
+          row1 = buf[i + sbSize];
+          row2 = buf[i + sbSize2];
+          row3 = buf[i + sbSize3];
+
+          buf[i] = memS[m] + (memS[m + 1] << 1) + row0;
+          buf[i + sbSize] = -memS[m + 1] + (row0 << 1) - row1;
+          buf[i + sbSize2] = row0 + (row1 << 1) + row2;
+          buf[i + sbSize3] = -row1 + (row2 << 1) - row3;
+
+          memS[m] = (short) row2;
+          memS[m + 1] = (short) row3;
         }
       } else {
-        DynamicArray buf2I = bufI.clone();
-        for (int i = 0; i < sbSize; i++) {
-          buf2I.setBaseOffset(bufI.getBaseOffset());
+        for (int i = 0, m = 0; i < sbSize; i++, m += 2) {
+          int p = i;
           if ((blocks & 2) != 0) {
-            row0 = buf2I.getInt(0);
-            row1 = buf2I.getInt(sbSize);
+            row0 = buf[p];
+            row1 = buf[p + sbSize];
 
-            buf2I.putInt(0, memS.getShort(0) + (memS.getShort(1) << 1) + row0);
-            buf2I.putInt(sbSize, -memS.getShort(1) + (row0 << 1) - row1);
-            buf2I.addToBaseOffset(sbSize2);
+            buf[p] = memS[m] + (memS[m + 1] << 1) + row0;
+            buf[p + sbSize] = -memS[m + 1] + (row0 << 1) - row1;
+            p += sbSize2;
 
             db0 = row0;
             db1 = row1;
           } else {
-            db0 = memS.getShort(0);
-            db1 = memS.getShort(1);
+            db0 = memS[m];
+            db1 = memS[m + 1];
           }
 
           for (int j = 0; j < (blocks >> 2); j++) {
-            row0 = buf2I.getInt(0);
-            buf2I.putInt(0, db0 + (db1 << 1) + row0);
-            buf2I.addToBaseOffset(sbSize);
+            row0 = buf[p];
+            buf[p] = db0 + (db1 << 1) + row0;
+            p += sbSize;
 
-            row1 = buf2I.getInt(0);
-            buf2I.putInt(0, -db1 + (row0 << 1) - row1);
-            buf2I.addToBaseOffset(sbSize);
+            row1 = buf[p];
+            buf[p] = -db1 + (row0 << 1) - row1;
+            p += sbSize;
 
-            row2 = buf2I.getInt(0);
-            buf2I.putInt(0, row0 + (row1 << 1) + row2);
-            buf2I.addToBaseOffset(sbSize);
+            row2 = buf[p];
+            buf[p] = row0 + (row1 << 1) + row2;
+            p += sbSize;
 
-            row3 = buf2I.getInt(0);
-            buf2I.putInt(0, -row1 + (row2 << 1) - row3);
-            buf2I.addToBaseOffset(sbSize);
+            row3 = buf[p];
+            buf[p] = -row1 + (row2 << 1) - row3;
+            p += sbSize;
 
             db0 = row2;
             db1 = row3;
           }
-          memS.putShort(0, (short) row2);
-          memS.putShort(1, (short) row3);
-          memS.addToBaseOffset(2);
-          bufI.addToBaseOffset(1);
+          memS[m] = (short) row2;
+          memS[m + 1] = (short) row3;
         }
       }
     }
 
-    private void sub_4d420c(DynamicArray memoryI, DynamicArray bufferI, int sbSize, int blocks) {
-      DynamicArray memI = memoryI.clone();
-      DynamicArray bufI = bufferI.clone();
+    private static void sub_4d420c(int[] mem, int memOfs, int[] buf, int sbSize, int blocks) {
       int row0 = 0, row1 = 0, row2 = 0, row3 = 0, db0 = 0, db1 = 0;
       int sbSize2 = sbSize * 2;
       int sbSize3 = sbSize * 3;
       if (blocks == 4) {
-        for (int i = 0; i < sbSize; i++) {
-          row0 = bufI.getInt(0);
-          row1 = bufI.getInt(sbSize);
-          row2 = bufI.getInt(sbSize2);
-          row3 = bufI.getInt(sbSize3);
-
-          bufI.putInt(0, memI.getInt(0) + (memI.getInt(1) << 1) + row0);
-          bufI.putInt(sbSize, -memI.getInt(1) + (row0 << 1) - row1);
-          bufI.putInt(sbSize2, row0 + (row1 << 1) + row2);
-          bufI.putInt(sbSize3, -row1 + (row2 << 1) - row3);
-
-          memI.putInt(0, row2);
-          memI.putInt(1, row3);
-
-          memI.addToBaseOffset(2);
-          bufI.addToBaseOffset(1);
+        for (int i = 0, m = memOfs; i < sbSize; i++, m += 2) {
+          row0 = buf[i];
+          row1 = buf[i + sbSize];
+          row2 = buf[i + sbSize2];
+          row3 = buf[i + sbSize3];
+
+          buf[i] = mem[m] + (mem[m + 1] << 1) + row0;
+          buf[i + sbSize] = -mem[m + 1] + (row0 << 1) - row1;
+          buf[i + sbSize2] = row0 + (row1 << 1) + row2;
+          buf[i + sbSize3] = -row1 + (row2 << 1) - row3;
+
+          mem[m] = row2;
+          mem[m + 1] = row3;
         }
       } else {
-        DynamicArray buf2I = bufI.clone();
-        for (int i = 0; i < sbSize; i++) {
-          buf2I.setBaseOffset(bufI.getBaseOffset());
-          db0 = memI.getInt(0);
-          db1 = memI.getInt(1);
+        for (int i = 0, m = memOfs; i < sbSize; i++, m += 2) {
+          int p = i;
+          db0 = mem[m];
+          db1 = mem[m + 1];
           for (int j = 0; j < (blocks >> 2); j++) {
-            row0 = buf2I.getInt(0);
-            buf2I.putInt(0, db0 + (db1 << 1) + row0);
-            buf2I.addToBaseOffset(sbSize);
+            row0 = buf[p];
+            buf[p] = db0 + (db1 << 1) + row0;
+            p += sbSize;
 
-            row1 = buf2I.getInt(0);
-            buf2I.putInt(0, -db1 + (row0 << 1) - row1);
-            buf2I.addToBaseOffset(sbSize);
+            row1 = buf[p];
+            buf[p] = -db1 + (row0 << 1) - row1;
+            p += sbSize;
 
-            row2 = buf2I.getInt(0);
-            buf2I.putInt(0, row0 + (row1 << 1) + row2);
-            buf2I.addToBaseOffset(sbSize);
+            row2 = buf[p];
+            buf[p] = row0 + (row1 << 1) + row2;
+            p += sbSize;
 
-            row3 = buf2I.getInt(0);
-            buf2I.putInt(0, -row1 + (row2 << 1) - row3);
-            buf2I.addToBaseOffset(sbSize);
+            row3 = buf[p];
+            buf[p] = -row1 + (row2 << 1) - row3;
+            p += sbSize;
 
             db0 = row2;
             db1 = row3;
           }
-          memI.putInt(0, row2);
-          memI.putInt(1, row3);
-
-          memI.addToBaseOffset(2);
-          bufI.addToBaseOffset(1);
+          mem[m] = row2;
+          mem[m + 1] = row3;
         }
       }
     }
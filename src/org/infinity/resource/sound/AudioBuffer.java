@@ -4,14 +4,25 @@
 
 package org.infinity.resource.sound;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
 import org.infinity.resource.key.ResourceEntry;
+import org.infinity.util.Logger;
 import org.infinity.util.io.StreamUtils;
 
 /**
  * Abstract base class provides access to uncompressed PCM WAV audio data.
+ * <p>
+ * Audio buffers can optionally be created in streamed mode if supported by the audio format. Streamed buffers keep
+ * only the source audio data in memory and decode PCM data block by block while the audio stream is read.
+ * </p>
  */
 public abstract class AudioBuffer {
   /**
@@ -19,13 +30,24 @@ public abstract class AudioBuffer {
    */
   protected byte[] data = null;
 
+  // source audio data of streamed audio buffers
+  private byte[] source;
+  private int sourceOffset;
+  private AudioOverride override;
+  // WAV header of streamed audio buffers
+  private byte[] header;
+
   public AudioBuffer(ResourceEntry entry) throws Exception {
     this(entry, null);
   }
 
   public AudioBuffer(ResourceEntry entry, AudioOverride override) throws Exception {
+    this(entry, override, false);
+  }
+
+  public AudioBuffer(ResourceEntry entry, AudioOverride override, boolean streamed) throws Exception {
     if (entry != null) {
-      convert(StreamUtils.toArray(entry.getResourceBuffer()), 0, override);
+      init(StreamUtils.toArray(entry.getResourceBuffer()), 0, override, streamed);
     } else {
       throw new NullPointerException();
     }
@@ -36,26 +58,85 @@ public AudioBuffer(byte[] buffer, int offset) throws Exception {
   }
 
   public AudioBuffer(byte[] buffer, int offset, AudioOverride override) throws Exception {
-    convert(buffer, offset, override);
+    this(buffer, offset, override, false);
+  }
+
+  /**
+   * Initializes the audio buffer with the specified source audio data.
+   *
+   * @param buffer   Buffer containing source audio data.
+   * @param offset   Start offset into buffer.
+   * @param override An optional override object to force certain properties of the audio format.
+   * @param streamed Whether audio data should be decoded on demand. Audio formats which don't support streaming are
+   *                   decoded immediately.
+   * @throws Exception
+   */
+  public AudioBuffer(byte[] buffer, int offset, AudioOverride override, boolean streamed) throws Exception {
+    init(buffer, offset, override, streamed);
   }
 
   /**
    * Returns the buffer of uncompressed PCM data including WAV header.
+   * <p>
+   * Streamed audio buffers decode the whole audio data on each call, the returned data is not retained.
+   * </p>
    *
    * @return Buffer containing uncompressed PCM WAV data.
    */
   public byte[] getAudioData() {
+    if (data == null && source != null) {
+      try {
+        return decodeAudioData();
+      } catch (Exception e) {
+        Logger.error(e);
+      }
+    }
     return data;
   }
 
+  /**
+   * Returns a new audio stream for the uncompressed PCM audio data. Streamed audio buffers decode audio data while
+   * the stream is read.
+   *
+   * @return {@link AudioInputStream} of the audio data. Returns {@code null} if no audio data is available.
+   * @throws Exception If the audio stream could not be created.
+   */
+  public AudioInputStream getAudioInputStream() throws Exception {
+    if (source != null) {
+      return createAudioStream(source, sourceOffset, override);
+    } else if (data != null) {
+      return AudioSystem.getAudioInputStream(new ByteArrayInputStream(data));
+    }
+    return null;
+  }
+
+  /** Returns whether audio data is decoded on demand. */
+  public boolean isStreamed() {
+    return source != null;
+  }
+
+  /**
+   * Returns the amount of audio data held in memory by this buffer, in bytes. This is the size of the source audio
+   * data for streamed audio buffers, and the size of the uncompressed PCM WAV data otherwise.
+   */
+  public int getBufferSize() {
+    if (source != null) {
+      return source.length - sourceOffset;
+    } else if (data != null) {
+      return data.length;
+    }
+    return 0;
+  }
+
   /**
    * Returns the total duration of the audio data in milliseconds.
    *
    * @return Duration in milliseconds.
    */
   public long getDuration() {
-    if (data != null && data.length >= 44) {
-      final ByteBuffer bb = ByteBuffer.wrap(data, 0, 44).asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    final byte[] header = getHeader();
+    if (header != null && header.length >= 44) {
+      final ByteBuffer bb = ByteBuffer.wrap(header, 0, 44).asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
       int byteRate = bb.getInt(28);
       int totalSize = bb.getInt(40);
       return totalSize * 1000L / byteRate;
@@ -69,8 +150,9 @@ public long getDuration() {
    * @return Sample rate in Hz.
    */
   public int getSampleRate() {
-    if (data != null && data.length >= 44) {
-      final ByteBuffer bb = ByteBuffer.wrap(data, 0, 44).asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    final byte[] header = getHeader();
+    if (header != null && header.length >= 44) {
+      final ByteBuffer bb = ByteBuffer.wrap(header, 0, 44).asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
       return bb.getInt(24);
     }
     return 0;
@@ -82,16 +164,18 @@ public int getSampleRate() {
    * @return Number of channels.
    */
   public int getChannels() {
-    if (data != null && data.length >= 44) {
-      final ByteBuffer bb = ByteBuffer.wrap(data, 0, 44).asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    final byte[] header = getHeader();
+    if (header != null && header.length >= 44) {
+      final ByteBuffer bb = ByteBuffer.wrap(header, 0, 44).asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
       return bb.getShort(22);
     }
     return 0;
   }
 
   public int getBitsPerSample() {
-    if (data != null && data.length >= 44) {
-      final ByteBuffer bb = ByteBuffer.wrap(data, 0, 44).asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    final byte[] header = getHeader();
+    if (header != null && header.length >= 44) {
+      final ByteBuffer bb = ByteBuffer.wrap(header, 0, 44).asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
       return bb.getShort(34);
     }
     return 0;
@@ -107,6 +191,42 @@ public int getBitsPerSample() {
    */
   protected abstract void convert(byte[] buffer, int offset, AudioOverride override) throws Exception;
 
+  /**
+   * Prepares the source audio data for streamed decoding. Only properties of the audio format should be evaluated
+   * by this method. Audio buffers supporting streamed decoding must override this method and
+   * {@link #createAudioStream(byte[], int, AudioOverride)}.
+   *
+   * @param buffer   Buffer containing source audio data.
+   * @param offset   Start offset into buffer.
+   * @param override An optional override object to force certain properties of the audio format.
+   * @return A PCM WAV header describing the decoded audio data, or {@code null} if streamed decoding is not
+   *         supported. In this case {@link #convert(byte[], int, AudioOverride)} is called instead.
+   * @throws Exception
+   */
+  protected byte[] initStream(byte[] buffer, int offset, AudioOverride override) throws Exception {
+    return null;
+  }
+
+  /**
+   * Creates a new audio stream which decodes the specified source audio data on demand.
+   *
+   * @param buffer   Buffer containing source audio data.
+   * @param offset   Start offset into buffer.
+   * @param override An optional override object to force certain properties of the audio format.
+   * @return An {@link AudioInputStream} providing uncompressed PCM audio data without WAV header, or {@code null} if
+   *         streamed decoding is not supported.
+   * @throws Exception
+   */
+  protected AudioInputStream createAudioStream(byte[] buffer, int offset, AudioOverride override) throws Exception {
+    return null;
+  }
+
+  /** Returns the PCM audio format of the decoded audio data. */
+  protected AudioFormat getAudioFormat() {
+    final int bitsPerSample = getBitsPerSample();
+    return new AudioFormat(getSampleRate(), bitsPerSample, getChannels(), bitsPerSample > 8, false);
+  }
+
   /**
    * Creates and returns a valid PCM WAV header structure.
    *
@@ -169,6 +289,46 @@ protected static byte[] createWAVHeader(int samplesPerChannel, int channels, int
     return bb.array();
   }
 
+  private void init(byte[] buffer, int offset, AudioOverride override, boolean streamed) throws Exception {
+    if (streamed) {
+      header = initStream(buffer, offset, override);
+    }
+
+    if (header != null) {
+      source = buffer;
+      sourceOffset = offset;
+      this.override = override;
+    } else {
+      convert(buffer, offset, override);
+    }
+  }
+
+  // Returns the buffer containing the WAV header
+  private byte[] getHeader() {
+    return (data != null) ? data : header;
+  }
+
+  // Decodes the whole audio stream into uncompressed PCM WAV data. Returns null if streamed decoding is not supported.
+  private byte[] decodeAudioData() throws Exception {
+    final ByteArrayOutputStream bos = new ByteArrayOutputStream(Math.max(8192, getBufferSize() * 4));
+    final AudioFormat format;
+    try (AudioInputStream ais = createAudioStream(source, sourceOffset, override)) {
+      if (ais == null) {
+        return null;
+      }
+      format = ais.getFormat();
+      StreamUtils.writeBytes(bos, ais);
+    }
+
+    final int samplesPerChannel = bos.size() / format.getFrameSize();
+    final byte[] wavHeader = createWAVHeader(samplesPerChannel, format.getChannels(), (int) format.getSampleRate(),
+        format.getSampleSizeInBits());
+    final byte[] output = new byte[wavHeader.length + samplesPerChannel * format.getFrameSize()];
+    System.arraycopy(wavHeader, 0, output, 0, wavHeader.length);
+    System.arraycopy(bos.toByteArray(), 0, output, wavHeader.length, output.length - wavHeader.length);
+    return output;
+  }
+
   // -------------------------- INNER CLASSES --------------------------
 
   /**
@@ -34,9 +34,21 @@ public static AudioBuffer getAudioBuffer(ResourceEntry entry) {
    * @return An AudioBuffer object, or null if resource format could not be determined.
    */
   public static AudioBuffer getAudioBuffer(ResourceEntry entry, AudioOverride override) {
+    return getAudioBuffer(entry, override, false);
+  }
+
+  /**
+   * Attempts to detect the resource format of the specified resource and returns a matching AudioBuffer object.
+   *
+   * @param entry    The audio resource to decode.
+   * @param override An optional AudioOverride object containing audio properties to override.
+   * @param streamed Whether audio data should be decoded on demand if supported by the audio format.
+   * @return An AudioBuffer object, or null if resource format could not be determined.
+   */
+  public static AudioBuffer getAudioBuffer(ResourceEntry entry, AudioOverride override, boolean streamed) {
     if (entry != null) {
       try {
-        return getAudioBuffer(StreamUtils.toArray(entry.getResourceBuffer()), 0, override);
+        return getAudioBuffer(StreamUtils.toArray(entry.getResourceBuffer()), 0, override, streamed);
       } catch (Exception e) {
         Logger.error(e);
         return null;
@@ -65,16 +77,29 @@ public static AudioBuffer getAudioBuffer(byte[] buffer, int offset) {
    * @return An AudioBuffer object, or null on error or if audio format could not be determined.
    */
   public static AudioBuffer getAudioBuffer(byte[] buffer, int offset, AudioOverride override) {
+    return getAudioBuffer(buffer, offset, override, false);
+  }
+
+  /**
+   * Attempts to detect the resource format of the specified data and returns a matching AudioBuffer object.
+   *
+   * @param buffer   A buffer containing unprocessed audio data.
+   * @param offset   Start offset of the audio data.
+   * @param override An optional AudioOverride object containing audio properties to override.
+   * @param streamed Whether audio data should be decoded on demand if supported by the audio format.
+   * @return An AudioBuffer object, or null on error or if audio format could not be determined.
+   */
+  public static AudioBuffer getAudioBuffer(byte[] buffer, int offset, AudioOverride override, boolean streamed) {
     try {
       switch (detectFormat(buffer, offset)) {
         case FMT_WAV:
           return new WavBuffer(buffer, offset, override);
         case FMT_ACM:
-          return new AcmBuffer(buffer, offset, override);
+          return new AcmBuffer(buffer, offset, override, streamed);
         case FMT_WAVC:
-          return new WavcBuffer(buffer, offset, override);
+          return new WavcBuffer(buffer, offset, override, streamed);
         case FMT_OGG:
-          return new OggBuffer(buffer, offset, override);
+          return new OggBuffer(buffer, offset, override, streamed);
         default:
           return null;
       }
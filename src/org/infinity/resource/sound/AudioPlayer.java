@@ -4,8 +4,6 @@
 
 package org.infinity.resource.sound;
 
-import java.io.ByteArrayInputStream;
-
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
@@ -54,13 +52,17 @@ public void playContinuous(AudioBuffer audioBuffer) throws Exception {
    * @throws Exception On error
    */
   private void play(AudioBuffer audioBuffer, boolean continuous) throws Exception {
-    if (audioBuffer == null || audioBuffer.getAudioData() == null) {
+    if (audioBuffer == null) {
       return;
     }
 
     setPlaying(true);
     setStopped(false);
-    try (AudioInputStream ais = AudioSystem.getAudioInputStream(new ByteArrayInputStream(audioBuffer.getAudioData()))) {
+    try (AudioInputStream ais = audioBuffer.getAudioInputStream()) {
+      if (ais == null) {
+        setStopped(true);
+        return;
+      }
       if (dataLine == null || !ais.getFormat().matches(audioFormat)) {
         audioFormat = ais.getFormat();
         DataLine.Info info = new DataLine.Info(SourceDataLine.class, audioFormat);
@@ -6,9 +6,15 @@
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
 
 import org.infinity.resource.key.ResourceEntry;
 import org.infinity.util.Logger;
+import org.infinity.util.io.StreamUtils;
 
 import com.jcraft.jogg.Packet;
 import com.jcraft.jogg.Page;
@@ -34,6 +40,10 @@ public OggBuffer(ResourceEntry entry, AudioOverride override) throws Exception {
     super(entry, override);
   }
 
+  public OggBuffer(ResourceEntry entry, AudioOverride override, boolean streamed) throws Exception {
+    super(entry, override, streamed);
+  }
+
   public OggBuffer(byte[] buffer, int offset) throws Exception {
     super(buffer, offset);
   }
@@ -42,6 +52,10 @@ public OggBuffer(byte[] buffer, int offset, AudioOverride override) throws Excep
     super(buffer, offset, override);
   }
 
+  public OggBuffer(byte[] buffer, int offset, AudioOverride override, boolean streamed) throws Exception {
+    super(buffer, offset, override, streamed);
+  }
+
   public Info getInfo() {
     return oggInfo;
   }
@@ -61,9 +75,35 @@ protected void convert(byte[] buffer, int offset, AudioOverride override) throws
     data = decodeOgg(buffer, offset);
   }
 
-  // --------------------- Begin Class AudioBuffer ---------------------
+  @Override
+  protected byte[] initStream(byte[] buffer, int offset, AudioOverride override) throws Exception {
+    if (buffer == null) {
+      throw new NullPointerException();
+    }
+    if (offset < 0 || offset >= buffer.length) {
+      throw new Exception("Invalid buffer offset");
+    }
+
+    // only the Vorbis headers are decoded
+    final OggDecoder decoder = new OggDecoder(buffer, offset);
+    if (!decoder.openStream()) {
+      throw new Exception("Input does not appear to be an Ogg bitstream.");
+    }
+    oggInfo = decoder.info;
+
+    // override object will be ignored
+    final long samplesPerChannel = Math.min(Math.max(getLastGranulePosition(buffer, offset), 1L), Integer.MAX_VALUE);
+    return createWAVHeader((int) samplesPerChannel, oggInfo.channels, oggInfo.rate, 16);
+  }
+
+  @Override
+  protected AudioInputStream createAudioStream(byte[] buffer, int offset, AudioOverride override) throws Exception {
+    // total length is only known after decoding the whole stream
+    return new AudioInputStream(new OggDecoder(buffer, offset), getAudioFormat(), AudioSystem.NOT_SPECIFIED);
+  }
+
+  // --------------------- End Class AudioBuffer ---------------------
 
-  // Ogg decode routine closely based on JOrbis' DecodeExample.java
   private byte[] decodeOgg(byte[] inBuf, int offset) throws Exception {
     if (inBuf == null) {
       throw new NullPointerException();
@@ -75,55 +115,116 @@ private byte[] decodeOgg(byte[] inBuf, int offset) throws Exception {
       throw new Exception("Input buffer too small");
     }
 
-    int convSize = 4096 * 2;
-    final byte[] convBuffer = new byte[convSize]; // take 8k out of the data segment, not the stack
+    final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (OggDecoder decoder = new OggDecoder(inBuf, offset)) {
+      StreamUtils.writeBytes(bos, decoder);
+      oggInfo = decoder.info;
+    }
+    if (oggInfo.channels < 1) {
+      throw new Exception("Input does not appear to be an Ogg bitstream.");
+    }
 
-    ByteArrayInputStream bis = new ByteArrayInputStream(inBuf, offset, inBuf.length - offset);
-    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    // create final output buffer
+    int samplesPerChannel = bos.size() / (oggInfo.channels * 2);
+    byte[] header = createWAVHeader(samplesPerChannel, oggInfo.channels, oggInfo.rate, 16);
+    byte[] output = new byte[header.length + bos.size()];
+    System.arraycopy(header, 0, output, 0, header.length);
+    System.arraycopy(bos.toByteArray(), 0, output, header.length, bos.size());
 
-    SyncState oy = new SyncState(); // sync and verify incoming physical bitstream
-    StreamState os = new StreamState(); // take physical pages, weld into a logical stream of packets
-    Page og = new Page(); // one Ogg bitstream page. Vorbis packets are inside
-    Packet op = new Packet(); // one raw packet of data for decode
+    return output;
+  }
 
-    oggInfo = new Info(); // struct that stores all the static vorbis bitstream settings
-    Comment vc = new Comment(); // struct that stores all the bitstream user comments
-    DspState vd = new DspState(); // central working state for the packet->PCM decoder
-    Block vb = new Block(vd); // local working space for packet->PCM decode
+  // Returns the granule position of the last Ogg page, which is the total number of samples per channel
+  private static long getLastGranulePosition(byte[] buffer, int offset) {
+    for (int ofs = buffer.length - 27; ofs >= offset; ofs--) {
+      if (buffer[ofs] == 'O' && buffer[ofs + 1] == 'g' && buffer[ofs + 2] == 'g' && buffer[ofs + 3] == 'S'
+          && buffer[ofs + 4] == 0) {
+        long retVal = 0L;
+        for (int i = 7; i >= 0; i--) {
+          retVal = (retVal << 8) | (buffer[ofs + 6 + i] & 0xff);
+        }
+        return retVal;
+      }
+    }
+    return 0L;
+  }
 
-    byte[] buffer;
-    int bytes = 0;
+  // -------------------------- INNER CLASSES --------------------------
+
+  /**
+   * Decodes Ogg Vorbis data into 16-bit PCM samples on demand. Decode routine closely based on JOrbis'
+   * DecodeExample.java.
+   */
+  private static class OggDecoder extends InputStream {
+    private final ByteArrayInputStream bis;
+    private final SyncState oy = new SyncState(); // sync and verify incoming physical bitstream
+    private final StreamState os = new StreamState(); // take physical pages, weld into a logical stream of packets
+    private final Page og = new Page(); // one Ogg bitstream page. Vorbis packets are inside
+    private final Packet op = new Packet(); // one raw packet of data for decode
+    private final Info info = new Info(); // struct that stores all the static vorbis bitstream settings
+    private final Comment vc = new Comment(); // struct that stores all the bitstream user comments
+    private final DspState vd = new DspState(); // central working state for the packet->PCM decoder
+    private final Block vb = new Block(vd); // local working space for packet->PCM decode
+    private final float[][][] pcmOut = new float[1][][];
+    private final byte[] convBuffer = new byte[4096 * 2]; // holds the most recently decoded PCM samples
+
+    private int[] pcmIndex;
+    private int convSize;
+    private int convPos;
+    private int convLength;
+    private boolean streamOpen; // whether a logical bitstream is being decoded
+    private boolean endOfStream; // whether the last page of the logical bitstream has been submitted
+    private boolean finished; // whether the whole physical bitstream has been decoded
+
+    private OggDecoder(byte[] inBuf, int offset) {
+      bis = new ByteArrayInputStream(inBuf, offset, inBuf.length - offset);
+      oy.init(); // Now we can read pages
+    }
 
-    // Decode setup
-    oy.init(); // Now we can read pages
+    @Override
+    public int read() throws IOException {
+      if (convPos >= convLength && !decodeBlock()) {
+        return -1;
+      }
+      return convBuffer[convPos++] & 0xff;
+    }
 
-    while (true) { // we repeat if the bitstream is chained
-      int eos = 0;
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (convPos >= convLength && !decodeBlock()) {
+        return -1;
+      }
+      final int count = Math.min(len, convLength - convPos);
+      System.arraycopy(convBuffer, convPos, b, off, count);
+      convPos += count;
+      return count;
+    }
 
+    @Override
+    public int available() throws IOException {
+      return convLength - convPos;
+    }
+
+    // Sets up the decoder for the next logical bitstream. Returns false if no more bitstreams are available.
+    private boolean openStream() throws IOException {
       // grab some data at the head of the stream. We want the first page
       // (which is guaranteed to be small and only contain the Vorbis
       // stream initial header) We need the first page to get the stream
       // serialno.
-
-      // submit a 4k block to libvorbis' Ogg layer
-      int index = oy.buffer(4096);
-      buffer = oy.data;
-      try {
-        bytes = bis.read(buffer, index, 4096);
-      } catch (Exception e) {
-        throw new Exception(e.getMessage());
-      }
-      oy.wrote(bytes);
+      int bytes = readData();
 
       // Get the first page.
       if (oy.pageout(og) != 1) {
         // have we simply run out of data? If so, we're done.
         if (bytes < 4096) {
-          break;
+          return false;
         }
 
         // error case. Must not be Vorbis data
-        throw new Exception("Input does not appear to be an Ogg bitstream.");
+        throw new IOException("Input does not appear to be an Ogg bitstream.");
       }
 
       // Get the serial number and set up the rest of decode.
@@ -132,39 +233,28 @@ private byte[] decodeOgg(byte[] inBuf, int offset) throws Exception {
 
       // extract the initial header from the first page and verify that the
       // Ogg bitstream is in fact Vorbis data
-
-      // I handle the initial header first instead of just having the code
-      // read all three Vorbis headers at once because reading the initial
-      // header is an easy way to identify a Vorbis bitstream and it's
-      // useful to see that functionality seperated out.
-
-      oggInfo.init();
+      info.init();
       vc.init();
       if (os.pagein(og) < 0) {
         // error; stream version mismatch perhaps
-        throw new Exception("Error reading first page of Ogg bitstream data.");
+        throw new IOException("Error reading first page of Ogg bitstream data.");
       }
 
       if (os.packetout(op) != 1) {
         // no page? must not be vorbis
-        throw new Exception("Error reading initial header packet.");
+        throw new IOException("Error reading initial header packet.");
       }
 
-      if (oggInfo.synthesis_headerin(vc, op) < 0) {
+      if (info.synthesis_headerin(vc, op) < 0) {
         // error case; not a vorbis header
-        throw new Exception("This Ogg bitstream does not contain Vorbis audio data.");
+        throw new IOException("This Ogg bitstream does not contain Vorbis audio data.");
       }
 
-      // At this point, we're sure we're Vorbis. We've set up the logical
-      // (Ogg) bitstream decoder. Get the comment and codebook headers and
-      // set up the Vorbis decoder
-
       // The next two packets in order are the comment and codebook headers.
-      // They're likely large and may span multiple pages. Thus we reead
-      // and submit data until we get our two pacakets, watching that no
+      // They're likely large and may span multiple pages. Thus we read
+      // and submit data until we get our two packets, watching that no
       // pages are missing. If a page is missing, error out; losing a
-      // header page is the only place where missing data is fatal. */
-
+      // header page is the only place where missing data is fatal.
       int i = 0;
       while (i < 2) {
         while (i < 2) {
@@ -175,12 +265,8 @@ private byte[] decodeOgg(byte[] inBuf, int offset) throws Exception {
 
           // Don't complain about missing or corrupt data yet.
           // We'll catch it at the packet output phase.
-
           if (result == 1) {
-            os.pagein(og); // we can ignore any errors here
-
-            // as they'll also become apparent
-            // at packetout
+            os.pagein(og); // we can ignore any errors here as they'll also become apparent at packetout
             while (i < 2) {
               result = os.packetout(op);
               if (result == 0) {
@@ -189,165 +275,125 @@ private byte[] decodeOgg(byte[] inBuf, int offset) throws Exception {
               if (result == -1) {
                 // Uh oh; data at some point was corrupted or missing!
                 // We can't tolerate that in a header. Die.
-                throw new Exception("Corrupt secondary header.");
+                throw new IOException("Corrupt secondary header.");
               }
-              oggInfo.synthesis_headerin(vc, op);
+              info.synthesis_headerin(vc, op);
               i++;
             }
           }
         }
 
         // no harm in not checking before adding more
-        index = oy.buffer(4096);
-        buffer = oy.data;
-        try {
-          bytes = bis.read(buffer, index, 4096);
-        } catch (Exception e) {
-          throw new Exception(e.getMessage());
-        }
-
+        bytes = readData();
         if (bytes == 0 && i < 2) {
-          throw new Exception("End of file before finding all Vorbis headers!");
+          throw new IOException("End of file before finding all Vorbis headers!");
         }
-        oy.wrote(bytes);
       }
 
-      // Throw the comments plus a few lines about the bitstream we're decoding
-      // {
-      // byte[][] ptr = vc.user_comments;
-      // for (int j = 0; j < ptr.length; j++) {
-      // if (ptr[j] == null)
-      // break;
-      // System.err.println(new String(ptr[j], 0, ptr[j].length-1));
-      // }
-      // System.err.println("\nBitstream is "+vi.channels+" channel, "+vi.rate+"Hz");
-      // System.err.println("Encoded by: "+new String(vc.vendor, 0, vc.vendor.length-1)+"\n");
-      // }
-
-      convSize = 4096 / oggInfo.channels;
+      convSize = 4096 / info.channels;
 
       // OK, got and parsed all three headers. Initialize the Vorbis packet->PCM decoder.
-      vd.synthesis_init(oggInfo); // central decode state
-      vb.init(vd); // local state for most of the decode, so multiple block decodes can proceed
-      // in parallel. We could init multiple vorbis_block structures for vd here
-
-      float[][][] _pcm = new float[1][][];
-      int[] _index = new int[oggInfo.channels];
-
-      // The rest is just a straight decode loop until end of stream
-      while (eos == 0) {
-        while (eos == 0) {
-
-          int result = oy.pageout(og);
-          if (result == 0) {
-            break;
-          }
+      vd.synthesis_init(info); // central decode state
+      vb.init(vd); // local state for most of the decode
+      pcmIndex = new int[info.channels];
+      streamOpen = true;
+      endOfStream = false;
+      return true;
+    }
 
-          if (result == -1) { // missing or corrupt data at this page position
-            Logger.warn("Corrupt or missing data in bitstream; continuing...");
-          } else {
-            os.pagein(og); // can safely ignore errors at this point
+    // Cleans up the current logical bitstream; it may be followed by another [chained] bitstream
+    private void closeStream() {
+      // ogg_page and ogg_packet structs always point to storage in libvorbis.
+      // They're never freed or manipulated directly
+      os.clear();
+      vb.clear();
+      vd.clear();
+      info.clear(); // must be called last
+      streamOpen = false;
+    }
 
-            while (true) {
-              result = os.packetout(op);
+    // Decodes the next chunk of PCM samples into the conversion buffer. Returns false if no more data is available.
+    private boolean decodeBlock() throws IOException {
+      while (!finished) {
+        if (!streamOpen && !openStream()) {
+          // OK, clean up the framer
+          oy.clear();
+          finished = true;
+          break;
+        }
 
-              if (result == 0) {
-                break;
+        // pcm is a multichannel float vector. In stereo, for example, pcm[0] is left, and pcm[1] is right.
+        // samples is the size of each channel. Convert the float values (-1.<=range<=1.) to whatever PCM format
+        // and write it out
+        final int samples = vd.synthesis_pcmout(pcmOut, pcmIndex);
+        if (samples > 0) {
+          final float[][] pcm = pcmOut[0];
+          final int bout = Math.min(samples, convSize);
+
+          // convert floats to 16 bit signed ints (host order) and interleave
+          for (int i = 0; i < info.channels; i++) {
+            int ptr = i * 2;
+            int mono = pcmIndex[i];
+            for (int j = 0; j < bout; j++) {
+              int val = (int) (pcm[i][mono + j] * 32767.0f);
+              // might as well guard against clipping
+              if (val > 32767) {
+                val = 32767;
               }
-
-              if (result == -1) { // missing or corrupt data at this page position
-                // no reason to complain; already complained above
-              } else {
-                // we have a packet. Decode it
-                int samples;
-                if (vb.synthesis(op) == 0) { // test for success!
-                  vd.synthesis_blockin(vb);
-                }
-
-                // **pcm is a multichannel float vector. In stereo, for
-                // example, pcm[0] is left, and pcm[1] is right. samples is
-                // the size of each channel. Convert the float values
-                // (-1.<=range<=1.) to whatever PCM format and write it out
-
-                while ((samples = vd.synthesis_pcmout(_pcm, _index)) > 0) {
-                  float[][] pcm = _pcm[0];
-                  int bout = Math.min(samples, convSize);
-
-                  // convert floats to 16 bit signed ints (host order) and interleave
-                  for (i = 0; i < oggInfo.channels; i++) {
-                    int ptr = i * 2;
-                    // int ptr = i;
-                    int mono = _index[i];
-                    for (int j = 0; j < bout; j++) {
-                      int val = (int) (pcm[i][mono + j] * 32767.0f);
-                      // short val = (short)(pcm[i][mono + j] * 32767.0f);
-                      // int val = (int)Math.round(pcm[i][mono + j] * 32767.0f);
-                      // might as well guard against clipping
-                      if (val > 32767) {
-                        val = 32767;
-                      }
-                      if (val < -32768) {
-                        val = -32768;
-                      }
-                      if (val < 0) {
-                        val = val | 0x8000;
-                      }
-                      convBuffer[ptr] = (byte) (val);
-                      convBuffer[ptr + 1] = (byte) (val >>> 8);
-                      ptr += 2 * oggInfo.channels;
-                    }
-                  }
-
-                  bos.write(convBuffer, 0, 2 * oggInfo.channels * bout);
-
-                  // tell libvorbis how
-                  // many samples we
-                  // actually consumed
-                  vd.synthesis_read(bout);
-                }
+              if (val < -32768) {
+                val = -32768;
               }
-            }
-            if (og.eos() != 0) {
-              eos = 1;
+              if (val < 0) {
+                val = val | 0x8000;
+              }
+              convBuffer[ptr] = (byte) (val);
+              convBuffer[ptr + 1] = (byte) (val >>> 8);
+              ptr += 2 * info.channels;
             }
           }
+
+          // tell libvorbis how many samples we actually consumed
+          vd.synthesis_read(bout);
+          convPos = 0;
+          convLength = 2 * info.channels * bout;
+          return true;
         }
 
-        if (eos == 0) {
-          index = oy.buffer(4096);
-          buffer = oy.data;
-          try {
-            bytes = bis.read(buffer, index, 4096);
-          } catch (Exception e) {
-            throw e;
+        int result = os.packetout(op);
+        if (result == 1) {
+          // we have a packet. Decode it
+          if (vb.synthesis(op) == 0) { // test for success!
+            vd.synthesis_blockin(vb);
           }
-          oy.wrote(bytes);
-          if (bytes == 0) {
-            eos = 1;
+        } else if (result == 0) {
+          if (endOfStream) {
+            closeStream();
+          } else {
+            result = oy.pageout(og);
+            if (result == 1) {
+              os.pagein(og); // can safely ignore errors at this point
+              endOfStream = (og.eos() != 0);
+            } else if (result == -1) { // missing or corrupt data at this page position
+              Logger.warn("Corrupt or missing data in bitstream; continuing...");
+            } else if (readData() == 0) {
+              endOfStream = true;
+            }
           }
         }
+        // result == -1: missing or corrupt data at this packet position; no reason to complain
       }
-
-      // clean up this logical bitstream; before exit we see if we're followed by another [chained]
-      os.clear();
-
-      // ogg_page and ogg_packet structs always point to storage in libvorbis.
-      // They're never freed or manipulated directly
-      vb.clear();
-      vd.clear();
-      oggInfo.clear(); // must be called last
+      return false;
     }
 
-    // OK, clean up the framer
-    oy.clear();
-
-    // create final output buffer
-    int samplesPerChannel = bos.size() / (oggInfo.channels * 2);
-    byte[] header = createWAVHeader(samplesPerChannel, oggInfo.channels, oggInfo.rate, 16);
-    byte[] output = new byte[header.length + bos.size()];
-    System.arraycopy(header, 0, output, 0, header.length);
-    System.arraycopy(bos.toByteArray(), 0, output, header.length, bos.size());
-
-    return output;
+    // Submits a 4k block of data to libvorbis' Ogg layer. Returns the number of bytes read.
+    private int readData() {
+      final int index = oy.buffer(4096);
+      final int bytes = bis.read(oy.data, index, 4096);
+      if (bytes > 0) {
+        oy.wrote(bytes);
+        return bytes;
+      }
+      return 0;
+    }
   }
 }
@@ -325,7 +325,7 @@ private boolean loadAudio() {
         if (entry.getExtension().equalsIgnoreCase("ACM")) {
           override = AudioBuffer.AudioOverride.overrideChannels(2);
         }
-        buffer = AudioFactory.getAudioBuffer(entry, override);
+        buffer = AudioFactory.getAudioBuffer(entry, override, true);
       }
       if (buffer != null && !isClosed()) {
         synchronized (this) {
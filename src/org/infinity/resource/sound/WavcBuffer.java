@@ -4,6 +4,8 @@
 
 package org.infinity.resource.sound;
 
+import javax.sound.sampled.AudioInputStream;
+
 import org.infinity.resource.key.ResourceEntry;
 import org.infinity.util.DynamicArray;
 
@@ -19,6 +21,10 @@ public WavcBuffer(ResourceEntry entry, AudioOverride override) throws Exception
     super(entry, override);
   }
 
+  public WavcBuffer(ResourceEntry entry, AudioOverride override, boolean streamed) throws Exception {
+    super(entry, override, streamed);
+  }
+
   public WavcBuffer(byte[] buffer, int offset) throws Exception {
     super(buffer, offset);
   }
@@ -27,10 +33,32 @@ public WavcBuffer(byte[] buffer, int offset, AudioOverride override) throws Exce
     super(buffer, offset, override);
   }
 
+  public WavcBuffer(byte[] buffer, int offset, AudioOverride override, boolean streamed) throws Exception {
+    super(buffer, offset, override, streamed);
+  }
+
   // --------------------- Begin Class AudioBuffer ---------------------
 
   @Override
   protected void convert(byte[] buffer, int offset, AudioOverride override) throws Exception {
+    // let AcmBuffer handle the remaining data
+    super.convert(buffer, offset + parseHeader(buffer, offset, override), override);
+  }
+
+  @Override
+  protected byte[] initStream(byte[] buffer, int offset, AudioOverride override) throws Exception {
+    return super.initStream(buffer, offset + parseHeader(buffer, offset, override), override);
+  }
+
+  @Override
+  protected AudioInputStream createAudioStream(byte[] buffer, int offset, AudioOverride override) throws Exception {
+    return super.createAudioStream(buffer, offset + parseHeader(buffer, offset, override), override);
+  }
+
+  // --------------------- End Class AudioBuffer ---------------------
+
+  // Parses the WAVC header and returns the relative offset of the ACM data
+  private int parseHeader(byte[] buffer, int offset, AudioOverride override) throws Exception {
     // parsing WAVC buffer
     if (!new String(buffer, 0, 4).equals("WAVC")) {
       throw new Exception("Invalid WAVC header");
@@ -69,9 +97,6 @@ protected void convert(byte[] buffer, int offset, AudioOverride override) throws
       }
     }
 
-    // let AcmBuffer handle the remaining data
-    super.convert(buffer, offset + acmOfs, override);
+    return acmOfs;
   }
-
-  // --------------------- Begin Class AudioBuffer ---------------------
 }
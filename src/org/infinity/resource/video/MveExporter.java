@@ -0,0 +1,254 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.resource.video;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.infinity.resource.key.ResourceEntry;
+import org.infinity.util.Logger;
+import org.infinity.util.Threading;
+import org.infinity.util.io.FileEx;
+import org.infinity.util.io.StreamUtils;
+import org.monte.media.AudioFormatKeys;
+import org.monte.media.Format;
+import org.monte.media.FormatKeys;
+import org.monte.media.VideoFormatKeys;
+import org.monte.media.avi.AVIWriter;
+import org.monte.media.math.Rational;
+
+/**
+ * Converts MVE resources into AVI files. The conversion does not depend on any GUI components and can be used for
+ * batch operations.
+ */
+public class MveExporter {
+  /** Receives progress notifications of a single MVE conversion. */
+  @FunctionalInterface
+  public interface ProgressListener {
+    /**
+     * Called after a frame has been written to the output file.
+     *
+     * @param frameIndex Index of the processed frame.
+     * @return {@code true} to continue the conversion, {@code false} to cancel it.
+     */
+    boolean frameProcessed(int frameIndex);
+  }
+
+  /**
+   * Converts the specified MVE resource into an AVI file.
+   *
+   * @param entry    The MVE resource.
+   * @param outFile  Path of the AVI file.
+   * @param listener Optional listener that is notified about the conversion progress. Can be {@code null}.
+   * @return {@code true} if the resource has been converted, {@code false} if the conversion has been cancelled by the
+   *         listener. The output file is removed in this case.
+   * @throws Exception if the conversion fails.
+   */
+  public static boolean convertAvi(ResourceEntry entry, Path outFile, ProgressListener listener) throws Exception {
+    if (entry == null || outFile == null) {
+      throw new NullPointerException();
+    }
+
+    Format videoFormat = new Format(FormatKeys.EncodingKey, VideoFormatKeys.ENCODING_AVI_MJPG, VideoFormatKeys.DepthKey,
+        24, VideoFormatKeys.QualityKey, 1.0f);
+    MveDecoder decoder = null;
+    AVIWriter writer = null;
+    boolean cancelled = false;
+    try {
+      decoder = new MveDecoder(entry);
+      decoder.setDefaultAudioOutput(new AudioQueue());
+
+      // prebuffering audio and searching for first video frame
+      LinkedList<byte[]> audioQueue = new LinkedList<>();
+      while (decoder.hasNextFrame()) {
+        decoder.processNextFrame();
+        if (!decoder.frameHasVideo()) {
+          if (decoder.frameHasAudio()) {
+            byte[] buffer = decoder.getAudioOutput(0).getNextData();
+            if (buffer != null) {
+              audioQueue.add(buffer);
+            }
+          }
+        } else {
+          break;
+        }
+      }
+
+      writer = new AVIWriter(outFile.toFile());
+
+      // initializing video track
+      int rate = 1000000;
+      int scale = decoder.getFrameDelay();
+      if (scale == 0) {
+        scale = 66728;
+      } // assuming default frame rate
+      final int[] prim = { 29, 23, 19, 17, 13, 11, 7, 5, 3, 2 };
+      boolean divisible;
+      do {
+        divisible = false;
+        for (int element : prim) {
+          if (rate % element == 0 && scale % element == 0) {
+            divisible = true;
+            rate /= element;
+            scale /= element;
+          }
+        }
+      } while (divisible);
+
+      int width = decoder.getVideoWidth();
+      int height = decoder.getVideoHeight();
+      decoder.setVideoOutput(new BasicVideoBuffer(1, width, height, false));
+      videoFormat = videoFormat.prepend(FormatKeys.MediaTypeKey, FormatKeys.MediaType.VIDEO, FormatKeys.FrameRateKey,
+          new Rational(rate, scale), VideoFormatKeys.WidthKey, width, VideoFormatKeys.HeightKey, height);
+      int trackVideo = writer.addTrack(videoFormat);
+
+      // initializing audio track
+      Format audioFormat = null;
+      int channels = decoder.getAudioFormat().getChannels();
+      int sampleRate = (int) decoder.getAudioFormat().getSampleRate();
+      int sampleBits = decoder.getAudioFormat().getSampleSizeInBits();
+      int frameSize = decoder.getAudioFormat().getFrameSize();
+      audioFormat = new Format(FormatKeys.EncodingKey, AudioFormatKeys.ENCODING_PCM_SIGNED, AudioFormatKeys.ByteOrderKey,
+          ByteOrder.LITTLE_ENDIAN, AudioFormatKeys.ChannelsKey, channels, AudioFormatKeys.SampleRateKey,
+          new Rational(sampleRate), AudioFormatKeys.SampleSizeInBitsKey, sampleBits, AudioFormatKeys.FrameSizeKey,
+          frameSize, AudioFormatKeys.SignedKey, true);
+      int trackAudio = writer.addTrack(audioFormat);
+
+      // default audio buffer for one frame
+      int bufferSize = (int) Math.ceil((double) (sampleRate) * (double) scale / rate) * frameSize;
+      byte[] defaultBuffer = new byte[bufferSize];
+
+      // writing prebuffered audio data first
+      while (!audioQueue.isEmpty()) {
+        byte[] buffer = audioQueue.pollFirst();
+        writer.writeSample(trackAudio, buffer, 0, buffer.length, true);
+      }
+
+      // writing regular frame data
+      int frameIdx = 0;
+      do {
+        if (decoder.frameHasVideo()) {
+          BufferedImage image = (BufferedImage) decoder.getVideoOutput().frontBuffer();
+          adjustColorSpace(image);
+          writer.write(trackVideo, image, 1);
+          image = null;
+        }
+
+        byte[] buffer = decoder.getAudioOutput(0).getNextData();
+        if (buffer == null) {
+          buffer = defaultBuffer;
+        }
+        writer.writeSample(trackAudio, buffer, 0, buffer.length, true);
+
+        if (listener != null && !listener.frameProcessed(frameIdx)) {
+          cancelled = true;
+          break;
+        }
+        frameIdx++;
+      } while (decoder.processNextFrame());
+    } finally {
+      if (decoder != null) {
+        decoder.close();
+        decoder = null;
+      }
+      if (writer != null) {
+        writer.close();
+        writer = null;
+      }
+    }
+
+    if (cancelled && FileEx.create(outFile).isFile()) {
+      try {
+        Files.delete(outFile);
+      } catch (IOException e) {
+        Logger.error(e);
+      }
+    }
+    return !cancelled;
+  }
+
+  /**
+   * Converts the specified MVE resources into AVI files. Resources are converted in parallel.
+   *
+   * @param entries   The MVE resources.
+   * @param outDir    Directory of the AVI files. Output files are named after the resources.
+   * @param overwrite Whether existing files should be overwritten. Resources are skipped otherwise.
+   * @return A map of the resources that could not be converted, with the respective cause of failure. An empty map is
+   *         returned if all resources have been converted successfully.
+   * @throws InterruptedException if the current thread was interrupted while waiting for the conversions to finish.
+   */
+  public static Map<ResourceEntry, Exception> convertAvi(Collection<? extends ResourceEntry> entries, Path outDir,
+      boolean overwrite) throws InterruptedException {
+    final Map<ResourceEntry, Exception> retVal = new LinkedHashMap<>();
+    if (entries == null || entries.isEmpty() || outDir == null) {
+      return retVal;
+    }
+
+    final List<ResourceEntry> entryList = new ArrayList<>(entries.size());
+    final List<Future<Boolean>> futureList = new ArrayList<>(entries.size());
+    try (final Threading threadPool = new Threading(Threading.Priority.HIGHEST, true)) {
+      for (final ResourceEntry entry : entries) {
+        final Path outFile = outDir.resolve(StreamUtils.replaceFileExtension(entry.getResourceName(), "avi"));
+        if (!overwrite && FileEx.create(outFile).exists()) {
+          continue;
+        }
+        entryList.add(entry);
+        futureList.add(threadPool.submit(() -> convertAvi(entry, outFile, null)));
+      }
+
+      for (int i = 0; i < futureList.size(); i++) {
+        try {
+          futureList.get(i).get();
+        } catch (ExecutionException e) {
+          final Throwable cause = e.getCause();
+          Logger.error(cause, "Error in resource: {}", entryList.get(i));
+          retVal.put(entryList.get(i), (cause instanceof Exception) ? (Exception) cause : e);
+        }
+      }
+    } catch (InterruptedException e) {
+      throw e;
+    } catch (Exception e) {
+      // thrown by Threading.close()
+      Logger.error(e);
+    }
+
+    return retVal;
+  }
+
+  /** Reduces color range from [0, 255] to [16, 235] to conform to CCIR-601 standard. */
+  private static void adjustColorSpace(BufferedImage image) {
+    if (image != null) {
+      if (image.getRaster().getDataBuffer().getDataType() == DataBuffer.TYPE_INT) {
+        // true color image
+        int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        for (int i = 0; i < data.length; i++) {
+          int b = data[i] & 0xff;
+          b = (16 + ((b * 220) >>> 8)) & 0xff;
+          int g = (data[i] >>> 8) & 0xff;
+          g = (16 + ((g * 220) >>> 8)) & 0xff;
+          int r = (data[i] >>> 16) & 0xff;
+          r = (16 + ((r * 220) >>> 8)) & 0xff;
+          data[i] = (data[i] & 0xff000000) | (r << 16) | (g << 8) | b;
+        }
+      }
+    }
+  }
+
+  private MveExporter() {
+  }
+}
@@ -4,14 +4,27 @@
 
 package org.infinity.resource.video;
 
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.SourceDataLine;
 
+import org.infinity.resource.graphics.ColorConvert;
 import org.infinity.util.Logger;
 
 public class MvePlayer {
-  private final AudioQueue audioQueue;
+  /** Max. number of decoded frames waiting to be displayed. */
+  private static final int DECODE_AHEAD_FRAMES = 8;
 
   private boolean playing;
   private boolean paused;
@@ -25,11 +38,11 @@ public MvePlayer() {
     paused = false;
     stopped = true;
     dataLine = null;
-    audioQueue = new AudioQueue();
   }
 
   public void play(ImageRenderer renderer, MveDecoder decoder) throws Exception {
-    if (renderer == null || renderer.bufferCount() <= 0 || decoder == null || !decoder.isOpen()) {
+    if (renderer == null || renderer.bufferCount() <= 0 || renderer.frontBuffer() == null || decoder == null
+        || !decoder.isOpen()) {
       return;
     }
 
@@ -37,103 +50,101 @@ public void play(ImageRenderer renderer, MveDecoder decoder) throws Exception {
     setStopped(false);
     setPaused(false);
 
-    // initializing
-    initAudio(decoder);
-    decoder.setDefaultAudioOutput(audioQueue);
-
-    // preloading frames
-    for (int i = 0; i < renderer.bufferCount() && decoder.hasNextFrame(); i++) {
-      if (decoder.processNextFrame()) {
-        // attached frame data contains current frame delay as Integer object
-        renderer.attachData(decoder.getFrameDelay());
-        if (decoder.audioInitialized()) {
-          initAudio(decoder);
+    final VideoBuffer videoOutput = decoder.getVideoOutput();
+    final DecodeWorker worker = new DecodeWorker(decoder, renderer.getBufferWidth(), renderer.getBufferHeight());
+    final ArrayDeque<byte[]> pendingAudio = new ArrayDeque<>();
+    try {
+      // initializing
+      initAudio(decoder.getAudioFormat());
+      dataLine.start();
+      boolean primeAudio = true;
+      setTimerDelay(0L);
+      worker.start();
+
+      while (isPlaying()) {
+        final FrameData frame = worker.nextFrame();
+        if (frame == null) {
+          // decoder has not caught up yet
+          continue;
+        }
+        if (frame == FrameData.END_OF_STREAM) {
+          break;
+        }
+        if (frame == FrameData.ERROR) {
+          throw new Exception("Error decoding video data", worker.getError());
         }
-      } else {
-        decoder.setDefaultAudioOutput(null);
-        stopPlay();
-        throw new Exception("Error decoding video data");
-      }
-    }
-
-    dataLine.start();
-    outputAudioFrame(true);
-    renderer.updateRenderer();
-    while (isPlaying() && decoder.hasNextFrame()) {
-      Object dataObj = renderer.fetchData();
-      if (dataObj instanceof Integer) {
-        setTimerDelay(((Integer) dataObj).longValue() * 1000L + timeRemaining());
-      } else {
-        // audio-only frames do not contain timing information
-        setTimerDelay(0L);
-      }
 
-      if (decoder.processNextFrame()) {
-        renderer.attachData(decoder.getFrameDelay());
         // has audio been re-initialized?
-        if (decoder.audioInitialized()) {
-          setTimerDelay(0L);
-          initAudio(decoder);
+        if (frame.audioFormat != null) {
+          flushAudio(pendingAudio);
+          initAudio(frame.audioFormat);
           dataLine.start();
-          outputAudioFrame(true);
-          // flushing video buffer chain
-          for (int i = 0; i < renderer.bufferCount(); i++) {
-            renderer.flipBuffers();
-          }
+          primeAudio = true;
         }
-      } else {
-        decoder.setDefaultAudioOutput(null);
-        stopPlay();
-        throw new Exception("Error decoding video data");
-      }
-
-      // skip audio-only frames
-      if (timeRemaining() == 0L) {
-        continue;
-      }
+        pendingAudio.addAll(frame.audioBlocks);
 
-      outputAudioFrame(false);
+        // audio-only frames do not contain timing information
+        if (frame.image == null) {
+          continue;
+        }
 
-      // has playback been paused?
-      if (isPaused()) {
-        dataLine.stop();
-        dataLine.flush();
-        while (isPlaying() && isPaused()) {
-          try {
-            Thread.sleep(1);
-          } catch (InterruptedException e) {
-            Logger.trace(e);
+        if (primeAudio) {
+          outputAudioFrame(pendingAudio);
+          primeAudio = false;
+        }
+        outputAudioFrame(pendingAudio);
+
+        // has playback been paused?
+        if (isPaused()) {
+          final long remaining = timeRemaining();
+          dataLine.stop();
+          while (isPlaying() && isPaused()) {
+            try {
+              Thread.sleep(1);
+            } catch (InterruptedException e) {
+              Logger.trace(e);
+            }
           }
+          dataLine.start();
+          setTimerDelay(remaining);
         }
-        dataLine.start();
+
+        // waiting for the next frame to be displayed
+        sleepUntil(0L);
+        setTimerDelay(frame.delay * 1000L);
         if (isPlaying()) {
-          // reloading last audio block
-          outputAudioFrame(true);
+          presentFrame(renderer, frame.image);
         }
-        continue;
+        worker.releaseImage(frame.image);
       }
 
-      // waiting for the next frame to be displayed
-      sleepUntil(5000000L);
-      renderer.updateRenderer();
-      audioQueue.skipNext();
-    }
+      if (isPlaying()) {
+        flushAudio(pendingAudio);
+      }
+    } finally {
+      worker.stop();
 
-    // cleanup decoder related objects
-    renderer.clearBuffers();
-    decoder.setDefaultAudioOutput(null);
-    audioQueue.clear();
+      // cleanup decoder related objects
+      renderer.clearBuffers();
+      decoder.setVideoOutput(videoOutput);
+      decoder.setDefaultAudioOutput(null);
 
-    // clean up audio
-    if (!isPlaying()) {
-      dataLine.drain();
-    }
-    dataLine.stop();
-    dataLine = null;
+      // clean up audio
+      if (dataLine != null) {
+        if (isPlaying()) {
+          dataLine.drain();
+        } else {
+          dataLine.flush();
+        }
+        dataLine.stop();
+        dataLine.close();
+        dataLine = null;
+      }
 
-    setPlaying(false);
-    setPaused(false);
-    setStopped(true);
+      setPlaying(false);
+      setPaused(false);
+      setStopped(true);
+    }
   }
 
   public void stopPlay() {
@@ -240,34 +251,233 @@ private void sleepUntil(long remaining) {
     }
   }
 
-  private void initAudio(MveDecoder decoder) throws Exception {
-    if (decoder != null) {
-      // closing old source data line
-      if (dataLine != null) {
-        dataLine.drain();
-        dataLine.stop();
-        dataLine = null;
+  private void initAudio(AudioFormat audioFormat) throws Exception {
+    // closing old source data line
+    if (dataLine != null) {
+      dataLine.drain();
+      dataLine.stop();
+      dataLine.close();
+      dataLine = null;
+    }
+
+    // initializing new source data line
+    try {
+      dataLine = AudioSystem.getSourceDataLine(audioFormat);
+    } catch (Exception e) {
+      Logger.error(e);
+      throw new Exception("Unsupported audio format");
+    }
+    dataLine.open(audioFormat, 16384);
+  }
+
+  // writes the next pending audio block to the audio line
+  private void outputAudioFrame(ArrayDeque<byte[]> pendingAudio) {
+    final byte[] audioBlock = pendingAudio.pollFirst();
+    if (audioBlock != null) {
+      dataLine.write(audioBlock, 0, audioBlock.length);
+    }
+  }
+
+  // writes all pending audio blocks to the audio line
+  private void flushAudio(ArrayDeque<byte[]> pendingAudio) {
+    while (isPlaying() && !pendingAudio.isEmpty()) {
+      outputAudioFrame(pendingAudio);
+    }
+    pendingAudio.clear();
+  }
+
+  // copies the specified image into the renderer and makes it visible
+  private static void presentFrame(ImageRenderer renderer, BufferedImage image) {
+    final Image dstImage = renderer.backBuffer();
+    final Graphics2D g = (Graphics2D) dstImage.getGraphics();
+    try {
+      g.drawImage(image, 0, 0, null);
+    } finally {
+      g.dispose();
+    }
+    // back buffer is the last buffer in the chain
+    for (int i = 1; i < renderer.bufferCount(); i++) {
+      renderer.flipBuffers();
+    }
+    renderer.updateRenderer();
+  }
+
+  // -------------------------- INNER CLASSES --------------------------
+
+  /** Stores the decoded content of a single MVE frame. */
+  private static class FrameData {
+    /** Signals that all frames have been decoded. */
+    public static final FrameData END_OF_STREAM = new FrameData(null, 0, null, Collections.emptyList());
+    /** Signals that the decoder failed. */
+    public static final FrameData ERROR = new FrameData(null, 0, null, Collections.emptyList());
+
+    /** Video frame, or {@code null} for audio-only frames. */
+    public final BufferedImage image;
+    /** Frame delay in microseconds. */
+    public final int delay;
+    /** New audio format if audio has been re-initialized by this frame, {@code null} otherwise. */
+    public final AudioFormat audioFormat;
+    /** Audio blocks decoded for this frame. */
+    public final List<byte[]> audioBlocks;
+
+    public FrameData(BufferedImage image, int delay, AudioFormat audioFormat, List<byte[]> audioBlocks) {
+      this.image = image;
+      this.delay = delay;
+      this.audioFormat = audioFormat;
+      this.audioBlocks = audioBlocks;
+    }
+  }
+
+  /**
+   * Decodes MVE frames on a separate thread ahead of playback. The number of decoded frames waiting to be displayed is
+   * limited by {@link #DECODE_AHEAD_FRAMES}.
+   */
+  private static class DecodeWorker implements VideoBuffer, Runnable {
+    private final MveDecoder decoder;
+    private final AudioQueue audioQueue;
+    private final BlockingQueue<FrameData> frames;
+    private final BlockingQueue<BufferedImage> imagePool;
+    private final Thread thread;
+
+    private BufferedImage currentImage;   // image the decoder renders into
+    private BufferedImage completedImage; // image of the last completed video frame
+    private volatile boolean running;
+    private volatile Exception error;
+
+    public DecodeWorker(MveDecoder decoder, int width, int height) {
+      this.decoder = decoder;
+      this.audioQueue = new AudioQueue();
+      this.frames = new ArrayBlockingQueue<>(DECODE_AHEAD_FRAMES);
+      // queued frames, the displayed frame, the completed frame and the decoder's working image
+      this.imagePool = new ArrayBlockingQueue<>(DECODE_AHEAD_FRAMES + 3);
+      for (int i = 0; i < DECODE_AHEAD_FRAMES + 3; i++) {
+        imagePool.add(ColorConvert.createCompatibleImage(width, height, false));
+      }
+      this.thread = new Thread(this, "MvePlayer-Decoder");
+      this.thread.setDaemon(true);
+    }
+
+    /** Starts decoding frames in the background. */
+    public void start() {
+      decoder.setVideoOutput(this);
+      decoder.setDefaultAudioOutput(audioQueue);
+      running = true;
+      thread.start();
+    }
+
+    /** Stops the decoder thread and waits for it to finish. */
+    public void stop() {
+      running = false;
+      thread.interrupt();
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        Logger.trace(e);
       }
-      audioQueue.clear();
+      frames.clear();
+    }
+
+    /**
+     * Returns the next decoded frame. Returns {@code null} if no frame became available within a short amount of
+     * time.
+     */
+    public FrameData nextFrame() {
+      try {
+        return frames.poll(50L, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Logger.trace(e);
+        return null;
+      }
+    }
+
+    /** Returns the image of a processed frame to the decoder. */
+    public void releaseImage(BufferedImage image) {
+      if (image != null) {
+        imagePool.offer(image);
+      }
+    }
+
+    /** Returns the exception that caused the decoder to fail. */
+    public Exception getError() {
+      return error;
+    }
 
-      // initializing new source data line
-      AudioFormat audioFormat = decoder.getAudioFormat();
+    @Override
+    public void run() {
+      FrameData marker = FrameData.END_OF_STREAM;
       try {
-        dataLine = AudioSystem.getSourceDataLine(audioFormat);
+        while (running && decoder.hasNextFrame()) {
+          if (currentImage == null) {
+            currentImage = imagePool.take();
+          }
+          if (!decoder.processNextFrame()) {
+            throw new Exception("Error decoding video data");
+          }
+
+          final AudioFormat audioFormat = decoder.audioInitialized() ? decoder.getAudioFormat() : null;
+          final List<byte[]> audioBlocks = new ArrayList<>(2);
+          for (byte[] block = audioQueue.getNextData(); block != null; block = audioQueue.getNextData()) {
+            audioBlocks.add(block);
+          }
+          final BufferedImage image = completedImage;
+          completedImage = null;
+          frames.put(new FrameData(image, decoder.getFrameDelay(), audioFormat, audioBlocks));
+        }
+      } catch (InterruptedException e) {
+        // playback has been stopped
+        return;
       } catch (Exception e) {
         Logger.error(e);
-        throw new Exception("Unsupported audio format");
+        error = e;
+        marker = FrameData.ERROR;
+      }
+
+      try {
+        while (running && !frames.offer(marker, 50L, TimeUnit.MILLISECONDS)) {
+          // waiting for playback to catch up
+        }
+      } catch (InterruptedException e) {
+        Logger.trace(e);
       }
-      dataLine.open(audioFormat, 16384);
     }
-  }
 
-  private void outputAudioFrame(boolean autoRemove) {
-    if (audioQueue.hasNext()) {
-      byte[] audioBlock = autoRemove ? audioQueue.getNextData() : audioQueue.peekNextData();
-      if (audioBlock != null) {
-        dataLine.write(audioBlock, 0, audioBlock.length);
+    // --------------------- Begin Interface VideoBuffer ---------------------
+
+    @Override
+    public Image frontBuffer() {
+      return completedImage;
+    }
+
+    @Override
+    public Image backBuffer() {
+      return currentImage;
+    }
+
+    @Override
+    public void flipBuffers() {
+      completedImage = currentImage;
+      currentImage = imagePool.poll();
+      if (currentImage == null) {
+        // should not happen: don't block the decoder in the middle of a frame
+        currentImage = ColorConvert.createCompatibleImage(completedImage.getWidth(), completedImage.getHeight(),
+            false);
       }
     }
+
+    @Override
+    public int bufferCount() {
+      return 1;
+    }
+
+    @Override
+    public void attachData(Object data) {
+    }
+
+    @Override
+    public Object fetchData() {
+      return null;
+    }
+
+    // --------------------- End Interface VideoBuffer ---------------------
   }
 }
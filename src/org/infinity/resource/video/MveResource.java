@@ -12,15 +12,8 @@
 import java.awt.event.ActionListener;
 import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
-import java.awt.image.BufferedImage;
-import java.awt.image.DataBuffer;
-import java.awt.image.DataBufferInt;
 import java.io.File;
-import java.io.IOException;
-import java.nio.ByteOrder;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.LinkedList;
 
 import javax.swing.BorderFactory;
 import javax.swing.BoxLayout;
@@ -50,13 +43,6 @@
 import org.infinity.resource.key.ResourceEntry;
 import org.infinity.search.ReferenceSearcher;
 import org.infinity.util.Logger;
-import org.infinity.util.io.FileEx;
-import org.monte.media.AudioFormatKeys;
-import org.monte.media.Format;
-import org.monte.media.FormatKeys;
-import org.monte.media.VideoFormatKeys;
-import org.monte.media.avi.AVIWriter;
-import org.monte.media.math.Rational;
 
 /**
  * This resource describes the movies played during the game. Movies can only be played by the engine when they are
@@ -341,150 +327,37 @@ public static boolean convertAvi(ResourceEntry inEntry, Path outFile, Window par
       }
       return false;
     }
-    Format videoFormat = new Format(FormatKeys.EncodingKey, VideoFormatKeys.ENCODING_AVI_MJPG, VideoFormatKeys.DepthKey,
-        24, VideoFormatKeys.QualityKey, 1.0f);
     try {
-      MveDecoder decoder = null;
-      ProgressMonitor pm = null;
-      AVIWriter writer = null;
-      try {
-        if (!silent) {
-          pm = new ProgressMonitor(parent, "Converting MVE to AVI...", "Initializing", 0, 2);
+      boolean success;
+      if (silent) {
+        success = MveExporter.convertAvi(inEntry, outFile, null);
+      } else {
+        final ProgressMonitor pm = new ProgressMonitor(parent, "Converting MVE to AVI...", "Initializing", 0, 2);
+        try {
           pm.setMillisToDecideToPopup(0);
           pm.setMillisToPopup(0);
-        }
-
-        decoder = new MveDecoder(inEntry);
-        decoder.setDefaultAudioOutput(new AudioQueue());
-
-        // prebuffering audio and searching for first video frame
-        LinkedList<byte[]> audioQueue = new LinkedList<>();
-        while (decoder.hasNextFrame()) {
-          decoder.processNextFrame();
-          if (!decoder.frameHasVideo()) {
-            if (decoder.frameHasAudio()) {
-              byte[] buffer = decoder.getAudioOutput(0).getNextData();
-              if (buffer != null) {
-                audioQueue.add(buffer);
-              }
+          success = MveExporter.convertAvi(inEntry, outFile, frameIdx -> {
+            if (frameIdx == 0) {
+              pm.setProgress(1);
             }
-          } else {
-            break;
-          }
-        }
-
-        writer = new AVIWriter(outFile.toFile());
-
-        // initializing video track
-        int rate = 1000000;
-        int scale = decoder.getFrameDelay();
-        if (scale == 0) {
-          scale = 66728;
-        } // assuming default frame rate
-        final int[] prim = { 29, 23, 19, 17, 13, 11, 7, 5, 3, 2 };
-        boolean divisible;
-        do {
-          divisible = false;
-          for (int element : prim) {
-            if (rate % element == 0 && scale % element == 0) {
-              divisible = true;
-              rate /= element;
-              scale /= element;
+            if (frameIdx % 10 == 0) {
+              pm.setNote(String.format("Processing frame %d", frameIdx));
             }
-          }
-        } while (divisible);
-
-        int width = decoder.getVideoWidth();
-        int height = decoder.getVideoHeight();
-        decoder.setVideoOutput(new BasicVideoBuffer(1, width, height, false));
-        videoFormat = videoFormat.prepend(FormatKeys.MediaTypeKey, FormatKeys.MediaType.VIDEO, FormatKeys.FrameRateKey,
-            new Rational(rate, scale), VideoFormatKeys.WidthKey, width, VideoFormatKeys.HeightKey, height);
-        int trackVideo = writer.addTrack(videoFormat);
-
-        // initializing audio track
-        Format audioFormat = null;
-        int channels = decoder.getAudioFormat().getChannels();
-        int sampleRate = (int) decoder.getAudioFormat().getSampleRate();
-        int sampleBits = decoder.getAudioFormat().getSampleSizeInBits();
-        int frameSize = decoder.getAudioFormat().getFrameSize();
-        audioFormat = new Format(FormatKeys.EncodingKey, AudioFormatKeys.ENCODING_PCM_SIGNED,
-            AudioFormatKeys.ByteOrderKey, ByteOrder.LITTLE_ENDIAN, AudioFormatKeys.ChannelsKey, channels,
-            AudioFormatKeys.SampleRateKey, new Rational(sampleRate), AudioFormatKeys.SampleSizeInBitsKey, sampleBits,
-            AudioFormatKeys.FrameSizeKey, frameSize, AudioFormatKeys.SignedKey, true);
-        int trackAudio = writer.addTrack(audioFormat);
-
-        // default audio buffer for one frame
-        int bufferSize = (int) Math.ceil((double) (sampleRate) * (double) scale / rate) * frameSize;
-        byte[] defaultBuffer = new byte[bufferSize];
-
-        if (!silent) {
-          pm.setProgress(1);
-        }
-        int frameIdx = 0;
-
-        // writing prebuffered audio data first
-        while (!audioQueue.isEmpty()) {
-          byte[] buffer = audioQueue.pollFirst();
-          writer.writeSample(trackAudio, buffer, 0, buffer.length, true);
-        }
-
-        // writing regular frame data
-        do {
-          if (!silent && frameIdx % 10 == 0) {
-            pm.setNote(String.format("Processing frame %d", frameIdx));
-          }
-
-          if (decoder.frameHasVideo()) {
-            BufferedImage image = (BufferedImage) decoder.getVideoOutput().frontBuffer();
-            adjustColorSpace(image);
-            writer.write(trackVideo, image, 1);
-            image = null;
-          }
-
-          byte[] buffer = decoder.getAudioOutput(0).getNextData();
-          if (buffer == null) {
-            buffer = defaultBuffer;
-          }
-          writer.writeSample(trackAudio, buffer, 0, buffer.length, true);
-
-          frameIdx++;
-
-          if (!silent && pm.isCanceled()) {
-            writer.close();
-            writer = null;
-            if (FileEx.create(outFile).isFile()) {
-              try {
-                Files.delete(outFile);
-              } catch (IOException e) {
-                Logger.error(e);
-              }
-            }
-            JOptionPane.showMessageDialog(parent, "Conversion has been cancelled.", "Information",
-                JOptionPane.INFORMATION_MESSAGE);
-            return true;
-          }
-        } while (decoder.processNextFrame());
-
-        if (!silent) {
+            return !pm.isCanceled();
+          });
           pm.setProgress(2);
-        }
-      } finally {
-        if (decoder != null) {
-          decoder.close();
-          decoder = null;
-        }
-        if (writer != null) {
-          writer.close();
-          writer = null;
-        }
-        if (pm != null) {
+        } finally {
           pm.close();
-          pm = null;
         }
       }
       if (!silent) {
-        JOptionPane.showMessageDialog(parent, "Resource has been converted successfully: " + inEntry, "Information",
-            JOptionPane.INFORMATION_MESSAGE);
+        if (success) {
+          JOptionPane.showMessageDialog(parent, "Resource has been converted successfully: " + inEntry, "Information",
+              JOptionPane.INFORMATION_MESSAGE);
+        } else {
+          JOptionPane.showMessageDialog(parent, "Conversion has been cancelled.", "Information",
+              JOptionPane.INFORMATION_MESSAGE);
+        }
       }
       return true;
     } catch (Exception e) {
@@ -496,23 +369,4 @@ AudioFormatKeys.SampleRateKey, new Rational(sampleRate), AudioFormatKeys.SampleS
     }
     return false;
   }
-
-  /** Reduces color range from [0, 255] to [16, 235] to conform to CCIR-601 standard. */
-  private static void adjustColorSpace(BufferedImage image) {
-    if (image != null) {
-      if (image.getRaster().getDataBuffer().getDataType() == DataBuffer.TYPE_INT) {
-        // true color image
-        int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
-        for (int i = 0; i < data.length; i++) {
-          int b = data[i] & 0xff;
-          b = (16 + ((b * 220) >>> 8)) & 0xff;
-          int g = (data[i] >>> 8) & 0xff;
-          g = (16 + ((g * 220) >>> 8)) & 0xff;
-          int r = (data[i] >>> 16) & 0xff;
-          r = (16 + ((r * 220) >>> 8)) & 0xff;
-          data[i] = (data[i] & 0xff000000) | (r << 16) | (g << 8) | b;
-        }
-      }
-    }
-  }
 }
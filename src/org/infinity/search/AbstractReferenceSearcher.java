@@ -42,6 +42,8 @@ abstract class AbstractReferenceSearcher extends AbstractSearcher implements Run
   private final ReferenceHitFrame hitFrame;
   /** Actual list of resources in which perform search. */
   private List<ResourceEntry> files;
+  /** Index of resource references, {@code null} if not available. */
+  private ReferenceIndex index;
 
   AbstractReferenceSearcher(ResourceEntry targetEntry, String[] filetypes, Component parent) {
     this(targetEntry, filetypes, setSelectedFileTypes(targetEntry, filetypes), parent);
@@ -105,8 +107,19 @@ public void actionPerformed(ActionEvent event) {
 
   @Override
   public void run() {
+    // skipping resources which are known not to contain matching references
+    List<ResourceEntry> candidates = files;
+    index = ReferenceIndex.getInstance();
+    if (index != null) {
+      candidates = index.filter(files, getIndexQuery());
+    }
+
     // executing multithreaded search
-    if (runSearch("Searching", files)) {
+    final boolean cancelled = runSearch("Searching", candidates);
+    if (index != null) {
+      index.saveIfModified();
+    }
+    if (cancelled) {
       hitFrame.close();
       return;
     }
@@ -118,11 +131,13 @@ public void run() {
   @Override
   protected Runnable newWorker(ResourceEntry entry) {
     return () -> {
-      final Resource resource = ResourceFactory.getResource(entry);
+      final Resource resource = ResourceFactory.getResourceReadOnly(entry);
       if (resource != null) {
         search(entry, resource);
+        if (index != null) {
+          index.update(entry, resource);
+        }
       }
-      advanceProgress();
     };
   }
 
@@ -157,6 +172,16 @@ synchronized void addHit(ResourceEntry entry, String line, int lineNr) {
    */
   abstract void search(ResourceEntry entry, Resource resource);
 
+  /**
+   * Returns a description of the searched objects which is used to skip resources by means of the
+   * {@link ReferenceIndex}. The query must match every resource for which {@link #search} may register a hit.
+   *
+   * @return {@link ReferenceIndex.Query} instance. Returns {@code null} to search all resources.
+   */
+  ReferenceIndex.Query getIndexQuery() {
+    return null;
+  }
+
   ResourceEntry getTargetEntry() {
     return targetEntry;
   }
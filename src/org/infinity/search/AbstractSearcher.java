@@ -6,12 +6,13 @@
 
 import java.awt.Component;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.swing.JOptionPane;
 import javax.swing.ProgressMonitor;
 
 import org.infinity.NearInfinity;
+import org.infinity.resource.bcs.CompiledScriptCache;
 import org.infinity.resource.key.ResourceEntry;
 import org.infinity.util.DebugTimer;
 import org.infinity.util.Logger;
@@ -93,11 +94,19 @@ protected boolean runSearch(String operation, List<ResourceEntry> entries) {
       updateProgressNote();
 
       boolean isCancelled = false;
-      try (final Threading threadPool = new Threading()) {
+      try (final Threading threadPool = new Threading(Threading.Priority.NORMAL, true)) {
+        // progress is advanced and cancellation request is evaluated whenever a work item has been completed
+        threadPool.setCompletionHandler(() -> {
+          advanceProgress(false);
+          if (isProgressCanceled()) {
+            threadPool.cancel();
+          }
+        });
+
         DebugTimer.getInstance().timerReset();
         int i = 0;
         for (final ResourceEntry entry : entries) {
-          if (progress.isCanceled()) {
+          if (threadPool.isCancelled() || isProgressCanceled()) {
             break;
           }
           if (entry == null) {
@@ -113,42 +122,34 @@ protected boolean runSearch(String operation, List<ResourceEntry> entries) {
             }
           }
 
-          // XXX: workaround for keeping progress dialog note in sync with actual progress
-          while (threadPool.hasQueuedSubmissions()) {
-            try {
-              Thread.sleep(0);
-            } catch (InterruptedException e) {
-              Logger.trace(e);
-            }
+          // blocks while too many work items are pending, which keeps the progress note in sync with actual progress
+          try {
+            threadPool.submit(newWorker(entry));
+          } catch (RejectedExecutionException e) {
+            Logger.trace(e);
+            break;
           }
-
-          threadPool.submit(newWorker(entry));
         }
 
-        // enforcing thread termination if process has been cancelled
-        if (isCancelled) {
-          threadPool.shutdownNow();
-        } else {
-          threadPool.shutdown();
+        if (isProgressCanceled()) {
+          threadPool.cancel();
         }
 
-        // waiting for pending threads to terminate
-        while (!threadPool.isTerminated()) {
-          if (!isCancelled && progress.isCanceled()) {
-            threadPool.shutdownNow();
-            isCancelled = true;
-          }
-          try {
-            threadPool.awaitTermination(10L, TimeUnit.MILLISECONDS);
-          } catch (InterruptedException e) {
-            Logger.trace(e);
-          }
+        // waiting for pending work items to complete
+        threadPool.shutdown();
+        try {
+          threadPool.awaitTermination();
+        } catch (InterruptedException e) {
+          Logger.trace(e);
+          threadPool.cancel();
         }
+        isCancelled = threadPool.isCancelled();
       } catch (Exception e) {
         Logger.trace(e);
       }
 
       Logger.info(DebugTimer.getInstance().getTimerFormatted(operation + " completed"));
+      CompiledScriptCache.saveIfModified();
 
       if (isCancelled) {
         JOptionPane.showMessageDialog(parent, operation + " cancelled", "Info", JOptionPane.INFORMATION_MESSAGE);
@@ -159,11 +160,6 @@ protected boolean runSearch(String operation, List<ResourceEntry> entries) {
     }
   }
 
-  /** Move progress along. */
-  protected final void advanceProgress() {
-    advanceProgress(false);
-  }
-
   /**
    * Move progress along.
    *
@@ -185,6 +181,11 @@ private synchronized void advanceProgress(boolean finished) {
     }
   }
 
+  /** Returns whether the search has been cancelled by the user. */
+  private synchronized boolean isProgressCanceled() {
+    return progress != null && progress.isCanceled();
+  }
+
   private void updateProgressNote() {
     progress.setNote(String.format(operationFormat, lastExt, progressIndex, progress.getMaximum()));
   }
@@ -282,7 +282,6 @@ protected Runnable newWorker(ResourceEntry entry) {
           }
         }
       }
-      advanceProgress();
     };
   }
 
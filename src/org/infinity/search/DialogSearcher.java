@@ -35,8 +35,7 @@
 import org.infinity.resource.Resource;
 import org.infinity.resource.ResourceFactory;
 import org.infinity.resource.StructEntry;
-import org.infinity.resource.bcs.Compiler;
-import org.infinity.resource.bcs.Decompiler;
+import org.infinity.resource.bcs.CompiledScriptCache;
 import org.infinity.resource.bcs.ScriptType;
 import org.infinity.resource.dlg.AbstractCode;
 import org.infinity.resource.dlg.Action;
@@ -184,13 +183,10 @@ protected Runnable newWorker(ResourceEntry entry) {
             try {
               final AbstractCode code = (AbstractCode) searchEntry;
               final ScriptType type = searchEntry instanceof Action ? ScriptType.ACTION : ScriptType.TRIGGER;
-              final Compiler compiler = new Compiler(code.getText(), type);
+              final CompiledScriptCache.Result result = CompiledScriptCache.get(code.getText(), type);
 
-              if (compiler.getErrors().isEmpty()) {
-                final Decompiler decompiler = new Decompiler(compiler.getCode(), type, false);
-                decompiler.setGenerateComments(false);
-                decompiler.setGenerateResourcesUsed(false);
-                s = decompiler.getSource();
+              if (!result.hasErrors()) {
+                s = result.getSource();
               } else {
                 synchronized (System.err) {
                   Logger.error("Error(s) compiling {} - {}", entry.toString(), searchEntry.getName());
@@ -209,7 +205,6 @@ protected Runnable newWorker(ResourceEntry entry) {
           }
         }
       }
-      advanceProgress();
     };
   }
 
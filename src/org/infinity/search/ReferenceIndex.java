@@ -0,0 +1,583 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.search;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.infinity.datatype.ProRef;
+import org.infinity.datatype.ResourceRef;
+import org.infinity.datatype.StringRef;
+import org.infinity.datatype.TextString;
+import org.infinity.gui.menu.BrowserMenuBar;
+import org.infinity.resource.AbstractStruct;
+import org.infinity.resource.Profile;
+import org.infinity.resource.Resource;
+import org.infinity.resource.ResourceFactory;
+import org.infinity.resource.StructEntry;
+import org.infinity.resource.bcs.BcsResource;
+import org.infinity.resource.bcs.CompiledScriptCache;
+import org.infinity.resource.bcs.Decompiler;
+import org.infinity.resource.bcs.ScriptType;
+import org.infinity.resource.dlg.AbstractCode;
+import org.infinity.resource.dlg.Action;
+import org.infinity.resource.key.ResourceEntry;
+import org.infinity.resource.sav.SavResource;
+import org.infinity.resource.text.PlainTextResource;
+import org.infinity.util.DebugTimer;
+import org.infinity.util.Logger;
+import org.infinity.util.io.FileEx;
+
+/**
+ * Persistent index of the names and string references used by game resources.
+ * <p>
+ * For every indexed resource the index stores the name tokens found in resource fields, scripts and text (e.g. resource
+ * names, script names and symbolic names) as well as the string references it contains. Reference searches use the
+ * index to skip resources which cannot contain the searched object, so that only the remaining candidates have to be
+ * loaded and searched in full. Index records are bound to size and modification time of the file that provides the
+ * resource. Resources which changed since they were indexed, as well as resource types which are not covered by the
+ * index, are always searched.
+ * </p>
+ * <p>
+ * The index is stored in the game-specific cache folder. It is updated incrementally by reference searches and by a
+ * background task which is started whenever a game is opened.
+ * </p>
+ */
+public final class ReferenceIndex {
+  /** File name of the index in the game-specific cache folder. */
+  public static final String FILE_NAME = "reference_index.bin";
+
+  /** Resource types which are indexed by the background task. */
+  public static final String[] FILE_TYPES = { "2DA", "ARE", "BCS", "BS", "CHR", "CHU", "CRE", "DLG", "EFF", "GAM",
+      "INI", "ITM", "LUA", "MENU", "PRO", "SAV", "SPL", "SRC", "STO", "TOH", "VEF", "VVC", "WED", "WMP" };
+
+  private static final int SIGNATURE = 0x4e495258; // "NIRX"
+  private static final int VERSION = 1;
+
+  private static ReferenceIndex instance;
+  private static IndexTask indexTask;
+
+  // Resource key => indexed content
+  private final ConcurrentHashMap<String, Record> records = new ConcurrentHashMap<>();
+  private final Path file;
+  // Combined state of all resources the index content depends on (e.g. IDS files used by the script decompiler)
+  private final long environment;
+
+  private volatile boolean modified;
+
+  /** Returns whether the reference index is enabled in the preferences. */
+  public static boolean isEnabled() {
+    return BrowserMenuBar.isInstantiated() && BrowserMenuBar.getInstance().getOptions().useReferenceIndex();
+  }
+
+  /**
+   * Returns the reference index of the currently open game. The index is loaded from the cache folder on first access.
+   *
+   * @return {@code ReferenceIndex} instance. Returns {@code null} if the index is disabled or no game is open.
+   */
+  public static synchronized ReferenceIndex getInstance() {
+    if (!isEnabled()) {
+      return null;
+    }
+    if (instance == null) {
+      final Path folder = Profile.getCacheFolder();
+      if (folder != null) {
+        instance = load(folder.resolve(FILE_NAME));
+      }
+    }
+    return instance;
+  }
+
+  /** Stops the background task, writes pending changes to disk and discards the index of the current game. */
+  public static synchronized void clearCache() {
+    if (indexTask != null) {
+      indexTask.cancel();
+      indexTask = null;
+    }
+    if (instance != null) {
+      instance.saveIfModified();
+      instance = null;
+    }
+  }
+
+  /** Discards the current index and starts updating the index of the currently open game in the background. */
+  public static synchronized void reset() {
+    clearCache();
+    final ReferenceIndex index = getInstance();
+    if (index != null) {
+      indexTask = new IndexTask(index);
+      final Thread thread = new Thread(indexTask, "ReferenceIndex-Updater");
+      thread.setDaemon(true);
+      thread.setPriority(Thread.MIN_PRIORITY);
+      thread.start();
+    }
+  }
+
+  private static ReferenceIndex load(Path file) {
+    final ReferenceIndex index = new ReferenceIndex(file, getEnvironment());
+    if (!FileEx.create(file).isFile()) {
+      return index;
+    }
+
+    try (DataInputStream dis = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (dis.readInt() != SIGNATURE || dis.readInt() != VERSION || dis.readLong() != index.environment) {
+        Logger.debug("Reference index is outdated: {}", file);
+        index.modified = true;
+        return index;
+      }
+
+      final int count = dis.readInt();
+      for (int i = 0; i < count; i++) {
+        final String key = dis.readUTF();
+        final long size = dis.readLong();
+        final long lastModified = dis.readLong();
+        String[] tokens = null;
+        int[] strrefs = null;
+        final int numTokens = dis.readInt();
+        if (numTokens >= 0) {
+          tokens = new String[numTokens];
+          for (int j = 0; j < numTokens; j++) {
+            tokens[j] = dis.readUTF();
+          }
+          strrefs = new int[dis.readInt()];
+          for (int j = 0; j < strrefs.length; j++) {
+            strrefs[j] = dis.readInt();
+          }
+        }
+        index.records.put(key, new Record(size, lastModified, tokens, strrefs));
+      }
+    } catch (IOException e) {
+      Logger.warn(e, "Could not load reference index");
+      index.records.clear();
+      index.modified = true;
+    }
+    return index;
+  }
+
+  // Returns a hash value of the state of all IDS resources, which affect the output of the script decompiler
+  private static long getEnvironment() {
+    long retVal = VERSION;
+    for (final ResourceEntry entry : ResourceFactory.getResources("IDS")) {
+      final Record stamp = createStamp(entry);
+      retVal = retVal * 31L + entry.getResourceName().hashCode();
+      if (stamp != null) {
+        retVal = (retVal * 31L + stamp.size) * 31L + stamp.lastModified;
+      }
+    }
+    return retVal;
+  }
+
+  private ReferenceIndex(Path file, long environment) {
+    this.file = file;
+    this.environment = environment;
+  }
+
+  /** Returns the number of indexed resources. */
+  public int size() {
+    return records.size();
+  }
+
+  /**
+   * Returns all resources of the specified list which may contain references matching the query. Resources which are
+   * not indexed or have been modified since they were indexed are always included.
+   *
+   * @param entries List of resources to filter.
+   * @param query   The {@link Query} to match.
+   * @return List of candidate resources in the original order.
+   */
+  public List<ResourceEntry> filter(List<ResourceEntry> entries, Query query) {
+    if (entries == null || query == null || query.isUnrestricted()) {
+      return entries;
+    }
+
+    final List<ResourceEntry> retVal = new ArrayList<>();
+    for (final ResourceEntry entry : entries) {
+      final Record record = getCurrentRecord(entry);
+      if (record == null || query.matches(record)) {
+        retVal.add(entry);
+      }
+    }
+    return retVal;
+  }
+
+  /** Returns {@code true} if the specified resource is indexed and hasn't been modified since. */
+  public boolean isCurrent(ResourceEntry entry) {
+    return getCurrentRecord(entry) != null;
+  }
+
+  /**
+   * Indexes the content of the specified resource if it is not yet indexed or if it has been modified since.
+   *
+   * @param entry    The resource entry.
+   * @param resource The loaded resource of {@code entry}.
+   */
+  public void update(ResourceEntry entry, Resource resource) {
+    if (entry == null || resource == null || isCurrent(entry)) {
+      return;
+    }
+
+    final Record stamp = createStamp(entry);
+    if (stamp != null) {
+      final Record record = new Collector().collect(resource, stamp);
+      records.put(getKey(entry), record);
+      modified = true;
+    }
+  }
+
+  /** Writes the index to the cache folder if it has been modified since it was loaded or saved. */
+  public void saveIfModified() {
+    if (modified) {
+      try {
+        save();
+      } catch (IOException e) {
+        Logger.warn(e, "Could not save reference index");
+      }
+    }
+  }
+
+  /** Writes the index to the cache folder. */
+  public synchronized void save() throws IOException {
+    modified = false;
+    Files.createDirectories(file.getParent());
+    final Path tmpFile = file.resolveSibling(FILE_NAME + ".tmp");
+    try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+      dos.writeInt(SIGNATURE);
+      dos.writeInt(VERSION);
+      dos.writeLong(environment);
+
+      final List<Map.Entry<String, Record>> list = new ArrayList<>(records.entrySet());
+      dos.writeInt(list.size());
+      for (final Map.Entry<String, Record> e : list) {
+        final Record record = e.getValue();
+        dos.writeUTF(e.getKey());
+        dos.writeLong(record.size);
+        dos.writeLong(record.lastModified);
+        if (record.tokens != null) {
+          dos.writeInt(record.tokens.length);
+          for (final String token : record.tokens) {
+            dos.writeUTF(token);
+          }
+          dos.writeInt(record.strrefs.length);
+          for (final int strref : record.strrefs) {
+            dos.writeInt(strref);
+          }
+        } else {
+          dos.writeInt(-1);
+        }
+      }
+    } catch (IOException e) {
+      modified = true;
+      throw e;
+    }
+    Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  // Removes records of resources which are no longer available
+  private void retain(Set<String> keys) {
+    if (records.keySet().retainAll(keys)) {
+      modified = true;
+    }
+  }
+
+  // Returns the record of the specified resource if it is still up-to-date, null otherwise
+  private Record getCurrentRecord(ResourceEntry entry) {
+    final Record record = (entry != null) ? records.get(getKey(entry)) : null;
+    if (record != null) {
+      final Record stamp = createStamp(entry);
+      if (stamp != null && stamp.size == record.size && stamp.lastModified == record.lastModified) {
+        return record;
+      }
+    }
+    return null;
+  }
+
+  // Resources with the same name may be provided by different files
+  private static String getKey(ResourceEntry entry) {
+    final Path path = entry.getActualPath();
+    return entry.getResourceName().toUpperCase(Locale.ENGLISH) + '|' + path;
+  }
+
+  // Returns size and modification time of the file that provides the resource, null if unavailable
+  private static Record createStamp(ResourceEntry entry) {
+    final Path path = entry.getActualPath();
+    if (path != null) {
+      try {
+        return new Record(Files.size(path), Files.getLastModifiedTime(path).toMillis(), null, null);
+      } catch (IOException e) {
+        Logger.trace(e);
+      }
+    }
+    return null;
+  }
+
+  // Adds all word tokens (sequences of letters, digits and underscores) of the string in upper case
+  private static void addTokens(Set<String> tokens, String text) {
+    if (text == null) {
+      return;
+    }
+    int start = -1;
+    for (int i = 0, len = text.length(); i <= len; i++) {
+      if (i < len && isWordChar(text.charAt(i))) {
+        if (start < 0) {
+          start = i;
+        }
+      } else if (start >= 0) {
+        tokens.add(text.substring(start, i).toUpperCase(Locale.ENGLISH));
+        start = -1;
+      }
+    }
+  }
+
+  private static boolean isWordChar(char ch) {
+    return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9') || ch == '_';
+  }
+
+  // -------------------------- INNER CLASSES --------------------------
+
+  /**
+   * Describes the objects a reference search is looking for. A resource matches if it contains at least one of the
+   * names or string references of the query.
+   */
+  public static final class Query {
+    // Word tokens of the names; a name matches if all of its tokens are present
+    private final List<String[]> names = new ArrayList<>();
+    private final Set<Integer> strrefs = new HashSet<>();
+    private boolean unrestricted;
+
+    /** Returns a query which matches resources that refer to at least one of the specified names. */
+    public static Query forNames(String... names) {
+      final Query query = new Query();
+      for (final String name : names) {
+        query.addName(name);
+      }
+      return query;
+    }
+
+    /** Returns a query which matches resources that refer to the specified string reference. */
+    public static Query forStringRef(int strref) {
+      final Query query = new Query();
+      query.strrefs.add(strref);
+      return query;
+    }
+
+    private Query() {
+    }
+
+    /**
+     * Adds a name to the query. Empty names are ignored. Names without any word characters disable filtering. Case is
+     * ignored.
+     */
+    public Query addName(String name) {
+      if (name != null && !name.trim().isEmpty()) {
+        final Set<String> tokens = new TreeSet<>();
+        addTokens(tokens, name);
+        if (tokens.isEmpty()) {
+          unrestricted = true;
+        } else {
+          names.add(tokens.toArray(new String[0]));
+        }
+      }
+      return this;
+    }
+
+    private boolean isUnrestricted() {
+      return unrestricted || (names.isEmpty() && strrefs.isEmpty());
+    }
+
+    private boolean matches(Record record) {
+      if (record.tokens == null) {
+        // resource type is not covered by the index
+        return true;
+      }
+
+      for (final String[] nameTokens : names) {
+        boolean match = true;
+        for (final String token : nameTokens) {
+          if (Arrays.binarySearch(record.tokens, token) < 0) {
+            match = false;
+            break;
+          }
+        }
+        if (match) {
+          return true;
+        }
+      }
+
+      for (final int strref : strrefs) {
+        if (Arrays.binarySearch(record.strrefs, strref) >= 0) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /** Indexed content of a single resource. */
+  private static class Record {
+    private final long size;
+    private final long lastModified;
+    // Sorted word tokens, null if the resource type is not indexed
+    private final String[] tokens;
+    // Sorted string references
+    private final int[] strrefs;
+
+    public Record(long size, long lastModified, String[] tokens, int[] strrefs) {
+      this.size = size;
+      this.lastModified = lastModified;
+      this.tokens = tokens;
+      this.strrefs = strrefs;
+    }
+  }
+
+  /** Gathers the name tokens and string references of a resource. */
+  private static class Collector {
+    private final Set<String> tokens = new HashSet<>();
+    private final Set<Integer> strrefs = new HashSet<>();
+
+    public Record collect(Resource resource, Record stamp) {
+      if (resource instanceof SavResource) {
+        for (final ResourceEntry saventry : ((SavResource) resource).getFileHandler().getFileEntries()) {
+          final Resource res = ResourceFactory.getResourceReadOnly(saventry);
+          if (res instanceof AbstractStruct) {
+            collectStruct((AbstractStruct) res);
+          }
+        }
+      } else if (resource instanceof PlainTextResource) {
+        collectText(((PlainTextResource) resource).getText());
+      } else if (resource instanceof AbstractStruct) {
+        collectStruct((AbstractStruct) resource);
+      } else if (resource instanceof BcsResource) {
+        collectScript(((BcsResource) resource).getCode());
+      } else {
+        return stamp;
+      }
+
+      final String[] tokenArray = tokens.toArray(new String[0]);
+      Arrays.sort(tokenArray);
+      final int[] strrefArray = strrefs.stream().mapToInt(Integer::intValue).sorted().toArray();
+      return new Record(stamp.size, stamp.lastModified, tokenArray, strrefArray);
+    }
+
+    private void collectStruct(AbstractStruct struct) {
+      for (final StructEntry o : struct.getFields()) {
+        if (o instanceof ResourceRef) {
+          addTokens(tokens, ((ResourceRef) o).getResourceName());
+        } else if (o instanceof ProRef) {
+          final ResourceEntry entry = ((ProRef) o).getSelectedEntry();
+          if (entry != null) {
+            addTokens(tokens, entry.getResourceName());
+          }
+        } else if (o instanceof TextString) {
+          addTokens(tokens, ((TextString) o).getText());
+        } else if (o instanceof StringRef) {
+          strrefs.add(((StringRef) o).getValue());
+        } else if (o instanceof AbstractCode) {
+          final AbstractCode sourceCode = (AbstractCode) o;
+          addTokens(tokens, sourceCode.getText());
+          try {
+            final ScriptType type = sourceCode instanceof Action ? ScriptType.ACTION : ScriptType.TRIGGER;
+            final CompiledScriptCache.Result result = CompiledScriptCache.get(sourceCode.getText(), type);
+            if (!result.hasErrors()) {
+              addTokens(tokens, result.getSource());
+              strrefs.addAll(result.getStringRefsUsed());
+            }
+          } catch (Exception e) {
+            Logger.trace(e);
+          }
+        } else if (o instanceof AbstractStruct) {
+          collectStruct((AbstractStruct) o);
+        }
+      }
+    }
+
+    private void collectScript(String code) {
+      final Decompiler decompiler = new Decompiler(code, true);
+      decompiler.setGenerateComments(false);
+      decompiler.setGenerateResourcesUsed(true);
+      try {
+        addTokens(tokens, decompiler.decompile());
+        strrefs.addAll(decompiler.getStringRefsUsed());
+      } catch (Exception e) {
+        Logger.trace(e);
+      }
+    }
+
+    private void collectText(String text) {
+      final Set<String> textTokens = new HashSet<>();
+      addTokens(textTokens, text);
+      for (final String token : textTokens) {
+        // numeric tokens may be string references
+        if (token.length() <= 10 && token.chars().allMatch(Character::isDigit)) {
+          final long value = Long.parseLong(token);
+          if (value <= Integer.MAX_VALUE) {
+            strrefs.add((int) value);
+          }
+        }
+      }
+      tokens.addAll(textTokens);
+    }
+  }
+
+  /** Indexes all resources of the supported types which are not yet indexed or have been modified. */
+  private static class IndexTask implements Runnable {
+    private final ReferenceIndex index;
+
+    private volatile boolean cancelled;
+
+    public IndexTask(ReferenceIndex index) {
+      this.index = index;
+    }
+
+    public void cancel() {
+      cancelled = true;
+    }
+
+    @Override
+    public void run() {
+      final DebugTimer timer = new DebugTimer();
+      final Set<String> keys = new HashSet<>();
+      int updated = 0;
+      try {
+        for (final String type : FILE_TYPES) {
+          for (final ResourceEntry entry : ResourceFactory.getResources(type)) {
+            if (cancelled) {
+              return;
+            }
+            keys.add(getKey(entry));
+            if (!index.isCurrent(entry)) {
+              try {
+                index.update(entry, ResourceFactory.getResourceReadOnly(entry));
+                updated++;
+              } catch (Exception e) {
+                Logger.trace(e);
+              }
+            }
+          }
+        }
+        index.retain(keys);
+        index.saveIfModified();
+        Logger.debug(timer.getTimerFormatted("Reference index: " + updated + " of " + index.size()
+            + " resources updated"));
+      } catch (Exception e) {
+        Logger.warn(e, "Could not update reference index");
+      }
+    }
+  }
+}
@@ -19,10 +19,12 @@
 import org.infinity.resource.Resource;
 import org.infinity.resource.ResourceFactory;
 import org.infinity.resource.StructEntry;
+import org.infinity.resource.bcs.BcsReferenceReader;
 import org.infinity.resource.bcs.BcsResource;
-import org.infinity.resource.bcs.Compiler;
+import org.infinity.resource.bcs.CompiledScriptCache;
 import org.infinity.resource.bcs.Decompiler;
 import org.infinity.resource.bcs.ScriptType;
+import org.infinity.resource.bcs.Signatures;
 import org.infinity.resource.cre.CreResource;
 import org.infinity.resource.dlg.AbstractCode;
 import org.infinity.resource.dlg.Action;
@@ -84,6 +86,19 @@ protected void search(ResourceEntry entry, Resource resource) {
     }
   }
 
+  @Override
+  ReferenceIndex.Query getIndexQuery() {
+    if (targetEntry == null) {
+      return null;
+    }
+    final String name = targetEntry.getResourceRef();
+    final ReferenceIndex.Query query = ReferenceIndex.Query.forNames(name, "AP_" + name, "GA_" + name, creDeathVar);
+    if (targetEntry.getExtension().equalsIgnoreCase("SPL")) {
+      query.addName(org.infinity.resource.spl.Viewer.getSymbolicName(targetEntry, false));
+    }
+    return query;
+  }
+
   private void searchDialog(ResourceEntry entry, AbstractStruct dialog) {
     final String targetName = targetEntry.getResourceName();
     for (final StructEntry o : dialog.getFields()) {
@@ -93,13 +108,9 @@ private void searchDialog(ResourceEntry entry, AbstractStruct dialog) {
         final AbstractCode sourceCode = (AbstractCode) o;
         try {
           final ScriptType type = sourceCode instanceof Action ? ScriptType.ACTION : ScriptType.TRIGGER;
-          final Compiler compiler = new Compiler(sourceCode.getText(), type);
-          String code = compiler.getCode();
-          if (compiler.getErrors().isEmpty()) {
-            final Decompiler decompiler = new Decompiler(code, type, true);
-            decompiler.setGenerateComments(false);
-            decompiler.setGenerateResourcesUsed(true);
-            code = decompiler.decompile();
+          final CompiledScriptCache.Result result = CompiledScriptCache.get(sourceCode.getText(), type);
+          final String code = result.getSource();
+          if (!result.hasErrors() && code != null) {
 
             // resref match
             Pattern regName = Pattern.compile("\"" + Pattern.quote(targetEntry.getResourceRef()) + "\"",
@@ -119,7 +130,7 @@ private void searchDialog(ResourceEntry entry, AbstractStruct dialog) {
               }
             }
 
-            if (decompiler.getResourcesUsed().contains(targetEntry) && regName.matcher(code).find()) {
+            if (result.getResourcesUsed().contains(targetEntry) && regName.matcher(code).find()) {
               addHit(entry, entry.getSearchString(), sourceCode);
             } else if (regVar != null && regVar.matcher(code).find()) {
               addHit(entry, creDeathVar, sourceCode);
@@ -158,6 +169,11 @@ private void searchSave(ResourceEntry entry, SavResource savfile) {
   }
 
   private void searchScript(ResourceEntry entry, BcsResource bcsfile) {
+    // only scripts which may contain a match have to be decompiled for the matching lines
+    if (!isScriptCandidate(bcsfile.getCode())) {
+      return;
+    }
+
     Decompiler decompiler = new Decompiler(bcsfile.getCode(), true);
     decompiler.setGenerateComments(false);
     decompiler.setGenerateResourcesUsed(true);
@@ -197,6 +213,61 @@ private void searchScript(ResourceEntry entry, BcsResource bcsfile) {
     }
   }
 
+  /**
+   * Returns whether the specified script code references the target resource, the script name of the target creature
+   * or the symbolic name of the target spell. Returns {@code true} if the code could not be read.
+   */
+  private boolean isScriptCandidate(String code) {
+    final String varName;
+    if (creDeathVar != null && !creDeathVar.equalsIgnoreCase(targetEntry.getResourceRef())) {
+      varName = creDeathVar.toLowerCase(Locale.ENGLISH);
+    } else {
+      varName = null;
+    }
+    Pattern symbolPattern = null;
+    if (targetEntry.getExtension().equalsIgnoreCase("SPL")) {
+      final String symbol = org.infinity.resource.spl.Viewer.getSymbolicName(targetEntry, false);
+      if (symbol != null && !symbol.isEmpty()) {
+        symbolPattern = Pattern.compile("\\b" + Pattern.quote(symbol) + "\\b");
+      }
+    }
+    final Pattern regSymbol = symbolPattern;
+
+    final boolean[] found = { false };
+    final BcsReferenceReader reader = new BcsReferenceReader(new BcsReferenceReader.Listener() {
+      @Override
+      public void function(Signatures.Function function) {
+        found[0] |= regSymbol != null && regSymbol.matcher(function.getName()).find();
+      }
+
+      @Override
+      public void resource(ResourceEntry entry) {
+        found[0] |= targetEntry.equals(entry);
+      }
+
+      @Override
+      public void idsValue(String idsName, long value, String symbol) {
+        found[0] |= symbol != null && matchesText(symbol);
+      }
+
+      @Override
+      public void string(String value, boolean isScriptName) {
+        found[0] |= matchesText(value);
+      }
+
+      private boolean matchesText(String text) {
+        return varName != null && text.toLowerCase(Locale.ENGLISH).contains(varName)
+            || regSymbol != null && regSymbol.matcher(text).find();
+      }
+    });
+    try {
+      reader.read(code);
+    } catch (Exception e) {
+      return true;
+    }
+    return found[0];
+  }
+
   private void searchStruct(ResourceEntry entry, AbstractStruct struct) {
     final String name = targetEntry.getResourceName();
     for (final StructEntry o : struct.getFields()) {
@@ -231,7 +231,7 @@ public void run() {
           SearchOptions so = panel.getOptions();
 
           // using parallel jobs to speed up search
-          try (final Threading threadPool = new Threading()) {
+          try (final Threading threadPool = new Threading(Threading.Priority.NORMAL, true)) {
             for (ResourceEntry element : resources) {
               threadPool.submit(new SearchWorker(found, so, element));
             }
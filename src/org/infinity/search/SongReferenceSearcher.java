@@ -18,7 +18,9 @@
 import org.infinity.resource.are.AreResource;
 import org.infinity.resource.are.Song;
 import org.infinity.resource.bcs.BcsResource;
+import org.infinity.resource.bcs.BcsReferenceReader;
 import org.infinity.resource.bcs.Decompiler;
+import org.infinity.resource.bcs.Signatures;
 import org.infinity.resource.dlg.AbstractCode;
 import org.infinity.resource.dlg.DlgResource;
 import org.infinity.resource.key.ResourceEntry;
@@ -97,6 +99,23 @@ private void searchBcs(ResourceEntry entry, BcsResource bcs) {
       return;
     }
 
+    // only scripts which control music have to be decompiled for the matching text
+    final boolean[] found = { false };
+    final BcsReferenceReader reader = new BcsReferenceReader(new BcsReferenceReader.Listener() {
+      @Override
+      public void function(Signatures.Function function) {
+        found[0] |= function.getName().contains("StartMusic") || function.getName().contains("SetMusic");
+      }
+    });
+    try {
+      reader.read(bcs.getCode());
+    } catch (Exception e) {
+      found[0] = true;
+    }
+    if (!found[0]) {
+      return;
+    }
+
     final Decompiler decompiler = new Decompiler(bcs.getCode(), true);
     decompiler.setGenerateComments(false);
     decompiler.setGenerateResourcesUsed(false);
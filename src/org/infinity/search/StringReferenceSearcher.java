@@ -13,9 +13,9 @@
 import org.infinity.resource.Resource;
 import org.infinity.resource.ResourceFactory;
 import org.infinity.resource.StructEntry;
+import org.infinity.resource.bcs.BcsReferenceReader;
 import org.infinity.resource.bcs.BcsResource;
-import org.infinity.resource.bcs.Compiler;
-import org.infinity.resource.bcs.Decompiler;
+import org.infinity.resource.bcs.CompiledScriptCache;
 import org.infinity.resource.bcs.ScriptType;
 import org.infinity.resource.dlg.AbstractCode;
 import org.infinity.resource.dlg.Action;
@@ -73,6 +73,11 @@ protected void search(ResourceEntry entry, Resource resource) {
     }
   }
 
+  @Override
+  ReferenceIndex.Query getIndexQuery() {
+    return ReferenceIndex.Query.forStringRef(searchvalue);
+  }
+
   private void searchDialog(ResourceEntry entry, AbstractStruct dialog) {
     for (final StructEntry o : dialog.getFields()) {
       if (o instanceof StringRef && ((StringRef) o).getValue() == searchvalue) {
@@ -89,17 +94,9 @@ private void searchDialog(ResourceEntry entry, AbstractStruct dialog) {
         final AbstractCode sourceCode = (AbstractCode) o;
         try {
           final ScriptType type = sourceCode instanceof Action ? ScriptType.ACTION : ScriptType.TRIGGER;
-          final Compiler compiler = new Compiler(sourceCode.getText(), type);
-          if (compiler.getErrors().isEmpty()) {
-            final Decompiler decompiler = new Decompiler(compiler.getCode(), type, true);
-            decompiler.setGenerateComments(false);
-            decompiler.setGenerateResourcesUsed(true);
-            decompiler.decompile();
-            for (final Integer stringRef : decompiler.getStringRefsUsed()) {
-              if (stringRef == searchvalue) {
-                addHit(entry, sourceCode.getName(), sourceCode);
-              }
-            }
+          final CompiledScriptCache.Result result = CompiledScriptCache.get(sourceCode.getText(), type);
+          if (!result.hasErrors() && result.getStringRefsUsed().contains(searchvalue)) {
+            addHit(entry, sourceCode.getName(), sourceCode);
           }
         } catch (Exception e) {
           Logger.error(e, "Exception in {} - {}", dialog.getName(), sourceCode.getName());
@@ -130,15 +127,17 @@ private void searchSave(ResourceEntry entry, SavResource savfile) {
   }
 
   private void searchScript(ResourceEntry entry, BcsResource bcsfile) {
-    Decompiler decompiler = new Decompiler(bcsfile.getCode(), true);
-    decompiler.setGenerateComments(false);
-    decompiler.setGenerateResourcesUsed(true);
+    final boolean[] found = { false };
+    final BcsReferenceReader reader = new BcsReferenceReader(new BcsReferenceReader.Listener() {
+      @Override
+      public void stringRef(int strref) {
+        found[0] |= (strref == searchvalue);
+      }
+    });
     try {
-      decompiler.decompile();
-      for (final Integer stringRef : decompiler.getStringRefsUsed()) {
-        if (stringRef == searchvalue) {
-          addHit(entry, null, null);
-        }
+      reader.read(bcsfile.getCode());
+      if (found[0]) {
+        addHit(entry, null, null);
       }
     } catch (Exception e) {
       Logger.error(e);
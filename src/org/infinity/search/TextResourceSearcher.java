@@ -181,7 +181,6 @@ protected Runnable newWorker(ResourceEntry entry) {
           Logger.error(e);
         }
       }
-      advanceProgress();
     };
   }
 
@@ -561,7 +561,7 @@ public void run() {
         List<SearchOptions> searchOptions = getSearchOptions();
 
         // using parallel jobs to speed up search
-        try (final Threading threadPool = new Threading()) {
+        try (final Threading threadPool = new Threading(Threading.Priority.NORMAL, true)) {
           for (final ResourceEntry entry : resources) {
             threadPool.submit(new AdvancedSearchWorker(found, filterOp, searchOptions, entry, pbProgress));
           }
@@ -4,13 +4,26 @@
 
 package org.infinity.util;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.infinity.NearInfinity;
 import org.infinity.gui.StatusBar;
@@ -19,34 +32,70 @@
 import org.infinity.resource.are.AreResource;
 import org.infinity.resource.cre.CreResource;
 import org.infinity.resource.key.ResourceEntry;
+import org.infinity.util.io.FileEx;
 
 /**
  * Maintains a list of script names to CRE resource mappings.
+ * <p>
+ * Script names are gathered from CRE, CHR, ARE and INI resources in the background. The script names of each resource
+ * are stored in the game-specific cache folder and reused as long as size and modification time of the file providing
+ * the resource are unchanged, so that only new or modified resources have to be parsed when a game is opened.
+ * </p>
  */
 public final class CreMapCache {
-  private static final Map<String, Set<ResourceEntry>> SCRIPT_NAMES_CRE = new HashMap<>();
-  private static final Set<String> SCRIPT_NAMES_ARE = new HashSet<>();
+  /** File name of the persistent script name index in the game-specific cache folder. */
+  public static final String FILE_NAME = "script_names.bin";
 
-  private static boolean initialized = false;
+  private static final int SIGNATURE = 0x4e49534e; // "NISN"
+  private static final int VERSION = 1;
 
+  /** Resource key => script names defined by the resource. Persisted across sessions. */
+  private static final ConcurrentHashMap<String, Record> RECORDS = new ConcurrentHashMap<>();
+
+  /** Script names of the currently open game, {@code null} if not yet available. */
+  private static volatile ScriptNames scriptNames;
+
+  /** Completes when script names of the current game are available. */
+  private static CompletableFuture<Void> initTask;
+
+  /** Incremented whenever the cache is cleared to discard results of outdated background tasks. */
+  private static volatile int generation;
+
+  private static boolean recordsLoaded;
+  private static boolean refreshPending;
+  private static boolean refreshRunning;
+
+  /**
+   * Updates script names of the specified CRE, CHR, ARE or INI resource in the background. Script names of the
+   * remaining resources are not affected.
+   */
   public static void creInvalid(ResourceEntry entry) {
-    if (entry != null) {
-      SCRIPT_NAMES_CRE.remove(normalized(entry.getResourceName()));
+    if (entry != null && isScriptNameResource(entry)) {
+      RECORDS.remove(getKey(entry));
+      refresh();
     }
   }
 
-  public static void init() {
-    if (!isInitialized()) {
-      initialize();
+  /** Starts gathering script names of the current game in the background if needed. */
+  public static synchronized void init() {
+    if (initTask == null) {
+      initTask = new CompletableFuture<>();
+      refresh();
     }
   }
 
-  public static void clearCache() {
-    if (isInitialized()) {
-      SCRIPT_NAMES_CRE.clear();
-      SCRIPT_NAMES_ARE.clear();
-      initialized = false;
+  /** Discards all script names. Background tasks which are still running are abandoned. */
+  public static synchronized void clearCache() {
+    generation++;
+    scriptNames = null;
+    if (initTask != null && !initTask.isDone()) {
+      initTask.cancel(false);
     }
+    initTask = null;
+    RECORDS.clear();
+    recordsLoaded = false;
+    refreshPending = false;
+    refreshRunning = false;
   }
 
   public static void reset() {
@@ -55,64 +104,77 @@ public static void reset() {
   }
 
   public static boolean isInitialized() {
-    return initialized;
+    return scriptNames != null;
+  }
+
+  /**
+   * Returns a {@link CompletableFuture} which completes when the script names of the current game are available.
+   * Starts gathering script names if needed.
+   */
+  public static synchronized CompletableFuture<Void> whenInitialized() {
+    init();
+    return initTask;
   }
 
   public static boolean hasScriptName(String name) {
-    ensureInitialized(-1);
-    if (isInitialized() && name != null) {
-      return SCRIPT_NAMES_CRE.containsKey(normalized(name));
+    final ScriptNames names = ensureInitialized();
+    if (names != null && name != null) {
+      return names.cre.containsKey(normalized(name));
     }
     return false;
   }
 
   public static boolean hasCreScriptName(String name) {
-    ensureInitialized(-1);
-    if (isInitialized() && name != null) {
-      return SCRIPT_NAMES_CRE.containsKey(normalized(name));
+    final ScriptNames names = ensureInitialized();
+    if (names != null && name != null) {
+      return names.cre.containsKey(normalized(name));
     } else {
       return false;
     }
   }
 
   public static boolean hasAreScriptName(String name) {
-    ensureInitialized(-1);
-    if (isInitialized() && name != null) {
-      return SCRIPT_NAMES_ARE.contains(normalized(name));
+    final ScriptNames names = ensureInitialized();
+    if (names != null && name != null) {
+      return names.are.contains(normalized(name));
     } else {
       return false;
     }
   }
 
   public static Set<ResourceEntry> getCreForScriptName(String name) {
-    ensureInitialized(-1);
-    if (isInitialized() && name != null) {
-      return SCRIPT_NAMES_CRE.get(normalized(name));
+    final ScriptNames names = ensureInitialized();
+    if (names != null && name != null) {
+      return names.cre.get(normalized(name));
     }
     return null;
   }
 
   public static Set<String> getCreScriptNames() {
-    ensureInitialized(-1);
-    if (isInitialized()) {
-      return SCRIPT_NAMES_CRE.keySet();
+    final ScriptNames names = ensureInitialized();
+    if (names != null) {
+      return Collections.unmodifiableSet(names.cre.keySet());
     } else {
       return new HashSet<>();
     }
   }
 
-  /** Waits until indexing process has finished or time out occurred. */
-  private static boolean ensureInitialized(int timeOutMS) {
-    long timeOut = (timeOutMS >= 0) ? System.nanoTime() + (timeOutMS * 1000000L) : -1L;
-    while (!isInitialized() && (timeOut == -1L || System.nanoTime() < timeOut)) {
+  /** Waits until script names are available. Returns {@code null} if the cache has been cleared in the meantime. */
+  private static ScriptNames ensureInitialized() {
+    ScriptNames names = scriptNames;
+    if (names == null) {
+      final CompletableFuture<Void> task = whenInitialized();
       try {
-        Thread.sleep(1);
-      } catch (InterruptedException e) {
+        task.get(5, TimeUnit.MINUTES);
+      } catch (TimeoutException e) {
+        Logger.warn("Timed out while gathering creature and area names");
+      } catch (Exception e) {
+        // cache has been cleared
         Logger.trace(e);
       }
+      names = scriptNames;
     }
-
-    return isInitialized();
+    return names;
   }
 
   private static String normalized(String s) {
@@ -123,114 +185,191 @@ private static String normalized(String s) {
     }
   }
 
-  private static void initialize() {
-    if (!isInitialized()) {
-      Runnable worker = () -> {
-        StatusBar statusBar = NearInfinity.getInstance().getStatusBar();
-        String message = "Gathering creature and area names ...";
-        String oldMessage = null;
-        if (statusBar != null) {
-          oldMessage = statusBar.getMessage();
-          statusBar.setMessage(message);
-        }
+  /** Schedules a background task which updates script names of new or modified resources. */
+  private static synchronized void refresh() {
+    if (initTask == null) {
+      // not yet initialized: everything is gathered on initialization
+      return;
+    }
+    if (refreshRunning) {
+      refreshPending = true;
+      return;
+    }
+    refreshRunning = true;
+    final int gen = generation;
+    final Thread thread = new Thread(() -> runRefresh(gen), "CreMapCache-Updater");
+    thread.setDaemon(true);
+    thread.start();
+  }
 
-        try (final Threading threadPool = new Threading()) {
-          List<ResourceEntry> files = ResourceFactory.getResources("CRE");
-          // Including CHR resources to reduce number of warnings in IWD/IWD2 if NPC mods are installed
-          files.addAll(ResourceFactory.getResources("CHR", Profile.getProperty(Profile.Key.GET_GAME_EXTRA_FOLDERS)));
-          for (final ResourceEntry entry1 : files) {
-            if (entry1 == null) {
-              continue;
-            }
+  private static void runRefresh(int gen) {
+    while (true) {
+      try {
+        update(gen);
+      } catch (Exception e) {
+        Logger.error(e);
+      }
 
-            threadPool.submit(new CreWorker(entry1));
+      synchronized (CreMapCache.class) {
+        if (gen != generation) {
+          return;
+        }
+        if (initTask != null && !initTask.isDone()) {
+          if (scriptNames == null) {
+            // failed to gather script names: continue with empty lists rather than blocking callers
+            scriptNames = new ScriptNames(new HashMap<>(), new HashSet<>());
           }
+          initTask.complete(null);
+        }
+        if (!refreshPending) {
+          refreshRunning = false;
+          return;
+        }
+        refreshPending = false;
+      }
+    }
+  }
 
-          SCRIPT_NAMES_ARE.add("none"); // default script name for many CRE resources
-          for (final ResourceEntry entry2 : ResourceFactory.getResources("ARE")) {
-            if (entry2 == null) {
-              continue;
-            }
+  /** Gathers script names of all resources and publishes the result if the cache hasn't been cleared meanwhile. */
+  private static void update(int gen) {
+    final Path file = getCacheFile();
+    final boolean loadRecords;
+    synchronized (CreMapCache.class) {
+      loadRecords = !recordsLoaded;
+      recordsLoaded = true;
+    }
+    if (loadRecords && file != null) {
+      final DebugTimer timer = new DebugTimer();
+      load(file);
+      Logger.debug(timer.getTimerFormatted("Script name index loaded: " + RECORDS.size() + " resources"));
+    }
 
-            threadPool.submit(new AreWorker(entry2));
-          }
+    final List<ResourceEntry> creFiles = ResourceFactory.getResources("CRE");
+    // Including CHR resources to reduce number of warnings in IWD/IWD2 if NPC mods are installed
+    creFiles.addAll(ResourceFactory.getResources("CHR", Profile.getProperty(Profile.Key.GET_GAME_EXTRA_FOLDERS)));
+    final List<ResourceEntry> areFiles = ResourceFactory.getResources("ARE");
+    final List<ResourceEntry> iniFiles = ResourceFactory.getResources("INI");
+
+    // collecting resources which have to be parsed
+    final List<ResourceEntry> files = new ArrayList<>(creFiles.size() + areFiles.size() + iniFiles.size());
+    files.addAll(creFiles);
+    files.addAll(areFiles);
+    files.addAll(iniFiles);
+    final Map<Path, long[]> stamps = new HashMap<>();
+    final Map<ResourceEntry, String> keys = new HashMap<>();
+    final List<ResourceEntry> outdated = new ArrayList<>();
+    for (final ResourceEntry entry : files) {
+      if (entry == null) {
+        continue;
+      }
+      final String key = getKey(entry);
+      keys.put(entry, key);
+      final long[] stamp = getStamp(entry, stamps);
+      final Record record = RECORDS.get(key);
+      if (record == null || stamp == null || record.size != stamp[0] || record.lastModified != stamp[1]) {
+        outdated.add(entry);
+      }
+    }
 
-          for (final ResourceEntry entry3 : ResourceFactory.getResources("INI")) {
-            if (entry3 == null) {
-              continue;
-            }
+    boolean modified = RECORDS.keySet().retainAll(new HashSet<>(keys.values()));
 
-            threadPool.submit(new IniWorker(entry3));
-          }
+    if (!outdated.isEmpty()) {
+      modified = true;
+      final StatusBar statusBar = NearInfinity.getInstance() != null ? NearInfinity.getInstance().getStatusBar() : null;
+      final String message = "Gathering creature and area names ...";
+      String oldMessage = null;
+      if (statusBar != null) {
+        oldMessage = statusBar.getMessage();
+        statusBar.setMessage(message);
+      }
 
-          threadPool.shutdown();
-          try {
-            threadPool.awaitTermination(60, TimeUnit.SECONDS);
-          } catch (InterruptedException e) {
-            Logger.error(e);
-          }
-        } catch (Exception e) {
-          Logger.trace(e);
+      final DebugTimer timer = new DebugTimer();
+      try (final Threading threadPool = new Threading(Threading.Priority.NORMAL, true)) {
+        for (final ResourceEntry entry : outdated) {
+          threadPool.submit(() -> {
+            if (gen == generation) {
+              final Record record = parse(entry, getStamp(entry, null));
+              if (record != null) {
+                RECORDS.put(keys.get(entry), record);
+              }
+            }
+          });
         }
-
-        if (statusBar != null && statusBar.getMessage().startsWith(message)) {
-          statusBar.setMessage(oldMessage);
+        threadPool.shutdown();
+        try {
+          threadPool.awaitTermination(60, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Logger.error(e);
         }
+      } catch (Exception e) {
+        Logger.trace(e);
+      }
+      Logger.debug(timer.getTimerFormatted("Script names gathered from " + outdated.size() + " resources"));
 
-        initialized = true;
-      };
-      new Thread(worker).start();
+      if (statusBar != null && statusBar.getMessage().startsWith(message)) {
+        statusBar.setMessage(oldMessage);
+      }
     }
-  }
-
-  // -------------------------- INNER CLASSES --------------------------
-
-  private static final class CreWorker implements Runnable {
-    final ResourceEntry entry;
 
-    public CreWorker(ResourceEntry entry) {
-      this.entry = entry;
+    // assembling script names
+    final Map<String, Set<ResourceEntry>> cre = new HashMap<>();
+    final Set<String> are = new HashSet<>();
+    are.add("none"); // default script name for many CRE resources
+    for (final ResourceEntry entry : creFiles) {
+      final Record record = (entry != null) ? RECORDS.get(keys.get(entry)) : null;
+      if (record != null) {
+        for (final String name : record.names) {
+          cre.computeIfAbsent(name, k -> new HashSet<>()).add(entry);
+        }
+      }
     }
-
-    @Override
-    public void run() {
-      try {
-        CreResource.addScriptName(SCRIPT_NAMES_CRE, entry);
-      } catch (Exception e) {
-        Logger.error(e);
+    for (final ResourceEntry entry : areFiles) {
+      final Record record = (entry != null) ? RECORDS.get(keys.get(entry)) : null;
+      if (record != null) {
+        Collections.addAll(are, record.names);
+      }
+    }
+    for (final ResourceEntry entry : iniFiles) {
+      final Record record = (entry != null) ? RECORDS.get(keys.get(entry)) : null;
+      if (record != null && record.names.length > 0
+          && ResourceFactory.resourceExists(entry.getResourceName().replace(".INI", ".ARE"))) {
+        Collections.addAll(are, record.names);
       }
     }
-  }
-
-  private static final class AreWorker implements Runnable {
-    final ResourceEntry entry;
 
-    public AreWorker(ResourceEntry entry) {
-      this.entry = entry;
+    synchronized (CreMapCache.class) {
+      if (gen != generation) {
+        return;
+      }
+      scriptNames = new ScriptNames(cre, are);
     }
 
-    @Override
-    public void run() {
+    if (modified && file != null) {
       try {
-        AreResource.addScriptNames(SCRIPT_NAMES_ARE, entry.getResourceBuffer());
-      } catch (Exception e) {
-        Logger.error(e);
+        save(file);
+      } catch (IOException e) {
+        Logger.warn(e, "Could not save script name index");
       }
     }
   }
 
-  private static final class IniWorker implements Runnable {
-    final ResourceEntry entry;
-
-    public IniWorker(ResourceEntry entry) {
-      this.entry = entry;
+  /** Extracts the script names defined by the specified resource. */
+  private static Record parse(ResourceEntry entry, long[] stamp) {
+    if (stamp == null) {
+      return null;
     }
-
-    @Override
-    public void run() {
-      try {
-        final String name = entry.getResourceName();
-        if (name.length() >= 10 && ResourceFactory.resourceExists(name.replace(".INI", ".ARE"))) {
+    final Set<String> names = new HashSet<>();
+    try {
+      final String ext = entry.getExtension();
+      if ("CRE".equals(ext) || "CHR".equals(ext)) {
+        final Map<String, Set<ResourceEntry>> map = new HashMap<>();
+        CreResource.addScriptName(map, entry);
+        names.addAll(map.keySet());
+      } else if ("ARE".equals(ext)) {
+        AreResource.addScriptNames(names, entry.getResourceBuffer());
+      } else if ("INI".equals(ext)) {
+        // only INI files associated with ARE resources are considered
+        if (entry.getResourceName().length() >= 10) {
           final IniMap ini = IniMapCache.get(entry);
           if (ini != null) {
             for (final IniMapSection section : ini) {
@@ -238,17 +377,136 @@ public void run() {
               if (mapEntry != null) {
                 final String s = normalized(mapEntry.getValue());
                 if (!s.isEmpty() && s.charAt(0) != '[') {
-                  synchronized (SCRIPT_NAMES_ARE) {
-                    SCRIPT_NAMES_ARE.add(s);
-                  }
+                  names.add(s);
                 }
               }
             }
           }
         }
-      } catch (Exception e) {
-        Logger.error(e);
       }
+    } catch (Exception e) {
+      Logger.error(e);
+    }
+    return new Record(stamp[0], stamp[1], names.toArray(new String[0]));
+  }
+
+  private static boolean isScriptNameResource(ResourceEntry entry) {
+    final String ext = entry.getExtension();
+    return "CRE".equals(ext) || "CHR".equals(ext) || "ARE".equals(ext) || "INI".equals(ext);
+  }
+
+  // Resources with the same name may be provided by different files
+  private static String getKey(ResourceEntry entry) {
+    return entry.getResourceName().toUpperCase(Locale.ENGLISH) + '|' + entry.getActualPath();
+  }
+
+  /**
+   * Returns size and modification time of the file that provides the resource, null if unavailable. Results are
+   * cached in the specified map if available, since many resources may be provided by the same archive.
+   */
+  private static long[] getStamp(ResourceEntry entry, Map<Path, long[]> stamps) {
+    final Path path = entry.getActualPath();
+    if (path == null) {
+      return null;
+    }
+    long[] stamp = (stamps != null) ? stamps.get(path) : null;
+    if (stamp == null) {
+      try {
+        stamp = new long[] { Files.size(path), Files.getLastModifiedTime(path).toMillis() };
+        if (stamps != null) {
+          stamps.put(path, stamp);
+        }
+      } catch (IOException e) {
+        Logger.trace(e);
+      }
+    }
+    return stamp;
+  }
+
+  /** Returns the path of the script name index for the currently open game, {@code null} if no game is open. */
+  private static Path getCacheFile() {
+    final Path folder = Profile.getCacheFolder();
+    return (folder != null) ? folder.resolve(FILE_NAME) : null;
+  }
+
+  private static void load(Path file) {
+    if (!FileEx.create(file).isFile()) {
+      return;
+    }
+
+    try (DataInputStream dis = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (dis.readInt() != SIGNATURE || dis.readInt() != VERSION) {
+        Logger.debug("Script name index is outdated: {}", file);
+        return;
+      }
+
+      final int count = dis.readInt();
+      final Map<String, Record> records = new HashMap<>(count * 4 / 3 + 1);
+      for (int i = 0; i < count; i++) {
+        final String key = dis.readUTF();
+        final long size = dis.readLong();
+        final long lastModified = dis.readLong();
+        final String[] names = new String[dis.readUnsignedShort()];
+        for (int j = 0; j < names.length; j++) {
+          names[j] = dis.readUTF();
+        }
+        records.put(key, new Record(size, lastModified, names));
+      }
+      records.forEach(RECORDS::putIfAbsent);
+    } catch (IOException e) {
+      Logger.warn(e, "Could not load script name index");
+    }
+  }
+
+  private static synchronized void save(Path file) throws IOException {
+    Files.createDirectories(file.getParent());
+    final Path tmpFile = file.resolveSibling(FILE_NAME + ".tmp");
+    try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+      dos.writeInt(SIGNATURE);
+      dos.writeInt(VERSION);
+
+      final List<Map.Entry<String, Record>> list = new ArrayList<>(RECORDS.entrySet());
+      dos.writeInt(list.size());
+      for (final Map.Entry<String, Record> e : list) {
+        final Record record = e.getValue();
+        dos.writeUTF(e.getKey());
+        dos.writeLong(record.size);
+        dos.writeLong(record.lastModified);
+        dos.writeShort(record.names.length);
+        for (final String name : record.names) {
+          dos.writeUTF(name);
+        }
+      }
+    }
+    Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  private CreMapCache() {
+  }
+
+  // -------------------------- INNER CLASSES --------------------------
+
+  /** Script names defined by a single resource. */
+  private static class Record {
+    private final long size;
+    private final long lastModified;
+    private final String[] names;
+
+    public Record(long size, long lastModified, String[] names) {
+      this.size = size;
+      this.lastModified = lastModified;
+      this.names = names;
+    }
+  }
+
+  /** Script names of all resources of the game. Instances are not modified after creation. */
+  private static class ScriptNames {
+    private final Map<String, Set<ResourceEntry>> cre;
+    private final Set<String> are;
+
+    public ScriptNames(Map<String, Set<ResourceEntry>> cre, Set<String> are) {
+      this.cre = cre;
+      this.are = are;
     }
   }
 }
@@ -6,11 +6,9 @@
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Locale;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.infinity.resource.Profile;
 import org.infinity.resource.ResourceFactory;
@@ -19,12 +17,12 @@
 
 public class IdsMapCache {
   /** Maps upper-cased name of IDS resource to parsed resource. */
-  private static final Map<String, IdsMap> CACHE = new HashMap<>();
+  private static final LoadingCache<String, IdsMap> CACHE = new LoadingCache<>("IdsMapCache");
 
   /** List of IDS resource names that are known to be malformed. */
-  private static final Set<String> BLACKLIST = new HashSet<>();
+  private static final Set<String> BLACKLIST = ConcurrentHashMap.newKeySet();
 
-  private static boolean blackListInitialized = false;
+  private static volatile boolean blackListInitialized = false;
 
   public static void remove(ResourceEntry entry) {
     if (entry != null) {
@@ -37,7 +35,22 @@ public static void clearCache() {
     blackListInitialized = false;
   }
 
-  public static synchronized IdsMap get(String name) {
+  /** Returns the number of requests that could be served by an already cached IDS resource. */
+  public static long getHitCount() {
+    return CACHE.getHitCount();
+  }
+
+  /** Returns the number of requests that required to load an IDS resource. */
+  public static long getMissCount() {
+    return CACHE.getMissCount();
+  }
+
+  /** Returns the total time spent in loading IDS resources, in nanoseconds. */
+  public static long getLoadTime() {
+    return CACHE.getLoadTime();
+  }
+
+  public static IdsMap get(String name) {
     IdsMap retVal = null;
 
     if (isBlackListed(name)) {
@@ -46,25 +59,7 @@ public static synchronized IdsMap get(String name) {
 
     if (name != null) {
       name = name.trim().toUpperCase(Locale.ENGLISH);
-      retVal = CACHE.get(name);
-      if (retVal == null) {
-        ResourceEntry entry = ResourceFactory.getResourceEntry(name);
-        if (entry == null) {
-          if (name.equals("ATTSTYLE.IDS")) {
-            entry = ResourceFactory.getResourceEntry("ATTSTYL.IDS");
-          } else {
-            Logger.warn("Could not find {}", name);
-          }
-        }
-        if (entry != null) {
-          try {
-            retVal = new IdsMap(entry);
-            CACHE.put(name, retVal);
-          } catch (Exception e) {
-            Logger.warn("{}: {}", e.getClass().getSimpleName(), e.getMessage());
-          }
-        }
-      }
+      retVal = CACHE.get(name, IdsMapCache::load);
     }
     return retVal;
   }
@@ -265,6 +260,27 @@ private static String prettifyName(String name) {
     return retVal;
   }
 
+  /** Parses the specified IDS resource. Returns {@code null} if the resource is not available. */
+  private static IdsMap load(String name) {
+    IdsMap retVal = null;
+    ResourceEntry entry = ResourceFactory.getResourceEntry(name);
+    if (entry == null) {
+      if (name.equals("ATTSTYLE.IDS")) {
+        entry = ResourceFactory.getResourceEntry("ATTSTYL.IDS");
+      } else {
+        Logger.warn("Could not find {}", name);
+      }
+    }
+    if (entry != null) {
+      try {
+        retVal = new IdsMap(entry);
+      } catch (Exception e) {
+        Logger.warn("{}: {}", e.getClass().getSimpleName(), e.getMessage());
+      }
+    }
+    return retVal;
+  }
+
   /** Returns {@code true} if the specified IDS resref is blacklisted. */
   private static boolean isBlackListed(String name) {
     updateBlackList(false);
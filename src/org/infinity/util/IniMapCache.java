@@ -4,23 +4,35 @@
 
 package org.infinity.util;
 
-import java.util.HashMap;
 import java.util.Locale;
 
 import org.infinity.resource.ResourceFactory;
 import org.infinity.resource.key.ResourceEntry;
 
 public class IniMapCache {
-  private static final HashMap<ResourceEntry, IniMap> MAP = new HashMap<>();
+  private static final LoadingCache<ResourceEntry, IniMap> CACHE = new LoadingCache<>("IniMapCache");
 
   public static void cacheInvalid(ResourceEntry entry) {
-    if (entry != null) {
-      MAP.remove(entry);
-    }
+    CACHE.remove(entry);
   }
 
   public static void clearCache() {
-    MAP.clear();
+    CACHE.clear();
+  }
+
+  /** Returns the number of requests that could be served by an already cached INI resource. */
+  public static long getHitCount() {
+    return CACHE.getHitCount();
+  }
+
+  /** Returns the number of requests that required to load an INI resource. */
+  public static long getMissCount() {
+    return CACHE.getMissCount();
+  }
+
+  /** Returns the total time spent in loading INI resources, in nanoseconds. */
+  public static long getLoadTime() {
+    return CACHE.getLoadTime();
   }
 
   public static IniMap get(String name) {
@@ -41,18 +53,14 @@ public static IniMap get(String name, boolean ignoreComments) {
     return retVal;
   }
 
-  public static synchronized IniMap get(ResourceEntry entry) {
+  public static IniMap get(ResourceEntry entry) {
     return get(entry, false);
   }
 
-  public static synchronized IniMap get(ResourceEntry entry, boolean ignoreComments) {
+  public static IniMap get(ResourceEntry entry, boolean ignoreComments) {
     IniMap retVal = null;
     if (entry != null) {
-      retVal = MAP.get(entry);
-      if (retVal == null) {
-        retVal = new IniMap(entry, ignoreComments);
-        MAP.put(entry, retVal);
-      }
+      retVal = CACHE.get(entry, e -> new IniMap(e, ignoreComments));
     }
     return retVal;
   }
@@ -0,0 +1,140 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.util;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A thread-safe cache which creates values on demand.
+ * <p>
+ * Cached values are returned without locking. Concurrent requests for the same missing key are loaded only once:
+ * the first thread creates the value while other threads wait for the result of this key only. Lookups of other keys
+ * are not blocked. Keys for which no value could be created are not cached.
+ * </p>
+ *
+ * @param <K> Type of the keys.
+ * @param <V> Type of the cached values.
+ */
+final class LoadingCache<K, V> {
+  private final ConcurrentHashMap<K, CacheEntry<V>> cache = new ConcurrentHashMap<>();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder loadTime = new LongAdder();
+  private final String name;
+
+  /**
+   * Creates a new cache instance.
+   *
+   * @param name Name of the cache, used for diagnostic output.
+   */
+  public LoadingCache(String name) {
+    this.name = Objects.requireNonNull(name);
+  }
+
+  /**
+   * Returns the value associated with the specified key. The value is created by the given loader function if the key
+   * is not yet cached.
+   *
+   * @param key    The key of the value.
+   * @param loader Creates the value for a key. May return {@code null} if no value can be created.
+   * @return The cached or newly created value. Returns {@code null} if no value could be created.
+   */
+  public V get(K key, Function<? super K, ? extends V> loader) {
+    Objects.requireNonNull(key);
+    Objects.requireNonNull(loader);
+
+    CacheEntry<V> entry = cache.get(key);
+    if (entry != null && entry.loaded) {
+      hits.increment();
+      return entry.value;
+    }
+
+    if (entry == null) {
+      final CacheEntry<V> newEntry = new CacheEntry<>();
+      entry = cache.putIfAbsent(key, newEntry);
+      if (entry == null) {
+        entry = newEntry;
+      }
+    }
+
+    synchronized (entry) {
+      if (entry.loaded) {
+        // value has been loaded by a concurrent request
+        hits.increment();
+        return entry.value;
+      }
+
+      misses.increment();
+      final long startTime = System.nanoTime();
+      V value = null;
+      try {
+        value = loader.apply(key);
+      } finally {
+        loadTime.add(System.nanoTime() - startTime);
+        entry.value = value;
+        entry.loaded = true;
+        if (value == null) {
+          // waiting requests receive the same result, but subsequent requests try again
+          cache.remove(key, entry);
+        }
+      }
+      return value;
+    }
+  }
+
+  /** Returns whether a value is cached for the specified key. */
+  public boolean contains(K key) {
+    final CacheEntry<V> entry = (key != null) ? cache.get(key) : null;
+    return (entry != null && entry.loaded && entry.value != null);
+  }
+
+  /** Removes the value of the specified key from the cache. */
+  public void remove(K key) {
+    if (key != null) {
+      cache.remove(key);
+    }
+  }
+
+  /** Removes all values from the cache. Statistics are not affected. */
+  public void clear() {
+    cache.clear();
+  }
+
+  /** Returns the number of cached values. */
+  public int size() {
+    return cache.size();
+  }
+
+  /** Returns the number of requests that could be served by an already cached value. */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /** Returns the number of requests that required to create a new value. */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /** Returns the total time spent in creating new values, in nanoseconds. */
+  public long getLoadTime() {
+    return loadTime.sum();
+  }
+
+  @Override
+  public String toString() {
+    return name + " [size=" + size() + ", hits=" + getHitCount() + ", misses=" + getMissCount() + ", loadTime="
+        + (getLoadTime() / 1_000_000L) + " ms]";
+  }
+
+  // -------------------------- INNER CLASSES --------------------------
+
+  private static class CacheEntry<V> {
+    private volatile boolean loaded;
+    private V value;
+  }
+}
@@ -31,7 +31,7 @@
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 import java.util.stream.Collectors;
@@ -82,7 +82,7 @@
 import org.infinity.resource.key.ResourceEntry;
 import org.infinity.resource.sound.AudioFactory;
 import org.infinity.resource.text.PlainTextResource;
-import org.infinity.resource.video.MveResource;
+import org.infinity.resource.video.MveExporter;
 import org.infinity.util.io.FileEx;
 import org.infinity.util.io.FileManager;
 import org.infinity.util.io.StreamUtils;
@@ -406,41 +406,48 @@ public void run() {
 
       // executing multithreaded search
       boolean isCancelled = false;
-      try (final Threading threadPool = new Threading()) {
+      try (final Threading threadPool = new Threading(Threading.Priority.NORMAL, true)) {
         progress = new ProgressMonitor(NearInfinity.getInstance(), "Exporting...",
             String.format(FMT_PROGRESS, getResourceCount(), getResourceCount()), 0, selectedFiles.size());
         progress.setMillisToDecideToPopup(0);
         progress.setMillisToPopup(0);
         progress.setProgress(0);
         progress.setNote(String.format(FMT_PROGRESS, 0, getResourceCount()));
+
+        // progress is advanced and cancellation request is evaluated whenever an export task has been completed
+        threadPool.setCompletionHandler(() -> {
+          advanceProgress(false);
+          if (isProgressCanceled()) {
+            threadPool.cancel();
+          }
+        });
+
         DebugTimer.getInstance().timerReset();
         for (int i = 0, count = getResourceCount(); i < count; i++) {
-          threadPool.submit(new Worker(selectedFiles.get(i)));
-          if (progress.isCanceled()) {
-            isCancelled = true;
+          if (threadPool.isCancelled() || isProgressCanceled()) {
+            break;
+          }
+          try {
+            threadPool.submit(new Worker(selectedFiles.get(i)));
+          } catch (RejectedExecutionException e) {
+            Logger.trace(e);
             break;
           }
         }
 
-        // enforcing thread termination if process has been cancelled
-        if (isCancelled) {
-          threadPool.shutdownNow();
-        } else {
-          threadPool.shutdown();
+        if (isProgressCanceled()) {
+          threadPool.cancel();
         }
 
-        // waiting for pending threads to terminate
-        while (!threadPool.isTerminated()) {
-          if (!isCancelled && progress.isCanceled()) {
-            isCancelled = true;
-            threadPool.shutdownNow();
-          }
-          try {
-            threadPool.awaitTermination(10L, TimeUnit.MILLISECONDS);
-          } catch (InterruptedException e) {
-            Logger.trace(e);
-          }
+        // waiting for pending export tasks to complete
+        threadPool.shutdown();
+        try {
+          threadPool.awaitTermination();
+        } catch (InterruptedException e) {
+          Logger.trace(e);
+          threadPool.cancel();
         }
+        isCancelled = threadPool.isCancelled();
       } catch (Exception e) {
         Logger.trace(e);
       }
@@ -511,6 +518,11 @@ private void updateTextFieldColor(JTextField tf) {
     }
   }
 
+  // Returns whether the export operation has been cancelled by the user
+  private synchronized boolean isProgressCanceled() {
+    return progress != null && progress.isCanceled();
+  }
+
   private synchronized void advanceProgress(boolean finished) {
     if (progress != null) {
       if (finished) {
@@ -808,7 +820,7 @@ private void export(ResourceEntry entry) {
         if (FileEx.create(output).exists() && !cbOverwrite.isSelected()) {
           return;
         }
-        MveResource.convertAvi(entry, output, null, true);
+        MveExporter.convertAvi(entry, output, null);
       } else {
         exportResource(entry, output);
       }
@@ -970,7 +982,6 @@ public void run() {
       if (entry != null) {
         export(entry);
       }
-      advanceProgress(false);
     }
   }
 }
@@ -6,6 +6,8 @@
 
 import java.io.File;
 import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Locale;
 
 /**
@@ -135,6 +137,31 @@ public static int getJavaVersion() {
     return retVal;
   }
 
+  /**
+   * Returns the platform-specific base folder for cached data of Near Infinity. The folder is not created by this
+   * method.
+   * <ul>
+   * <li>Windows: {@code %LOCALAPPDATA%\NearInfinity\cache}</li>
+   * <li>macOS: {@code ~/Library/Caches/NearInfinity}</li>
+   * <li>Other: {@code $XDG_CACHE_HOME/nearinfinity} or {@code ~/.cache/nearinfinity}</li>
+   * </ul>
+   */
+  public static Path getUserCacheFolder() {
+    final Path home = Paths.get(System.getProperty("user.home"));
+    if (IS_WINDOWS) {
+      final String appData = System.getenv("LOCALAPPDATA");
+      final Path base = (appData != null && !appData.isEmpty()) ? Paths.get(appData)
+          : home.resolve("AppData").resolve("Local");
+      return base.resolve("NearInfinity").resolve("cache");
+    } else if (IS_MACOS) {
+      return home.resolve("Library").resolve("Caches").resolve("NearInfinity");
+    } else {
+      final String cacheHome = System.getenv("XDG_CACHE_HOME");
+      final Path base = (cacheHome != null && !cacheHome.isEmpty()) ? Paths.get(cacheHome) : home.resolve(".cache");
+      return base.resolve("nearinfinity");
+    }
+  }
+
   private Platform() {
   }
 }
@@ -15,7 +15,14 @@
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.EnumMap;
-import java.util.HashMap;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.infinity.NearInfinity;
 import org.infinity.datatype.DecNumber;
@@ -546,7 +553,21 @@ public static boolean isModified(Type type) {
    * @param type The string table
    */
   public static void ensureFullyLoaded(Type type) {
-    instance(type)._ensureFullyLoaded();
+    ensureFullyLoaded(type, null);
+  }
+
+  /**
+   * Ensures that all available entries of the specified string table are fully loaded into memory.
+   * <p>
+   * String data is read in a single pass and decoded in parallel. The callback is notified with the number of entries
+   * processed so far. Loading can be cancelled by the callback, in which case remaining entries are loaded on demand.
+   * </p>
+   *
+   * @param type     The string table
+   * @param callback Optional callback to track the progress of the operation.
+   */
+  public static void ensureFullyLoaded(Type type, ProgressCallback callback) {
+    instance(type)._ensureFullyLoaded(callback);
   }
 
   /**
@@ -966,15 +987,24 @@ private static StringTable instance(Type type) {
     return retVal;
   }
 
+  // Number of locks used to synchronize lazy loading of individual string entries
+  private static final int ENTRY_LOCK_STRIPES = 64;
+
   private final ArrayList<StringEntry> entries = new ArrayList<>();
-  private final HashMap<Integer, Integer> entriesVirtual = new HashMap<>();
+  // Read lock: element access to the entries list (in combination with entry locks for loading entries),
+  // write lock: structural modifications of the entries list. Must be acquired after the entries monitor.
+  private final ReentrantReadWriteLock entriesLock = new ReentrantReadWriteLock();
+  private final ConcurrentHashMap<Integer, Integer> entriesVirtual = new ConcurrentHashMap<>();
+  private final Object[] entryLocks = new Object[ENTRY_LOCK_STRIPES];
   private final Path tlkPath;
   private final StringTable.Type tlkType;
 
   // cached TLK header data
   private int numEntries, ofsStrings;
-  private ByteBuffer headerData;
-  private int entriesPending;
+  private volatile ByteBuffer headerData;
+  private final AtomicInteger entriesPending = new AtomicInteger();
+  // shared channel for positional reads of string data, only available while entries are pending
+  private volatile FileChannel channel;
   // private boolean fullyLoaded;
 
   private short langId;
@@ -988,6 +1018,9 @@ private StringTable(Type tlkType, Path tlkPath) {
     this.tlkType = tlkType;
     this.tlkPath = tlkPath;
     this.numEntries = 0;
+    for (int i = 0; i < entryLocks.length; i++) {
+      entryLocks[i] = new Object();
+    }
     _init();
   }
 
@@ -1004,7 +1037,12 @@ private short _getLanguageId() {
   }
 
   private int _getNumEntries() {
-    return entries.size();
+    entriesLock.readLock().lock();
+    try {
+      return entries.size();
+    } finally {
+      entriesLock.readLock().unlock();
+    }
   }
 
   private int _getTranslatedIndex(int index) {
@@ -1073,14 +1111,19 @@ private void _setPitch(int index, int value) throws IndexOutOfBoundsException {
   // Always returns a non-null StringEntry instance
   private StringEntry _getEntry(int index) throws IndexOutOfBoundsException {
     index = _getTranslatedIndex(index);
-    _ensureIndexIsLoaded(index);
-    StringEntry entry;
-    if (index >= 0 && index < entries.size()) {
-      entry = entries.get(index);
-    } else {
-      entry = StringEntry.getInvalidEntry();
+    entriesLock.readLock().lock();
+    try {
+      _ensureIndexIsLoaded(index);
+      StringEntry entry;
+      if (index >= 0 && index < entries.size()) {
+        entry = entries.get(index);
+      } else {
+        entry = StringEntry.getInvalidEntry();
+      }
+      return entry;
+    } finally {
+      entriesLock.readLock().unlock();
     }
-    return entry;
   }
 
   private void _init() {
@@ -1105,12 +1148,17 @@ private void _init() {
           headerData.position(0);
 
           // fill cache with placeholder string entries
-          entries.ensureCapacity(numEntries + 10);
-          while (entries.size() < numEntries) {
-            entries.add(null);
+          entriesLock.writeLock().lock();
+          try {
+            entries.ensureCapacity(numEntries + 10);
+            while (entries.size() < numEntries) {
+              entries.add(null);
+            }
+          } finally {
+            entriesLock.writeLock().unlock();
           }
 
-          entriesPending = numEntries;
+          entriesPending.set(numEntries);
           initialized = true;
         } catch (Exception e) {
           Logger.error(e);
@@ -1125,11 +1173,18 @@ private boolean _initialized() {
 
   private void _reset() {
     synchronized (entries) {
-      entries.clear();
-      headerData = null;
-      ofsStrings = numEntries = entriesPending = -1;
-      initialized = false;
-      _resetModified();
+      entriesLock.writeLock().lock();
+      try {
+        _closeChannel();
+        entries.clear();
+        headerData = null;
+        ofsStrings = numEntries = -1;
+        entriesPending.set(-1);
+        initialized = false;
+        _resetModified();
+      } finally {
+        entriesLock.writeLock().unlock();
+      }
     }
     _init();
   }
@@ -1138,28 +1193,61 @@ private FileChannel _open() throws IOException {
     return FileChannel.open(_getPath(), StandardOpenOption.READ);
   }
 
+  // Returns the shared channel for reading string data, opens it on first access
+  private FileChannel _getChannel() throws IOException {
+    FileChannel ch = channel;
+    if (ch == null || !ch.isOpen()) {
+      synchronized (entryLocks) {
+        ch = channel;
+        if (ch == null || !ch.isOpen()) {
+          ch = _open();
+          channel = ch;
+        }
+      }
+    }
+    return ch;
+  }
+
+  // Closes the shared channel for reading string data if available
+  private void _closeChannel() {
+    synchronized (entryLocks) {
+      if (channel != null) {
+        try {
+          channel.close();
+        } catch (IOException e) {
+          Logger.trace(e);
+        }
+        channel = null;
+      }
+    }
+  }
+
+  // Returns the lock object which guards loading of the specified string entry
+  private Object _getEntryLock(int index) {
+    return entryLocks[index & (ENTRY_LOCK_STRIPES - 1)];
+  }
+
+  // Decodes the specified string entry. Data is read positionally, without modifying shared state.
   private StringEntry _loadEntry(FileChannel ch, int index)
       throws IOException, IndexOutOfBoundsException, IllegalArgumentException {
     if (index < 0 || index >= _getNumEntries()) {
       throw new IndexOutOfBoundsException();
     }
 
+    final ByteBuffer header = headerData;
     StringEntry entry = null;
-    if (ch != null) {
+    if (ch != null && header != null) {
       int ofs = index * 26; // rel. offset entry
-      headerData.position(ofs);
-      short flags = headerData.getShort();
-      String soundRef = StreamUtils.readString(headerData, 8);
-      int volume = headerData.getInt();
-      int pitch = headerData.getInt();
-      int ofsString = ofsStrings + headerData.getInt();
-      int lenString = headerData.getInt();
-      headerData.position(0);
+      short flags = header.getShort(ofs);
+      String soundRef = StreamUtils.readString(header.duplicate(), ofs + 2, 8);
+      int volume = header.getInt(ofs + 10);
+      int pitch = header.getInt(ofs + 14);
+      int ofsString = ofsStrings + header.getInt(ofs + 18);
+      int lenString = header.getInt(ofs + 22);
       String text = null;
       if (lenString > 0) {
         try {
-          ch.position(ofsString);
-          text = StreamUtils.readString(ch, lenString, getCharset());
+          text = _readString(ch, ofsString, lenString);
           if (!CharsetDetector.getLookup().isExcluded(index)) {
             text = CharsetDetector.getLookup().decodeString(text);
           }
@@ -1175,6 +1263,18 @@ private StringEntry _loadEntry(FileChannel ch, int index)
     return entry;
   }
 
+  // Reads string data from the specified position without altering the channel position
+  private String _readString(FileChannel ch, long position, int length) throws IOException {
+    final ByteBuffer bb = ByteBuffer.wrap(new byte[length]);
+    while (bb.hasRemaining()) {
+      int n = ch.read(bb, position + bb.position());
+      if (n < 0) {
+        throw new IOException("End of stream");
+      }
+    }
+    return new String(bb.array(), getCharset());
+  }
+
   private int _insertEntry(int index) throws IndexOutOfBoundsException {
     return _insertEntry(index, new StringEntry(this));
   }
@@ -1192,7 +1292,16 @@ private int _insertEntry(int index, StringEntry newEntry) throws IndexOutOfBound
     _ensureFullyLoaded();
     newEntry.setModified();
     synchronized (entries) {
-      entries.add(index, newEntry);
+      entriesLock.writeLock().lock();
+      try {
+        // list may have been modified in the meantime
+        if (index > entries.size()) {
+          throw new IndexOutOfBoundsException();
+        }
+        entries.add(index, newEntry);
+      } finally {
+        entriesLock.writeLock().unlock();
+      }
     }
 
     return index;
@@ -1205,49 +1314,131 @@ private void _removeEntry(int index) throws IndexOutOfBoundsException {
 
     _ensureFullyLoaded();
     synchronized (entries) {
-      entries.remove(index);
+      entriesLock.writeLock().lock();
+      try {
+        // list may have been modified in the meantime
+        if (index >= entries.size()) {
+          throw new IndexOutOfBoundsException();
+        }
+        entries.remove(index);
+      } finally {
+        entriesLock.writeLock().unlock();
+      }
     }
   }
 
   // Loads all remaining string entries from file
   private void _ensureFullyLoaded() {
-    if (entriesPending > 0) {
+    _ensureFullyLoaded(null);
+  }
+
+  // Loads all remaining string entries from file, reports progress to the optional callback
+  private void _ensureFullyLoaded(ProgressCallback callback) {
+    if (entriesPending.get() > 0) {
       synchronized (entries) {
-        try (FileChannel ch = _open()) {
-          for (int idx = 0, num = _getNumEntries(); idx < num; idx++) {
-            if (entries.get(idx) == null) {
-              StringEntry entry = _loadEntry(ch, idx);
-              if (entry != null) {
-                entries.set(idx, entry);
-              } else {
-                throw new Exception();
-              }
+        boolean success = false;
+        try {
+          if (entriesPending.get() > 0) {
+            final DebugTimer timer = new DebugTimer();
+            final int numEntries = _getNumEntries();
+            if (callback != null) {
+              callback.init(numEntries);
+            }
+
+            final BulkLoader loader = new BulkLoader(_readStringSection(), numEntries, callback);
+            ForkJoinPool.commonPool().invoke(loader);
+            if (loader.error.get() != null) {
+              throw loader.error.get();
             }
+
+            success = !loader.cancelled.get();
+            if (entriesPending.get() <= 0) {
+              _closeChannel();
+            }
+            Logger.debug(timer.getTimerFormatted(_getPath().getFileName() + ": " + numEntries + " string entries loaded"));
+          } else {
+            success = true;
           }
-          entriesPending = 0;
         } catch (Exception e) {
           Logger.error(e);
+        } finally {
+          if (callback != null) {
+            callback.done(success);
+          }
         }
       }
     }
   }
 
+  // Reads the whole string section of the TLK file in one pass
+  private byte[] _readStringSection() throws IOException {
+    final FileChannel ch = _getChannel();
+    final long size = ch.size() - ofsStrings;
+    if (size < 0 || size > Integer.MAX_VALUE - 8) {
+      throw new IOException("Invalid string section size: " + size);
+    }
+    final ByteBuffer bb = ByteBuffer.wrap(new byte[(int) size]);
+    while (bb.hasRemaining()) {
+      if (ch.read(bb, ofsStrings + bb.position()) < 0) {
+        throw new IOException("End of stream");
+      }
+    }
+    return bb.array();
+  }
+
+  // Decodes the specified string entry from the string section data
+  private StringEntry _decodeEntry(ByteBuffer header, byte[] stringData, int index, Charset charset,
+      CharsetDetector.CharLookup lookup) {
+    int ofs = index * 26; // rel. offset entry
+    short flags = header.getShort(ofs);
+    String soundRef = StreamUtils.readString(header.duplicate(), ofs + 2, 8);
+    int volume = header.getInt(ofs + 10);
+    int pitch = header.getInt(ofs + 14);
+    int ofsString = header.getInt(ofs + 18);
+    int lenString = header.getInt(ofs + 22);
+    String text = "";
+    if (lenString > 0) {
+      if (ofsString >= 0 && ofsString <= stringData.length - lenString) {
+        text = new String(stringData, ofsString, lenString, charset);
+        if (!lookup.isExcluded(index)) {
+          text = lookup.decodeString(text);
+        }
+      } else {
+        Logger.error("Error: Illegal offset {} for string entry {}", ofsStrings + ofsString, index);
+      }
+    }
+    return new StringEntry(this, flags, soundRef, volume, pitch, text);
+  }
+
   // Makes sure the specified string entry is loaded into memory
   private void _ensureIndexIsLoaded(int index) {
     index = _getTranslatedIndex(index);
-    if (entriesPending > 0 && index >= 0 && index < _getNumEntries() && entries.get(index) == null) {
-      synchronized (entries) {
-        try (FileChannel ch = _open()) {
-          StringEntry entry = _loadEntry(ch, index);
-          if (entry != null) {
-            entries.set(index, entry);
-            entriesPending--;
-          } else {
-            throw new Exception();
+    if (entriesPending.get() > 0) {
+      // read lock prevents structural modifications of the list while the entry is loaded
+      entriesLock.readLock().lock();
+      try {
+        if (index >= 0 && index < entries.size() && entries.get(index) == null) {
+          // only threads requesting entries guarded by the same lock are serialized
+          synchronized (_getEntryLock(index)) {
+            if (entries.get(index) == null) {
+              try {
+                StringEntry entry = _loadEntry(_getChannel(), index);
+                if (entry != null) {
+                  entries.set(index, entry);
+                  if (entriesPending.decrementAndGet() == 0) {
+                    _closeChannel();
+                  }
+                } else {
+                  throw new Exception();
+                }
+              } catch (Exception e) {
+                Logger.error(e);
+              }
+            }
           }
-        } catch (Exception e) {
-          Logger.error(e);
         }
+      } finally {
+        entriesLock.readLock().unlock();
       }
     }
   }
@@ -1255,11 +1446,18 @@ private void _ensureIndexIsLoaded(int index) {
   private void _resetEntries() {
     if (_isModified()) {
       synchronized (entries) {
-        for (int idx = 0, cnt = entries.size(); idx < cnt; idx++) {
-          if (entries.get(idx) != null && entries.get(idx).isModified()) {
-            entries.set(idx, null);
-            entriesPending++;
+        entriesLock.readLock().lock();
+        try {
+          for (int idx = 0, cnt = entries.size(); idx < cnt; idx++) {
+            synchronized (_getEntryLock(idx)) {
+              if (entries.get(idx) != null && entries.get(idx).isModified()) {
+                entries.set(idx, null);
+                entriesPending.incrementAndGet();
+              }
+            }
           }
+        } finally {
+          entriesLock.readLock().unlock();
         }
         _resetModified();
       }
@@ -1299,6 +1497,7 @@ private void _write(Path tlkPath, ProgressCallback callback) throws IOException
     _ensureFullyLoaded();
     synchronized (entries) {
       boolean success = false;
+      _closeChannel();
 
       // 1. backing up current string table file if needed
       Path pathBackup = null;
@@ -1444,6 +1643,93 @@ private void _exportText(Path outFile, ProgressCallback callback) throws IOExcep
 
   // -------------------------- INNER CLASSES --------------------------
 
+  /** Decodes all pending string entries of a contiguous index range, splitting the work across available cores. */
+  private class BulkLoader extends RecursiveAction {
+    // Max. number of entries decoded by a single task
+    private static final int THRESHOLD = 4096;
+
+    private final ByteBuffer header;
+    private final byte[] stringData;
+    private final Charset charset;
+    private final CharsetDetector.CharLookup lookup;
+    private final ProgressCallback callback;
+    private final AtomicInteger processed;
+    private final AtomicBoolean cancelled;
+    private final AtomicReference<Exception> error;
+    private final int start;
+    private final int end;
+
+    public BulkLoader(byte[] stringData, int numEntries, ProgressCallback callback) {
+      this.header = Objects.requireNonNull(headerData);
+      this.stringData = stringData;
+      this.charset = getCharset();
+      this.lookup = CharsetDetector.getLookup();
+      this.callback = callback;
+      this.processed = new AtomicInteger();
+      this.cancelled = new AtomicBoolean();
+      this.error = new AtomicReference<>();
+      this.start = 0;
+      this.end = numEntries;
+    }
+
+    private BulkLoader(BulkLoader parent, int start, int end) {
+      this.header = parent.header;
+      this.stringData = parent.stringData;
+      this.charset = parent.charset;
+      this.lookup = parent.lookup;
+      this.callback = parent.callback;
+      this.processed = parent.processed;
+      this.cancelled = parent.cancelled;
+      this.error = parent.error;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    protected void compute() {
+      if (end - start > THRESHOLD) {
+        final int mid = (start + end) >>> 1;
+        final BulkLoader left = new BulkLoader(this, start, mid);
+        final BulkLoader right = new BulkLoader(this, mid, end);
+        invokeAll(left, right);
+        return;
+      }
+
+      if (cancelled.get() || error.get() != null) {
+        return;
+      }
+
+      entriesLock.readLock().lock();
+      try {
+        int loaded = 0;
+        for (int idx = start, cnt = Math.min(end, entries.size()); idx < cnt; idx++) {
+          if (entries.get(idx) == null) {
+            synchronized (_getEntryLock(idx)) {
+              if (entries.get(idx) == null) {
+                entries.set(idx, _decodeEntry(header, stringData, idx, charset, lookup));
+                loaded++;
+              }
+            }
+          }
+        }
+        entriesPending.addAndGet(-loaded);
+      } catch (Exception e) {
+        error.compareAndSet(null, e);
+      } finally {
+        entriesLock.readLock().unlock();
+      }
+
+      final int count = processed.addAndGet(end - start);
+      if (callback != null) {
+        synchronized (callback) {
+          if (!callback.progress(count)) {
+            cancelled.set(true);
+          }
+        }
+      }
+    }
+  }
+
   // Manages a single string entry
   public static class StringEntry extends AbstractStruct {
     // Default entry for non-existing indices
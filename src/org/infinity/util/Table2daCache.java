@@ -4,24 +4,35 @@
 
 package org.infinity.util;
 
-import java.util.HashMap;
-
 import org.infinity.resource.ResourceFactory;
 import org.infinity.resource.key.ResourceEntry;
 
 public class Table2daCache {
-  private static final HashMap<ResourceEntry, Table2da> MAP = new HashMap<>();
+  private static final LoadingCache<ResourceEntry, Table2da> CACHE = new LoadingCache<>("Table2daCache");
 
   /** Removes the specified 2DA resource from the cache. */
-  public static synchronized void cacheInvalid(ResourceEntry entry) {
-    if (entry != null) {
-      MAP.remove(entry);
-    }
+  public static void cacheInvalid(ResourceEntry entry) {
+    CACHE.remove(entry);
   }
 
   /** Removes all cached 2DA resources. */
-  public static synchronized void clearCache() {
-    MAP.clear();
+  public static void clearCache() {
+    CACHE.clear();
+  }
+
+  /** Returns the number of requests that could be served by an already cached 2DA resource. */
+  public static long getHitCount() {
+    return CACHE.getHitCount();
+  }
+
+  /** Returns the number of requests that required to load a 2DA resource. */
+  public static long getMissCount() {
+    return CACHE.getMissCount();
+  }
+
+  /** Returns the total time spent in loading 2DA resources, in nanoseconds. */
+  public static long getLoadTime() {
+    return CACHE.getLoadTime();
   }
 
   /**
@@ -41,7 +52,7 @@ public static boolean isCached(String resource) {
    * @return {@code true} if the resource has been cached, {@code false} otherwise.
    */
   public static boolean isCached(ResourceEntry entry) {
-    return (entry != null && MAP.containsKey(entry));
+    return CACHE.contains(entry);
   }
 
   /**
@@ -60,7 +71,7 @@ public static Table2da get(String resource) {
    * @param entry 2DA resource entry.
    * @return 2DA content as Table2da object or {@code null} on error.
    */
-  public static synchronized Table2da get(ResourceEntry entry) {
+  public static Table2da get(ResourceEntry entry) {
     return get(entry, true);
   }
 
@@ -71,18 +82,13 @@ public static synchronized Table2da get(ResourceEntry entry) {
    * @param strict Indicates whether a valid file signature check should be enforced.
    * @return 2DA content as Table2da object or {@code null} on error.
    */
-  public static synchronized Table2da get(ResourceEntry entry, boolean strict) {
+  public static Table2da get(ResourceEntry entry, boolean strict) {
     Table2da table = null;
     if (entry != null) {
-      table = MAP.get(entry);
-      if (table == null) {
-        table = new Table2da(entry, strict);
-        if (!table.isEmpty()) {
-          MAP.put(table.getResourceEntry(), table);
-        } else {
-          table = null;
-        }
-      }
+      table = CACHE.get(entry, e -> {
+        final Table2da t = new Table2da(e, strict);
+        return t.isEmpty() ? null : t;
+      });
     }
     return table;
   }
@@ -4,6 +4,7 @@
 
 package org.infinity.util;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
@@ -13,12 +14,20 @@
 import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A convenience class for performing multiple tasks in parallel.
+ * <p>
+ * Optionally, the number of pending tasks can be bounded. In this case task submission blocks until running tasks have
+ * completed, which allows producers to feed large numbers of tasks into the thread pool without polling. Completed
+ * tasks are counted and can be tracked by a completion handler. A thread pool can be cancelled at any time, which
+ * discards all pending tasks and unblocks waiting producers.
+ * </p>
  */
 public class Threading implements AutoCloseable {
   /** Controls the amount of threads to allocate by a new thread pool. */
@@ -68,6 +77,9 @@ public String toString() {
   /** Defines the total number of threads that can be executed in parallel on the current system. */
   public static final int MAX_THREADS_AVAILABLE = Runtime.getRuntime().availableProcessors();
 
+  /** Max. number of pending tasks per thread if task submission is bounded. */
+  public static final int PENDING_TASKS_PER_THREAD = 4;
+
   /** Contains the number of remaining threads for use by new thread pools. */
   private static final AtomicInteger THREADS_AVAILABLE = new AtomicInteger(MAX_THREADS_AVAILABLE);
 
@@ -78,6 +90,14 @@ public String toString() {
   private final ThreadPoolExecutor executor;
   private final int numThreads;
 
+  /** Limits the number of pending tasks if submission is bounded, {@code null} otherwise. */
+  private final Semaphore pendingPermits;
+  private final AtomicLong submittedCount = new AtomicLong();
+  private final AtomicLong completedCount = new AtomicLong();
+
+  private volatile boolean cancelled;
+  private volatile Runnable completionHandler;
+
   private boolean closed;
   private Object initialized;
   private Object released;
@@ -96,18 +116,32 @@ public Threading() {
    *                   pool.
    */
   public Threading(Priority priority) {
-    this(calculateThreadCount(priority));
+    this(calculateThreadCount(priority), false);
+  }
+
+  /**
+   * Initializes a new {@link Threading} object.
+   *
+   * @param priority {@link Priority} value that is used to calculate the optimal number of threads for this thread
+   *                   pool.
+   * @param bounded  Specify {@code true} to block task submission while {@link #PENDING_TASKS_PER_THREAD} tasks per
+   *                   thread are pending.
+   */
+  public Threading(Priority priority, boolean bounded) {
+    this(calculateThreadCount(priority), bounded);
   }
 
   /**
    * Initializes a new {@link Threading} object.
    *
    * @param numThreads Max. number of active threads.
+   * @param bounded    Whether task submission blocks while too many tasks are pending.
    * @throws IllegalArgumentException if <code>numThreads <= 0</code>.
    */
-  private Threading(int numThreads) {
+  private Threading(int numThreads, boolean bounded) {
     this.numThreads = getValidatedThreadCount(numThreads);
     this.executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(getThreadCount());
+    this.pendingPermits = bounded ? new Semaphore(getThreadCount() * PENDING_TASKS_PER_THREAD) : null;
     allocateThreads();
   }
 
@@ -120,6 +154,50 @@ public int getThreadCount() {
     return numThreads;
   }
 
+  /** Returns whether task submission blocks while too many tasks are pending. */
+  public boolean isBounded() {
+    return pendingPermits != null;
+  }
+
+  /** Returns the number of tasks submitted to this thread pool. */
+  public long getSubmittedTaskCount() {
+    return submittedCount.get();
+  }
+
+  /** Returns the number of tasks that have been executed, successfully or not. Cancelled tasks are not included. */
+  public long getCompletedTaskCount() {
+    return completedCount.get();
+  }
+
+  /**
+   * Sets a handler which is called whenever a task has been completed. The handler is invoked by the thread that
+   * executed the task.
+   *
+   * @param handler {@link Runnable} to call after task completion. Specify {@code null} to remove the handler.
+   */
+  public void setCompletionHandler(Runnable handler) {
+    this.completionHandler = handler;
+  }
+
+  /**
+   * Cancels this thread pool. Running tasks are interrupted, pending tasks are discarded, and further task submissions
+   * are rejected. Producers blocked by a bounded thread pool are released.
+   */
+  public void cancel() {
+    if (!cancelled) {
+      cancelled = true;
+      shutdownNow();
+      if (pendingPermits != null) {
+        pendingPermits.release(pendingPermits.getQueueLength() + 1);
+      }
+    }
+  }
+
+  /** Returns whether this thread pool has been cancelled. */
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
   /**
    * Returns {@code true} if the task list contains one or more entries.
    *
@@ -206,7 +284,12 @@ public void shutdown() {
    * not executed tasks, in order to permit termination in the presence of task dependencies.
    */
   public void shutdownNow() {
-    executor.shutdownNow();
+    for (final Runnable task : executor.shutdownNow()) {
+      // discarded tasks would never be marked as done otherwise
+      if (task instanceof Future<?>) {
+        ((Future<?>) task).cancel(false);
+      }
+    }
     releaseThreads();
     dispose();
   }
@@ -223,7 +306,13 @@ public void shutdownNow() {
    */
   public <T> Future<T> submit(Callable<T> task) {
     Objects.requireNonNull(task, "Task is null");
-    return registerFuture(executor.submit(task));
+    acquirePermit();
+    try {
+      return registerFuture(executor.submit(track(task, isBounded())));
+    } catch (RejectedExecutionException e) {
+      releasePermit();
+      throw e;
+    }
   }
 
   /**
@@ -239,7 +328,13 @@ public <T> Future<T> submit(Callable<T> task) {
    */
   public <T> Future<T> submit(Runnable task, T result) {
     Objects.requireNonNull(task, "Task is null");
-    return registerFuture(executor.submit(task, result));
+    acquirePermit();
+    try {
+      return registerFuture(executor.submit(track(task, isBounded()), result));
+    } catch (RejectedExecutionException e) {
+      releasePermit();
+      throw e;
+    }
   }
 
   /**
@@ -253,13 +348,23 @@ public <T> Future<T> submit(Runnable task, T result) {
    */
   public Future<?> submit(Runnable task) {
     Objects.requireNonNull(task, "Task is null");
-    return registerFuture(executor.submit(task));
+    acquirePermit();
+    try {
+      return registerFuture(executor.submit(track(task, isBounded())));
+    } catch (RejectedExecutionException e) {
+      releasePermit();
+      throw e;
+    }
   }
 
   public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
     Objects.requireNonNull(tasks, "Tasks collection is null");
 
-    final List<Future<T>> retVal = executor.invokeAll(tasks);
+    final List<Callable<T>> trackedTasks = new ArrayList<>(tasks.size());
+    for (final Callable<T> task : tasks) {
+      trackedTasks.add(track(Objects.requireNonNull(task, "Task is null"), false));
+    }
+    final List<Future<T>> retVal = executor.invokeAll(trackedTasks);
     for (final Future<T> future : retVal) {
       registerFuture(future);
     }
@@ -383,6 +488,76 @@ public String toString() {
     return "Threading [numThreads=" + numThreads + ", executor=" + executor + "]";
   }
 
+  /**
+   * Blocks until a new task can be submitted to a bounded thread pool.
+   *
+   * @throws RejectedExecutionException if the thread pool has been cancelled or the current thread is interrupted.
+   */
+  private void acquirePermit() {
+    if (cancelled) {
+      throw new RejectedExecutionException("Thread pool has been cancelled");
+    }
+    if (pendingPermits != null) {
+      try {
+        pendingPermits.acquire();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RejectedExecutionException(e);
+      }
+      if (cancelled) {
+        pendingPermits.release();
+        throw new RejectedExecutionException("Thread pool has been cancelled");
+      }
+    }
+    submittedCount.incrementAndGet();
+  }
+
+  /** Releases a permit acquired by {@link #acquirePermit()} for a task that could not be submitted. */
+  private void releasePermit() {
+    submittedCount.decrementAndGet();
+    if (pendingPermits != null) {
+      pendingPermits.release();
+    }
+  }
+
+  /** Called after a task has been executed. */
+  private void taskCompleted(boolean permit) {
+    completedCount.incrementAndGet();
+    if (permit) {
+      pendingPermits.release();
+    }
+    final Runnable handler = completionHandler;
+    if (handler != null) {
+      try {
+        handler.run();
+      } catch (Exception e) {
+        Logger.error(e);
+      }
+    }
+  }
+
+  /** Wraps the specified task to keep track of its completion. */
+  private Runnable track(Runnable task, boolean permit) {
+    return () -> {
+      try {
+        task.run();
+      } finally {
+        taskCompleted(permit);
+      }
+    };
+  }
+
+  /** Wraps the specified task to keep track of its completion. */
+  private <T> Callable<T> track(Callable<T> task, boolean permit) {
+    return () -> {
+      try {
+        return task.call();
+      } finally {
+        taskCompleted(permit);
+      }
+    };
+  }
+
   /**
    * Used internally to register new {@code Future} objects.
    *
@@ -392,7 +567,13 @@ public String toString() {
    */
   private <T, U extends Future<T>> U registerFuture(U future) {
     Objects.requireNonNull(future, "Future is null");
-    taskList.add(future);
+    synchronized (this) {
+      // bounded thread pools may process an unlimited number of tasks
+      if (pendingPermits != null && taskList.size() >= getThreadCount() * PENDING_TASKS_PER_THREAD * 4) {
+        dispose();
+      }
+      taskList.add(future);
+    }
     return future;
   }
 
@@ -88,17 +88,25 @@ public long skip(long n) throws IOException {
     if (n <= 0) {
       return 0;
     }
-    byte[] tmp = new byte[Math.min(1024, (int) n)];
-    int read = 0;
-    while (read < n) {
-      int remaining = Math.min(tmp.length, (int) n - read);
-      int n2 = read(tmp, 0, remaining);
-      if (n2 < 0) {
+    if (!isOpen()) {
+      throw new IOException("Stream not open");
+    }
+
+    // advancing buffer positions directly, no need to copy data
+    long skipped = 0;
+    while (skipped < n) {
+      ByteBuffer buf = getBuffer(true);
+      if (buf == null) {
+        break;
+      }
+      int remaining = (int) Math.min(buf.remaining(), n - skipped);
+      if (remaining <= 0) {
         break;
       }
-      read += n2;
+      buf.position(buf.position() + remaining);
+      skipped += remaining;
     }
-    return read;
+    return skipped;
   }
 
   @Override
@@ -0,0 +1,212 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.util.io;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.infinity.util.Logger;
+
+/**
+ * Caches the file listings of folders which are frequently searched for resource files, such as override folders.
+ * <p>
+ * Folders are listed on first access. Subsequent queries, including queries for non-existing files, are answered
+ * without accessing the filesystem. Folders on the default filesystem are monitored by a {@link WatchService} and
+ * their listings are discarded whenever the folder content changes. Folders on read-only filesystems (e.g. DLC
+ * archives) are cached permanently. Folders which can neither be monitored nor are read-only are not cached.
+ * </p>
+ */
+public class DirectoryCache {
+  // Folder path => (upper-cased file name => file path)
+  private static final ConcurrentHashMap<Path, Map<String, Path>> LISTINGS = new ConcurrentHashMap<>();
+  // Folder path => watch key of the folder
+  private static final ConcurrentHashMap<Path, WatchKey> WATCH_KEYS = new ConcurrentHashMap<>();
+
+  // Incremented whenever folder changes are reported
+  private static final AtomicLong MODIFICATIONS = new AtomicLong();
+
+  private static WatchService watchService;
+
+  /**
+   * Returns the first regular file of the specified name found in the listed folders.
+   *
+   * @param folders  List of folders to search in order.
+   * @param fileName Name of the file. Case is ignored.
+   * @return {@link Path} of the matching file. Returns {@code null} if the file does not exist in any of the folders.
+   */
+  public static Path query(List<Path> folders, String fileName) {
+    if (folders == null || fileName == null || fileName.isEmpty()) {
+      return null;
+    }
+
+    // file names containing path elements are not covered by the folder listings
+    if (fileName.indexOf('/') >= 0 || fileName.indexOf('\\') >= 0) {
+      final Path file = FileManager.query(folders, fileName);
+      return (file != null && FileEx.create(file).isFile()) ? file : null;
+    }
+
+    final String key = fileName.toUpperCase(Locale.ENGLISH);
+    for (final Path folder : folders) {
+      final Map<String, Path> listing = getListing(folder);
+      if (listing != null) {
+        final Path file = listing.get(key);
+        if (file != null) {
+          // file may have been deleted before the change was reported
+          if (FileEx.create(file).isFile()) {
+            return file;
+          }
+          invalidate(folder);
+        }
+      } else {
+        final Path file = FileManager.queryExisting(folder, fileName);
+        if (file != null && FileEx.create(file).isFile()) {
+          return file;
+        }
+      }
+    }
+    return null;
+  }
+
+  /** Discards the cached listing of the specified folder. It will be recreated on next access. */
+  public static void invalidate(Path folder) {
+    if (folder != null) {
+      LISTINGS.remove(folder);
+    }
+  }
+
+  /** Discards all cached folder listings and stops monitoring folders. */
+  public static synchronized void clearCache() {
+    LISTINGS.clear();
+    WATCH_KEYS.values().forEach(WatchKey::cancel);
+    WATCH_KEYS.clear();
+    if (watchService != null) {
+      try {
+        watchService.close();
+      } catch (IOException e) {
+        Logger.trace(e);
+      }
+      watchService = null;
+    }
+  }
+
+  /** Returns the number of currently cached folder listings. */
+  public static int getCachedFolderCount() {
+    return LISTINGS.size();
+  }
+
+  // Returns the cached listing of the folder, creates it if needed. Returns null if the folder can't be cached.
+  private static Map<String, Path> getListing(Path folder) {
+    Map<String, Path> listing = LISTINGS.get(folder);
+    if (listing == null) {
+      // watching must be set up before listing the folder to catch changes made in the meantime
+      if (!watch(folder)) {
+        return null;
+      }
+      final long modifications = MODIFICATIONS.get();
+      listing = createListing(folder);
+      final Map<String, Path> oldListing = LISTINGS.putIfAbsent(folder, listing);
+      if (oldListing != null) {
+        listing = oldListing;
+      } else if (modifications != MODIFICATIONS.get()) {
+        // listing may be outdated already
+        LISTINGS.remove(folder, listing);
+      }
+    }
+    return listing;
+  }
+
+  private static Map<String, Path> createListing(Path folder) {
+    final HashMap<String, Path> listing = new HashMap<>();
+    if (FileEx.create(folder).isDirectory()) {
+      try (DirectoryStream<Path> dstream = Files.newDirectoryStream(folder)) {
+        for (final Path file : dstream) {
+          if (FileEx.create(file).isFile()) {
+            // first match wins, similar to FileManager.query()
+            listing.putIfAbsent(file.getFileName().toString().toUpperCase(Locale.ENGLISH), file);
+          }
+        }
+      } catch (IOException e) {
+        Logger.warn(e, "Could not list folder content: {}", folder);
+      }
+    }
+    return listing;
+  }
+
+  // Ensures that the specified folder is monitored. Returns whether the folder listing can be cached.
+  private static synchronized boolean watch(Path folder) {
+    if (WATCH_KEYS.containsKey(folder) || FileManager.isReadOnly(folder)) {
+      return true;
+    }
+    if (!FileManager.isDefaultFileSystem(folder)) {
+      return false;
+    }
+
+    // non-existing folders are represented by empty listings until their parent folder changes
+    Path watchedFolder = folder;
+    if (!FileEx.create(folder).isDirectory()) {
+      watchedFolder = folder.getParent();
+      if (watchedFolder == null || !FileEx.create(watchedFolder).isDirectory()) {
+        return false;
+      }
+      if (WATCH_KEYS.containsKey(watchedFolder)) {
+        return true;
+      }
+    }
+
+    try {
+      if (watchService == null) {
+        watchService = FileSystems.getDefault().newWatchService();
+        final WatchService service = watchService;
+        final Thread watchThread = new Thread(() -> processEvents(service), "DirectoryCache-Watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+      }
+      final WatchKey key = watchedFolder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+          StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.OVERFLOW);
+      WATCH_KEYS.put(watchedFolder, key);
+      return true;
+    } catch (IOException | UnsupportedOperationException e) {
+      Logger.debug("Could not monitor folder {}: {}", watchedFolder, e.getMessage());
+    }
+    return false;
+  }
+
+  // Invalidates folder listings whenever changes are reported
+  private static void processEvents(WatchService service) {
+    try {
+      while (true) {
+        final WatchKey key = service.take();
+        key.pollEvents();
+        final Path folder = (Path) key.watchable();
+        MODIFICATIONS.incrementAndGet();
+        invalidate(folder);
+        // listings of non-existing subfolders
+        LISTINGS.keySet().removeIf(path -> folder.equals(path.getParent()));
+        if (!key.reset()) {
+          // folder is no longer accessible
+          WATCH_KEYS.remove(folder, key);
+        }
+      }
+    } catch (InterruptedException | ClosedWatchServiceException e) {
+      // watch service has been closed
+    }
+  }
+
+  private DirectoryCache() {
+  }
+}